@@ -5,7 +5,8 @@
 /**
  * Configuration properties class for centralizing application settings. Binds external
  * configuration properties with "app" prefix to strongly-typed configuration objects for JWT,
- * STOMP, upload, security, and OAuth2 settings.
+ * STOMP, upload, security, OAuth2, live board state, write-behind, membership cache, chat
+ * history, and action history retention settings.
  *
  * @author Sagi Menahem
  */
@@ -17,6 +18,16 @@ public class AppProperties {
     private final Upload upload = new Upload();
     private final Security security = new Security();
     private final Oauth2 oauth2 = new Oauth2();
+    private final BoardState boardState = new BoardState();
+    private final WriteBehind writeBehind = new WriteBehind();
+    private final MembershipCache membershipCache = new MembershipCache();
+    private final Chat chat = new Chat();
+    private final BoardSnapshot boardSnapshot = new BoardSnapshot();
+    private final BoardEvents boardEvents = new BoardEvents();
+    private final HistoryRetention historyRetention = new HistoryRetention();
+    private final Partitions partitions = new Partitions();
+    private final Thumbnails thumbnails = new Thumbnails();
+    private final Notifications notifications = new Notifications();
 
     public Jwt getJwt() {
         return jwt;
@@ -38,6 +49,46 @@ public Oauth2 getOauth2() {
         return oauth2;
     }
 
+    public BoardState getBoardState() {
+        return boardState;
+    }
+
+    public WriteBehind getWriteBehind() {
+        return writeBehind;
+    }
+
+    public MembershipCache getMembershipCache() {
+        return membershipCache;
+    }
+
+    public Chat getChat() {
+        return chat;
+    }
+
+    public BoardSnapshot getBoardSnapshot() {
+        return boardSnapshot;
+    }
+
+    public BoardEvents getBoardEvents() {
+        return boardEvents;
+    }
+
+    public HistoryRetention getHistoryRetention() {
+        return historyRetention;
+    }
+
+    public Partitions getPartitions() {
+        return partitions;
+    }
+
+    public Thumbnails getThumbnails() {
+        return thumbnails;
+    }
+
+    public Notifications getNotifications() {
+        return notifications;
+    }
+
     public static class Jwt {
 
         private String secretKey;
@@ -62,8 +113,23 @@ public void setExpirationHours(int expirationHours) {
 
     public static class Stomp {
 
+        private String brokerMode = "relay";
         private String brokerHost;
         private int brokerPort;
+        private boolean binaryFramesEnabled = true;
+        private boolean viewportFilteringEnabled = true;
+        private String slowConsumerPolicy = "coalesce";
+        private int sendQueueLimitBytes = 1024 * 1024;
+        private int sendQueueMaxBytes = 4 * 1024 * 1024;
+        private long sendTimeLimitMs = 10000;
+
+        public String getBrokerMode() {
+            return brokerMode;
+        }
+
+        public void setBrokerMode(String brokerMode) {
+            this.brokerMode = brokerMode;
+        }
 
         public String getBrokerHost() {
             return brokerHost;
@@ -80,6 +146,54 @@ public int getBrokerPort() {
         public void setBrokerPort(int brokerPort) {
             this.brokerPort = brokerPort;
         }
+
+        public boolean isBinaryFramesEnabled() {
+            return binaryFramesEnabled;
+        }
+
+        public void setBinaryFramesEnabled(boolean binaryFramesEnabled) {
+            this.binaryFramesEnabled = binaryFramesEnabled;
+        }
+
+        public boolean isViewportFilteringEnabled() {
+            return viewportFilteringEnabled;
+        }
+
+        public void setViewportFilteringEnabled(boolean viewportFilteringEnabled) {
+            this.viewportFilteringEnabled = viewportFilteringEnabled;
+        }
+
+        public String getSlowConsumerPolicy() {
+            return slowConsumerPolicy;
+        }
+
+        public void setSlowConsumerPolicy(String slowConsumerPolicy) {
+            this.slowConsumerPolicy = slowConsumerPolicy;
+        }
+
+        public int getSendQueueLimitBytes() {
+            return sendQueueLimitBytes;
+        }
+
+        public void setSendQueueLimitBytes(int sendQueueLimitBytes) {
+            this.sendQueueLimitBytes = sendQueueLimitBytes;
+        }
+
+        public int getSendQueueMaxBytes() {
+            return sendQueueMaxBytes;
+        }
+
+        public void setSendQueueMaxBytes(int sendQueueMaxBytes) {
+            this.sendQueueMaxBytes = sendQueueMaxBytes;
+        }
+
+        public long getSendTimeLimitMs() {
+            return sendTimeLimitMs;
+        }
+
+        public void setSendTimeLimitMs(long sendTimeLimitMs) {
+            this.sendTimeLimitMs = sendTimeLimitMs;
+        }
     }
 
     public static class Upload {
@@ -120,4 +234,375 @@ public void setFrontendBaseUrl(String frontendBaseUrl) {
             this.frontendBaseUrl = frontendBaseUrl;
         }
     }
+
+    public static class BoardState {
+
+        private int maxCachedBoards = 256;
+        private int maxHistoryEntries = 100;
+        private int maxBatchOperations = 500;
+        private long ownershipCheckIntervalMs = 5000;
+
+        public int getMaxCachedBoards() {
+            return maxCachedBoards;
+        }
+
+        public void setMaxCachedBoards(int maxCachedBoards) {
+            this.maxCachedBoards = maxCachedBoards;
+        }
+
+        public int getMaxHistoryEntries() {
+            return maxHistoryEntries;
+        }
+
+        public void setMaxHistoryEntries(int maxHistoryEntries) {
+            this.maxHistoryEntries = maxHistoryEntries;
+        }
+
+        public int getMaxBatchOperations() {
+            return maxBatchOperations;
+        }
+
+        public void setMaxBatchOperations(int maxBatchOperations) {
+            this.maxBatchOperations = maxBatchOperations;
+        }
+
+        public long getOwnershipCheckIntervalMs() {
+            return ownershipCheckIntervalMs;
+        }
+
+        public void setOwnershipCheckIntervalMs(long ownershipCheckIntervalMs) {
+            this.ownershipCheckIntervalMs = ownershipCheckIntervalMs;
+        }
+    }
+
+    public static class WriteBehind {
+
+        private int batchSize = 200;
+        private long flushIntervalMs = 50;
+        private long coalesceWindowMs = 500;
+        private int queueCapacity = 10000;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getFlushIntervalMs() {
+            return flushIntervalMs;
+        }
+
+        public void setFlushIntervalMs(long flushIntervalMs) {
+            this.flushIntervalMs = flushIntervalMs;
+        }
+
+        public long getCoalesceWindowMs() {
+            return coalesceWindowMs;
+        }
+
+        public void setCoalesceWindowMs(long coalesceWindowMs) {
+            this.coalesceWindowMs = coalesceWindowMs;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    public static class MembershipCache {
+
+        private int maxBoards = 1024;
+        private long ttlMs = 30000;
+        private String invalidation = "local";
+
+        public int getMaxBoards() {
+            return maxBoards;
+        }
+
+        public void setMaxBoards(int maxBoards) {
+            this.maxBoards = maxBoards;
+        }
+
+        public long getFrameTickMs() {
+            return frameTickMs;
+        }
+
+        public void setFrameTickMs(long frameTickMs) {
+            this.frameTickMs = frameTickMs;
+        }
+
+        public int getMaxFrameEvents() {
+            return maxFrameEvents;
+        }
+
+        public void setMaxFrameEvents(int maxFrameEvents) {
+            this.maxFrameEvents = maxFrameEvents;
+        }
+
+        public long getTtlMs() {
+            return ttlMs;
+        }
+
+        public void setTtlMs(long ttlMs) {
+            this.ttlMs = ttlMs;
+        }
+
+        public String getInvalidation() {
+            return invalidation;
+        }
+
+        public void setInvalidation(String invalidation) {
+            this.invalidation = invalidation;
+        }
+    }
+
+    public static class Chat {
+
+        private int pageSize = 50;
+        private int maxPageSize = 200;
+
+        public int getPageSize() {
+            return pageSize;
+        }
+
+        public void setPageSize(int pageSize) {
+            this.pageSize = pageSize;
+        }
+
+        public int getMaxPageSize() {
+            return maxPageSize;
+        }
+
+        public void setMaxPageSize(int maxPageSize) {
+            this.maxPageSize = maxPageSize;
+        }
+    }
+
+    public static class BoardSnapshot {
+
+        private int deltaThreshold = 200;
+        private long compactionIntervalMs = 30000;
+
+        public int getDeltaThreshold() {
+            return deltaThreshold;
+        }
+
+        public void setDeltaThreshold(int deltaThreshold) {
+            this.deltaThreshold = deltaThreshold;
+        }
+
+        public long getCompactionIntervalMs() {
+            return compactionIntervalMs;
+        }
+
+        public void setCompactionIntervalMs(long compactionIntervalMs) {
+            this.compactionIntervalMs = compactionIntervalMs;
+        }
+    }
+
+    public static class BoardEvents {
+
+        private int bufferSize = 1000;
+        private int maxBoards = 1024;
+        private long frameTickMs = 25;
+        private int maxFrameEvents = 50;
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public int getMaxBoards() {
+            return maxBoards;
+        }
+
+        public void setMaxBoards(int maxBoards) {
+            this.maxBoards = maxBoards;
+        }
+
+        public long getFrameTickMs() {
+            return frameTickMs;
+        }
+
+        public void setFrameTickMs(long frameTickMs) {
+            this.frameTickMs = frameTickMs;
+        }
+
+        public int getMaxFrameEvents() {
+            return maxFrameEvents;
+        }
+
+        public void setMaxFrameEvents(int maxFrameEvents) {
+            this.maxFrameEvents = maxFrameEvents;
+        }
+    }
+
+    public static class HistoryRetention {
+
+        private boolean enabled = true;
+        private int maxDepth = 1000;
+        private int maxAgeDays = 90;
+        private int batchSize = 1000;
+        private int maxBatchesPerRun = 50;
+        private long intervalMs = 600000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxDepth() {
+            return maxDepth;
+        }
+
+        public void setMaxDepth(int maxDepth) {
+            this.maxDepth = maxDepth;
+        }
+
+        public int getMaxAgeDays() {
+            return maxAgeDays;
+        }
+
+        public void setMaxAgeDays(int maxAgeDays) {
+            this.maxAgeDays = maxAgeDays;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxBatchesPerRun() {
+            return maxBatchesPerRun;
+        }
+
+        public void setMaxBatchesPerRun(int maxBatchesPerRun) {
+            this.maxBatchesPerRun = maxBatchesPerRun;
+        }
+
+        public long getIntervalMs() {
+            return intervalMs;
+        }
+
+        public void setIntervalMs(long intervalMs) {
+            this.intervalMs = intervalMs;
+        }
+    }
+
+    public static class Partitions {
+
+        private int monthsAhead = 3;
+        private long maintenanceIntervalMs = 86400000;
+        private int messageMaxAgeDays = 0;
+
+        public int getMonthsAhead() {
+            return monthsAhead;
+        }
+
+        public void setMonthsAhead(int monthsAhead) {
+            this.monthsAhead = monthsAhead;
+        }
+
+        public long getMaintenanceIntervalMs() {
+            return maintenanceIntervalMs;
+        }
+
+        public void setMaintenanceIntervalMs(long maintenanceIntervalMs) {
+            this.maintenanceIntervalMs = maintenanceIntervalMs;
+        }
+
+        public int getMessageMaxAgeDays() {
+            return messageMaxAgeDays;
+        }
+
+        public void setMessageMaxAgeDays(int messageMaxAgeDays) {
+            this.messageMaxAgeDays = messageMaxAgeDays;
+        }
+    }
+
+    public static class Thumbnails {
+
+        private boolean enabled = true;
+        private int maxSize = 400;
+        private long quietPeriodMs = 10000;
+        private long sweepIntervalMs = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public long getQuietPeriodMs() {
+            return quietPeriodMs;
+        }
+
+        public void setQuietPeriodMs(long quietPeriodMs) {
+            this.quietPeriodMs = quietPeriodMs;
+        }
+
+        public long getSweepIntervalMs() {
+            return sweepIntervalMs;
+        }
+
+        public void setSweepIntervalMs(long sweepIntervalMs) {
+            this.sweepIntervalMs = sweepIntervalMs;
+        }
+    }
+
+    public static class Notifications {
+
+        private int fanOutThreads = 4;
+        private int fanOutQueueCapacity = 1000;
+        private int fanOutChunkSize = 100;
+
+        public int getFanOutThreads() {
+            return fanOutThreads;
+        }
+
+        public void setFanOutThreads(int fanOutThreads) {
+            this.fanOutThreads = fanOutThreads;
+        }
+
+        public int getFanOutQueueCapacity() {
+            return fanOutQueueCapacity;
+        }
+
+        public void setFanOutQueueCapacity(int fanOutQueueCapacity) {
+            this.fanOutQueueCapacity = fanOutQueueCapacity;
+        }
+
+        public int getFanOutChunkSize() {
+            return fanOutChunkSize;
+        }
+
+        public void setFanOutChunkSize(int fanOutChunkSize) {
+            this.fanOutChunkSize = fanOutChunkSize;
+        }
+    }
 }
@@ -0,0 +1,40 @@
+package io.github.sagimenahem.synchboard.config;
+
+import jakarta.jms.ConnectionFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jms.config.DefaultJmsListenerContainerFactory;
+
+/**
+ * JMS configuration for broadcasting membership cache invalidations between backend nodes. Active
+ * only with {@code app.membership-cache.invalidation=broker}; the listener subscribes to a topic so
+ * every node receives every invalidation.
+ *
+ * @author Sagi Menahem
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.membership-cache.invalidation", havingValue = "broker")
+public class MembershipInvalidationConfig {
+
+    /** Topic carrying the IDs of boards whose membership changed */
+    public static final String TOPIC = "synchboard.membership.invalidations";
+    /** Bean name of the topic listener container factory */
+    public static final String LISTENER_FACTORY = "membershipInvalidationListenerFactory";
+
+    /**
+     * Creates the listener container factory for the invalidation topic.
+     *
+     * @param connectionFactory the broker connection factory
+     * @return a container factory subscribing to topics rather than queues
+     */
+    @Bean(LISTENER_FACTORY)
+    public DefaultJmsListenerContainerFactory membershipInvalidationListenerFactory(
+        ConnectionFactory connectionFactory
+    ) {
+        DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setPubSubDomain(true);
+        return factory;
+    }
+}
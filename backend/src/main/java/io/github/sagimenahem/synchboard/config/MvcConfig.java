@@ -1,11 +1,15 @@
 package io.github.sagimenahem.synchboard.config;
 
+import io.github.sagimenahem.synchboard.constants.FileConstants;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jspecify.annotations.NonNull;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistration;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -20,18 +24,26 @@
 @RequiredArgsConstructor
 public class MvcConfig implements WebMvcConfigurer {
 
+    /** Board thumbnail names change with every board version, so a cached thumbnail never goes stale */
+    private static final CacheControl THUMBNAIL_CACHE_CONTROL = CacheControl.maxAge(365, TimeUnit.DAYS).immutable();
+
     /** Application configuration properties */
     private final AppProperties appProperties;
 
     /**
      * Configures resource handlers for serving static files. Exposes the upload directory as
-     * web-accessible resources.
+     * web-accessible resources, with board thumbnails marked as cacheable for good.
      *
      * @param registry The resource handler registry to configure
      */
     @Override
     public void addResourceHandlers(@NonNull ResourceHandlerRegistry registry) {
         exposeDirectory("images", appProperties.getUpload().getDir(), registry);
+        exposeDirectory(
+            "images/" + FileConstants.THUMBNAILS_FOLDER,
+            Paths.get(appProperties.getUpload().getDir(), FileConstants.THUMBNAILS_FOLDER).toString(),
+            registry
+        ).setCacheControl(THUMBNAIL_CACHE_CONTROL);
     }
 
     /**
@@ -41,13 +53,21 @@ public void addResourceHandlers(@NonNull ResourceHandlerRegistry registry) {
      * @param urlPath The URL path pattern for web access
      * @param physicalPath The physical file system directory path
      * @param registry The resource handler registry to register with
+     * @return the registration, for further configuration
      */
-    private void exposeDirectory(String urlPath, String physicalPath, ResourceHandlerRegistry registry) {
+    private ResourceHandlerRegistration exposeDirectory(
+        String urlPath,
+        String physicalPath,
+        ResourceHandlerRegistry registry
+    ) {
         Path absolutePath = Paths.get(physicalPath).toAbsolutePath();
         String location = "file:///" + absolutePath.toString().replace("\\", "/") + "/";
 
-        registry.addResourceHandler("/" + urlPath + "/**").addResourceLocations(location);
+        ResourceHandlerRegistration registration = registry
+            .addResourceHandler("/" + urlPath + "/**")
+            .addResourceLocations(location);
 
         log.info("Exposing directory: {} at {}", urlPath, location);
+        return registration;
     }
 }
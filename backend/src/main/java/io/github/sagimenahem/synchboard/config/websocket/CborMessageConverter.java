@@ -0,0 +1,61 @@
+package io.github.sagimenahem.synchboard.config.websocket;
+
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.CBOR_CONTENT_TYPE;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.util.MimeType;
+import tools.jackson.core.JacksonException;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+/**
+ * Message converter for STOMP frames whose body is CBOR rather than JSON. Only applies to messages
+ * that explicitly carry the {@code application/cbor} content type, so JSON frames, and every
+ * message the application sends without a content type, keep going through the default JSON
+ * converter.
+ *
+ * @author Sagi Menahem
+ */
+public class CborMessageConverter extends AbstractMessageConverter {
+
+    private final CBORMapper cborMapper;
+
+    public CborMessageConverter(CBORMapper cborMapper) {
+        super(MimeType.valueOf(CBOR_CONTENT_TYPE));
+        setStrictContentTypeMatch(true);
+        this.cborMapper = cborMapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return true;
+    }
+
+    @Override
+    protected @Nullable Object convertFromInternal(
+        Message<?> message,
+        Class<?> targetClass,
+        @Nullable Object conversionHint
+    ) {
+        if (!(message.getPayload() instanceof byte[] body)) {
+            return null;
+        }
+        try {
+            return cborMapper.readValue(body, targetClass);
+        } catch (JacksonException e) {
+            throw new MessageConversionException(message, "Could not read CBOR message: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    @Override
+    protected @Nullable Object convertToInternal(
+        Object payload,
+        @Nullable MessageHeaders headers,
+        @Nullable Object conversionHint
+    ) {
+        return cborMapper.writeValueAsBytes(payload);
+    }
+}
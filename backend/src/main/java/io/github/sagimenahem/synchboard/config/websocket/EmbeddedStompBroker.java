@@ -0,0 +1,78 @@
+package io.github.sagimenahem.synchboard.config.websocket;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * ActiveMQ Artemis broker running inside the backend process, for
+ * {@code app.stomp.broker-mode=embedded}. It accepts STOMP on the loopback interface only, on
+ * {@code app.stomp.broker-port}, and the broker relay connects to it there exactly as it would to
+ * the external broker, so messaging behaves as in production without a broker container. Messages
+ * are kept in memory only and security is off; nothing outside the host can reach the broker.
+ *
+ * <p>
+ * Started when the bean is created, so it is listening before the relay connects on context
+ * refresh, and stopped after the relay on shutdown.
+ * </p>
+ *
+ * @author Sagi Menahem
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.stomp.broker-mode", havingValue = "embedded")
+public class EmbeddedStompBroker {
+
+    private final int port;
+    private final EmbeddedActiveMQ server = new EmbeddedActiveMQ();
+
+    public EmbeddedStompBroker(AppProperties appProperties) {
+        this.port = appProperties.getStomp().getBrokerPort();
+    }
+
+    /**
+     * Starts the broker.
+     *
+     * @throws Exception if Artemis fails to start, for example because the port is taken
+     */
+    @PostConstruct
+    public void start() throws Exception {
+        server.setConfiguration(configuration(port));
+        server.start();
+        log.info("Embedded STOMP broker listening on 127.0.0.1:{}", port);
+    }
+
+    /**
+     * Stops the broker, dropping every message still in memory.
+     *
+     * @throws Exception if Artemis fails to stop cleanly
+     */
+    @PreDestroy
+    public void stop() throws Exception {
+        server.stop();
+    }
+
+    private static Configuration configuration(int port) throws Exception {
+        Configuration configuration = new ConfigurationImpl()
+            .setPersistenceEnabled(false)
+            .setSecurityEnabled(false)
+            .setJMXManagementEnabled(false)
+            // Paging still needs a directory; keep it out of the working directory
+            .setBrokerInstance(brokerInstance());
+        configuration.addAcceptorConfiguration("stomp", "tcp://127.0.0.1:" + port + "?protocols=STOMP");
+        return configuration;
+    }
+
+    private static File brokerInstance() throws IOException {
+        return Files.createTempDirectory("synchboard-artemis").toFile();
+    }
+}
@@ -0,0 +1,283 @@
+package io.github.sagimenahem.synchboard.config.websocket;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.NonNull;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+/**
+ * The frames waiting to be written to one WebSocket session. Sending a frame only queues it; a
+ * virtual thread started for the session writes queued frames in order while there are any. When
+ * the session falls behind, {@link SlowConsumerGuard}'s policy is applied as frames are queued.
+ *
+ * <p>
+ * Dropped frames stay in the queue, marked, until the writer reaches them, so dropping one never
+ * searches the queue. Closing the session by the policy or the send time limit throws a
+ * {@link SessionLimitExceededException}, which makes the STOMP handler close it the way it closes
+ * sessions over Spring's own send limits.
+ * </p>
+ *
+ * @author Sagi Menahem
+ */
+@Slf4j
+final class SessionSendQueue extends WebSocketSessionDecorator {
+
+    private final SlowConsumerGuard guard;
+    private final Deque<Entry> queue = new ArrayDeque<>();
+    /** The queued OBJECT_UPDATE of each subscription and object, while behind under coalesce */
+    private final Map<String, Entry> updates = new HashMap<>();
+    private long queuedBytes;
+    /** When the frame being written was queued, or 0 while none is */
+    private long writingSince;
+    private boolean writing;
+    private boolean behind;
+    private boolean closed;
+
+    SessionSendQueue(WebSocketSession session, SlowConsumerGuard guard) {
+        super(session);
+        this.guard = guard;
+    }
+
+    @Override
+    public void sendMessage(@NonNull WebSocketMessage<?> message) throws IOException {
+        long now = System.nanoTime();
+        boolean startWriter = false;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            long oldest = oldestQueuedAt();
+            if (oldest != 0 && now - oldest > guard.sendTimeLimitNanos()) {
+                throw disconnect("a frame waited longer than the send time limit");
+            }
+
+            Entry entry = new Entry(message, now);
+            queue.addLast(entry);
+            queuedBytes += entry.size;
+            if (behind || queuedBytes > guard.queueLimitBytes()) {
+                applyPolicy(entry, now);
+            }
+            if (!writing) {
+                writing = true;
+                startWriter = true;
+            }
+        }
+        if (startWriter) {
+            try {
+                guard.writers().execute(this::write);
+            } catch (RejectedExecutionException e) {
+                // Shutting down: the container closes the session next
+                discard();
+            }
+        }
+    }
+
+    synchronized boolean isBehind() {
+        return behind;
+    }
+
+    synchronized long queuedBytes() {
+        return queuedBytes;
+    }
+
+    /**
+     * Drops every queued frame and queues no more. Called when the session is closed.
+     */
+    synchronized void discard() {
+        closed = true;
+        queue.clear();
+        updates.clear();
+        queuedBytes = 0;
+    }
+
+    private void applyPolicy(Entry entry, long now) {
+        boolean overLimit = queuedBytes > guard.queueLimitBytes();
+        boolean fellBehind = !behind;
+        if (fellBehind) {
+            behind = true;
+            guard.fellBehind(this, queuedBytes, queue.size());
+        }
+
+        switch (guard.policy()) {
+            case COALESCE:
+                if (fellBehind) {
+                    // Frames queued before the session fell behind were not described yet
+                    int dropped = 0;
+                    for (Entry queued : queue) {
+                        dropped += supersede(queued);
+                    }
+                    guard.coalesced(dropped);
+                } else {
+                    guard.coalesced(supersede(entry));
+                }
+                // Frames that never supersede one another, such as creations, still pile up
+                if (queuedBytes > guard.queueMaxBytes()) {
+                    resync(now);
+                }
+                break;
+            case RESYNC:
+                if (overLimit) {
+                    resync(now);
+                }
+                break;
+            case DISCONNECT:
+                throw disconnect("its send queue went over the limit");
+        }
+        if (queuedBytes > guard.queueMaxBytes()) {
+            throw disconnect("its send queue stayed over the hard limit after a resync");
+        }
+    }
+
+    /** Drops the queued update the given frame replaces, if any; returns the number dropped */
+    private int supersede(Entry entry) {
+        if (entry.dropped) {
+            return 0;
+        }
+        String key = entry.tag(guard).updateKey();
+        if (key == null) {
+            return 0;
+        }
+        Entry replaced = updates.put(key, entry);
+        if (replaced == null || replaced.dropped) {
+            return 0;
+        }
+        drop(replaced);
+        return 1;
+    }
+
+    /** Drops every queued board event and queues a resync update for each subscription affected */
+    private void resync(long now) {
+        Map<String, String> subscriptions = new LinkedHashMap<>();
+        int dropped = 0;
+        for (Entry queued : queue) {
+            SlowConsumerGuard.FrameTag tag = queued.dropped ? null : queued.tag(guard);
+            if (tag != null && tag.boardEvent()) {
+                drop(queued);
+                dropped++;
+                subscriptions.putIfAbsent(tag.subscriptionId(), tag.destination());
+            }
+        }
+        subscriptions.forEach((subscriptionId, destination) -> {
+            Entry resync = new Entry(guard.resyncFrame(subscriptionId, destination), now);
+            queue.addLast(resync);
+            queuedBytes += resync.size;
+        });
+        if (!subscriptions.isEmpty()) {
+            guard.resynced(this, subscriptions.size(), dropped);
+        }
+    }
+
+    private void drop(Entry entry) {
+        entry.dropped = true;
+        queuedBytes -= entry.size;
+    }
+
+    private SessionLimitExceededException disconnect(String reason) {
+        discard();
+        guard.disconnected(this, reason);
+        return new SessionLimitExceededException(
+            "Session " + getId() + " fell behind: " + reason,
+            CloseStatus.SESSION_NOT_RELIABLE
+        );
+    }
+
+    /** When the oldest frame not yet written was queued, or 0 if there is none */
+    private long oldestQueuedAt() {
+        if (writingSince != 0) {
+            return writingSince;
+        }
+        while (!queue.isEmpty() && queue.peekFirst().dropped) {
+            queue.pollFirst();
+        }
+        return queue.isEmpty() ? 0 : queue.peekFirst().queuedAt;
+    }
+
+    /** Writes queued frames until there are none; runs on the session's writer thread */
+    private void write() {
+        while (true) {
+            Entry entry;
+            synchronized (this) {
+                entry = next();
+                if (entry == null) {
+                    writing = false;
+                    writingSince = 0;
+                    if (queue.isEmpty()) {
+                        behind = false;
+                        updates.clear();
+                    }
+                    return;
+                }
+                writingSince = entry.queuedAt;
+            }
+
+            guard.waited(System.nanoTime() - entry.queuedAt);
+            try {
+                getDelegate().sendMessage(entry.message);
+            } catch (IOException | RuntimeException e) {
+                log.debug("Failed to write to WebSocket session {}: {}", getId(), e.getMessage());
+                discard();
+                closeQuietly();
+            }
+        }
+    }
+
+    /** Takes the next frame to write, skipping dropped ones; null once closed or empty */
+    private Entry next() {
+        if (closed) {
+            return null;
+        }
+        Entry entry;
+        do {
+            entry = queue.pollFirst();
+        } while (entry != null && entry.dropped);
+        if (entry != null) {
+            queuedBytes -= entry.size;
+            String key = entry.tag != null ? entry.tag.updateKey() : null;
+            if (key != null) {
+                updates.remove(key, entry);
+            }
+        }
+        return entry;
+    }
+
+    private void closeQuietly() {
+        try {
+            getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Failed to close WebSocket session {}: {}", getId(), e.getMessage());
+        }
+    }
+
+    private static final class Entry {
+
+        private final WebSocketMessage<?> message;
+        private final long queuedAt;
+        private final int size;
+        /** Described on first use, which only happens while the session is behind */
+        private SlowConsumerGuard.FrameTag tag;
+        private boolean dropped;
+
+        private Entry(WebSocketMessage<?> message, long queuedAt) {
+            this.message = message;
+            this.queuedAt = queuedAt;
+            this.size = message.getPayloadLength();
+        }
+
+        private SlowConsumerGuard.FrameTag tag(SlowConsumerGuard guard) {
+            if (tag == null) {
+                tag = guard.describe(message);
+            }
+            return tag;
+        }
+    }
+}
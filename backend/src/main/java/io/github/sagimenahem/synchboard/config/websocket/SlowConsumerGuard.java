@@ -0,0 +1,338 @@
+package io.github.sagimenahem.synchboard.config.websocket;
+
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.BOARD_SEQUENCE_HEADER;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import io.github.sagimenahem.synchboard.dto.websocket.BoardUpdateDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompDecoder;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+/**
+ * Keeps clients that cannot read as fast as the board changes from holding up anyone else. Every
+ * WebSocket session gets a {@link SessionSendQueue}: frames for the session are queued without
+ * blocking and written to the socket by a virtual thread of its own, so a slow socket only ever
+ * delays its own frames. Spring's per-session send buffer sits in front of the queue and stays
+ * empty.
+ *
+ * <p>
+ * A session is behind once its queue holds more than {@code app.stomp.send-queue-limit-bytes}, and
+ * stays behind until the queue has emptied. What happens then is set by
+ * {@code app.stomp.slow-consumer-policy}:
+ * </p>
+ * <ul>
+ * <li>{@code coalesce}: a queued OBJECT_UPDATE is dropped when a newer OBJECT_UPDATE of the same
+ * object is queued for the same subscription. Clients upsert whole objects, so only the newest
+ * state matters. Board frames, which carry several events, are never dropped. Frames that do not
+ * supersede one another can still pile up; once the queue holds more than
+ * {@code app.stomp.send-queue-max-bytes}, the session is resynced as under {@code resync}.</li>
+ * <li>{@code resync}: every queued board event is dropped, and each board subscription that lost
+ * events is sent a {@link BoardUpdateDTO.UpdateType#RESYNC_REQUIRED} update. Its client fetches the
+ * events it missed, one per object, as after a reconnect.</li>
+ * <li>{@code disconnect}: the session is closed. The client reconnects and catches up the same
+ * way.</li>
+ * </ul>
+ * <p>
+ * Whatever the policy, a session whose oldest frame has waited longer than
+ * {@code app.stomp.send-time-limit-ms} is closed, and so is one whose queue still holds more than
+ * {@code app.stomp.send-queue-max-bytes} after a resync. Frames are only decoded to find board events and
+ * object updates while their session is behind.
+ * </p>
+ *
+ * <p>
+ * The number of sessions behind ({@code synchboard.websocket.send-queue.behind}), the largest queue
+ * ({@code synchboard.websocket.send-queue.max-bytes}), the time frames wait before being written
+ * ({@code synchboard.websocket.send-queue.wait}) and what was done to sessions behind
+ * ({@code synchboard.websocket.slow-consumers}, by action) are recorded. A session falling behind
+ * is logged with its queue.
+ * </p>
+ *
+ * @author Sagi Menahem
+ */
+@Slf4j
+@Component
+public class SlowConsumerGuard implements WebSocketHandlerDecoratorFactory {
+
+    /** What to do with a session that is behind */
+    enum Policy {
+        COALESCE,
+        RESYNC,
+        DISCONNECT,
+    }
+
+    /**
+     * What a queued frame is, as far as the policies care: a board event delivered to a
+     * subscription, and for a single OBJECT_UPDATE the key of the object it replaces.
+     */
+    record FrameTag(boolean boardEvent, String subscriptionId, String destination, String updateKey) {
+        static final FrameTag NONE = new FrameTag(false, null, null, null);
+    }
+
+    private final Policy policy;
+    private final long queueLimitBytes;
+    private final long queueMaxBytes;
+    private final long sendTimeLimitNanos;
+    private final ObjectMapper objectMapper;
+    private final CBORMapper cborMapper = new CBORMapper();
+    private final StompDecoder stompDecoder = new StompDecoder();
+    private final StompEncoder stompEncoder = new StompEncoder();
+    private final byte[] resyncBody;
+    private final ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, SessionSendQueue> sessions = new ConcurrentHashMap<>();
+    private final Timer queueWait;
+    private final Counter coalesced;
+    private final Counter resynced;
+    private final Counter disconnected;
+
+    public SlowConsumerGuard(ObjectMapper objectMapper, MeterRegistry meterRegistry, AppProperties appProperties) {
+        AppProperties.Stomp stomp = appProperties.getStomp();
+        try {
+            this.policy = Policy.valueOf(stomp.getSlowConsumerPolicy().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException(
+                "Unknown app.stomp.slow-consumer-policy '" +
+                stomp.getSlowConsumerPolicy() +
+                "'; expected coalesce, resync or disconnect"
+            );
+        }
+        this.queueLimitBytes = stomp.getSendQueueLimitBytes();
+        this.queueMaxBytes = Math.max(stomp.getSendQueueMaxBytes(), queueLimitBytes);
+        this.sendTimeLimitNanos = TimeUnit.MILLISECONDS.toNanos(stomp.getSendTimeLimitMs());
+        this.objectMapper = objectMapper;
+        this.resyncBody = objectMapper.writeValueAsBytes(
+            new BoardUpdateDTO(BoardUpdateDTO.UpdateType.RESYNC_REQUIRED, null)
+        );
+
+        Gauge.builder("synchboard.websocket.send-queue.behind", sessions, (all) ->
+            all.values().stream().filter(SessionSendQueue::isBehind).count()
+        )
+            .description("WebSocket sessions whose send queue went over its limit and has not emptied since")
+            .register(meterRegistry);
+        Gauge.builder("synchboard.websocket.send-queue.max-bytes", sessions, (all) ->
+            all.values().stream().mapToLong(SessionSendQueue::queuedBytes).max().orElse(0)
+        )
+            .description("Bytes queued for the WebSocket session furthest behind")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        this.queueWait = Timer.builder("synchboard.websocket.send-queue.wait")
+            .description("Time a frame waited in its session's send queue before being written")
+            .register(meterRegistry);
+        // coalesced counts frames dropped, resynced subscriptions told to fetch, disconnected sessions
+        this.coalesced = slowConsumers(meterRegistry, "coalesced");
+        this.resynced = slowConsumers(meterRegistry, "resynced");
+        this.disconnected = slowConsumers(meterRegistry, "disconnected");
+    }
+
+    private static Counter slowConsumers(MeterRegistry meterRegistry, String action) {
+        return Counter.builder("synchboard.websocket.slow-consumers")
+            .tag("action", action)
+            .description("What was done to WebSocket sessions that fell behind")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Stops the writers. Sessions are closed by the container, which drops what is still queued.
+     */
+    @PreDestroy
+    public void shutdown() {
+        writers.shutdownNow();
+    }
+
+    @Override
+    public @NonNull WebSocketHandler decorate(@NonNull WebSocketHandler handler) {
+        return new QueueingHandler(handler);
+    }
+
+    Policy policy() {
+        return policy;
+    }
+
+    long queueLimitBytes() {
+        return queueLimitBytes;
+    }
+
+    long queueMaxBytes() {
+        return queueMaxBytes;
+    }
+
+    long sendTimeLimitNanos() {
+        return sendTimeLimitNanos;
+    }
+
+    ExecutorService writers() {
+        return writers;
+    }
+
+    void waited(long nanos) {
+        queueWait.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void fellBehind(SessionSendQueue queue, long bytes, int frames) {
+        log.warn(
+            "WebSocket session {} of {} is behind: {} bytes in {} frames queued; policy {}",
+            queue.getId(),
+            queue.getPrincipal() != null ? queue.getPrincipal().getName() : "anonymous",
+            bytes,
+            frames,
+            policy.name().toLowerCase(Locale.ROOT)
+        );
+    }
+
+    void coalesced(int frames) {
+        coalesced.increment(frames);
+    }
+
+    void resynced(SessionSendQueue queue, int subscriptions, int events) {
+        resynced.increment(subscriptions);
+        log.info(
+            "Dropped {} queued board events of WebSocket session {}; {} subscriptions resync",
+            events,
+            queue.getId(),
+            subscriptions
+        );
+    }
+
+    void disconnected(SessionSendQueue queue, String reason) {
+        disconnected.increment();
+        log.warn("Closing WebSocket session {}: {}", queue.getId(), reason);
+    }
+
+    /**
+     * Describes an encoded STOMP frame for the policies. Frames that are not board events, or
+     * cannot be read, are described as {@link FrameTag#NONE} and never dropped.
+     */
+    FrameTag describe(WebSocketMessage<?> message) {
+        ByteBuffer bytes;
+        if (message instanceof TextMessage text) {
+            bytes = ByteBuffer.wrap(text.asBytes());
+        } else if (message instanceof BinaryMessage binary) {
+            bytes = binary.getPayload().duplicate();
+        } else {
+            return FrameTag.NONE;
+        }
+
+        List<Message<byte[]>> frames = stompDecoder.decode(bytes);
+        if (frames.size() != 1) {
+            return FrameTag.NONE;
+        }
+        Message<byte[]> frame = frames.getFirst();
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(frame);
+        if (
+            accessor.getCommand() != StompCommand.MESSAGE ||
+            accessor.getSubscriptionId() == null ||
+            accessor.getFirstNativeHeader(BOARD_SEQUENCE_HEADER) == null
+        ) {
+            return FrameTag.NONE;
+        }
+
+        String updateKey = null;
+        JsonNode body = readBody(frame.getPayload(), accessor);
+        if (
+            body != null &&
+            "OBJECT_UPDATE".equals(body.path("type").asString(null)) &&
+            body.hasNonNull("instanceId")
+        ) {
+            updateKey = accessor.getSubscriptionId() + " " + body.get("instanceId").asString();
+        }
+        return new FrameTag(true, accessor.getSubscriptionId(), accessor.getDestination(), updateKey);
+    }
+
+    private JsonNode readBody(byte[] body, StompHeaderAccessor accessor) {
+        boolean binary =
+            accessor.getContentType() != null &&
+            accessor.getContentType().isCompatibleWith(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        try {
+            return binary ? cborMapper.readTree(body) : objectMapper.readTree(body);
+        } catch (JacksonException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Encodes the update telling one board subscription to fetch the events it missed.
+     */
+    TextMessage resyncFrame(String subscriptionId, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        accessor.setMessageId(UUID.randomUUID().toString());
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        Message<byte[]> frame = MessageBuilder.createMessage(resyncBody, accessor.getMessageHeaders());
+        return new TextMessage(stompEncoder.encode(frame));
+    }
+
+    /** Hands the STOMP handler each session's send queue instead of the session itself */
+    private final class QueueingHandler extends WebSocketHandlerDecorator {
+
+        private QueueingHandler(WebSocketHandler delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void afterConnectionEstablished(@NonNull WebSocketSession session) throws Exception {
+            SessionSendQueue queue = new SessionSendQueue(session, SlowConsumerGuard.this);
+            sessions.put(session.getId(), queue);
+            super.afterConnectionEstablished(queue);
+        }
+
+        @Override
+        public void handleMessage(@NonNull WebSocketSession session, @NonNull WebSocketMessage<?> message)
+            throws Exception {
+            super.handleMessage(queueOf(session), message);
+        }
+
+        @Override
+        public void handleTransportError(@NonNull WebSocketSession session, @NonNull Throwable exception)
+            throws Exception {
+            super.handleTransportError(queueOf(session), exception);
+        }
+
+        @Override
+        public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus closeStatus)
+            throws Exception {
+            SessionSendQueue queue = sessions.remove(session.getId());
+            if (queue != null) {
+                queue.discard();
+            }
+            super.afterConnectionClosed(queue != null ? queue : session, closeStatus);
+        }
+
+        private WebSocketSession queueOf(WebSocketSession session) {
+            SessionSendQueue queue = sessions.get(session.getId());
+            return queue != null ? queue : session;
+        }
+    }
+}
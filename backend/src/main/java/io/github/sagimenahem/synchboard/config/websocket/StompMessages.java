@@ -0,0 +1,91 @@
+package io.github.sagimenahem.synchboard.config.websocket;
+
+import java.util.Set;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+
+/**
+ * Reads and rewrites messages on the client channels whichever broker produced them. The broker
+ * relay hands the client outbound channel STOMP frames (MESSAGE, CONNECTED); the simple broker
+ * hands it generic messages (MESSAGE, CONNECT_ACK), which the STOMP endpoint only turns into frames
+ * after the channel interceptors have run. Interceptors that look at STOMP commands and native
+ * headers use these helpers to treat both alike.
+ *
+ * @author Sagi Menahem
+ */
+final class StompMessages {
+
+    private StompMessages() {}
+
+    /**
+     * Returns the headers of a client channel message, or null if it has none to inspect.
+     */
+    static SimpMessageHeaderAccessor accessorOf(Message<?> message) {
+        return MessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+    }
+
+    /**
+     * Returns the STOMP command a message is or will be sent as: its own for a STOMP frame, MESSAGE
+     * or CONNECTED for the simple broker's deliveries and connect acknowledgements, null otherwise.
+     */
+    static StompCommand commandOf(SimpMessageHeaderAccessor accessor) {
+        if (accessor instanceof StompHeaderAccessor stomp) {
+            return stomp.getCommand();
+        }
+        SimpMessageType type = accessor.getMessageType();
+        if (type == SimpMessageType.MESSAGE) {
+            return StompCommand.MESSAGE;
+        }
+        return type == SimpMessageType.CONNECT_ACK ? StompCommand.CONNECTED : null;
+    }
+
+    /**
+     * Returns a mutable STOMP copy of the headers of a message being delivered to a subscription,
+     * with the command and message ID the STOMP endpoint would otherwise add itself.
+     */
+    static StompHeaderAccessor wrapMessage(Message<?> message) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        if (accessor.getCommand() == null) {
+            accessor.updateStompCommandAsServerMessage();
+        }
+        return accessor;
+    }
+
+    /**
+     * Returns a mutable STOMP copy of the headers of a connect acknowledgement, as a CONNECTED
+     * frame. The simple broker's acknowledgements are converted the way the STOMP endpoint converts
+     * them: the version is the highest one the client accepts, the heartbeat the broker's.
+     */
+    static StompHeaderAccessor wrapConnected(Message<?> message, SimpMessageHeaderAccessor accessor) {
+        if (accessor instanceof StompHeaderAccessor) {
+            return StompHeaderAccessor.wrap(message);
+        }
+
+        StompHeaderAccessor connected = StompHeaderAccessor.create(StompCommand.CONNECTED);
+        connected.setSessionId(accessor.getSessionId());
+        connected.setUser(accessor.getUser());
+        Message<?> connect = (Message<?>) accessor.getHeader(SimpMessageHeaderAccessor.CONNECT_MESSAGE_HEADER);
+        StompHeaderAccessor connectHeaders = connect != null
+            ? MessageHeaderAccessor.getAccessor(connect, StompHeaderAccessor.class)
+            : null;
+        if (connectHeaders != null) {
+            Set<String> acceptVersions = connectHeaders.getAcceptVersion();
+            if (acceptVersions.contains("1.2")) {
+                connected.setVersion("1.2");
+            } else if (acceptVersions.contains("1.1")) {
+                connected.setVersion("1.1");
+            }
+        }
+        long[] heartbeat = (long[]) accessor.getHeader(SimpMessageHeaderAccessor.HEART_BEAT_HEADER);
+        if (heartbeat != null) {
+            connected.setHeartbeat(heartbeat[0], heartbeat[1]);
+        } else {
+            connected.setHeartbeat(0, 0);
+        }
+        return connected;
+    }
+}
@@ -0,0 +1,223 @@
+package io.github.sagimenahem.synchboard.config.websocket;
+
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.BOARD_FRAME_HEADER;
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.BOARD_SEQUENCE_HEADER;
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.OBJECT_BATCH_HEADER;
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.OBJECT_BOUNDS_HEADER;
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.OBJECT_INSTANCE_HEADER;
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.RESUME_SEQUENCE_HEADER;
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.WEBSOCKET_BOARD_TOPIC_PREFIX;
+
+import io.github.sagimenahem.synchboard.service.board.BoardViewportRegistry;
+import io.github.sagimenahem.synchboard.service.board.state.BoundingBox;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.node.ArrayNode;
+
+/**
+ * Holds back object broadcasts from board subscribers whose viewport they do not affect. The
+ * decision is made by {@link BoardViewportRegistry} from the object headers every OBJECT_ADD,
+ * OBJECT_UPDATE and OBJECT_DELETE broadcast carries, so the message body is never parsed. The
+ * headers are removed from every message that is delivered. OBJECT_BATCH broadcasts are always
+ * delivered, and reported to the registry. Sequenced board messages delivered to a
+ * subscription with held-back changes also get the sequence number its client should resume from.
+ *
+ * <p>
+ * A board frame is decided event by event from its {@code board-frame} header. It is dropped if
+ * none of its events are admitted, and delivered unchanged if all are; only a frame that loses some
+ * of its events has its body parsed, to remove them.
+ * </p>
+ *
+ * <p>
+ * Registered on both the client inbound channel (SUBSCRIBE, UNSUBSCRIBE, DISCONNECT), to know
+ * which subscriptions are board subscriptions, and the client outbound channel (MESSAGE), ahead of
+ * the wire format interceptor so dropped messages are never re-encoded. The simple broker's
+ * deliveries are filtered like the relay's MESSAGE frames (see {@link StompMessages}).
+ * </p>
+ *
+ * @author Sagi Menahem
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ViewportFilterInterceptor implements ChannelInterceptor {
+
+    private final BoardViewportRegistry boardViewportRegistry;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = StompMessages.accessorOf(message);
+        if (accessor == null) {
+            return message;
+        }
+        StompCommand command = StompMessages.commandOf(accessor);
+        String sessionId = accessor.getSessionId();
+        if (command == null || sessionId == null) {
+            return message;
+        }
+
+        switch (command) {
+            case SUBSCRIBE:
+                Long boardId = boardIdOf(accessor.getDestination());
+                if (boardId != null && accessor.getSubscriptionId() != null) {
+                    boardViewportRegistry.subscribed(sessionId, accessor.getSubscriptionId(), boardId);
+                }
+                return message;
+            case UNSUBSCRIBE:
+                if (accessor.getSubscriptionId() != null) {
+                    boardViewportRegistry.unsubscribed(sessionId, accessor.getSubscriptionId());
+                }
+                return message;
+            case DISCONNECT:
+                boardViewportRegistry.disconnected(sessionId);
+                return message;
+            case MESSAGE:
+                return filter(message, accessor, sessionId);
+            default:
+                return message;
+        }
+    }
+
+    private Message<?> filter(Message<?> message, SimpMessageHeaderAccessor accessor, String sessionId) {
+        String subscriptionId = accessor.getSubscriptionId();
+        String sequence = accessor.getFirstNativeHeader(BOARD_SEQUENCE_HEADER);
+        if (sequence == null || subscriptionId == null) {
+            return message;
+        }
+
+        String frame = accessor.getFirstNativeHeader(BOARD_FRAME_HEADER);
+        if (frame != null) {
+            return filterFrame(message, frame, sessionId, subscriptionId, parseSequence(sequence));
+        }
+
+        String instanceId = accessor.getFirstNativeHeader(OBJECT_INSTANCE_HEADER);
+        boolean batch = accessor.getFirstNativeHeader(OBJECT_BATCH_HEADER) != null;
+        if (batch) {
+            boardViewportRegistry.batchDelivered(sessionId, subscriptionId);
+        } else if (instanceId != null) {
+            BoundingBox box = parseBounds(accessor.getFirstNativeHeader(OBJECT_BOUNDS_HEADER));
+            if (!boardViewportRegistry.admit(sessionId, subscriptionId, instanceId, box, parseSequence(sequence))) {
+                return null;
+            }
+        }
+
+        Long resumeSequence = boardViewportRegistry.resumeSequence(sessionId, subscriptionId);
+        if (instanceId == null && !batch && resumeSequence == null) {
+            return message;
+        }
+        return deliver(message, message.getPayload(), resumeSequence);
+    }
+
+    /**
+     * Admits the events of a board frame one by one. The frame's events are consecutive, the last
+     * one numbered {@code sequence}.
+     */
+    private Message<?> filterFrame(
+        Message<?> message,
+        String frame,
+        String sessionId,
+        String subscriptionId,
+        long sequence
+    ) {
+        String[] events = frame.split(";", -1);
+        long first = sequence - events.length + 1;
+        List<Integer> heldBack = new ArrayList<>();
+        for (int i = 0; i < events.length; i++) {
+            String event = events[i];
+            if (event.isEmpty()) {
+                continue;
+            }
+            if (event.equals("*")) {
+                boardViewportRegistry.batchDelivered(sessionId, subscriptionId);
+                continue;
+            }
+            int space = event.indexOf(' ');
+            String instanceId = URLDecoder.decode(
+                space < 0 ? event : event.substring(0, space),
+                StandardCharsets.UTF_8
+            );
+            BoundingBox box = space < 0 ? null : parseBounds(event.substring(space + 1));
+            if (!boardViewportRegistry.admit(sessionId, subscriptionId, instanceId, box, first + i)) {
+                heldBack.add(i);
+            }
+        }
+        if (heldBack.size() == events.length) {
+            return null;
+        }
+
+        Object payload = message.getPayload();
+        if (!heldBack.isEmpty() && payload instanceof byte[] json) {
+            try {
+                ArrayNode body = (ArrayNode) objectMapper.readTree(json);
+                for (int index : heldBack.reversed()) {
+                    body.remove(index);
+                }
+                payload = objectMapper.writeValueAsBytes(body);
+            } catch (JacksonException | ClassCastException e) {
+                // The client upserts every object change, so the extra events cost only bandwidth
+                log.warn("Could not remove held-back events from board frame: {}", e.getMessage());
+            }
+        }
+        return deliver(message, payload, boardViewportRegistry.resumeSequence(sessionId, subscriptionId));
+    }
+
+    private static Message<?> deliver(Message<?> message, Object payload, Long resumeSequence) {
+        StompHeaderAccessor delivered = StompMessages.wrapMessage(message);
+        delivered.removeNativeHeader(OBJECT_INSTANCE_HEADER);
+        delivered.removeNativeHeader(OBJECT_BOUNDS_HEADER);
+        delivered.removeNativeHeader(OBJECT_BATCH_HEADER);
+        delivered.removeNativeHeader(BOARD_FRAME_HEADER);
+        if (payload != message.getPayload() && payload instanceof byte[] body) {
+            delivered.setContentLength(body.length);
+        }
+        if (resumeSequence != null) {
+            delivered.setNativeHeader(RESUME_SEQUENCE_HEADER, String.valueOf(resumeSequence));
+        }
+        return MessageBuilder.createMessage(payload, delivered.getMessageHeaders());
+    }
+
+    private static BoundingBox parseBounds(String bounds) {
+        try {
+            return bounds != null ? BoundingBox.parse(bounds) : null;
+        } catch (IllegalArgumentException e) {
+            log.warn("Object broadcast has unreadable bounds '{}'; treating it as the whole canvas", bounds);
+            return BoundingBox.CANVAS;
+        }
+    }
+
+    private static long parseSequence(String sequence) {
+        try {
+            return Long.parseLong(sequence);
+        } catch (NumberFormatException e) {
+            // Resuming from before the first event makes a reconnecting client reload the board
+            return 0;
+        }
+    }
+
+    private static Long boardIdOf(String destination) {
+        if (destination == null || !destination.startsWith(WEBSOCKET_BOARD_TOPIC_PREFIX)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(destination.substring(WEBSOCKET_BOARD_TOPIC_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
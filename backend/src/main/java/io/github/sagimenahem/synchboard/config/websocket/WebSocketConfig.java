@@ -3,23 +3,30 @@
 import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.*;
 
 import io.github.sagimenahem.synchboard.config.AppProperties;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.jspecify.annotations.NonNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+import tools.jackson.dataformat.cbor.CBORMapper;
 
 /**
- * WebSocket configuration for real-time collaborative features. Configures STOMP broker relay using
- * ActiveMQ, message routing, JWT authentication, and connection settings for real-time board
- * collaboration and chat functionality.
+ * WebSocket configuration for real-time collaborative features. Configures the STOMP message broker
+ * (a relay to ActiveMQ, an embedded ActiveMQ, or Spring's simple broker), message routing, JWT
+ * authentication, and connection settings for real-time board collaboration and chat functionality.
  *
  * @author Sagi Menahem
  */
@@ -29,6 +36,9 @@
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final JwtChannelInterceptor jwtChannelInterceptor;
+    private final WireFormatInterceptor wireFormatInterceptor;
+    private final ViewportFilterInterceptor viewportFilterInterceptor;
+    private final SlowConsumerGuard slowConsumerGuard;
     private final AppProperties appProperties;
 
     @Value("${spring.activemq.user}")
@@ -37,57 +47,133 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Value("${spring.activemq.password}")
     private String brokerPassword;
 
+    /** Sends the simple broker's heartbeats; created by Spring from this configuration, hence lazy */
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    @Autowired
+    public void setMessageBrokerTaskScheduler(
+        @Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler messageBrokerTaskScheduler
+    ) {
+        this.messageBrokerTaskScheduler = messageBrokerTaskScheduler;
+    }
+
     /**
-     * Configures the STOMP message broker to use external ActiveMQ broker relay. Sets up broker
-     * connection parameters, authentication credentials, heartbeat intervals, and application
-     * destination prefixes for real-time message routing.
+     * Configures the STOMP message broker selected by {@code app.stomp.broker-mode}:
+     * <ul>
+     * <li>{@code relay} relays to the external ActiveMQ broker, with its credentials and system
+     * heartbeats</li>
+     * <li>{@code embedded} relays the same way to the {@link EmbeddedStompBroker} in this process,
+     * over the loopback interface</li>
+     * <li>{@code simple} uses Spring's in-memory broker, which needs no broker at all but only
+     * reaches the clients connected to this node</li>
+     * </ul>
+     * In every mode, messages to one session are sent in the order the broker delivered them, so
+     * each client sees a board's events in sequence order.
      *
      * @param config the message broker registry to configure
      */
     @Override
     public void configureMessageBroker(@NonNull MessageBrokerRegistry config) {
-        config
-            .enableStompBrokerRelay(WEBSOCKET_TOPIC_PREFIX)
-            .setRelayHost(appProperties.getStomp().getBrokerHost())
-            .setRelayPort(appProperties.getStomp().getBrokerPort())
-            .setClientLogin(brokerUser)
-            .setClientPasscode(brokerPassword)
-            .setSystemLogin(brokerUser)
-            .setSystemPasscode(brokerPassword)
-            .setSystemHeartbeatSendInterval(WEBSOCKET_HEARTBEAT_INTERVAL_MS)
-            .setSystemHeartbeatReceiveInterval(WEBSOCKET_HEARTBEAT_INTERVAL_MS)
-            .setVirtualHost("/");
+        String brokerMode = appProperties.getStomp().getBrokerMode();
+        switch (brokerMode) {
+            case "relay":
+                config
+                    .enableStompBrokerRelay(WEBSOCKET_TOPIC_PREFIX)
+                    .setRelayHost(appProperties.getStomp().getBrokerHost())
+                    .setRelayPort(appProperties.getStomp().getBrokerPort())
+                    .setClientLogin(brokerUser)
+                    .setClientPasscode(brokerPassword)
+                    .setSystemLogin(brokerUser)
+                    .setSystemPasscode(brokerPassword)
+                    .setSystemHeartbeatSendInterval(WEBSOCKET_HEARTBEAT_INTERVAL_MS)
+                    .setSystemHeartbeatReceiveInterval(WEBSOCKET_HEARTBEAT_INTERVAL_MS)
+                    .setVirtualHost("/");
+                break;
+            case "embedded":
+                // The embedded broker runs without security, so the relay's default login is accepted
+                config
+                    .enableStompBrokerRelay(WEBSOCKET_TOPIC_PREFIX)
+                    .setRelayHost(appProperties.getStomp().getBrokerHost())
+                    .setRelayPort(appProperties.getStomp().getBrokerPort())
+                    .setSystemHeartbeatSendInterval(WEBSOCKET_HEARTBEAT_INTERVAL_MS)
+                    .setSystemHeartbeatReceiveInterval(WEBSOCKET_HEARTBEAT_INTERVAL_MS)
+                    .setVirtualHost("/");
+                break;
+            case "simple":
+                config
+                    .enableSimpleBroker(WEBSOCKET_TOPIC_PREFIX)
+                    .setHeartbeatValue(new long[] { WEBSOCKET_HEARTBEAT_INTERVAL_MS, WEBSOCKET_HEARTBEAT_INTERVAL_MS })
+                    .setTaskScheduler(messageBrokerTaskScheduler);
+                break;
+            default:
+                throw new IllegalStateException(
+                    "Unknown app.stomp.broker-mode '" + brokerMode + "'; expected relay, embedded or simple"
+                );
+        }
 
         config.setApplicationDestinationPrefixes(WEBSOCKET_APP_PREFIX);
+        config.setPreservePublishOrder(true);
     }
 
     /**
      * Registers STOMP WebSocket endpoint for client connections using native WebSocket. Configures
      * CORS allowed origins for cross-origin WebSocket connections. Native WebSocket is supported by
      * all modern browsers (95%+ coverage) and provides better performance than SockJS fallbacks.
+     * Messages from one session are handled in the order they were received, so a client's draw
+     * actions reach the board's persistence lane in the order it sent them.
      *
      * @param registry the STOMP endpoint registry to configure
      */
     @Override
     public void registerStompEndpoints(@NonNull StompEndpointRegistry registry) {
         registry.addEndpoint(WEBSOCKET_ENDPOINT).setAllowedOrigins(appProperties.getSecurity().getAllowedOrigins());
+        registry.setPreserveReceiveOrder(true);
     }
 
     /**
      * Configures client inbound channel with JWT authentication interceptor. Adds security layer
      * to validate JWT tokens for all incoming WebSocket messages and ensure authenticated access.
+     * The wire format interceptor records which sessions asked for CBOR frames, the viewport
+     * filter which subscriptions are board subscriptions.
      *
      * @param registration the channel registration to configure with interceptors
      */
     @Override
     public void configureClientInboundChannel(@NonNull ChannelRegistration registration) {
-        registration.interceptors(jwtChannelInterceptor);
+        registration.interceptors(jwtChannelInterceptor, wireFormatInterceptor, viewportFilterInterceptor);
+    }
+
+    /**
+     * Configures the client outbound channel with the viewport filter, which drops object changes
+     * a session's viewport does not need, and the wire format interceptor, which re-encodes
+     * messages as CBOR for sessions that negotiated it at CONNECT.
+     *
+     * @param registration the channel registration to configure with interceptors
+     */
+    @Override
+    public void configureClientOutboundChannel(@NonNull ChannelRegistration registration) {
+        registration.interceptors(viewportFilterInterceptor, wireFormatInterceptor);
+    }
+
+    /**
+     * Adds a CBOR converter ahead of the default converters. It only handles frames sent with the
+     * application/cbor content type, so JSON frames are converted exactly as before.
+     *
+     * @param messageConverters the converter list to add to
+     * @return true, to keep the default converters
+     */
+    @Override
+    public boolean configureMessageConverters(@NonNull List<MessageConverter> messageConverters) {
+        messageConverters.add(new CborMessageConverter(new CBORMapper()));
+        return true;
     }
 
     /**
      * Configures WebSocket transport settings including message size and buffer limits. Sets
      * maximum message size and send buffer limits to prevent excessive memory usage and ensure
-     * stable performance under load.
+     * stable performance under load. Each session's frames are queued by the slow consumer guard,
+     * which writes them without blocking the outbound channel and decides what to do with sessions
+     * that fall behind.
      *
      * @param registration the WebSocket transport registration to configure
      */
@@ -95,6 +181,7 @@ public void configureClientInboundChannel(@NonNull ChannelRegistration registrat
     public void configureWebSocketTransport(@NonNull WebSocketTransportRegistration registration) {
         registration.setMessageSizeLimit(WEBSOCKET_MESSAGE_SIZE_LIMIT);
         registration.setSendBufferSizeLimit(WEBSOCKET_SEND_BUFFER_SIZE_LIMIT);
+        registration.addDecoratorFactory(slowConsumerGuard);
     }
 
     /**
@@ -0,0 +1,155 @@
+package io.github.sagimenahem.synchboard.config.websocket;
+
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.CBOR_FRAME_CONTENT_TYPE;
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.WIRE_FORMAT_CBOR;
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.WIRE_FORMAT_HEADER;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+/**
+ * Negotiates the wire format of each WebSocket session. A client that sends
+ * {@code wire-format: cbor} on CONNECT gets the header echoed on CONNECTED and from then on
+ * receives every JSON message body re-encoded as CBOR, in a binary WebSocket frame. Its own SEND
+ * frames may then carry CBOR bodies with the {@code application/cbor} content type, which
+ * {@link CborMessageConverter} reads. Sessions that never ask keep plain JSON text frames.
+ *
+ * <p>
+ * Broadcasts are published to the broker as JSON once and delivered to every subscriber, so the
+ * re-encoding happens on the way out. A broadcast reaches this interceptor once per subscribed
+ * session, so the last few encodings are kept by JSON body: the first CBOR session to receive a
+ * broadcast pays for parsing and encoding it, and the rest only for hashing and comparing the
+ * body. The simple broker hands every session the same body array; the relay decodes a copy per
+ * session, which compares equal. CBOR stores the float-heavy point arrays of freehand strokes as
+ * fixed 9-byte numbers instead of up to 20 characters of text, and drops the quotes and separators
+ * around every key.
+ * </p>
+ *
+ * <p>
+ * Registered on both the client inbound channel (CONNECT, DISCONNECT) and the client outbound
+ * channel (CONNECTED, MESSAGE). With the simple broker, the outbound messages are its connect
+ * acknowledgements and deliveries, handled like the frames the relay produces (see
+ * {@link StompMessages}).
+ * </p>
+ *
+ * @author Sagi Menahem
+ */
+@Slf4j
+@Component
+public class WireFormatInterceptor implements ChannelInterceptor {
+
+    private static final MimeType CBOR_FRAME_MIME_TYPE = MimeType.valueOf(CBOR_FRAME_CONTENT_TYPE);
+    /** Slots of the encoding cache; broadcasts in flight at once rarely come near it */
+    private static final int ENCODED_SLOTS = 64;
+
+    private final ObjectMapper objectMapper;
+    private final CBORMapper cborMapper = new CBORMapper();
+    private final boolean enabled;
+    /** Sessions that negotiated CBOR */
+    private final Set<String> cborSessions = ConcurrentHashMap.newKeySet();
+    /** Recent encodings, each in the slot its JSON body hashes to, replaced by the next one there */
+    private final AtomicReferenceArray<Encoded> encoded = new AtomicReferenceArray<>(ENCODED_SLOTS);
+
+    public WireFormatInterceptor(ObjectMapper objectMapper, AppProperties appProperties) {
+        this.objectMapper = objectMapper;
+        this.enabled = appProperties.getStomp().isBinaryFramesEnabled();
+    }
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = StompMessages.accessorOf(message);
+        if (accessor == null) {
+            return message;
+        }
+        StompCommand command = StompMessages.commandOf(accessor);
+        String sessionId = accessor.getSessionId();
+        if (command == null || sessionId == null) {
+            return message;
+        }
+
+        switch (command) {
+            case CONNECT:
+            case STOMP:
+                if (enabled && WIRE_FORMAT_CBOR.equalsIgnoreCase(accessor.getFirstNativeHeader(WIRE_FORMAT_HEADER))) {
+                    cborSessions.add(sessionId);
+                    log.debug("WebSocket session {} negotiated CBOR frames", sessionId);
+                }
+                return message;
+            case DISCONNECT:
+                cborSessions.remove(sessionId);
+                return message;
+            case CONNECTED:
+                if (!cborSessions.contains(sessionId)) {
+                    return message;
+                }
+                StompHeaderAccessor connected = StompMessages.wrapConnected(message, accessor);
+                connected.setNativeHeader(WIRE_FORMAT_HEADER, WIRE_FORMAT_CBOR);
+                return MessageBuilder.createMessage(message.getPayload(), connected.getMessageHeaders());
+            case MESSAGE:
+                return cborSessions.contains(sessionId) ? toCbor(message, accessor.getContentType()) : message;
+            default:
+                return message;
+        }
+    }
+
+    private Message<?> toCbor(Message<?> message, MimeType contentType) {
+        if (
+            !(message.getPayload() instanceof byte[] json) ||
+            json.length == 0 ||
+            contentType == null ||
+            !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(contentType)
+        ) {
+            return message;
+        }
+
+        byte[] cbor = encode(json);
+        if (cbor == null) {
+            return message;
+        }
+        StompHeaderAccessor accessor = StompMessages.wrapMessage(message);
+        accessor.setContentType(CBOR_FRAME_MIME_TYPE);
+        accessor.setContentLength(cbor.length);
+        return MessageBuilder.createMessage(cbor, accessor.getMessageHeaders());
+    }
+
+    /** The CBOR form of a JSON body, encoded once however many sessions receive it; null if unreadable */
+    private byte[] encode(byte[] json) {
+        int slot = Arrays.hashCode(json) & (ENCODED_SLOTS - 1);
+        Encoded cached = encoded.get(slot);
+        if (cached != null && (cached.json == json || Arrays.equals(cached.json, json))) {
+            return cached.cbor;
+        }
+
+        byte[] cbor;
+        try {
+            cbor = cborMapper.writeValueAsBytes(objectMapper.readTree(json));
+        } catch (JacksonException e) {
+            // The client decodes by content type, so the JSON original is still understood
+            log.warn("Could not re-encode message as CBOR: {}", e.getMessage());
+            return null;
+        }
+        encoded.set(slot, new Encoded(json, cbor));
+        return cbor;
+    }
+
+    /** A JSON body and its CBOR encoding, which is shared by every frame it is sent in */
+    private record Encoded(byte[] json, byte[] cbor) {}
+}
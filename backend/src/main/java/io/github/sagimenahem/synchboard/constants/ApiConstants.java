@@ -27,6 +27,8 @@ private ApiConstants() {}
     public static final String IMAGES_PATH_PATTERN = "/images/**";
 
     public static final String API_BOARDS_OBJECT = "/{boardId}/objects";
+    public static final String API_BOARDS_OBJECT_STREAM = "/{boardId}/objects/stream";
+    public static final String API_BOARDS_OBJECT_REGION = "/{boardId}/objects/region";
     public static final String API_BOARDS_DETAILS = "/{boardId}/details";
     public static final String API_BOARDS_MEMBERS = "/{boardId}/members";
     public static final String API_BOARDS_MEMBERS_REMOVE = "/{boardId}/members/{memberEmail}";
@@ -38,12 +40,22 @@ private ApiConstants() {}
     public static final String API_BOARDS_DESCRIPTION = "/{boardId}/description";
     public static final String API_BOARDS_PICTURE = "/{boardId}/picture";
     public static final String API_BOARDS_MESSAGES = "/{boardId}/messages";
+    public static final String API_BOARDS_MESSAGES_PAGE = "/{boardId}/messages/page";
+    public static final String API_BOARDS_EVENTS = "/{boardId}/events";
     public static final String API_BOARDS_CANVAS_SETTINGS = "/{boardId}/canvas-settings";
 
     public static final String PATH_VAR_BOARD_ID = "boardId";
     public static final String PATH_VAR_MEMBER_EMAIL = "memberEmail";
 
     public static final String REQUEST_PARAM_FILE = "file";
+    public static final String REQUEST_PARAM_BEFORE = "before";
+    public static final String REQUEST_PARAM_SIZE = "size";
+    public static final String REQUEST_PARAM_MIN_X = "minX";
+    public static final String REQUEST_PARAM_MIN_Y = "minY";
+    public static final String REQUEST_PARAM_MAX_X = "maxX";
+    public static final String REQUEST_PARAM_MAX_Y = "maxY";
+    public static final String REQUEST_PARAM_SINCE = "since";
+    public static final String REQUEST_PARAM_STREAM = "stream";
 
     public static final String PARAM_USER_EMAIL = "userEmail";
 
@@ -29,6 +29,12 @@ private FileConstants() {}
      */
     public static final String IMAGES_PATH_PATTERN = "/images/**";
 
+    /**
+     * Folder of the upload directory holding rendered board thumbnails, served under
+     * {@code /images/thumbnails/}.
+     */
+    public static final String THUMBNAILS_FOLDER = "thumbnails";
+
     // Default Values
 
     /**
@@ -153,6 +153,19 @@ private MessageConstants() {}
      */
     public static final String AUTH_NOT_MEMBER = "error.auth.notMember";
 
+    // Chat Error Messages
+
+    /**
+     * Error message key for a chat history cursor that was not issued by the server. Used when a
+     * client pages with a malformed or tampered cursor.
+     */
+    public static final String CHAT_INVALID_CURSOR = "error.chat.invalidCursor";
+
+    /**
+     * Error message key for a chat history page size below one.
+     */
+    public static final String CHAT_INVALID_PAGE_SIZE = "error.chat.invalidPageSize";
+
     // Board Management Error Messages
 
     /**
@@ -66,6 +66,83 @@ private WebSocketConstants() {}
      */
     public static final String MAPPING_BOARD_DRAW_ACTION = "/board.drawAction";
 
+    /**
+     * Message mapping for viewport updates. Clients report the part of the canvas they show to
+     * this destination, so object changes elsewhere are not sent to them. Full destination:
+     * /app/board.viewport
+     */
+    public static final String MAPPING_BOARD_VIEWPORT = "/board.viewport";
+
+    // Viewport Filtering
+
+    /**
+     * Header carrying the instance ID of the object an OBJECT_ADD, OBJECT_UPDATE or OBJECT_DELETE
+     * broadcast is about. Marks the message for viewport filtering; it is removed before delivery.
+     */
+    public static final String OBJECT_INSTANCE_HEADER = "object-instance";
+
+    /**
+     * Header carrying the bounding box of the object's new state as {@code minX,minY,maxX,maxY} in
+     * normalized canvas coordinates. Absent on deletes. Removed before delivery.
+     */
+    public static final String OBJECT_BOUNDS_HEADER = "object-bounds";
+
+    /**
+     * Header marking an OBJECT_BATCH broadcast, which is never held back but changes objects the
+     * viewport filter cannot see individually. Removed before delivery.
+     */
+    public static final String OBJECT_BATCH_HEADER = "object-batch";
+
+    // Board Event Sequencing
+
+    /**
+     * Header carrying the per-board sequence number of a drawing action or chat message broadcast.
+     * Clients resume from it after reconnecting (see {@code BoardEventLog}).
+     */
+    public static final String BOARD_SEQUENCE_HEADER = "board-sequence";
+
+    /**
+     * Header telling a client with held-back object changes the sequence number to resume from
+     * instead of {@link #BOARD_SEQUENCE_HEADER}: the one before its oldest held-back change.
+     */
+    public static final String RESUME_SEQUENCE_HEADER = "resume-sequence";
+
+    /**
+     * Header marking a board frame: several consecutive board events sent as one message, whose
+     * body is an array of {@code {sequence, payload}} objects and whose
+     * {@link #BOARD_SEQUENCE_HEADER} is that of the last event. The value describes each event for
+     * the viewport filter, separated by {@code ;}: empty for an event not about an object,
+     * {@code *} for an OBJECT_BATCH, otherwise the URL-encoded instance ID, followed by a space and
+     * the object's bounds unless it was deleted. Removed before delivery.
+     */
+    public static final String BOARD_FRAME_HEADER = "board-frame";
+
+    // Wire Format Negotiation
+
+    /**
+     * STOMP header a client sends on CONNECT to ask for binary frames, and the server echoes on
+     * CONNECTED when it agrees. Clients that never send it, or connect to a server that does not
+     * echo it, keep exchanging JSON text frames.
+     */
+    public static final String WIRE_FORMAT_HEADER = "wire-format";
+
+    /**
+     * Wire format value selecting CBOR (RFC 8949) encoded message bodies.
+     */
+    public static final String WIRE_FORMAT_CBOR = "cbor";
+
+    /**
+     * Content type of CBOR bodies sent by clients on SEND frames.
+     */
+    public static final String CBOR_CONTENT_TYPE = "application/cbor";
+
+    /**
+     * Content type of CBOR bodies the server delivers on MESSAGE frames. It has to be an
+     * application/octet-stream type, since that is what makes the STOMP endpoint send the frame
+     * as a binary WebSocket message rather than as text.
+     */
+    public static final String CBOR_FRAME_CONTENT_TYPE = "application/octet-stream;format=cbor";
+
     // Performance and Size Limits
 
     /**
@@ -76,7 +153,9 @@ private WebSocketConstants() {}
 
     /**
      * Maximum WebSocket send buffer size in bytes (1 MB). Controls memory usage for outbound
-     * message queuing per connection.
+     * message queuing per connection. Frames pass through this buffer into the session's send
+     * queue without waiting, so it stays empty; the queue's limit is
+     * {@code app.stomp.send-queue-limit-bytes} (see {@code SlowConsumerGuard}).
      */
     public static final int WEBSOCKET_SEND_BUFFER_SIZE_LIMIT = 1024 * 1024;
 
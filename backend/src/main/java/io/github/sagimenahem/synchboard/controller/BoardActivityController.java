@@ -2,22 +2,28 @@
 
 import static io.github.sagimenahem.synchboard.constants.LoggingConstants.*;
 import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.MAPPING_BOARD_DRAW_ACTION;
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.MAPPING_BOARD_VIEWPORT;
 import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.MAPPING_CHAT_SEND_MESSAGE;
-import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.WEBSOCKET_BOARD_TOPIC_PREFIX;
 
 import io.github.sagimenahem.synchboard.dto.error.ErrorResponseDTO;
 import io.github.sagimenahem.synchboard.dto.websocket.BoardActionDTO;
+import io.github.sagimenahem.synchboard.dto.websocket.BoardViewportDTO;
 import io.github.sagimenahem.synchboard.dto.websocket.ChatMessageDTO;
-import io.github.sagimenahem.synchboard.repository.GroupBoardRepository;
+import io.github.sagimenahem.synchboard.exception.InvalidRequestException;
+import io.github.sagimenahem.synchboard.service.board.BoardActivityTracker;
 import io.github.sagimenahem.synchboard.service.board.BoardNotificationService;
 import io.github.sagimenahem.synchboard.service.board.BoardObjectService;
+import io.github.sagimenahem.synchboard.service.board.BoardTaskExecutor;
+import io.github.sagimenahem.synchboard.service.board.BoardViewportService;
 import io.github.sagimenahem.synchboard.service.board.ChatService;
 import java.security.Principal;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Controller;
 
 /**
@@ -35,12 +41,16 @@ public class BoardActivityController {
     private final SimpMessageSendingOperations messagingTemplate;
     private final BoardObjectService boardObjectService;
     private final ChatService chatService;
+    private final BoardActivityTracker boardActivityTracker;
+    private final BoardTaskExecutor boardTaskExecutor;
     private final BoardNotificationService notificationService;
-    private final GroupBoardRepository groupBoardRepository;
+    private final BoardViewportService boardViewportService;
 
     /**
      * Handles incoming chat messages from WebSocket clients. Processes, persists, and broadcasts
-     * chat messages to all board members.
+     * chat messages to all board members. The message is handled on the board's lane in
+     * {@link BoardTaskExecutor}, like drawing actions, since it takes the board's next sequence
+     * number when it is broadcast.
      *
      * @param request the chat message request containing message content and board ID
      * @param principal the authenticated user principal who sent the message
@@ -56,13 +66,29 @@ public void sendMessage(@Payload ChatMessageDTO.Request request, Principal princ
 
         log.debug(WEBSOCKET_MESSAGE_RECEIVED, "CHAT_MESSAGE", request.getBoardId(), userEmail);
 
+        if (request.getBoardId() == null) {
+            log.warn(WEBSOCKET_PREFIX + " Rejected chat message without a board from user: {}", userEmail);
+            sendChatError(userEmail);
+            return;
+        }
+        boardTaskExecutor.execute(request.getBoardId(), () -> processMessage(request, principal));
+    }
+
+    /**
+     * Persists and broadcasts a chat message and updates board activity. Runs on the board's lane.
+     *
+     * @param request the chat message request
+     * @param principal the authenticated user principal who sent the message
+     */
+    private void processMessage(ChatMessageDTO.Request request, Principal principal) {
+        String userEmail = principal.getName();
         try {
             // Process message content and broadcast to all board members
             chatService.processAndSaveMessage(request, principal);
             log.info(CHAT_MESSAGE_SENT, request.getBoardId(), userEmail, "new-message");
 
-            // Update board's last activity timestamp for sorting and notifications
-            updateBoardActivity(request.getBoardId());
+            // Mark board activity; the timestamp and member notifications are debounced
+            boardActivityTracker.markActive(request.getBoardId());
         } catch (Exception e) {
             log.error(
                 WEBSOCKET_PREFIX + " Failed to process chat message. BoardId: {}, User: {}, Error: {}",
@@ -71,17 +97,18 @@ public void sendMessage(@Payload ChatMessageDTO.Request request, Principal princ
                 e.getMessage(),
                 e
             );
-            messagingTemplate.convertAndSendToUser(
-                userEmail,
-                "/topic/errors",
-                new ErrorResponseDTO("Failed to send message", "CHAT_ERROR")
-            );
+            sendChatError(userEmail);
         }
     }
 
     /**
-     * Handles drawing and board modification actions from WebSocket clients. Processes drawing
-     * commands, saves them to database, and broadcasts to all board members.
+     * Handles drawing and board modification actions from WebSocket clients. The inbound thread
+     * only checks that the action is well formed; applying it, broadcasting it to the board members
+     * and updating board activity run on the board's lane in {@link BoardTaskExecutor}, in arrival
+     * order. An action is broadcast only once the live board state has accepted it, so one from a
+     * non-member, one over the batch limit or one on an object that is not on the board never
+     * reaches subscribers. Failures are reported to the sender on its error queue. An OBJECT_BATCH
+     * is applied as one unit and broadcast as one message carrying all of its operations.
      *
      * @param request the board action request containing drawing data and board ID
      * @param principal the authenticated user principal who performed the action
@@ -91,6 +118,81 @@ public void handleDrawAction(@Payload BoardActionDTO.Request request, Principal
         String userEmail = principal.getName();
         log.debug(WEBSOCKET_MESSAGE_RECEIVED, request.getType(), request.getBoardId(), userEmail);
 
+        boolean batchWithoutOperations =
+            request.getType() == BoardActionDTO.ActionType.OBJECT_BATCH &&
+            (request.getOperations() == null || request.getOperations().isEmpty());
+        if (
+            request.getBoardId() == null ||
+            request.getType() == null ||
+            request.getInstanceId() == null ||
+            batchWithoutOperations
+        ) {
+            log.warn(WEBSOCKET_PREFIX + " Rejected malformed draw action from user: {}", userEmail);
+            sendDrawActionError(userEmail);
+            return;
+        }
+
+        boardTaskExecutor.execute(request.getBoardId(), () -> applyDrawAction(request, userEmail));
+    }
+
+    /**
+     * Handles viewport reports from WebSocket clients: the part of a board's canvas the client
+     * shows. Object changes outside it are held back from the session from then on, and the ones
+     * held back so far that the new viewport covers are sent to it.
+     *
+     * @param request the board and viewport rectangle
+     * @param headerAccessor headers of the inbound message, naming the session
+     * @param principal the authenticated user principal
+     */
+    @MessageMapping(MAPPING_BOARD_VIEWPORT)
+    public void handleViewport(
+        @Payload BoardViewportDTO request,
+        SimpMessageHeaderAccessor headerAccessor,
+        Principal principal
+    ) {
+        String userEmail = principal.getName();
+        try {
+            boardViewportService.updateViewport(headerAccessor.getSessionId(), request, userEmail);
+        } catch (InvalidRequestException | AccessDeniedException e) {
+            log.warn(
+                WEBSOCKET_PREFIX + " Rejected viewport of board {} from user {}: {}",
+                request.getBoardId(),
+                userEmail,
+                e.getMessage()
+            );
+            messagingTemplate.convertAndSendToUser(
+                userEmail,
+                "/topic/errors",
+                new ErrorResponseDTO("Failed to update viewport", "VIEWPORT_ERROR")
+            );
+        }
+    }
+
+    /**
+     * Applies a draw action, broadcasts it once accepted and updates board activity. Runs on the
+     * board's lane, so a board's actions are broadcast in the order they were applied.
+     *
+     * @param request the board action request
+     * @param userEmail the email of the user who performed the action
+     */
+    private void applyDrawAction(BoardActionDTO.Request request, String userEmail) {
+        try {
+            // Apply the action to the live board state; a rejected action throws before any broadcast
+            boardObjectService.saveDrawAction(request, userEmail);
+            log.info(ACTION_SAVED, request.getBoardId(), userEmail, request.getType());
+        } catch (Exception e) {
+            log.error(
+                WEBSOCKET_PREFIX + " Failed to process draw action. BoardId: {}, User: {}, Type: {}, Error: {}",
+                request.getBoardId(),
+                userEmail,
+                request.getType(),
+                e.getMessage(),
+                e
+            );
+            sendDrawActionError(userEmail);
+            return;
+        }
+
         try {
             // Build response with sender information for real-time collaboration
             BoardActionDTO.Response response = BoardActionDTO.Response.builder()
@@ -98,53 +200,40 @@ public void handleDrawAction(@Payload BoardActionDTO.Request request, Principal
                 .payload(request.getPayload())
                 .sender(userEmail)
                 .instanceId(request.getInstanceId())
+                .operations(request.getOperations())
                 .build();
 
-            // Broadcast drawing action to all board subscribers
-            String destination = WEBSOCKET_BOARD_TOPIC_PREFIX + request.getBoardId();
-            messagingTemplate.convertAndSend(destination, response);
+            // Broadcast drawing action to the board subscribers whose viewport it affects
+            notificationService.broadcastObjectChange(request.getBoardId(), response);
             log.debug(WEBSOCKET_MESSAGE_SENT, request.getType(), request.getBoardId(), userEmail);
-
-            // Persist drawing action to database for board state recovery
-            boardObjectService.saveDrawAction(request, userEmail);
-            log.info(ACTION_SAVED, request.getBoardId(), userEmail, request.getType());
-
-            // Update board activity for real-time updates to board list
-            updateBoardActivity(request.getBoardId());
         } catch (Exception e) {
             log.error(
-                WEBSOCKET_PREFIX + " Failed to process draw action. BoardId: {}, User: {}, Type: {}, Error: {}",
+                WEBSOCKET_PREFIX + " Failed to broadcast draw action. BoardId: {}, User: {}, Type: {}, Error: {}",
                 request.getBoardId(),
                 userEmail,
                 request.getType(),
                 e.getMessage(),
                 e
             );
-            messagingTemplate.convertAndSendToUser(
-                userEmail,
-                "/topic/errors",
-                new ErrorResponseDTO("Failed to save draw action", "DRAW_ACTION_ERROR")
-            );
         }
-    }
 
-    /**
-     * Updates board activity timestamp and notifies all members of board changes. Used to maintain
-     * real-time board list updates and activity tracking.
-     *
-     * @param boardId the unique identifier of the board to update
-     */
-    private void updateBoardActivity(Long boardId) {
-        try {
-            // Update the board's last modified timestamp for sorting
-            groupBoardRepository.updateLastModifiedDate(boardId);
+        // Mark board activity; the timestamp and member notifications are debounced
+        boardActivityTracker.markActive(request.getBoardId());
+    }
 
-            // Notify all board members of activity changes for real-time UI updates
-            notificationService.broadcastBoardDetailsChangedToAllBoardMembers(boardId);
+    private void sendChatError(String userEmail) {
+        messagingTemplate.convertAndSendToUser(
+            userEmail,
+            "/topic/errors",
+            new ErrorResponseDTO("Failed to send message", "CHAT_ERROR")
+        );
+    }
 
-            log.debug("Board activity updated for boardId: {}", boardId);
-        } catch (Exception e) {
-            log.warn("Failed to update board activity for boardId: {}, Error: {}", boardId, e.getMessage());
-        }
+    private void sendDrawActionError(String userEmail) {
+        messagingTemplate.convertAndSendToUser(
+            userEmail,
+            "/topic/errors",
+            new ErrorResponseDTO("Failed to save draw action", "DRAW_ACTION_ERROR")
+        );
     }
 }
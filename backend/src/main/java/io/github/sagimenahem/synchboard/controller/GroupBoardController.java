@@ -16,10 +16,12 @@
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * REST controller for managing collaborative whiteboard operations and board membership. Handles
@@ -39,6 +41,7 @@ public class GroupBoardController {
     private final BoardObjectService boardObjectService;
     private final ActionHistoryService actionHistoryService;
     private final ChatService chatService;
+    private final BoardEventLog boardEventLog;
 
     /**
      * Retrieves all boards accessible to the authenticated user. Returns boards where the user
@@ -134,6 +137,72 @@ public ResponseEntity<List<BoardActionDTO.Response>> getBoardObjects(
         return ResponseEntity.ok(objects);
     }
 
+    /**
+     * Streams all active drawing objects of a board. Returns the same JSON array as
+     * {@link #getBoardObjects}, but writes it to the response as the objects are read, so large
+     * boards are served without building the whole response in memory.
+     *
+     * @param boardId the unique identifier of the board whose objects to retrieve
+     * @param authentication the authentication context containing user credentials
+     * @return ResponseEntity whose body writes the board's objects as a JSON array
+     */
+    @GetMapping(API_BOARDS_OBJECT_STREAM)
+    public ResponseEntity<StreamingResponseBody> streamBoardObjects(
+        @PathVariable(PATH_VAR_BOARD_ID) Long boardId,
+        Authentication authentication
+    ) {
+        String userEmail = authentication.getName();
+        log.debug(DATA_PREFIX + " Streaming board objects. BoardId: {}, User: {}", boardId, userEmail);
+
+        StreamingResponseBody body = boardObjectService.streamObjectsForBoard(boardId, userEmail);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Streams the active drawing objects of a board whose bounding box intersects a region, in the
+     * same format and stacking order as {@link #streamBoardObjects}. Coordinates are normalized to
+     * the canvas, (0, 0) being its top-left and (1, 1) its bottom-right corner, so a client can
+     * load what its viewport shows first and the rest afterwards.
+     *
+     * @param boardId the unique identifier of the board whose objects to retrieve
+     * @param minX left edge of the region
+     * @param minY top edge of the region
+     * @param maxX right edge of the region
+     * @param maxY bottom edge of the region
+     * @param authentication the authentication context containing user credentials
+     * @return ResponseEntity whose body writes the matching objects as a JSON array
+     */
+    @GetMapping(API_BOARDS_OBJECT_REGION)
+    public ResponseEntity<StreamingResponseBody> streamBoardObjectsInRegion(
+        @PathVariable(PATH_VAR_BOARD_ID) Long boardId,
+        @RequestParam(REQUEST_PARAM_MIN_X) double minX,
+        @RequestParam(REQUEST_PARAM_MIN_Y) double minY,
+        @RequestParam(REQUEST_PARAM_MAX_X) double maxX,
+        @RequestParam(REQUEST_PARAM_MAX_Y) double maxY,
+        Authentication authentication
+    ) {
+        String userEmail = authentication.getName();
+        log.debug(
+            DATA_PREFIX + " Streaming board objects in region. BoardId: {}, Region: [{}, {}, {}, {}], User: {}",
+            boardId,
+            minX,
+            minY,
+            maxX,
+            maxY,
+            userEmail
+        );
+
+        StreamingResponseBody body = boardObjectService.streamObjectsInRegion(
+            boardId,
+            minX,
+            minY,
+            maxX,
+            maxY,
+            userEmail
+        );
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
     /**
      * Invites a new member to join a collaborative board. Validates that the requesting user
      * has permission to invite members.
@@ -410,6 +479,58 @@ public ResponseEntity<List<ChatMessageDTO.Response>> getBoardMessages(
         return ResponseEntity.ok(messages);
     }
 
+    /**
+     * Returns the drawing actions and chat messages a client missed while disconnected: those
+     * broadcast after the sequence number it last received. When they are no longer retained, or
+     * the client's numbers belong to another stream, the response tells it to reload the board.
+     * Called without parameters, it returns the position to resume from after a full load.
+     *
+     * @param boardId the unique identifier of the board
+     * @param stream the stream of the client's last sequence number; omitted after a full load
+     * @param since the last sequence number the client received; omitted after a full load
+     * @param authentication the authentication context containing user credentials
+     * @return ResponseEntity containing the missed events, or the position to resume from
+     */
+    @GetMapping(API_BOARDS_EVENTS)
+    public ResponseEntity<BoardEventsDTO> getBoardEvents(
+        @PathVariable(PATH_VAR_BOARD_ID) Long boardId,
+        @RequestParam(name = REQUEST_PARAM_STREAM, required = false) String stream,
+        @RequestParam(name = REQUEST_PARAM_SINCE, required = false) Long since,
+        Authentication authentication
+    ) {
+        String userEmail = authentication.getName();
+        log.debug(DATA_PREFIX + " Fetching events for board: {} since {}, User: {}", boardId, since, userEmail);
+
+        BoardEventsDTO events = boardEventLog.eventsSince(boardId, stream, since, userEmail);
+        return ResponseEntity.ok(events);
+    }
+
+    /**
+     * Retrieves one page of a board's chat history, newest page first. Clients load the first page
+     * when the board opens and request older pages with the returned cursor as the user scrolls
+     * back.
+     *
+     * @param boardId the unique identifier of the board whose messages to retrieve
+     * @param before the cursor returned with the previous page; omitted for the newest page
+     * @param size the number of messages per page; omitted for the server default
+     * @param authentication the authentication context containing user credentials
+     * @return ResponseEntity containing the page of messages, oldest first, and the next cursor
+     */
+    @GetMapping(API_BOARDS_MESSAGES_PAGE)
+    public ResponseEntity<MessagePageDTO> getBoardMessagePage(
+        @PathVariable(PATH_VAR_BOARD_ID) Long boardId,
+        @RequestParam(name = REQUEST_PARAM_BEFORE, required = false) String before,
+        @RequestParam(name = REQUEST_PARAM_SIZE, required = false) Integer size,
+        Authentication authentication
+    ) {
+        String userEmail = authentication.getName();
+        log.debug(DATA_PREFIX + " Fetching message page for board: {}, User: {}", boardId, userEmail);
+
+        MessagePageDTO page = chatService.getMessagePage(boardId, userEmail, before, size);
+        log.debug(DATA_PREFIX + " Retrieved {} messages for board: {}", page.getMessages().size(), boardId);
+        return ResponseEntity.ok(page);
+    }
+
     /**
      * Updates canvas display and behavior settings for a board. Modifies canvas dimensions,
      * background color, and other visual properties.
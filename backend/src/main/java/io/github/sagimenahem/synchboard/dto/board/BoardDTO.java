@@ -30,6 +30,9 @@ public class BoardDTO {
     /** URL to the board's cover picture */
     private String pictureUrl;
 
+    /** URL to a rendered preview of the board's contents, or null until one has been rendered */
+    private String thumbnailUrl;
+
     /** Timestamp of the last modification to the board */
     private LocalDateTime lastModifiedDate;
 
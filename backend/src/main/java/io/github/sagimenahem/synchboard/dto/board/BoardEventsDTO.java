@@ -0,0 +1,52 @@
+package io.github.sagimenahem.synchboard.dto.board;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object answering a reconnecting client's "what did I miss" request. Carries the
+ * board's drawing actions and chat messages after the client's last sequence number, or tells the
+ * client to reload the board when those are no longer retained.
+ *
+ * @author Sagi Menahem
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BoardEventsDTO {
+
+    /** Identifier of the sequence numbering; numbers from another stream cannot be resumed from */
+    private String stream;
+
+    /** Sequence number of the board's latest event, to resume from next time */
+    private long sequence;
+
+    /** False if the client must reload the board instead; {@link #events} is then empty */
+    private boolean resumable;
+
+    /**
+     * Events after the requested sequence number, oldest first. Only the latest change of each
+     * object is included, since every change carries the object's full state.
+     */
+    private List<Event> events;
+
+    /**
+     * One broadcast as it was sent on the board topic.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Event {
+
+        /** The event's sequence number */
+        private long sequence;
+
+        /** The broadcast message, a BoardActionDTO.Response or ChatMessageDTO.Response */
+        private Object payload;
+    }
+}
@@ -0,0 +1,28 @@
+package io.github.sagimenahem.synchboard.dto.board;
+
+import io.github.sagimenahem.synchboard.dto.websocket.ChatMessageDTO;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object representing one page of a board's chat history. Pages are served newest
+ * first; the messages within a page are in chronological order so they can be prepended to the
+ * chat as they arrive.
+ *
+ * @author Sagi Menahem
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessagePageDTO {
+
+    /** Messages of this page, oldest first */
+    private List<ChatMessageDTO.Response> messages;
+
+    /** Opaque cursor to request the next older page with, or null if this page reaches the start */
+    private String nextCursor;
+}
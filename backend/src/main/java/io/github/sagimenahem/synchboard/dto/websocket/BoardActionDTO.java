@@ -1,5 +1,6 @@
 package io.github.sagimenahem.synchboard.dto.websocket;
 
+import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -9,7 +10,8 @@
 /**
  * Data Transfer Object for board action WebSocket communications. Contains nested Request and
  * Response classes for handling canvas object operations (add, update, delete) in real-time
- * collaborative sessions.
+ * collaborative sessions. An OBJECT_BATCH action carries several such operations, which are applied,
+ * persisted and undone together.
  *
  * @author Sagi Menahem
  */
@@ -25,6 +27,27 @@ public enum ActionType {
         OBJECT_UPDATE,
         /** Deleting a canvas object */
         OBJECT_DELETE,
+        /** Adding, updating and deleting several canvas objects as one action */
+        OBJECT_BATCH,
+    }
+
+    /**
+     * One object operation of an OBJECT_BATCH action.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Operation {
+
+        /** OBJECT_ADD, OBJECT_UPDATE or OBJECT_DELETE */
+        private ActionType type;
+
+        /** JSON payload containing the object data */
+        private JsonNode payload;
+
+        /** Client-generated identifier of the affected object */
+        private String instanceId;
     }
 
     /**
@@ -46,8 +69,11 @@ public static class Request {
         /** JSON payload containing the object data */
         private JsonNode payload;
 
-        /** Unique instance identifier for deduplication */
+        /** Unique instance identifier for deduplication; identifies the batch for OBJECT_BATCH */
         private String instanceId;
+
+        /** Operations of an OBJECT_BATCH action, in the order they apply; null for other types */
+        private List<Operation> operations;
     }
 
     /**
@@ -69,7 +95,10 @@ public static class Response {
         /** Email of the user who performed the action */
         private String sender;
 
-        /** Unique instance identifier for deduplication */
+        /** Unique instance identifier for deduplication; identifies the batch for OBJECT_BATCH */
         private String instanceId;
+
+        /** Operations of an OBJECT_BATCH action, in the order they apply; null for other types */
+        private List<Operation> operations;
     }
 }
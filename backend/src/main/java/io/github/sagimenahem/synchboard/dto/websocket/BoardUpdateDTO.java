@@ -31,5 +31,13 @@ public enum UpdateType {
 
         /** Canvas settings were changed (background, dimensions) */
         CANVAS_UPDATED,
+
+        /**
+         * Board events were dropped from this client's send queue because it fell behind; it should
+         * fetch the events it missed. Sent to one subscription only, without a source user. Also
+         * sent to the whole board, after its event stream restarted, when the database rejected
+         * changes already broadcast; fetching then finds the new stream and reloads the board.
+         */
+        RESYNC_REQUIRED,
     }
 }
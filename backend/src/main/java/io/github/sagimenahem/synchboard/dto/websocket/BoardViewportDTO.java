@@ -0,0 +1,35 @@
+package io.github.sagimenahem.synchboard.dto.websocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for viewport updates sent by WebSocket clients. Describes the part of a
+ * board's canvas a client currently shows, in normalized canvas coordinates where 0 to 1 spans the
+ * canvas, so object changes outside it can be held back from that client.
+ *
+ * @author Sagi Menahem
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BoardViewportDTO {
+
+    /** ID of the board the viewport belongs to */
+    private Long boardId;
+
+    /** Left edge of the viewport */
+    private Double minX;
+
+    /** Top edge of the viewport */
+    private Double minY;
+
+    /** Right edge of the viewport */
+    private Double maxX;
+
+    /** Bottom edge of the viewport */
+    private Double maxY;
+}
@@ -2,10 +2,13 @@
 
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Formula;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
@@ -85,12 +88,22 @@ public class ActionHistory {
     @Column(name = "is_undone", nullable = false)
     private boolean isUndone;
 
+    /**
+     * Identifies the action this row is part of when the action changed several objects, such as
+     * an OBJECT_BATCH; null for an action on a single object. The rows of a group are undone and
+     * redone together. Like the other columns added after the baseline, it is written through JDBC
+     * only, so it is mapped read-only and stays out of the DDL generated from the entities.
+     */
+    @Formula("group_id")
+    private UUID groupId;
+
     /**
      * JPA lifecycle callback to set the timestamp before persisting the entity. This ensures that
-     * every action history record has an accurate timestamp of when it was created.
+     * every action history record has an accurate timestamp of when it was created, in UTC like the
+     * timestamps the board state engine records.
      */
     @PrePersist
     protected void onCreate() {
-        this.timestamp = LocalDateTime.now();
+        this.timestamp = LocalDateTime.now(ZoneOffset.UTC);
     }
 }
@@ -1,7 +1,8 @@
 package io.github.sagimenahem.synchboard.repository;
 
 import io.github.sagimenahem.synchboard.entity.ActionHistory;
-import java.util.Optional;
+import java.time.LocalDateTime;
+import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -22,67 +23,28 @@
 @Repository
 public interface ActionHistoryRepository extends JpaRepository<ActionHistory, Long> {
     /**
-     * Finds the most recent action that has not been undone for a specific board. Used to
-     * determine the last performed action when implementing undo functionality.
+     * Finds the actions of a specific board taken since a given time, newest first, eagerly
+     * fetching the affected board object, its creator and the user who performed each action. Used
+     * to load a board's undo/redo history into memory with a single query, bounded by the time of
+     * the oldest undo step to load rather than by a number of rows, so a batch is never cut in
+     * part. The table is partitioned by month on the timestamp, so the lower bound keeps the
+     * months before it out of the query altogether.
      *
      * @param boardGroupId the unique identifier of the board
-     * @return an Optional containing the most recent undone action, or empty if none found
-     */
-    Optional<ActionHistory> findTopByBoard_BoardGroupIdAndIsUndoneFalseOrderByTimestampDesc(Long boardGroupId);
-
-    /**
-     * Finds the most recent action that has been undone for a specific board. Used to determine
-     * the last undone action when implementing redo functionality.
-     *
-     * @param boardGroupId the unique identifier of the board
-     * @return an Optional containing the most recent undone action, or empty if none found
-     */
-    Optional<ActionHistory> findTopByBoard_BoardGroupIdAndIsUndoneTrueOrderByTimestampDesc(Long boardGroupId);
-
-    /**
-     * Finds the most recent action that has not been undone for a specific board, eagerly
-     * fetching all related entities to avoid N+1 queries. This method loads the action history
-     * along with the associated board object, user who performed the action, and board object
-     * creation/editing users.
-     *
-     * @param boardGroupId the unique identifier of the board
-     * @return an Optional containing the most recent undone action with all relations loaded,
-     *         or empty if none found
-     */
-    @Query(
-        "SELECT ah FROM ActionHistory ah " +
-            "JOIN FETCH ah.boardObject bo " +
-            "JOIN FETCH ah.user " +
-            "LEFT JOIN FETCH bo.createdByUser " +
-            "LEFT JOIN FETCH bo.lastEditedByUser " +
-            "WHERE ah.board.boardGroupId = :boardGroupId AND ah.isUndone = false " +
-            "ORDER BY ah.timestamp DESC LIMIT 1"
-    )
-    Optional<ActionHistory> findTopByBoardWithRelationsAndIsUndoneFalseOrderByTimestampDesc(
-        @Param("boardGroupId") Long boardGroupId
-    );
-
-    /**
-     * Finds the most recent action that has been undone for a specific board, eagerly fetching
-     * all related entities to avoid N+1 queries. This method loads the action history along
-     * with the associated board object, user who performed the action, and board object
-     * creation/editing users.
-     *
-     * @param boardGroupId the unique identifier of the board
-     * @return an Optional containing the most recent undone action with all relations loaded,
-     *         or empty if none found
+     * @param since the time of the oldest action to return
+     * @return the actions with their relations loaded, newest first
      */
     @Query(
         "SELECT ah FROM ActionHistory ah " +
             "JOIN FETCH ah.boardObject bo " +
             "JOIN FETCH ah.user " +
             "LEFT JOIN FETCH bo.createdByUser " +
-            "LEFT JOIN FETCH bo.lastEditedByUser " +
-            "WHERE ah.board.boardGroupId = :boardGroupId AND ah.isUndone = true " +
-            "ORDER BY ah.timestamp DESC LIMIT 1"
+            "WHERE ah.board.boardGroupId = :boardGroupId AND ah.timestamp >= :since " +
+            "ORDER BY ah.timestamp DESC, ah.actionId DESC"
     )
-    Optional<ActionHistory> findTopByBoardWithRelationsAndIsUndoneTrueOrderByTimestampDesc(
-        @Param("boardGroupId") Long boardGroupId
+    List<ActionHistory> findRecentByBoardWithRelations(
+        @Param("boardGroupId") Long boardGroupId,
+        @Param("since") LocalDateTime since
     );
 
     /**
@@ -95,6 +57,16 @@ Optional<ActionHistory> findTopByBoardWithRelationsAndIsUndoneTrueOrderByTimesta
     @Transactional
     void deleteAllByBoard_BoardGroupId(Long boardGroupId);
 
+    /**
+     * Finds the boards on which a specific user has recorded actions, whose live history holds
+     * them. Used when a user account is deleted.
+     *
+     * @param userEmail the email address of the user
+     * @return the IDs of the boards, each once
+     */
+    @Query("SELECT DISTINCT ah.board.boardGroupId FROM ActionHistory ah WHERE ah.user.email = :userEmail")
+    List<Long> findBoardIdsByUser(@Param("userEmail") String userEmail);
+
     /**
      * Deletes all action history records associated with a specific user. This is typically
      * used when a user account is deleted to maintain data consistency and comply with data
@@ -0,0 +1,147 @@
+package io.github.sagimenahem.synchboard.repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JDBC repository for trimming old action history. Rows are addressed by their position in a
+ * board's history, the (timestamp, action_id) pair, which orders them the same way undo does and
+ * is served by the (board_group_id, timestamp) index. Depth is counted in undo steps: the rows of
+ * a group (V7) are one step, and are kept or deleted together.
+ *
+ * Deletes are capped at a number of rows per statement and run outside any surrounding
+ * transaction, so each batch holds its row locks only for as long as it takes to delete it.
+ *
+ * @author Sagi Menahem
+ */
+@Repository
+@RequiredArgsConstructor
+public class ActionHistoryRetentionRepository {
+
+    private static final String SELECT_BOARDS_OVER_LIMITS =
+        "SELECT board_group_id FROM action_history GROUP BY board_group_id " +
+        "HAVING count(*) > ? OR min(timestamp) < CAST(? AS timestamp)";
+
+    // Numbers the steps newest first: a row starts one unless it shares the group of the row after it
+    private static final String SELECT_POSITION =
+        "SELECT timestamp, action_id FROM (" +
+        "SELECT timestamp, action_id, count(*) FILTER (WHERE starts_step) " +
+        "OVER (ORDER BY timestamp DESC, action_id DESC) AS step FROM (" +
+        "SELECT timestamp, action_id, group_id IS NULL OR group_id IS DISTINCT FROM " +
+        "lag(group_id) OVER (ORDER BY timestamp DESC, action_id DESC) AS starts_step " +
+        "FROM action_history WHERE board_group_id = ?) history) steps " +
+        "WHERE step = ? ORDER BY timestamp, action_id LIMIT 1";
+
+    // The plain timestamp bound lets the index narrow the range before the row comparison. Rows of
+    // the group the oldest kept row belongs to are left alone, so an age limit falling inside a
+    // group never deletes part of it
+    private static final String DELETE_BEFORE =
+        "WITH deleted AS (DELETE FROM action_history WHERE action_id IN (SELECT action_id FROM action_history " +
+        "WHERE board_group_id = ? AND timestamp <= ? AND (timestamp, action_id) < (?, ?) " +
+        "AND COALESCE(group_id <> (SELECT group_id FROM action_history WHERE board_group_id = ? " +
+        "AND timestamp >= ? AND (timestamp, action_id) >= (?, ?) ORDER BY timestamp, action_id LIMIT 1), true) " +
+        "ORDER BY timestamp, action_id LIMIT ?) " +
+        "RETURNING COALESCE(pg_column_size(state_before), 0) + COALESCE(pg_column_size(state_after), 0) AS bytes) " +
+        "SELECT count(*), COALESCE(sum(bytes), 0) FROM deleted";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Finds the boards that may hold more undo steps than allowed, or rows older than allowed. A
+     * step is at least one row, so boards with no more rows than the depth are left out without
+     * counting their steps; the rest are measured by {@link #findPosition}.
+     *
+     * @param maxDepth the number of undo steps a board may keep
+     * @param olderThan the timestamp rows must not be older than, or null to ignore age
+     * @return the IDs of the boards with rows to delete
+     */
+    public List<Long> findBoardsOverLimits(int maxDepth, LocalDateTime olderThan) {
+        return jdbcTemplate.query(
+            SELECT_BOARDS_OVER_LIMITS,
+            new Object[] { maxDepth, olderThan != null ? Timestamp.valueOf(olderThan) : null },
+            new int[] { Types.INTEGER, Types.TIMESTAMP },
+            (resultSet, rowNum) -> resultSet.getLong(1)
+        );
+    }
+
+    /**
+     * Finds the position of the oldest row of the nth newest undo step of a board. A run of rows
+     * sharing a group ID is one step, any other row a step of its own, so the rows from this
+     * position on are exactly the newest n steps.
+     *
+     * @param boardGroupId the board ID
+     * @param rank the step's rank, 1 being the newest
+     * @return the step's oldest row position, or empty if the board has fewer steps
+     */
+    public Optional<HistoryPosition> findPosition(Long boardGroupId, int rank) {
+        List<HistoryPosition> rows = jdbcTemplate.query(
+            SELECT_POSITION,
+            (resultSet, rowNum) ->
+                HistoryPosition.builder()
+                    .timestamp(resultSet.getTimestamp(1).toLocalDateTime())
+                    .actionId(resultSet.getLong(2))
+                    .build(),
+            boardGroupId,
+            rank
+        );
+        return rows.stream().findFirst();
+    }
+
+    /**
+     * Deletes the oldest history rows of a board that come before a position, up to a limit. Rows
+     * of the group holding the oldest row from the position on are kept, wherever they lie.
+     *
+     * @param boardGroupId the board ID
+     * @param before the position of the oldest row to keep
+     * @param limit the maximum number of rows to delete
+     * @return the number of rows deleted and the storage their states took up
+     */
+    public DeletedHistory deleteBefore(Long boardGroupId, HistoryPosition before, int limit) {
+        Timestamp timestamp = Timestamp.valueOf(before.getTimestamp());
+        return jdbcTemplate.queryForObject(
+            DELETE_BEFORE,
+            (resultSet, rowNum) ->
+                DeletedHistory.builder().rows(resultSet.getInt(1)).bytes(resultSet.getLong(2)).build(),
+            boardGroupId,
+            timestamp,
+            timestamp,
+            before.getActionId(),
+            boardGroupId,
+            timestamp,
+            timestamp,
+            before.getActionId(),
+            limit
+        );
+    }
+
+    /**
+     * Position of a row in a board's history. Rows are ordered by timestamp, then action ID.
+     */
+    @Getter
+    @Builder
+    public static class HistoryPosition {
+
+        private final LocalDateTime timestamp;
+        private final long actionId;
+    }
+
+    /**
+     * Outcome of one {@link #deleteBefore} batch.
+     */
+    @Getter
+    @Builder
+    public static class DeletedHistory {
+
+        private final int rows;
+        /** Stored size of the deleted rows' state_before and state_after values */
+        private final long bytes;
+    }
+}
@@ -2,9 +2,7 @@
 
 import io.github.sagimenahem.synchboard.constants.ApiConstants;
 import io.github.sagimenahem.synchboard.entity.BoardObject;
-import io.github.sagimenahem.synchboard.entity.GroupBoard;
 import java.util.List;
-import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -27,67 +25,69 @@
 @Repository
 public interface BoardObjectRepository extends JpaRepository<BoardObject, Long> {
     /**
-     * Finds all active board objects for a specific board. Only returns objects that have not been
-     * soft-deleted (isActive = true).
+     * Deletes all board objects associated with a specific board. This is typically used when a
+     * board is deleted to maintain data consistency and prevent orphaned board object records.
      *
-     * @param boardGroupId the unique identifier of the board
-     * @return list of active board objects for the specified board
+     * @param boardGroupId the unique identifier of the board whose objects should be deleted
      */
-    List<BoardObject> findAllByBoard_BoardGroupIdAndIsActiveTrue(Long boardGroupId);
+    @Transactional
+    void deleteAllByBoard_BoardGroupId(Long boardGroupId);
 
     /**
-     * Finds all active board objects for a specific board with user information eagerly fetched.
-     * This method loads board objects along with their creation and last-edit user information to
-     * avoid N+1 query problems when displaying object attribution.
+     * Finds the instance IDs of a board's inactive objects: those deleted or undone, which keep
+     * their row. A new object cannot reuse one of these IDs, as instance IDs are unique per board.
      *
-     * @param boardGroupId the unique identifier of the board
-     * @return list of active board objects with user information loaded
+     * @param boardGroupId the board ID
+     * @return the instance IDs of the board's inactive objects
      */
     @Query(
-        "SELECT bo FROM BoardObject bo LEFT JOIN FETCH bo.createdByUser LEFT JOIN FETCH bo.lastEditedByUser WHERE bo.board.boardGroupId = :boardGroupId AND bo.isActive = true"
+        value = "SELECT instance_id FROM board_objects WHERE board_group_id = :boardGroupId AND is_active = false",
+        nativeQuery = true
     )
-    List<BoardObject> findActiveByBoardWithUsers(@Param("boardGroupId") Long boardGroupId);
+    List<String> findInactiveInstanceIds(@Param("boardGroupId") Long boardGroupId);
 
     /**
-     * Finds a board object by its instance ID within a specific board and active status. The
-     * instance ID is a unique identifier used for real-time synchronization between clients to
-     * identify the same object across different sessions.
-     *
-     * @param instanceId the unique instance identifier of the object
-     * @param board the board containing the object
-     * @param isActive whether to search for active or inactive objects
-     * @return an Optional containing the matching board object, or empty if none found
-     */
-    Optional<BoardObject> findByInstanceIdAndBoardAndIsActive(String instanceId, GroupBoard board, boolean isActive);
-
-    /**
-     * Deletes all board objects associated with a specific board. This is typically used when a
-     * board is deleted to maintain data consistency and prevent orphaned board object records.
+     * Finds the boards holding an object created or last edited by a specific user, whose live
+     * state carries that attribution. Used when a user account is deleted.
      *
-     * @param boardGroupId the unique identifier of the board whose objects should be deleted
+     * @param userEmail the email address of the user
+     * @return the IDs of the boards, each once
      */
-    @Transactional
-    void deleteAllByBoard_BoardGroupId(Long boardGroupId);
+    @Query(
+        "SELECT DISTINCT bo.board.boardGroupId FROM BoardObject bo " +
+            "WHERE bo.createdByUser.email = :userEmail OR bo.lastEditedByUser.email = :userEmail"
+    )
+    List<Long> findBoardIdsReferencingUser(@Param(ApiConstants.PARAM_USER_EMAIL) String userEmail);
 
     /**
      * Nullifies the createdByUser reference for all board objects created by a specific user. This
      * is used when a user account is deleted to maintain data integrity while preserving the board
-     * objects they created.
+     * objects they created. Each row rewritten takes a new change_seq, so board snapshots pick up
+     * the change like any write-behind update.
      *
      * @param userEmail the email address of the user whose creation references should be nullified
      */
     @Modifying
-    @Query("UPDATE BoardObject bo SET bo.createdByUser = NULL WHERE bo.createdByUser.email = :userEmail")
+    @Query(
+        value = "UPDATE board_objects SET created_by_user_email = NULL, " +
+            "change_seq = nextval('board_object_change_seq') WHERE created_by_user_email = :userEmail",
+        nativeQuery = true
+    )
     void nullifyCreatedByUser(@Param(ApiConstants.PARAM_USER_EMAIL) String userEmail);
 
     /**
      * Nullifies the lastEditedByUser reference for all board objects last edited by a specific
      * user. This is used when a user account is deleted to maintain data integrity while preserving
-     * the board objects they last modified.
+     * the board objects they last modified. Each row rewritten takes a new change_seq, so board
+     * snapshots pick up the change like any write-behind update.
      *
      * @param userEmail the email address of the user whose edit references should be nullified
      */
     @Modifying
-    @Query("UPDATE BoardObject bo SET bo.lastEditedByUser = NULL WHERE bo.lastEditedByUser.email = :userEmail")
+    @Query(
+        value = "UPDATE board_objects SET last_edited_by_user_email = NULL, " +
+            "change_seq = nextval('board_object_change_seq') WHERE last_edited_by_user_email = :userEmail",
+        nativeQuery = true
+    )
     void nullifyLastEditedByUser(@Param(ApiConstants.PARAM_USER_EMAIL) String userEmail);
 }
@@ -0,0 +1,115 @@
+package io.github.sagimenahem.synchboard.repository;
+
+import javax.sql.DataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JDBC repository for reading the active objects of a board as a forward-only stream. Rows are
+ * handed to the caller one at a time with their object data as the raw jsonb text, so a board of
+ * any size is read without materialising entities, parsed JSON or a result list.
+ *
+ * The Postgres driver only fetches in batches (instead of buffering the whole result) when the
+ * statement runs with auto-commit off, so callers must invoke {@link #forEachActiveObject} inside
+ * a transaction. The same holds for {@link #forEachActiveObjectIn}, which reads only the objects whose
+ * bounding box intersects a region, through the GiST index on {@code (board_group_id, bounds)}.
+ *
+ * @author Sagi Menahem
+ */
+@Repository
+public class BoardObjectStreamRepository {
+
+    /** Rows fetched per round trip while the cursor is open */
+    private static final int ROWS_PER_FETCH = 500;
+
+    private static final String SELECT_ACTIVE_OBJECTS =
+        "SELECT instance_id, object_type, object_data::text, created_by_user_email FROM board_objects " +
+        "WHERE board_group_id = ? AND is_active = true ORDER BY object_id";
+
+    private static final String SELECT_ACTIVE_OBJECTS_IN =
+        "SELECT instance_id, object_type, object_data::text, created_by_user_email FROM board_objects " +
+        "WHERE board_group_id = ? AND is_active = true AND bounds && box(point(?, ?), point(?, ?)) " +
+        "ORDER BY object_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BoardObjectStreamRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(ROWS_PER_FETCH);
+    }
+
+    /**
+     * Reads the active objects of a board in canvas z-order and passes each to the handler as it
+     * arrives from the database.
+     *
+     * @param boardGroupId the board ID
+     * @param handler receives each row; it may write the row out but must not retain it
+     */
+    public void forEachActiveObject(Long boardGroupId, ObjectRowHandler handler) {
+        jdbcTemplate.query(
+            SELECT_ACTIVE_OBJECTS,
+            (resultSet) -> {
+                handler.handle(
+                    resultSet.getString(1),
+                    resultSet.getString(2),
+                    resultSet.getString(3),
+                    resultSet.getString(4)
+                );
+            },
+            boardGroupId
+        );
+    }
+
+    /**
+     * Reads the active objects of a board whose bounding box intersects a region, in canvas
+     * z-order, and passes each to the handler as it arrives from the database.
+     *
+     * @param boardGroupId the board ID
+     * @param minX left edge of the region, in normalized canvas coordinates
+     * @param minY top edge of the region
+     * @param maxX right edge of the region
+     * @param maxY bottom edge of the region
+     * @param handler receives each row; it may write the row out but must not retain it
+     */
+    public void forEachActiveObjectIn(
+        Long boardGroupId,
+        double minX,
+        double minY,
+        double maxX,
+        double maxY,
+        ObjectRowHandler handler
+    ) {
+        jdbcTemplate.query(
+            SELECT_ACTIVE_OBJECTS_IN,
+            (resultSet) -> {
+                handler.handle(
+                    resultSet.getString(1),
+                    resultSet.getString(2),
+                    resultSet.getString(3),
+                    resultSet.getString(4)
+                );
+            },
+            boardGroupId,
+            minX,
+            minY,
+            maxX,
+            maxY
+        );
+    }
+
+    /**
+     * Callback for one streamed board object row.
+     */
+    @FunctionalInterface
+    public interface ObjectRowHandler {
+        /**
+         * Handles one row.
+         *
+         * @param instanceId the client-generated object identifier
+         * @param objectType the stored object type
+         * @param objectData the object data as JSON text, or null
+         * @param createdByEmail the creator's email, or null when unknown or deleted
+         */
+        void handle(String instanceId, String objectType, String objectData, String createdByEmail);
+    }
+}
@@ -0,0 +1,173 @@
+package io.github.sagimenahem.synchboard.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JDBC repository for compacted board snapshots and the board object changes made since one was
+ * taken. A snapshot is versioned by the highest {@code board_objects.change_seq} it includes, so
+ * the rows with a greater change_seq are exactly what a reader has to apply on top of it.
+ *
+ * @author Sagi Menahem
+ */
+@Repository
+@RequiredArgsConstructor
+public class BoardSnapshotRepository {
+
+    private static final String SELECT_SNAPSHOT =
+        "SELECT version, snapshot FROM board_snapshots WHERE board_group_id = ?";
+
+    private static final String SELECT_CHANGED_SINCE =
+        "SELECT object_id, instance_id, object_type, object_data::text, is_active, created_by_user_email, " +
+        "last_edited_by_user_email, change_seq FROM board_objects WHERE board_group_id = ? AND change_seq > ? " +
+        "ORDER BY change_seq";
+
+    // A snapshot never replaces a newer one, whichever node finished compacting first
+    private static final String UPSERT_SNAPSHOT =
+        "INSERT INTO board_snapshots (board_group_id, version, object_count, snapshot, created_at) " +
+        "VALUES (?, ?, ?, ?, ?) ON CONFLICT (board_group_id) DO UPDATE SET version = EXCLUDED.version, " +
+        "object_count = EXCLUDED.object_count, snapshot = EXCLUDED.snapshot, created_at = EXCLUDED.created_at " +
+        "WHERE board_snapshots.version < EXCLUDED.version";
+
+    private static final String DELETE_SNAPSHOT = "DELETE FROM board_snapshots WHERE board_group_id = ?";
+
+    /** First key of every board's compaction lock, keeping them apart from other advisory locks */
+    private static final int COMPACTION_LOCK_SPACE = 0x534e4150;
+
+    private static final String TRY_LOCK_COMPACTION = "SELECT pg_try_advisory_xact_lock_shared(?, ?)";
+
+    private static final String LOCK_OUT_COMPACTION = "SELECT pg_advisory_xact_lock(?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Reads the snapshot of a board.
+     *
+     * @param boardGroupId the board ID
+     * @return the snapshot, or empty if none has been taken
+     */
+    public Optional<StoredSnapshot> find(Long boardGroupId) {
+        List<StoredSnapshot> rows = jdbcTemplate.query(
+            SELECT_SNAPSHOT,
+            (resultSet, rowNum) ->
+                StoredSnapshot.builder().version(resultSet.getLong(1)).data(resultSet.getBytes(2)).build(),
+            boardGroupId
+        );
+        return rows.stream().findFirst();
+    }
+
+    /**
+     * Reads every object of a board, active or not, written after the given version.
+     *
+     * @param boardGroupId the board ID
+     * @param version the snapshot version; 0 reads the whole board
+     * @return the changed rows in change order
+     */
+    public List<ObjectChange> findChangedSince(Long boardGroupId, long version) {
+        return jdbcTemplate.query(
+            SELECT_CHANGED_SINCE,
+            (resultSet, rowNum) ->
+                ObjectChange.builder()
+                    .objectId(resultSet.getLong(1))
+                    .instanceId(resultSet.getString(2))
+                    .objectType(resultSet.getString(3))
+                    .objectData(resultSet.getString(4))
+                    .active(resultSet.getBoolean(5))
+                    .createdByEmail(resultSet.getString(6))
+                    .lastEditedByEmail(resultSet.getString(7))
+                    .changeSeq(resultSet.getLong(8))
+                    .build(),
+            boardGroupId,
+            version
+        );
+    }
+
+    /**
+     * Stores a snapshot unless the board already has one at the same or a later version.
+     *
+     * @param boardGroupId the board ID
+     * @param version the highest change_seq the snapshot includes
+     * @param objectCount the number of objects in the snapshot
+     * @param data the encoded snapshot
+     * @return true if the snapshot was stored
+     */
+    public boolean save(Long boardGroupId, long version, int objectCount, byte[] data) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return jdbcTemplate.update(UPSERT_SNAPSHOT, boardGroupId, version, objectCount, data, now) > 0;
+    }
+
+    /**
+     * Deletes the snapshot of a board.
+     *
+     * @param boardGroupId the board ID
+     */
+    public void delete(Long boardGroupId) {
+        jdbcTemplate.update(DELETE_SNAPSHOT, boardGroupId);
+    }
+
+    /**
+     * Takes a board's compaction lock in shared mode until the current transaction ends, unless a
+     * writer holds it ({@link #lockOutCompaction}).
+     *
+     * @param boardGroupId the board ID
+     * @return true if the lock was taken
+     */
+    public boolean tryLockCompaction(Long boardGroupId) {
+        return Boolean.TRUE.equals(
+            jdbcTemplate.queryForObject(
+                TRY_LOCK_COMPACTION,
+                Boolean.class,
+                COMPACTION_LOCK_SPACE,
+                Long.hashCode(boardGroupId)
+            )
+        );
+    }
+
+    /**
+     * Takes a board's compaction lock exclusively until the current transaction ends, waiting for
+     * compactions in progress to finish.
+     *
+     * @param boardGroupId the board ID
+     */
+    public void lockOutCompaction(Long boardGroupId) {
+        jdbcTemplate.queryForList(LOCK_OUT_COMPACTION, COMPACTION_LOCK_SPACE, Long.hashCode(boardGroupId));
+    }
+
+    /**
+     * A stored snapshot.
+     */
+    @Getter
+    @Builder
+    public static class StoredSnapshot {
+
+        /** Highest change_seq included */
+        private final long version;
+        /** Encoded snapshot */
+        private final byte[] data;
+    }
+
+    /**
+     * One board object row as it is now, read because it changed after a snapshot.
+     */
+    @Getter
+    @Builder
+    public static class ObjectChange {
+
+        private final long objectId;
+        private final String instanceId;
+        private final String objectType;
+        /** Object data as JSON text, or null */
+        private final String objectData;
+        private final boolean active;
+        private final String createdByEmail;
+        private final String lastEditedByEmail;
+        private final long changeSeq;
+    }
+}
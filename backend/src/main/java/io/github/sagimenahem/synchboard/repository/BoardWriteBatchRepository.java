@@ -0,0 +1,360 @@
+package io.github.sagimenahem.synchboard.repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JDBC repository for writing board objects and action history in bulk. Each method turns a list
+ * of rows into as few multi-row statements as the Postgres bind-parameter limit allows, so the
+ * number of round trips grows with flushes rather than with individual draw actions.
+ *
+ * Objects are addressed by their (board_group_id, instance_id) unique key throughout; callers never
+ * need the generated object ID. Every object insert and update takes a new change_seq value, which
+ * is what board snapshots are versioned by, and has its bounding box measured by the
+ * {@code board_object_bounds} database function against the board's canvas size.
+ *
+ * @author Sagi Menahem
+ */
+@Repository
+@RequiredArgsConstructor
+public class BoardWriteBatchRepository {
+
+    /** Rows per statement, kept well below the 65535 bind parameters Postgres accepts */
+    private static final int ROWS_PER_STATEMENT = 500;
+
+    private static final String INSERT_OBJECTS_PREFIX =
+        "INSERT INTO board_objects (board_group_id, instance_id, object_type, object_data, " +
+        "created_by_user_email, last_edited_by_user_email, is_active, creation_timestamp, last_edited_timestamp, " +
+        "bounds) " +
+        "SELECT v.board_group_id, v.instance_id, v.object_type, v.object_data, v.created_by, v.edited_by, " +
+        "v.is_active, v.created_at, v.edited_at, " +
+        "board_object_bounds(v.object_data, gb.canvas_width, gb.canvas_height) FROM (VALUES ";
+    private static final String INSERT_OBJECTS_ROW =
+        "(CAST(? AS bigint), CAST(? AS varchar), CAST(? AS varchar), CAST(? AS jsonb), CAST(? AS varchar), " +
+        "CAST(? AS varchar), CAST(? AS boolean), CAST(? AS timestamp), CAST(? AS timestamp), CAST(? AS integer))";
+    // object_id is the stacking order, so rows must be numbered in list order whatever the join does
+    private static final String INSERT_OBJECTS_SUFFIX =
+        ") AS v(board_group_id, instance_id, object_type, object_data, created_by, edited_by, is_active, " +
+        "created_at, edited_at, ord) " +
+        "JOIN group_boards gb ON gb.board_group_id = v.board_group_id ORDER BY v.ord";
+    private static final int[] INSERT_OBJECTS_TYPES = {
+        Types.BIGINT,
+        Types.VARCHAR,
+        Types.VARCHAR,
+        Types.VARCHAR,
+        Types.VARCHAR,
+        Types.VARCHAR,
+        Types.BOOLEAN,
+        Types.TIMESTAMP,
+        Types.TIMESTAMP,
+        Types.INTEGER,
+    };
+
+    private static final String UPDATE_OBJECTS_PREFIX =
+        "UPDATE board_objects bo SET object_data = COALESCE(v.object_data, bo.object_data), " +
+        "is_active = v.is_active, last_edited_by_user_email = v.user_email, last_edited_timestamp = v.edited_at, " +
+        "change_seq = nextval('board_object_change_seq'), " +
+        "bounds = CASE WHEN v.object_data IS NULL THEN bo.bounds " +
+        "ELSE board_object_bounds(v.object_data, gb.canvas_width, gb.canvas_height) END FROM (VALUES ";
+    private static final String UPDATE_OBJECTS_ROW =
+        "(CAST(? AS bigint), CAST(? AS varchar), CAST(? AS jsonb), CAST(? AS boolean), CAST(? AS varchar), " +
+        "CAST(? AS timestamp))";
+    private static final String UPDATE_OBJECTS_SUFFIX =
+        ") AS v(board_group_id, instance_id, object_data, is_active, user_email, edited_at), group_boards gb " +
+        "WHERE bo.board_group_id = v.board_group_id AND bo.instance_id = v.instance_id " +
+        "AND gb.board_group_id = v.board_group_id";
+    private static final int[] UPDATE_OBJECTS_TYPES = {
+        Types.BIGINT,
+        Types.VARCHAR,
+        Types.VARCHAR,
+        Types.BOOLEAN,
+        Types.VARCHAR,
+        Types.TIMESTAMP,
+    };
+
+    private static final String INSERT_HISTORY_PREFIX =
+        "INSERT INTO action_history (board_group_id, object_id, user_email, action_type, " +
+        "state_before, state_after, is_undone, timestamp, group_id) " +
+        "SELECT bo.board_group_id, bo.object_id, v.user_email, v.action_type, " +
+        "v.state_before, v.state_after, false, v.occurred_at, v.group_id FROM (VALUES ";
+    private static final String INSERT_HISTORY_ROW =
+        "(CAST(? AS bigint), CAST(? AS varchar), CAST(? AS varchar), CAST(? AS varchar), CAST(? AS jsonb), " +
+        "CAST(? AS jsonb), CAST(? AS timestamp), CAST(? AS uuid), CAST(? AS integer))";
+    private static final String INSERT_HISTORY_SUFFIX =
+        ") AS v(board_group_id, instance_id, user_email, action_type, state_before, state_after, occurred_at, " +
+        "group_id, ord) " +
+        "JOIN board_objects bo ON bo.board_group_id = v.board_group_id AND bo.instance_id = v.instance_id " +
+        "ORDER BY v.ord";
+    private static final int[] INSERT_HISTORY_TYPES = {
+        Types.BIGINT,
+        Types.VARCHAR,
+        Types.VARCHAR,
+        Types.VARCHAR,
+        Types.VARCHAR,
+        Types.VARCHAR,
+        Types.TIMESTAMP,
+        Types.VARCHAR,
+        Types.INTEGER,
+    };
+
+    private static final String UPDATE_UNDONE_PREFIX =
+        "UPDATE action_history ah SET is_undone = v.is_undone FROM (VALUES ";
+    private static final String UPDATE_UNDONE_ROW =
+        "(CAST(? AS bigint), CAST(? AS varchar), CAST(? AS timestamp), CAST(? AS boolean))";
+    private static final String UPDATE_UNDONE_SUFFIX =
+        ") AS v(board_group_id, instance_id, occurred_at, is_undone), board_objects bo " +
+        "WHERE bo.board_group_id = v.board_group_id AND bo.instance_id = v.instance_id " +
+        "AND ah.board_group_id = v.board_group_id AND ah.object_id = bo.object_id AND ah.timestamp = v.occurred_at";
+    private static final int[] UPDATE_UNDONE_TYPES = {
+        Types.BIGINT,
+        Types.VARCHAR,
+        Types.TIMESTAMP,
+        Types.BOOLEAN,
+    };
+
+    private static final String REFRESH_BOUNDS =
+        "UPDATE board_objects bo SET bounds = board_object_bounds(bo.object_data, gb.canvas_width, gb.canvas_height) " +
+        "FROM group_boards gb WHERE gb.board_group_id = bo.board_group_id AND bo.board_group_id = ?";
+
+    private static final String DELETE_UNDONE =
+        "DELETE FROM action_history WHERE board_group_id = ? AND is_undone = true";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts board objects that do not exist in the database yet.
+     *
+     * @param rows the objects to insert
+     * @return the number of rows inserted
+     */
+    public int insertObjects(List<ObjectRow> rows) {
+        int inserted = 0;
+        for (List<ObjectRow> chunk : chunks(rows)) {
+            List<Object> args = new ArrayList<>(chunk.size() * INSERT_OBJECTS_TYPES.length);
+            int ord = 0;
+            for (ObjectRow row : chunk) {
+                args.add(row.getBoardGroupId());
+                args.add(row.getInstanceId());
+                args.add(row.getObjectType());
+                args.add(row.getObjectData());
+                args.add(row.getCreatedByEmail());
+                args.add(row.getLastEditedByEmail());
+                args.add(row.isActive());
+                args.add(Timestamp.valueOf(row.getCreatedAt()));
+                args.add(Timestamp.valueOf(row.getEditedAt()));
+                args.add(ord++);
+            }
+            inserted += execute(
+                INSERT_OBJECTS_PREFIX,
+                INSERT_OBJECTS_ROW,
+                INSERT_OBJECTS_SUFFIX,
+                chunk.size(),
+                args,
+                INSERT_OBJECTS_TYPES
+            );
+        }
+        return inserted;
+    }
+
+    /**
+     * Writes the latest state of existing board objects, reactivating or deactivating them as
+     * needed. A row whose {@code objectData} is null keeps its stored data, which is how
+     * deactivations are written.
+     *
+     * @param rows the objects to update
+     * @return the number of rows updated
+     */
+    public int updateObjects(List<ObjectRow> rows) {
+        int updated = 0;
+        for (List<ObjectRow> chunk : chunks(rows)) {
+            List<Object> args = new ArrayList<>(chunk.size() * UPDATE_OBJECTS_TYPES.length);
+            for (ObjectRow row : chunk) {
+                args.add(row.getBoardGroupId());
+                args.add(row.getInstanceId());
+                args.add(row.getObjectData());
+                args.add(row.isActive());
+                args.add(row.getLastEditedByEmail());
+                args.add(Timestamp.valueOf(row.getEditedAt()));
+            }
+            updated += execute(
+                UPDATE_OBJECTS_PREFIX,
+                UPDATE_OBJECTS_ROW,
+                UPDATE_OBJECTS_SUFFIX,
+                chunk.size(),
+                args,
+                UPDATE_OBJECTS_TYPES
+            );
+        }
+        return updated;
+    }
+
+    /**
+     * Records action history rows in the given order. The object ID of each row is resolved inside
+     * the statement from the object's instance ID, so the objects must already be written.
+     *
+     * @param rows the history entries, oldest first
+     * @return the number of rows inserted
+     */
+    public int insertHistory(List<HistoryRow> rows) {
+        int inserted = 0;
+        for (List<HistoryRow> chunk : chunks(rows)) {
+            List<Object> args = new ArrayList<>(chunk.size() * INSERT_HISTORY_TYPES.length);
+            int ord = 0;
+            for (HistoryRow row : chunk) {
+                args.add(row.getBoardGroupId());
+                args.add(row.getInstanceId());
+                args.add(row.getUserEmail());
+                args.add(row.getActionType());
+                args.add(row.getStateBefore());
+                args.add(row.getStateAfter());
+                args.add(Timestamp.valueOf(row.getOccurredAt()));
+                args.add(row.getGroupId() != null ? row.getGroupId().toString() : null);
+                args.add(ord++);
+            }
+            inserted += execute(
+                INSERT_HISTORY_PREFIX,
+                INSERT_HISTORY_ROW,
+                INSERT_HISTORY_SUFFIX,
+                chunk.size(),
+                args,
+                INSERT_HISTORY_TYPES
+            );
+        }
+        return inserted;
+    }
+
+    /**
+     * Sets the undone flag of existing history rows, each identified by its board, object and
+     * timestamp.
+     *
+     * @param rows the flags to write; a history row must appear at most once
+     * @return the number of rows updated
+     */
+    public int updateUndone(List<UndoneFlag> rows) {
+        int updated = 0;
+        for (List<UndoneFlag> chunk : chunks(rows)) {
+            List<Object> args = new ArrayList<>(chunk.size() * UPDATE_UNDONE_TYPES.length);
+            for (UndoneFlag row : chunk) {
+                args.add(row.getBoardGroupId());
+                args.add(row.getInstanceId());
+                args.add(Timestamp.valueOf(row.getOccurredAt()));
+                args.add(row.isUndone());
+            }
+            updated += execute(
+                UPDATE_UNDONE_PREFIX,
+                UPDATE_UNDONE_ROW,
+                UPDATE_UNDONE_SUFFIX,
+                chunk.size(),
+                args,
+                UPDATE_UNDONE_TYPES
+            );
+        }
+        return updated;
+    }
+
+    /**
+     * Deletes the undone history rows of a board, discarding its redo branch.
+     *
+     * @param boardGroupId the board ID
+     * @return the number of rows deleted
+     */
+    public int deleteUndone(Long boardGroupId) {
+        return jdbcTemplate.update(DELETE_UNDONE, boardGroupId);
+    }
+
+    /**
+     * Re-measures the bounding boxes of all of a board's objects against its current canvas size.
+     * Run after the canvas is resized, in the same transaction.
+     *
+     * @param boardGroupId the board ID
+     * @return the number of rows updated
+     */
+    public int refreshBounds(Long boardGroupId) {
+        return jdbcTemplate.update(REFRESH_BOUNDS, boardGroupId);
+    }
+
+    private int execute(String prefix, String row, String suffix, int rowCount, List<Object> args, int[] rowTypes) {
+        StringBuilder sql = new StringBuilder(prefix.length() + suffix.length() + rowCount * (row.length() + 2));
+        sql.append(prefix);
+        int[] argTypes = new int[rowCount * rowTypes.length];
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(row);
+            System.arraycopy(rowTypes, 0, argTypes, i * rowTypes.length, rowTypes.length);
+        }
+        sql.append(suffix);
+        return jdbcTemplate.update(sql.toString(), args.toArray(), argTypes);
+    }
+
+    private static <T> List<List<T>> chunks(List<T> rows) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+            chunks.add(rows.subList(from, Math.min(from + ROWS_PER_STATEMENT, rows.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * One board object row as written by {@link #insertObjects} or {@link #updateObjects}.
+     */
+    @Getter
+    @Builder
+    public static class ObjectRow {
+
+        private final Long boardGroupId;
+        private final String instanceId;
+        private final String objectType;
+        /** Object data as JSON, or null to keep the stored data on update */
+        private final String objectData;
+        private final String createdByEmail;
+        private final String lastEditedByEmail;
+        private final boolean active;
+        private final LocalDateTime createdAt;
+        private final LocalDateTime editedAt;
+    }
+
+    /**
+     * One action history row as written by {@link #insertHistory}.
+     */
+    @Getter
+    @Builder
+    public static class HistoryRow {
+
+        private final Long boardGroupId;
+        private final String instanceId;
+        private final String userEmail;
+        private final String actionType;
+        /** Object data before the action as JSON, or null */
+        private final String stateBefore;
+        /** Object data after the action as JSON, or null */
+        private final String stateAfter;
+        private final LocalDateTime occurredAt;
+        /** Group of the action the row belongs to, or null for an action on a single object */
+        private final UUID groupId;
+    }
+
+    /**
+     * The undone flag of one action history row as written by {@link #updateUndone}.
+     */
+    @Getter
+    @Builder
+    public static class UndoneFlag {
+
+        private final Long boardGroupId;
+        private final String instanceId;
+        /** Timestamp of the history row */
+        private final LocalDateTime occurredAt;
+        private final boolean undone;
+    }
+}
@@ -3,6 +3,7 @@
 import io.github.sagimenahem.synchboard.constants.ApiConstants;
 import io.github.sagimenahem.synchboard.entity.GroupBoard;
 import io.github.sagimenahem.synchboard.entity.GroupMember;
+import java.util.Collection;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -53,14 +54,14 @@ public interface GroupBoardRepository extends JpaRepository<GroupBoard, Long> {
     List<GroupMember> findMembersWithDetails(@Param("boardId") Long boardId);
 
     /**
-     * Updates the last modified date of a specific board to the current timestamp. This is
-     * typically called when any content on the board is modified to track board activity and
-     * support features like "recently modified" board lists.
+     * Updates the last modified date of several boards to the current timestamp in one statement.
+     * Called with the boards that saw activity since the previous activity flush, to track board
+     * activity and support features like "recently modified" board lists.
      *
-     * @param boardId the unique identifier of the board to update
+     * @param boardIds the unique identifiers of the boards to update
      */
     @Modifying
     @Transactional
-    @Query("UPDATE GroupBoard gb SET gb.lastModifiedDate = CURRENT_TIMESTAMP WHERE gb.boardGroupId = :boardId")
-    void updateLastModifiedDate(@Param("boardId") Long boardId);
+    @Query("UPDATE GroupBoard gb SET gb.lastModifiedDate = CURRENT_TIMESTAMP WHERE gb.boardGroupId IN :boardIds")
+    void updateLastModifiedDates(@Param("boardIds") Collection<Long> boardIds);
 }
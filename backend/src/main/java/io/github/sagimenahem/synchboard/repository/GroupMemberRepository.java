@@ -2,6 +2,7 @@
 
 import io.github.sagimenahem.synchboard.entity.GroupMember;
 import io.github.sagimenahem.synchboard.entity.GroupMemberId;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -106,4 +107,14 @@ public interface GroupMemberRepository extends JpaRepository<GroupMember, GroupM
      */
     @Query("SELECT gm.userEmail FROM GroupMember gm WHERE gm.boardGroupId = :boardId")
     List<String> findEmailsByBoardId(@Param("boardId") Long boardId);
+
+    /**
+     * Retrieves the distinct email addresses of everyone who is a member of at least one of the
+     * given boards. Used to notify each affected user once when several boards change together.
+     *
+     * @param boardIds the unique identifiers of the boards
+     * @return distinct email addresses of the members of those boards
+     */
+    @Query("SELECT DISTINCT gm.userEmail FROM GroupMember gm WHERE gm.boardGroupId IN :boardIds")
+    List<String> findDistinctEmailsByBoardIds(@Param("boardIds") Collection<Long> boardIds);
 }
@@ -2,7 +2,9 @@
 
 import io.github.sagimenahem.synchboard.constants.ApiConstants;
 import io.github.sagimenahem.synchboard.entity.Message;
+import java.time.LocalDateTime;
 import java.util.List;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -47,6 +49,48 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     )
     List<Message> findByBoardWithSender(@Param("boardId") Long boardId);
 
+    /**
+     * Finds the newest chat messages of a specific board with sender information eagerly fetched,
+     * newest first. Ties on the timestamp are broken by message ID, so the order is total and a
+     * page boundary can be resumed from exactly. The table is partitioned by month on the
+     * timestamp, and this order lets Postgres read the partitions newest first and stop as soon
+     * as the page is full, so only the latest months are touched.
+     *
+     * @param boardId the unique identifier of the board
+     * @param limit the maximum number of messages to return
+     * @return the newest messages with sender details loaded, newest first
+     */
+    @Query(
+        "SELECT m FROM Message m LEFT JOIN FETCH m.sender WHERE m.board.boardGroupId = :boardId " +
+            "ORDER BY m.timestamp DESC, m.messageId DESC"
+    )
+    List<Message> findLatestByBoardWithSender(@Param("boardId") Long boardId, Limit limit);
+
+    /**
+     * Finds the chat messages of a specific board that come before a given message in
+     * {@code (timestamp, messageId)} order, with sender information eagerly fetched, newest first.
+     * Used to page backwards through chat history from the last message of the previous page
+     * without an offset, so the cost of a page does not grow with how far back it is. The upper
+     * bound on the timestamp also leaves out the monthly partitions after the cursor.
+     *
+     * @param boardId the unique identifier of the board
+     * @param timestamp the timestamp of the message to continue after
+     * @param messageId the ID of the message to continue after
+     * @param limit the maximum number of messages to return
+     * @return the preceding messages with sender details loaded, newest first
+     */
+    @Query(
+        "SELECT m FROM Message m LEFT JOIN FETCH m.sender WHERE m.board.boardGroupId = :boardId " +
+            "AND m.timestamp <= :timestamp AND (m.timestamp < :timestamp OR m.messageId < :messageId) " +
+            "ORDER BY m.timestamp DESC, m.messageId DESC"
+    )
+    List<Message> findOlderByBoardWithSender(
+        @Param("boardId") Long boardId,
+        @Param("timestamp") LocalDateTime timestamp,
+        @Param("messageId") Long messageId,
+        Limit limit
+    );
+
     /**
      * Nullifies the sender reference for all messages sent by a specific user. This is used when a
      * user account is deleted to maintain data integrity while preserving the chat history and
@@ -0,0 +1,120 @@
+package io.github.sagimenahem.synchboard.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JDBC repository for the monthly partitions of {@code action_history} and {@code messages}.
+ * Partitions are created by the {@code create_monthly_partitions} database function and removed
+ * by detaching and dropping them, which costs a catalog change rather than a DELETE of every row.
+ *
+ * Detaching runs {@code CONCURRENTLY}, so it only waits for queries already using the table
+ * instead of blocking new ones. That form cannot run inside a transaction, so these methods must
+ * not be called from one. A detach interrupted halfway is finished by the next call.
+ *
+ * @author Sagi Menahem
+ */
+@Repository
+@RequiredArgsConstructor
+public class PartitionRepository {
+
+    public static final String ACTION_HISTORY = "action_history";
+    public static final String MESSAGES = "messages";
+
+    private static final String CREATE_PARTITIONS = "SELECT create_monthly_partitions(?, ?, ?)";
+
+    // A partition's bound reads FOR VALUES FROM ('...') TO ('...'); its upper end is exclusive
+    private static final String SELECT_PARTITIONS_BEFORE =
+        "SELECT c.relname, i.inhdetachpending, pg_total_relation_size(c.oid), " +
+        "GREATEST(c.reltuples, 0)::bigint FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+        "WHERE i.inhparent = to_regclass(?) " +
+        "AND substring(pg_get_expr(c.relpartbound, c.oid) from 'TO \\(''([^'']+)''\\)')::timestamp <= ? " +
+        "ORDER BY c.relname";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Creates the missing monthly partitions of a table from one month through another.
+     *
+     * @param table the partitioned table
+     * @param from a time in the first month to cover
+     * @param to a time in the last month to cover
+     * @return the number of partitions created
+     */
+    public int createPartitions(String table, LocalDateTime from, LocalDateTime to) {
+        Integer created = jdbcTemplate.queryForObject(
+            CREATE_PARTITIONS,
+            Integer.class,
+            table,
+            Timestamp.valueOf(from),
+            Timestamp.valueOf(to)
+        );
+        return created != null ? created : 0;
+    }
+
+    /**
+     * Detaches and drops the partitions of a table that hold only rows older than a cutoff.
+     *
+     * @param table the partitioned table
+     * @param before the cutoff; a partition is dropped if its range ends at or before it
+     * @return the partitions dropped
+     */
+    public List<DroppedPartition> dropPartitionsBefore(String table, LocalDateTime before) {
+        List<Partition> partitions = jdbcTemplate.query(
+            SELECT_PARTITIONS_BEFORE,
+            (resultSet, rowNum) ->
+                new Partition(
+                    resultSet.getString(1),
+                    resultSet.getBoolean(2),
+                    resultSet.getLong(3),
+                    resultSet.getLong(4)
+                ),
+            table,
+            Timestamp.valueOf(before)
+        );
+
+        List<DroppedPartition> dropped = new ArrayList<>(partitions.size());
+        for (Partition partition : partitions) {
+            String detach = partition.detachPending() ? " FINALIZE" : " CONCURRENTLY";
+            jdbcTemplate.execute(
+                "ALTER TABLE " + quote(table) + " DETACH PARTITION " + quote(partition.name()) + detach
+            );
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + quote(partition.name()));
+            dropped.add(
+                DroppedPartition.builder()
+                    .name(partition.name())
+                    .bytes(partition.bytes())
+                    .estimatedRows(partition.estimatedRows())
+                    .build()
+            );
+        }
+        return dropped;
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    private record Partition(String name, boolean detachPending, long bytes, long estimatedRows) {}
+
+    /**
+     * A partition removed by {@link #dropPartitionsBefore}.
+     */
+    @Getter
+    @Builder
+    public static class DroppedPartition {
+
+        private final String name;
+        /** Size of the partition with its indexes and TOAST data */
+        private final long bytes;
+        /** Row count from the planner statistics, 0 if the partition was never analyzed */
+        private final long estimatedRows;
+    }
+}
@@ -1,33 +1,35 @@
 package io.github.sagimenahem.synchboard.service.board;
 
-import static io.github.sagimenahem.synchboard.constants.ActionConstants.OBJECT_ADD_ACTION;
-import static io.github.sagimenahem.synchboard.constants.ActionConstants.OBJECT_DELETE_ACTION;
-import static io.github.sagimenahem.synchboard.constants.ActionConstants.OBJECT_UPDATE_ACTION;
-import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.WEBSOCKET_BOARD_TOPIC_PREFIX;
-
 import io.github.sagimenahem.synchboard.constants.MessageConstants;
 import io.github.sagimenahem.synchboard.dto.websocket.BoardActionDTO;
-import io.github.sagimenahem.synchboard.entity.ActionHistory;
-import io.github.sagimenahem.synchboard.entity.BoardObject;
-import io.github.sagimenahem.synchboard.exception.InvalidRequestException;
-import io.github.sagimenahem.synchboard.repository.ActionHistoryRepository;
-import io.github.sagimenahem.synchboard.repository.BoardObjectRepository;
-import io.github.sagimenahem.synchboard.repository.GroupMemberRepository;
+import io.github.sagimenahem.synchboard.dto.websocket.BoardActionDTO.ActionType;
+import io.github.sagimenahem.synchboard.service.board.state.BoardChange;
+import io.github.sagimenahem.synchboard.service.board.state.BoardStateEngine;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.simp.SimpMessageSendingOperations;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import tools.jackson.core.JacksonException;
-import tools.jackson.databind.JsonNode;
-import tools.jackson.databind.ObjectMapper;
 
 /**
  * Service for managing board action history, including undo and redo operations. Handles tracking
  * and reversal of user actions on board objects including creation, updates, and deletions.
  * Provides real-time synchronization across all board members.
  *
+ * <p>
+ * Undo and redo are answered by {@link BoardStateEngine} from the board's in-memory history; the
+ * resulting object change and is_undone flip reach the database through the write-behind queue.
+ * Undoing or redoing an OBJECT_BATCH changes several objects at once; they are broadcast as one
+ * OBJECT_BATCH message.
+ * </p>
+ *
+ * <p>
+ * Undo and redo run on the board's {@link BoardTaskExecutor} lane, like drawing actions, and
+ * broadcast their change before the lane moves on. A board's changes are therefore broadcast in
+ * the order the live state applied them, and an undone object cannot be brought back by an update
+ * applied before the undo but broadcast after it.
+ * </p>
+ *
  * @author Sagi Menahem
  */
 @Service
@@ -35,16 +37,14 @@
 @Slf4j
 public class ActionHistoryService {
 
-    /** Repository for managing action history records */
-    private final ActionHistoryRepository actionHistoryRepository;
-    /** Repository for managing board objects */
-    private final BoardObjectRepository boardObjectRepository;
-    /** Template for sending WebSocket messages */
-    private final SimpMessageSendingOperations messagingTemplate;
-    /** Repository for validating board membership */
-    private final GroupMemberRepository groupMemberRepository;
-    /** JSON object mapper for parsing board object data */
-    private final ObjectMapper objectMapper;
+    /** Broadcasts object changes to board subscribers */
+    private final BoardNotificationService notificationService;
+    /** Cached board membership used to validate access */
+    private final BoardMembershipCache boardMembershipCache;
+    /** Live board state holding each board's undo/redo history */
+    private final BoardStateEngine boardStateEngine;
+    /** Per-board lanes that order undo and redo with the board's drawing actions */
+    private final BoardTaskExecutor boardTaskExecutor;
 
     /**
      * Undoes the last action performed on the specified board. Reverts the most recent non-undone
@@ -56,18 +56,18 @@ public class ActionHistoryService {
      *         undo
      * @throws AccessDeniedException if the user is not a member of the board
      */
-    @Transactional
     public BoardActionDTO.Response undoLastAction(Long boardId, String userEmail) {
-        ActionHistory lastAction = actionHistoryRepository
-            .findTopByBoardWithRelationsAndIsUndoneFalseOrderByTimestampDesc(boardId)
-            .orElse(null);
+        validateMembership(boardId, userEmail);
+        return boardTaskExecutor.call(boardId, () -> {
+            List<BoardChange> changes = boardStateEngine.undo(boardId);
 
-        if (lastAction == null) {
-            log.info("No active actions to undo for boardId: {}", boardId);
-            return null;
-        }
+            if (changes.isEmpty()) {
+                log.info("No active actions to undo for boardId: {}", boardId);
+                return null;
+            }
 
-        return processUndoRedoAction(boardId, userEmail, lastAction, true, "undo");
+            return processUndoRedoChanges(boardId, changes, "undo");
+        });
     }
 
     /**
@@ -80,263 +80,115 @@ public BoardActionDTO.Response undoLastAction(Long boardId, String userEmail) {
      *         redo
      * @throws AccessDeniedException if the user is not a member of the board
      */
-    @Transactional
     public BoardActionDTO.Response redoLastAction(Long boardId, String userEmail) {
-        ActionHistory lastUndoneAction = actionHistoryRepository
-            .findTopByBoardWithRelationsAndIsUndoneTrueOrderByTimestampDesc(boardId)
-            .orElse(null);
-
-        if (lastUndoneAction == null) {
-            log.info("No undone actions to redo for boardId: {}", boardId);
-            return null;
-        }
-
-        return processUndoRedoAction(boardId, userEmail, lastUndoneAction, false, "redo");
-    }
-
-    /**
-     * Processes undo/redo operations for object addition actions. For undo: marks the object as
-     * inactive (soft delete). For redo: reactivates the object and restores it to the board.
-     *
-     * @param action The action history record to process
-     * @param isUndo true for undo operation, false for redo
-     * @return BoardActionDTO.Response containing the processed action, or null if object not found
-     */
-    private BoardActionDTO.Response processAddAction(ActionHistory action, boolean isUndo) {
-        BoardObject boardObject = action.getBoardObject();
-        if (boardObject == null) {
-            return null;
-        }
-
-        if (isUndo) {
-            boardObject.setActive(false);
-            boardObjectRepository.save(boardObject);
-            return createDeleteResponse(boardObject.getInstanceId());
-        } else {
-            boardObject.setActive(true);
-            BoardObject persistedObject = boardObjectRepository.save(boardObject);
-            return parseJsonAndCreateResponse(
-                persistedObject.getObjectData(),
-                BoardActionDTO.ActionType.OBJECT_ADD,
-                persistedObject.getInstanceId(),
-                "redo add"
-            );
-        }
-    }
-
-    /**
-     * Processes undo/redo operations for object update actions. Restores the object to its previous
-     * state (undo) or subsequent state (redo).
-     *
-     * @param action The action history record to process
-     * @param isUndo true for undo operation, false for redo
-     * @return BoardActionDTO.Response containing the processed action, or null if object not found
-     *         or inactive
-     */
-    private BoardActionDTO.Response processUpdateAction(ActionHistory action, boolean isUndo) {
-        log.info(
-            "Handling {} update for object instanceId: {}",
-            isUndo ? "undo" : "redo",
-            action.getBoardObject().getInstanceId()
-        );
-
-        BoardObject boardObject = action.getBoardObject();
-        if (boardObject == null || !boardObject.isActive()) {
-            return null;
-        }
-
-        String targetState = isUndo ? action.getStateBefore() : action.getStateAfter();
-        if (targetState == null) {
-            return null;
-        }
-
-        boardObject.setObjectData(targetState);
-        boardObject.setLastEditedByUser(action.getUser());
-        BoardObject persistedObject = boardObjectRepository.save(boardObject);
-
-        return parseJsonAndCreateResponse(
-            targetState,
-            BoardActionDTO.ActionType.OBJECT_UPDATE,
-            persistedObject.getInstanceId(),
-            isUndo ? "undo update" : "redo update"
-        );
-    }
-
-    /**
-     * Processes undo/redo operations for object deletion actions. For undo: reactivates the deleted
-     * object. For redo: marks the object as inactive (soft delete).
-     *
-     * @param action The action history record to process
-     * @param isUndo true for undo operation, false for redo
-     * @return BoardActionDTO.Response containing the processed action, or null if no state change
-     *         needed
-     */
-    private BoardActionDTO.Response processDeleteAction(ActionHistory action, boolean isUndo) {
-        BoardObject boardObject = action.getBoardObject();
-        if (boardObject == null) {
-            return null;
-        }
+        validateMembership(boardId, userEmail);
+        return boardTaskExecutor.call(boardId, () -> {
+            List<BoardChange> changes = boardStateEngine.redo(boardId);
 
-        if (isUndo) {
-            if (!boardObject.isActive()) {
-                boardObject.setActive(true);
-                boardObject.setLastEditedByUser(action.getUser());
-                BoardObject persistedObject = boardObjectRepository.save(boardObject);
-                return parseJsonAndCreateResponse(
-                    persistedObject.getObjectData(),
-                    BoardActionDTO.ActionType.OBJECT_ADD,
-                    persistedObject.getInstanceId(),
-                    "undo delete"
-                );
-            }
-        } else {
-            if (boardObject.isActive()) {
-                boardObject.setActive(false);
-                boardObject.setLastEditedByUser(action.getUser());
-                boardObjectRepository.save(boardObject);
-                return createDeleteResponse(boardObject.getInstanceId());
+            if (changes.isEmpty()) {
+                log.info("No undone actions to redo for boardId: {}", boardId);
+                return null;
             }
-        }
-        return null;
+
+            return processUndoRedoChanges(boardId, changes, "redo");
+        });
     }
 
     /**
-     * Core method for processing undo/redo operations. Validates user membership, updates action
-     * state, and broadcasts changes.
+     * Turns the changes produced by an undo or redo into the message board members receive, and
+     * broadcasts it: a single object change as it is, the changes of a batch as one OBJECT_BATCH.
      *
      * @param boardId The ID of the board
-     * @param userEmail The email of the user performing the operation
-     * @param action The action history record to process
-     * @param isUndo true for undo operation, false for redo
+     * @param changes The changes applied to the live board state
      * @param operationType Description of the operation for logging
-     * @return BoardActionDTO.Response containing the processed action, or null if no response
-     *         generated
-     * @throws AccessDeniedException if the user is not a member of the board
+     * @return BoardActionDTO.Response describing the objects' new state, or null if every object
+     *         was left unchanged
      */
-    private BoardActionDTO.Response processUndoRedoAction(
+    private BoardActionDTO.Response processUndoRedoChanges(
         Long boardId,
-        String userEmail,
-        ActionHistory action,
-        boolean isUndo,
+        List<BoardChange> changes,
         String operationType
     ) {
-        if (!isUserMember(boardId, userEmail)) {
-            throw new AccessDeniedException(MessageConstants.AUTH_NOT_MEMBER);
-        }
-
-        if (isUndo) {
-            action.setUndone(true);
-            actionHistoryRepository.save(action);
-        } else {
-            action.setUndone(false);
+        if (changes.size() == 1) {
+            return processUndoRedoChange(boardId, changes.getFirst(), operationType);
         }
 
+        List<BoardActionDTO.Operation> operations = changes
+            .stream()
+            .filter((change) -> change.getType() != null)
+            .map((change) ->
+                BoardActionDTO.Operation.builder()
+                    .type(change.getType())
+                    .instanceId(change.getInstanceId())
+                    .payload(change.getAfter() != null ? change.getAfter().getPayload() : null)
+                    .build()
+            )
+            .toList();
         log.info(
-            "Processing {} for action type: {} (actionId: {})",
+            "Processed {} of a batch ({} of {} objects changed) in boardId: {}",
             operationType,
-            action.getActionType(),
-            action.getActionId()
+            operations.size(),
+            changes.size(),
+            boardId
         );
 
-        BoardActionDTO.Response response = processActionByType(action, isUndo);
-
-        if (!isUndo) {
-            actionHistoryRepository.save(action);
-        }
-
-        if (response != null) {
-            broadcastToBoard(boardId, response);
+        if (operations.isEmpty()) {
+            return null;
         }
 
+        BoardActionDTO.Response response = BoardActionDTO.Response.builder()
+            .type(ActionType.OBJECT_BATCH)
+            .instanceId(changes.getFirst().getGroupId().toString())
+            .operations(operations)
+            .sender("system-undo-redo")
+            .build();
+        notificationService.broadcastObjectChange(boardId, response);
         return response;
     }
 
     /**
-     * Routes action processing based on action type. Delegates to specific handler methods for add,
-     * update, or delete actions.
-     *
-     * @param action The action history record to process
-     * @param isUndo true for undo operation, false for redo
-     * @return BoardActionDTO.Response containing the processed action, or null for unsupported
-     *         types
-     */
-    private BoardActionDTO.Response processActionByType(ActionHistory action, boolean isUndo) {
-        switch (action.getActionType()) {
-            case OBJECT_ADD_ACTION:
-                return processAddAction(action, isUndo);
-            case OBJECT_UPDATE_ACTION:
-                return processUpdateAction(action, isUndo);
-            case OBJECT_DELETE_ACTION:
-                return processDeleteAction(action, isUndo);
-            default:
-                log.warn("Unsupported action type for {}: {}", isUndo ? "undo" : "redo", action.getActionType());
-                return null;
-        }
-    }
-
-    /**
-     * Validates if a user is a member of the specified board.
+     * Turns the change produced by an undo or redo of a single action into the message board
+     * members receive, and broadcasts it.
      *
      * @param boardId The ID of the board
-     * @param userEmail The email of the user to validate
-     * @return true if the user is a member of the board, false otherwise
+     * @param change The change applied to the live board state
+     * @param operationType Description of the operation for logging
+     * @return BoardActionDTO.Response describing the object's new state, or null if the object was
+     *         left unchanged
      */
-    private boolean isUserMember(Long boardId, String userEmail) {
-        return groupMemberRepository.existsByUserEmailAndBoardGroupId(userEmail, boardId);
-    }
+    private BoardActionDTO.Response processUndoRedoChange(Long boardId, BoardChange change, String operationType) {
+        log.info(
+            "Processed {} (resulting change: {}) for instanceId: {} in boardId: {}",
+            operationType,
+            change.getType(),
+            change.getInstanceId(),
+            boardId
+        );
 
-    /**
-     * Broadcasts action response to all members of the specified board via WebSocket.
-     *
-     * @param boardId The ID of the board to broadcast to
-     * @param response The response to broadcast
-     */
-    private void broadcastToBoard(Long boardId, BoardActionDTO.Response response) {
-        String destination = WEBSOCKET_BOARD_TOPIC_PREFIX + boardId;
-        messagingTemplate.convertAndSend(destination, response);
-    }
+        if (change.getType() == null) {
+            return null;
+        }
 
-    /**
-     * Creates a delete action response for broadcasting object removal.
-     *
-     * @param instanceId The instance ID of the object being deleted
-     * @return BoardActionDTO.Response configured for delete action
-     */
-    private BoardActionDTO.Response createDeleteResponse(String instanceId) {
-        return BoardActionDTO.Response.builder()
-            .type(BoardActionDTO.ActionType.OBJECT_DELETE)
-            .instanceId(instanceId)
+        BoardActionDTO.Response response = BoardActionDTO.Response.builder()
+            .type(change.getType())
+            .instanceId(change.getInstanceId())
+            .payload(change.getAfter() != null ? change.getAfter().getPayload() : null)
             .sender("system-undo-redo")
             .build();
+        notificationService.broadcastObjectChange(boardId, response);
+        return response;
     }
 
     /**
-     * Parses JSON object data and creates a response for broadcasting.
+     * Validates that a user is a member of the specified board.
      *
-     * @param jsonData The JSON string containing object data
-     * @param actionType The type of action being performed
-     * @param instanceId The instance ID of the object
-     * @param operation Description of the operation for error reporting
-     * @return BoardActionDTO.Response containing parsed data
-     * @throws InvalidRequestException if JSON parsing fails
+     * @param boardId The ID of the board
+     * @param userEmail The email of the user to validate
+     * @throws AccessDeniedException if the user is not a member of the board
      */
-    private BoardActionDTO.Response parseJsonAndCreateResponse(
-        String jsonData,
-        BoardActionDTO.ActionType actionType,
-        String instanceId,
-        String operation
-    ) {
-        try {
-            JsonNode payload = objectMapper.readTree(jsonData);
-            return BoardActionDTO.Response.builder()
-                .type(actionType)
-                .instanceId(instanceId)
-                .payload(payload)
-                .sender("system-undo-redo")
-                .build();
-        } catch (JacksonException e) {
-            log.error("Failed to create {} response: {}", operation, e.getMessage(), e);
-            throw new InvalidRequestException(operation + " operation failed due to corrupted data");
+    private void validateMembership(Long boardId, String userEmail) {
+        if (!boardMembershipCache.isMember(boardId, userEmail)) {
+            throw new AccessDeniedException(MessageConstants.AUTH_NOT_MEMBER);
         }
     }
 }
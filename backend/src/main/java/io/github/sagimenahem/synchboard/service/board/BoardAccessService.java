@@ -1,10 +1,8 @@
 package io.github.sagimenahem.synchboard.service.board;
 
 import io.github.sagimenahem.synchboard.entity.GroupBoard;
-import io.github.sagimenahem.synchboard.entity.GroupMember;
 import io.github.sagimenahem.synchboard.exception.ResourceNotFoundException;
 import io.github.sagimenahem.synchboard.repository.GroupBoardRepository;
-import io.github.sagimenahem.synchboard.repository.GroupMemberRepository;
 import io.github.sagimenahem.synchboard.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,6 +12,7 @@
 /**
  * Service for validating and managing board access permissions. Provides methods to check if users
  * have appropriate access levels (member, admin, creator) for performing operations on boards.
+ * Membership and admin checks are answered by {@link BoardMembershipCache}.
  *
  * @author Sagi Menahem
  */
@@ -24,8 +23,8 @@ public class BoardAccessService {
 
     /** Repository for accessing board data */
     private final GroupBoardRepository boardRepository;
-    /** Repository for managing board memberships */
-    private final GroupMemberRepository memberRepository;
+    /** Cached board memberships */
+    private final BoardMembershipCache boardMembershipCache;
     /** Repository for user data validation */
     private final UserRepository userRepository;
 
@@ -44,14 +43,13 @@ public GroupBoard validateBoardAccess(Long boardId, String userEmail) {
             .findById(boardId)
             .orElseThrow(() -> new ResourceNotFoundException("Board not found"));
 
-        userRepository.findById(userEmail).orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
         if (board.getCreatedByUser() != null && board.getCreatedByUser().getEmail().equals(userEmail)) {
             return board;
         }
 
-        boolean isMember = memberRepository.existsByUserEmailAndBoardGroupId(userEmail, boardId);
-        if (!isMember) {
+        if (!boardMembershipCache.isMember(boardId, userEmail)) {
+            // A membership implies the user exists, so the lookup is only needed to word the denial
+            userRepository.findById(userEmail).orElseThrow(() -> new ResourceNotFoundException("User not found"));
             throw new AccessDeniedException("User is not a member of this board");
         }
 
@@ -75,11 +73,7 @@ public GroupBoard validateAdminAccess(Long boardId, String userEmail) {
             return board;
         }
 
-        GroupMember membership = memberRepository
-            .findByBoardGroupIdAndUserEmail(boardId, userEmail)
-            .orElseThrow(() -> new AccessDeniedException("User is not a member of this board"));
-
-        if (!membership.getIsAdmin()) {
+        if (!boardMembershipCache.isAdmin(boardId, userEmail)) {
             throw new AccessDeniedException("User does not have admin privileges for this board");
         }
 
@@ -0,0 +1,86 @@
+package io.github.sagimenahem.synchboard.service.board;
+
+import io.github.sagimenahem.synchboard.repository.GroupBoardRepository;
+import io.github.sagimenahem.synchboard.service.board.thumbnail.BoardThumbnailService;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Debounces board activity. Draw actions and chat messages only mark their board as active in
+ * memory; once per {@code app.board-activity.flush-interval-ms} the boards marked since the last
+ * flush get their last modified date bumped in a single statement, their members receive one
+ * BOARD_DETAILS_CHANGED notification each, and their thumbnails are scheduled for re-rendering.
+ *
+ * <p>
+ * A busy board therefore costs one update and one fan-out per interval instead of one per stroke,
+ * and a user who belongs to several active boards is notified once per interval, not once per
+ * board.
+ * </p>
+ *
+ * @author Sagi Menahem
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BoardActivityTracker {
+
+    private final GroupBoardRepository groupBoardRepository;
+    private final BoardNotificationService notificationService;
+    private final BoardThumbnailService boardThumbnailService;
+
+    private final Set<Long> dirtyBoards = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Records activity on a board. Cheap enough to call on every action.
+     *
+     * @param boardId the board that saw activity
+     */
+    public void markActive(Long boardId) {
+        dirtyBoards.add(boardId);
+    }
+
+    /**
+     * Persists and announces the activity recorded since the previous flush.
+     */
+    @Scheduled(
+        fixedDelayString = "${app.board-activity.flush-interval-ms:2000}",
+        initialDelayString = "${app.board-activity.flush-interval-ms:2000}"
+    )
+    public void flush() {
+        if (dirtyBoards.isEmpty()) {
+            return;
+        }
+
+        List<Long> boardIds = new ArrayList<>();
+        Iterator<Long> iterator = dirtyBoards.iterator();
+        while (iterator.hasNext()) {
+            boardIds.add(iterator.next());
+            iterator.remove();
+        }
+
+        try {
+            groupBoardRepository.updateLastModifiedDates(boardIds);
+            notificationService.broadcastBoardDetailsChangedToMembersOf(boardIds);
+            boardThumbnailService.boardsChanged(boardIds);
+            log.debug("Board activity flushed for {} boards", boardIds.size());
+        } catch (Exception e) {
+            log.warn("Failed to flush board activity for boards {}, Error: {}", boardIds, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes out activity recorded since the last flush before the application stops.
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
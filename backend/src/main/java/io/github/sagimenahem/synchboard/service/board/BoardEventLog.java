@@ -0,0 +1,357 @@
+package io.github.sagimenahem.synchboard.service.board;
+
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.BOARD_FRAME_HEADER;
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.BOARD_SEQUENCE_HEADER;
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.OBJECT_BATCH_HEADER;
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.OBJECT_BOUNDS_HEADER;
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.OBJECT_INSTANCE_HEADER;
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.WEBSOCKET_BOARD_TOPIC_PREFIX;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import io.github.sagimenahem.synchboard.constants.MessageConstants;
+import io.github.sagimenahem.synchboard.dto.board.BoardEventsDTO;
+import io.github.sagimenahem.synchboard.dto.websocket.BoardUpdateDTO;
+import jakarta.annotation.PreDestroy;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Numbers the drawing actions and chat messages broadcast on each board topic and keeps the most
+ * recent ones, so a client that lost its connection can ask for what it missed instead of reloading
+ * the whole board.
+ *
+ * <p>
+ * Every broadcast gets the board's next sequence number in the {@code board-sequence} header when
+ * it is published, and is handed to the broker while the board's log is locked, so subscribers
+ * receive a board's events in sequence order. The log does not see the order in which the live
+ * board state applied changes; the publishers keep that order by all publishing from the board's
+ * {@link BoardTaskExecutor} lane. Drawing actions, undo and redo are applied and published in one
+ * lane task, and chat messages are published from the lane too, so sequence order is apply order.
+ * Drawing actions are published only once the live board state has accepted them, so a rejected
+ * action never takes a number or a place in the buffer, and is never replayed. The last
+ * {@code app.board-events.buffer-size} events of each board are kept, for at most
+ * {@code app.board-events.max-boards} boards; the least recently used board's log is dropped
+ * beyond that.
+ * </p>
+ *
+ * <p>
+ * A board's events are sent on their own while it is quiet. An event that follows the last send
+ * within {@code app.board-events.frame-tick-ms} is buffered instead, and the events buffered over
+ * the tick are sent together as one board frame: a single message whose body is an array of
+ * {@code {sequence, payload}} objects, oldest first, like the events a reconnecting client fetches.
+ * A frame holds at most {@code app.board-events.max-frame-events} events and is sent early once
+ * full. A burst of updates therefore costs the broker one message per tick rather than one per
+ * event, while an isolated event is not delayed at all. Frames go out under the board's log lock
+ * like single events, so the order is the same. The {@code board-frame} header describes each
+ * event of a frame, so the viewport filter can still hold back events one by one.
+ * </p>
+ *
+ * <p>
+ * Like the live board state, the numbering lives in this node's memory, and a board's drawing
+ * events are only numbered by the node that owns it ({@code BoardOwnership}). Each board log has a
+ * random stream ID, so numbers handed out before a restart, eviction or change of owner are never
+ * mistaken for current ones: a client resuming from another stream, or from an event no longer
+ * kept, is told to reload the board.
+ * </p>
+ *
+ * @author Sagi Menahem
+ */
+@Slf4j
+@Service
+public class BoardEventLog {
+
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final BoardMembershipCache boardMembershipCache;
+    private final int bufferSize;
+    private final int maxBoards;
+    private final long frameTickNanos;
+    private final int maxFrameEvents;
+    private final ScheduledExecutorService frameSender = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("board-frames").daemon().factory()
+    );
+
+    /** Access-ordered, so iteration starts at the least recently used board */
+    private final Map<Long, BoardEvents> boards = new LinkedHashMap<>(16, 0.75f, true);
+
+    public BoardEventLog(
+        SimpMessageSendingOperations messagingTemplate,
+        BoardMembershipCache boardMembershipCache,
+        AppProperties appProperties
+    ) {
+        this.messagingTemplate = messagingTemplate;
+        this.boardMembershipCache = boardMembershipCache;
+        this.bufferSize = appProperties.getBoardEvents().getBufferSize();
+        this.maxBoards = appProperties.getBoardEvents().getMaxBoards();
+        this.frameTickNanos = TimeUnit.MILLISECONDS.toNanos(appProperties.getBoardEvents().getFrameTickMs());
+        this.maxFrameEvents = appProperties.getBoardEvents().getMaxFrameEvents();
+    }
+
+    /**
+     * Sends the frames still buffered and stops the frame timer.
+     */
+    @PreDestroy
+    public void shutdown() {
+        frameSender.shutdownNow();
+        List<BoardEvents> pending;
+        synchronized (boards) {
+            pending = new ArrayList<>(boards.values());
+        }
+        for (BoardEvents events : pending) {
+            synchronized (events) {
+                sendFrame(events);
+            }
+        }
+    }
+
+    /**
+     * Numbers a board event, keeps it, and broadcasts it to the board's subscribers, right away or
+     * in the board's next frame. Callers publish from the board's lane, and publish a drawing action
+     * only after the live board state has applied it, in the same lane task.
+     *
+     * @param boardId the board the event belongs to
+     * @param instanceId the object a drawing action is about, or null for other events
+     * @param payload the message to broadcast
+     * @param headers headers to send with the message; the sequence number header is added
+     * @return the event's sequence number
+     */
+    public long publish(Long boardId, String instanceId, Object payload, Map<String, Object> headers) {
+        BoardEvents events = eventsOf(boardId);
+        synchronized (events) {
+            long sequence = events.append(instanceId, payload, bufferSize);
+            headers.put(BOARD_SEQUENCE_HEADER, String.valueOf(sequence));
+            long now = System.nanoTime();
+            if (frameTickNanos <= 0 || (events.outbound.isEmpty() && now - events.lastSentNanos >= frameTickNanos)) {
+                messagingTemplate.convertAndSend(events.destination, payload, headers);
+                events.lastSentNanos = now;
+                return sequence;
+            }
+
+            events.outbound.add(new Outbound(sequence, payload, headers));
+            if (events.outbound.size() >= maxFrameEvents) {
+                sendFrame(events);
+            } else if (events.outbound.size() == 1) {
+                long delay = Math.max(frameTickNanos - (now - events.lastSentNanos), 0);
+                try {
+                    frameSender.schedule(() -> sendFrameOf(events), delay, TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down: nothing would send the frame later
+                    sendFrame(events);
+                }
+            }
+            return sequence;
+        }
+    }
+
+    /**
+     * Returns the events a client missed since a sequence number. Without a stream and sequence
+     * number, or when they cannot be resumed from, only the current position is returned, marked
+     * not resumable.
+     *
+     * @param boardId the board ID
+     * @param stream the stream the client's sequence number belongs to, or null
+     * @param since the sequence number of the last event the client has, or null
+     * @param userEmail the requesting user's email
+     * @return the missed events, or the position to resume from after reloading the board
+     * @throws AccessDeniedException if the user is not a member of the board
+     */
+    public BoardEventsDTO eventsSince(Long boardId, String stream, Long since, String userEmail) {
+        if (!boardMembershipCache.isMember(boardId, userEmail)) {
+            throw new AccessDeniedException(MessageConstants.AUTH_NOT_MEMBER);
+        }
+
+        BoardEvents events = eventsOf(boardId);
+        synchronized (events) {
+            boolean resumable =
+                stream != null &&
+                since != null &&
+                stream.equals(events.stream) &&
+                since <= events.sequence &&
+                since >= events.oldestRetained() - 1;
+            if (!resumable && since != null) {
+                log.debug("Board {} cannot resume from {} of stream {}; client reloads", boardId, since, stream);
+            }
+            return BoardEventsDTO.builder()
+                .stream(events.stream)
+                .sequence(events.sequence)
+                .resumable(resumable)
+                .events(resumable ? events.since(since) : List.of())
+                .build();
+        }
+    }
+
+    /**
+     * Starts a board's events over on a new stream and tells its subscribers to catch up, which
+     * makes each of them reload the board. Used when events already sent do not hold, such as
+     * object changes the database rejected after they were broadcast.
+     *
+     * @param boardId the board ID
+     */
+    public void restart(Long boardId) {
+        BoardEvents events;
+        synchronized (boards) {
+            events = boards.remove(boardId);
+        }
+        if (events != null) {
+            synchronized (events) {
+                sendFrame(events);
+            }
+        }
+        messagingTemplate.convertAndSend(
+            WEBSOCKET_BOARD_TOPIC_PREFIX + boardId,
+            new BoardUpdateDTO(BoardUpdateDTO.UpdateType.RESYNC_REQUIRED, null)
+        );
+        log.debug("Restarted the event stream of board {}", boardId);
+    }
+
+    private void sendFrameOf(BoardEvents events) {
+        try {
+            synchronized (events) {
+                sendFrame(events);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to send board frame to {}", events.destination, e);
+        }
+    }
+
+    /**
+     * Sends the buffered events of a board, a single one as it is and several as one frame. Called
+     * with the board's events locked.
+     */
+    private void sendFrame(BoardEvents events) {
+        List<Outbound> frame = events.outbound;
+        if (frame.isEmpty()) {
+            return;
+        }
+        events.outbound = new ArrayList<>();
+        events.lastSentNanos = System.nanoTime();
+        if (frame.size() == 1) {
+            messagingTemplate.convertAndSend(events.destination, frame.getFirst().payload, frame.getFirst().headers);
+            return;
+        }
+
+        List<BoardEventsDTO.Event> body = new ArrayList<>(frame.size());
+        StringJoiner description = new StringJoiner(";");
+        for (Outbound event : frame) {
+            body.add(new BoardEventsDTO.Event(event.sequence, event.payload));
+            description.add(describe(event.headers));
+        }
+        Map<String, Object> headers = new HashMap<>();
+        headers.put(BOARD_SEQUENCE_HEADER, String.valueOf(frame.getLast().sequence));
+        headers.put(BOARD_FRAME_HEADER, description.toString());
+        messagingTemplate.convertAndSend(events.destination, body, headers);
+    }
+
+    /** One event's entry in the board-frame header, from the object headers it was published with */
+    private static String describe(Map<String, Object> headers) {
+        if (headers.containsKey(OBJECT_BATCH_HEADER)) {
+            return "*";
+        }
+        Object instanceId = headers.get(OBJECT_INSTANCE_HEADER);
+        if (instanceId == null) {
+            return "";
+        }
+        String entry = URLEncoder.encode(instanceId.toString(), StandardCharsets.UTF_8);
+        Object bounds = headers.get(OBJECT_BOUNDS_HEADER);
+        return bounds != null ? entry + " " + bounds : entry;
+    }
+
+    private BoardEvents eventsOf(Long boardId) {
+        synchronized (boards) {
+            BoardEvents events = boards.get(boardId);
+            if (events == null) {
+                events = new BoardEvents(WEBSOCKET_BOARD_TOPIC_PREFIX + boardId, frameTickNanos);
+                boards.put(boardId, events);
+                if (boards.size() > maxBoards) {
+                    Long eldest = boards.keySet().iterator().next();
+                    boards.remove(eldest);
+                }
+            }
+            return events;
+        }
+    }
+
+    private static final class BoardEvents {
+
+        private final String stream = UUID.randomUUID().toString();
+        private final String destination;
+        private final Deque<Entry> recent = new ArrayDeque<>();
+        private long sequence;
+        /** Events waiting for the board's next frame, oldest first */
+        private List<Outbound> outbound = new ArrayList<>();
+        /** When the board last sent an event or frame */
+        private long lastSentNanos;
+
+        private BoardEvents(String destination, long frameTickNanos) {
+            this.destination = destination;
+            // A new board has been quiet for at least a tick
+            this.lastSentNanos = System.nanoTime() - frameTickNanos;
+        }
+
+        private long append(String instanceId, Object payload, int capacity) {
+            sequence++;
+            recent.addLast(new Entry(sequence, instanceId, payload));
+            if (recent.size() > capacity) {
+                recent.removeFirst();
+            }
+            return sequence;
+        }
+
+        private long oldestRetained() {
+            return recent.isEmpty() ? sequence + 1 : recent.getFirst().sequence;
+        }
+
+        /** Events after {@code since}, keeping only the latest of each object */
+        private List<BoardEventsDTO.Event> since(long since) {
+            List<BoardEventsDTO.Event> newestFirst = new ArrayList<>();
+            Set<String> seenObjects = new HashSet<>();
+            Iterator<Entry> entries = recent.descendingIterator();
+            while (entries.hasNext()) {
+                Entry entry = entries.next();
+                if (entry.sequence <= since) {
+                    break;
+                }
+                if (entry.instanceId == null || seenObjects.add(entry.instanceId)) {
+                    newestFirst.add(new BoardEventsDTO.Event(entry.sequence, entry.payload));
+                }
+            }
+            Collections.reverse(newestFirst);
+            return newestFirst;
+        }
+    }
+
+    private record Outbound(long sequence, Object payload, Map<String, Object> headers) {}
+
+    private static final class Entry {
+
+        private final long sequence;
+        private final String instanceId;
+        private final Object payload;
+
+        private Entry(long sequence, String instanceId, Object payload) {
+            this.sequence = sequence;
+            this.instanceId = instanceId;
+            this.payload = payload;
+        }
+    }
+}
@@ -12,6 +12,9 @@
 import io.github.sagimenahem.synchboard.exception.ResourceConflictException;
 import io.github.sagimenahem.synchboard.exception.ResourceNotFoundException;
 import io.github.sagimenahem.synchboard.repository.*;
+import io.github.sagimenahem.synchboard.service.board.persistence.BoardSnapshotService;
+import io.github.sagimenahem.synchboard.service.board.persistence.BoardWriteBehindService;
+import io.github.sagimenahem.synchboard.service.board.state.BoardStateEngine;
 import io.github.sagimenahem.synchboard.service.storage.FileStorageService;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
@@ -80,6 +83,10 @@ public List<GroupMember> getAllMembers() {
     private final MessageRepository messageRepository;
     private final FileStorageService fileStorageService;
     private final BoardNotificationService notificationService;
+    private final BoardStateEngine boardStateEngine;
+    private final BoardWriteBehindService boardWriteBehindService;
+    private final BoardSnapshotService boardSnapshotService;
+    private final BoardMembershipCache boardMembershipCache;
 
     /**
      * Invites a user to join a board as a member.
@@ -147,6 +154,7 @@ public MemberDTO inviteMember(Long boardId, String invitedUserEmail, String invi
             .build();
 
         groupMemberRepository.save(newMembership);
+        boardMembershipCache.invalidate(boardId);
         log.info(BOARD_MEMBER_ADDED, boardId, invitedUserEmail, invitingUserEmail);
 
         notificationService.broadcastBoardUpdate(boardId, BoardUpdateDTO.UpdateType.MEMBERS_UPDATED, invitingUserEmail);
@@ -191,6 +199,7 @@ public void removeMember(Long boardId, String emailToRemove, String requestingUs
             );
 
         groupMemberRepository.delete(memberToRemove);
+        boardMembershipCache.invalidate(boardId);
         log.info(BOARD_MEMBER_REMOVED, boardId, emailToRemove, requestingUserEmail);
 
         notificationService.broadcastBoardUpdate(
@@ -240,6 +249,7 @@ public MemberDTO promoteMember(Long boardId, String emailToPromote, String reque
 
         memberToPromote.setIsAdmin(true);
         groupMemberRepository.save(memberToPromote);
+        boardMembershipCache.invalidate(boardId);
         log.info(BOARD_MEMBER_PROMOTED, boardId, emailToPromote, requestingUserEmail);
 
         notificationService.broadcastBoardUpdate(
@@ -324,11 +334,13 @@ private void promoteNewAdmin(BoardLeavingContext context) {
                 );
                 memberToPromote.setIsAdmin(true);
                 groupMemberRepository.save(memberToPromote);
+                boardMembershipCache.invalidate(context.getBoardId());
             });
     }
 
     private void removeMemberAndNotify(BoardLeavingContext context) {
         groupMemberRepository.delete(context.getLeavingMember());
+        boardMembershipCache.invalidate(context.getBoardId());
         log.info(BOARD_MEMBER_LEFT, context.getBoardId(), context.getUserEmail());
 
         notificationService.broadcastBoardUpdate(
@@ -345,6 +357,9 @@ private void deleteBoardAndAssociatedData(Long boardId, String userEmail, List<G
         notificationService.broadcastUserUpdatesToUsers(memberEmails);
 
         try {
+            // Land queued draw actions before their rows are deleted underneath them
+            boardWriteBehindService.flush();
+
             GroupBoard board = groupBoardRepository.findById(boardId).orElse(null);
             if (board != null && board.getGroupPictureUrl() != null) {
                 deleteExistingPicture(board);
@@ -357,10 +372,13 @@ private void deleteBoardAndAssociatedData(Long boardId, String userEmail, List<G
             actionHistoryRepository.deleteAllByBoard_BoardGroupId(boardId);
             log.debug("Deleted action history for board {}", boardId);
 
+            boardSnapshotService.delete(boardId);
             boardObjectRepository.deleteAllByBoard_BoardGroupId(boardId);
+            boardStateEngine.evict(boardId);
             log.debug("Deleted board objects for board {}", boardId);
 
             groupMemberRepository.deleteAllByBoardGroupId(boardId);
+            boardMembershipCache.invalidate(boardId);
             log.debug("Deleted group members for board {}", boardId);
 
             groupBoardRepository.deleteById(boardId);
@@ -0,0 +1,174 @@
+package io.github.sagimenahem.synchboard.service.board;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import io.github.sagimenahem.synchboard.entity.GroupMember;
+import io.github.sagimenahem.synchboard.repository.GroupMemberRepository;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Single entry point for board membership checks. Keeps the member list of recently accessed boards
+ * in memory (user email to admin flag), so the checks run on every draw action, chat message, object
+ * fetch, undo and redo are served without a database round trip. A board's members are loaded with
+ * one query on first access.
+ *
+ * <p>
+ * The number of cached boards is bounded by {@code app.membership-cache.max-boards}; the least
+ * recently used board is dropped beyond it. Entries also expire after
+ * {@code app.membership-cache.ttl-ms}. Every membership change must call {@link #invalidate(Long)};
+ * with {@code app.membership-cache.invalidation=broker} the invalidation is also published through
+ * the message broker so other backend nodes drop their copy. In the default {@code local} mode
+ * other nodes rely on the TTL, which bounds how long they may keep honouring a removed member, so
+ * deployments running several nodes should use {@code broker}.
+ * </p>
+ *
+ * @author Sagi Menahem
+ */
+@Slf4j
+@Service
+public class BoardMembershipCache {
+
+    private final GroupMemberRepository groupMemberRepository;
+    private final ObjectProvider<MembershipInvalidationRelay> invalidationRelay;
+    private final int maxBoards;
+    private final long ttlNanos;
+
+    /** Access-ordered, so iteration starts at the least recently used board */
+    private final Map<Long, BoardMembers> boards = new LinkedHashMap<>(16, 0.75f, true);
+    /** Bumped by every invalidation; a load that raced with one is not cached */
+    private final AtomicLong generation = new AtomicLong();
+
+    public BoardMembershipCache(
+        GroupMemberRepository groupMemberRepository,
+        ObjectProvider<MembershipInvalidationRelay> invalidationRelay,
+        AppProperties appProperties
+    ) {
+        this.groupMemberRepository = groupMemberRepository;
+        this.invalidationRelay = invalidationRelay;
+        this.maxBoards = appProperties.getMembershipCache().getMaxBoards();
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(appProperties.getMembershipCache().getTtlMs());
+    }
+
+    /**
+     * Checks whether a user is a member of a board.
+     *
+     * @param boardId the board ID
+     * @param userEmail the user's email
+     * @return true if the user holds a membership on the board
+     */
+    public boolean isMember(Long boardId, String userEmail) {
+        return members(boardId).containsKey(userEmail);
+    }
+
+    /**
+     * Checks whether a user is an admin member of a board.
+     *
+     * @param boardId the board ID
+     * @param userEmail the user's email
+     * @return true if the user is a member flagged as admin
+     */
+    public boolean isAdmin(Long boardId, String userEmail) {
+        return Boolean.TRUE.equals(members(boardId).get(userEmail));
+    }
+
+    /**
+     * Drops a board's cached members after its membership changed. Inside a transaction the entry
+     * is dropped again once the transaction commits, so a load that read the old rows in between is
+     * not kept, and other nodes are only told once the change is visible to them.
+     *
+     * @param boardId the board whose membership changed
+     */
+    public void invalidate(Long boardId) {
+        evictLocal(boardId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(boardId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictLocal(boardId);
+                    publish(boardId);
+                }
+            }
+        );
+    }
+
+    /**
+     * Drops a board's cached members on this node only. Called for invalidations received from
+     * other nodes.
+     *
+     * @param boardId the board ID
+     */
+    public void evictLocal(Long boardId) {
+        generation.incrementAndGet();
+        synchronized (boards) {
+            boards.remove(boardId);
+        }
+        log.debug("Evicted cached members for board {}", boardId);
+    }
+
+    private Map<String, Boolean> members(Long boardId) {
+        long now = System.nanoTime();
+        synchronized (boards) {
+            BoardMembers cached = boards.get(boardId);
+            if (cached != null && now - cached.loadedAtNanos < ttlNanos) {
+                return cached.admins;
+            }
+        }
+
+        long loadGeneration = generation.get();
+        Map<String, Boolean> admins = load(boardId);
+        synchronized (boards) {
+            if (generation.get() == loadGeneration) {
+                boards.put(boardId, new BoardMembers(admins, now));
+                if (boards.size() > maxBoards) {
+                    Long eldest = boards.keySet().iterator().next();
+                    boards.remove(eldest);
+                }
+            }
+        }
+        return admins;
+    }
+
+    private Map<String, Boolean> load(Long boardId) {
+        List<GroupMember> rows = groupMemberRepository.findAllByBoardGroupId(boardId);
+        Map<String, Boolean> admins = new HashMap<>(rows.size() * 2);
+        for (GroupMember row : rows) {
+            admins.put(row.getUserEmail(), Boolean.TRUE.equals(row.getIsAdmin()));
+        }
+        log.debug("Loaded {} members for board {}", admins.size(), boardId);
+        return Map.copyOf(admins);
+    }
+
+    private void publish(Long boardId) {
+        MembershipInvalidationRelay relay = invalidationRelay.getIfAvailable();
+        if (relay != null) {
+            relay.publish(boardId);
+        }
+    }
+
+    /**
+     * The members of one board as of {@code loadedAtNanos}.
+     */
+    private static final class BoardMembers {
+
+        private final Map<String, Boolean> admins;
+        private final long loadedAtNanos;
+
+        private BoardMembers(Map<String, Boolean> admins, long loadedAtNanos) {
+            this.admins = admins;
+            this.loadedAtNanos = loadedAtNanos;
+        }
+    }
+}
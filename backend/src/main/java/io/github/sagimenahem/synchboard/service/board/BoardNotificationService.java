@@ -1,12 +1,22 @@
 package io.github.sagimenahem.synchboard.service.board;
 
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.OBJECT_BATCH_HEADER;
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.OBJECT_BOUNDS_HEADER;
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.OBJECT_INSTANCE_HEADER;
 import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.WEBSOCKET_BOARD_TOPIC_PREFIX;
 import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.WEBSOCKET_USER_TOPIC_PREFIX;
 
+import io.github.sagimenahem.synchboard.dto.error.ErrorResponseDTO;
+import io.github.sagimenahem.synchboard.dto.websocket.BoardActionDTO;
+import io.github.sagimenahem.synchboard.dto.websocket.BoardActionDTO.ActionType;
 import io.github.sagimenahem.synchboard.dto.websocket.BoardUpdateDTO;
 import io.github.sagimenahem.synchboard.dto.websocket.UserUpdateDTO;
 import io.github.sagimenahem.synchboard.repository.GroupMemberRepository;
+import io.github.sagimenahem.synchboard.service.board.state.BoardStateEngine;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.simp.SimpMessageSendingOperations;
@@ -28,6 +38,57 @@ public class BoardNotificationService {
     private final SimpMessageSendingOperations messagingTemplate;
     /** Repository for retrieving board member information */
     private final GroupMemberRepository groupMemberRepository;
+    /** Live board state, which measures objects against their board's canvas */
+    private final BoardStateEngine boardStateEngine;
+    /** Numbers and keeps object changes so reconnecting clients can catch up */
+    private final BoardEventLog boardEventLog;
+    /** Sends notifications addressed to many topics, serialized once */
+    private final NotificationFanOut notificationFanOut;
+
+    /**
+     * Broadcasts an object change to all subscribers of a board through the board's
+     * {@link BoardEventLog}. The message carries the object's instance ID and new bounding box in
+     * headers, so subscribers whose viewport it does not affect can be spared it (see
+     * {@link BoardViewportRegistry}). An OBJECT_BATCH goes to every subscriber as one message.
+     * Only changes the {@link BoardStateEngine} has accepted are broadcast, since each one takes
+     * the board's next sequence number, and they are broadcast from the board's
+     * {@link BoardTaskExecutor} lane in the task that applied them, so numbers follow apply order.
+     *
+     * @param boardId The ID of the board to broadcast to
+     * @param response The object change
+     */
+    public void broadcastObjectChange(Long boardId, BoardActionDTO.Response response) {
+        Map<String, Object> headers = new HashMap<>();
+        if (response.getType() == ActionType.OBJECT_BATCH) {
+            headers.put(OBJECT_BATCH_HEADER, String.valueOf(response.getOperations().size()));
+            boardEventLog.publish(boardId, null, response, headers);
+            return;
+        }
+        headers.put(OBJECT_INSTANCE_HEADER, response.getInstanceId());
+        if (response.getType() != ActionType.OBJECT_DELETE) {
+            headers.put(OBJECT_BOUNDS_HEADER, boardStateEngine.measure(boardId, response.getPayload()).format());
+        }
+        boardEventLog.publish(boardId, response.getInstanceId(), response, headers);
+    }
+
+    /**
+     * Reports object changes the database rejected after they had been accepted and broadcast.
+     * Each author is sent a draw action error, and the board's event stream is restarted, so every
+     * subscriber reloads the board and stops showing the changes.
+     *
+     * @param boardId The ID of the board the changes were made on
+     * @param actorEmails The emails of the users who made the rejected changes
+     */
+    public void broadcastRejectedChanges(Long boardId, Collection<String> actorEmails) {
+        for (String actorEmail : actorEmails) {
+            messagingTemplate.convertAndSendToUser(
+                actorEmail,
+                "/topic/errors",
+                new ErrorResponseDTO("Failed to save draw action", "DRAW_ACTION_ERROR")
+            );
+        }
+        boardEventLog.restart(boardId);
+    }
 
     /**
      * Broadcasts board update notifications to all members of a specific board.
@@ -113,8 +174,23 @@ public void broadcastBoardDetailsChangedToAllBoardMembers(Long boardId) {
     }
 
     /**
-     * Broadcasts board updates to multiple boards simultaneously. Uses parallel processing for
-     * efficient delivery to large numbers of boards.
+     * Broadcasts board details change notifications to the members of several boards, notifying
+     * each user once even if they belong to more than one of the boards.
+     *
+     * @param boardIds The IDs of the boards whose members should be notified
+     */
+    public void broadcastBoardDetailsChangedToMembersOf(Collection<Long> boardIds) {
+        List<String> memberEmails = groupMemberRepository.findDistinctEmailsByBoardIds(boardIds);
+        broadcastToUserList(
+            memberEmails,
+            UserUpdateDTO.UpdateType.BOARD_DETAILS_CHANGED,
+            "board details changes to members of " + boardIds.size() + " boards"
+        );
+    }
+
+    /**
+     * Broadcasts board updates to multiple boards simultaneously. The update is serialized once and
+     * sent to the boards in the background by {@link NotificationFanOut}.
      *
      * @param boardIds List of board IDs to broadcast to
      * @param updateType The type of update being broadcast
@@ -133,14 +209,11 @@ public void broadcastBoardUpdatesToMultipleBoards(
         BoardUpdateDTO payload = new BoardUpdateDTO(updateType, sourceUserEmail);
         log.info("Broadcasting {} updates to {} boards from user {}", updateType, boardIds.size(), sourceUserEmail);
 
-        // Use parallel processing for multiple board notifications to improve performance
-        // Order doesn't matter for independent board notifications, so parallelization is safe
-        boardIds
-            .parallelStream()
-            .forEach((boardId) -> {
-                String destination = WEBSOCKET_BOARD_TOPIC_PREFIX + boardId;
-                messagingTemplate.convertAndSend(destination, payload);
-            });
+        List<String> destinations = boardIds
+            .stream()
+            .map((boardId) -> WEBSOCKET_BOARD_TOPIC_PREFIX + boardId)
+            .toList();
+        notificationFanOut.send(destinations, payload);
     }
 
     /**
@@ -158,7 +231,8 @@ private List<String> getBoardMemberEmails(Long boardId) {
     }
 
     /**
-     * Broadcasts user updates to a list of users using parallel processing.
+     * Broadcasts user updates to a list of users. The update is serialized once and sent to the
+     * users' topics in the background by {@link NotificationFanOut}.
      *
      * @param userEmails List of user emails to notify
      * @param updateType The type of update being broadcast
@@ -173,13 +247,10 @@ private void broadcastToUserList(List<String> userEmails, UserUpdateDTO.UpdateTy
         UserUpdateDTO payload = new UserUpdateDTO(updateType);
         log.info("Broadcasting {} to {} users", operation, userEmails.size());
 
-        // Use parallel processing for multiple user notifications to improve performance
-        // Each user notification is independent, so parallel execution is safe and faster
-        userEmails
-            .parallelStream()
-            .forEach((email) -> {
-                String destination = WEBSOCKET_USER_TOPIC_PREFIX + email;
-                messagingTemplate.convertAndSend(destination, payload);
-            });
+        List<String> destinations = userEmails
+            .stream()
+            .map((email) -> WEBSOCKET_USER_TOPIC_PREFIX + email)
+            .toList();
+        notificationFanOut.send(destinations, payload);
     }
 }
@@ -5,22 +5,26 @@
 import io.github.sagimenahem.synchboard.constants.MessageConstants;
 import io.github.sagimenahem.synchboard.dto.websocket.BoardActionDTO;
 import io.github.sagimenahem.synchboard.dto.websocket.BoardActionDTO.ActionType;
-import io.github.sagimenahem.synchboard.entity.ActionHistory;
-import io.github.sagimenahem.synchboard.entity.BoardObject;
-import io.github.sagimenahem.synchboard.entity.GroupBoard;
-import io.github.sagimenahem.synchboard.entity.User;
 import io.github.sagimenahem.synchboard.exception.InvalidRequestException;
-import io.github.sagimenahem.synchboard.exception.ResourceNotFoundException;
-import io.github.sagimenahem.synchboard.repository.*;
+import io.github.sagimenahem.synchboard.repository.BoardObjectStreamRepository;
+import io.github.sagimenahem.synchboard.repository.BoardObjectStreamRepository.ObjectRowHandler;
+import io.github.sagimenahem.synchboard.service.board.persistence.BoardWriteBehindService;
+import io.github.sagimenahem.synchboard.service.board.state.BoardChange;
+import io.github.sagimenahem.synchboard.service.board.state.BoardStateEngine;
+import io.github.sagimenahem.synchboard.service.board.state.BoundingBox;
+import io.github.sagimenahem.synchboard.service.board.state.LiveBoardObject;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import tools.jackson.core.JacksonException;
-import tools.jackson.databind.JsonNode;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.core.JsonGenerator;
 import tools.jackson.databind.ObjectMapper;
 
 /**
@@ -28,178 +32,224 @@
  * retrieving, and managing drawing actions on collaborative boards, with support for object
  * serialization and board access validation.
  *
+ * <p>
+ * Draw actions are applied to the in-memory {@link BoardStateEngine}, which resolves update and
+ * delete targets without a query and queues each change for batched write-back. An OBJECT_BATCH
+ * is applied the same way, as one unit. Reads are served entirely from the engine.
+ * </p>
+ *
+ * <p>
+ * The streaming read writes a board's objects straight to the response instead. A board that is
+ * not resident is read with a database cursor and each stored object is copied through as raw
+ * JSON, so neither the board nor the response is ever held in memory as a whole. A region read
+ * streams only the objects whose bounding box intersects the region, from the engine's spatial
+ * index or the database's, so a client can draw what it shows before fetching the rest.
+ * </p>
+ *
  * @author Sagi Menahem
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class BoardObjectService {
 
-    private final BoardObjectRepository boardObjectRepository;
-    private final UserRepository userRepository;
-    private final GroupBoardRepository groupBoardRepository;
+    private final BoardMembershipCache boardMembershipCache;
+    private final BoardStateEngine boardStateEngine;
+    private final BoardObjectStreamRepository boardObjectStreamRepository;
+    private final BoardWriteBehindService boardWriteBehindService;
     private final ObjectMapper objectMapper;
-    private final ActionHistoryRepository actionHistoryRepository;
-    private final GroupMemberRepository groupMemberRepository;
+    private final TransactionTemplate streamTransaction;
+
+    public BoardObjectService(
+        BoardMembershipCache boardMembershipCache,
+        BoardStateEngine boardStateEngine,
+        BoardObjectStreamRepository boardObjectStreamRepository,
+        BoardWriteBehindService boardWriteBehindService,
+        ObjectMapper objectMapper,
+        PlatformTransactionManager transactionManager
+    ) {
+        this.boardMembershipCache = boardMembershipCache;
+        this.boardStateEngine = boardStateEngine;
+        this.boardObjectStreamRepository = boardObjectStreamRepository;
+        this.boardWriteBehindService = boardWriteBehindService;
+        this.objectMapper = objectMapper;
+        this.streamTransaction = new TransactionTemplate(transactionManager);
+        this.streamTransaction.setReadOnly(true);
+    }
 
-    @Transactional
     public void saveDrawAction(BoardActionDTO.Request request, String userEmail) {
         validateBoardAccess(userEmail, request.getBoardId());
 
-        User user = userRepository
-            .findById(userEmail)
-            .orElseThrow(() -> new ResourceNotFoundException(MessageConstants.USER_NOT_FOUND + userEmail));
-
-        GroupBoard board = groupBoardRepository
-            .findById(request.getBoardId())
-            .orElseThrow(() -> new ResourceNotFoundException(MessageConstants.BOARD_NOT_FOUND + request.getBoardId()));
-
-        try {
-            String payloadAsString = objectMapper.writeValueAsString(request.getPayload());
-
-            switch (request.getType()) {
-                case OBJECT_ADD:
-                    handleObjectAdd(request, board, user, payloadAsString);
-                    break;
-                case OBJECT_UPDATE:
-                    handleObjectUpdate(request, board, user, payloadAsString);
-                    break;
-                case OBJECT_DELETE:
-                    handleObjectDelete(request, board, user);
-                    break;
-                default:
-                    throw new InvalidRequestException("Unsupported action type: " + request.getType());
-            }
-        } catch (JacksonException e) {
-            log.error(
-                "Failed to process JSON payload for board action on board {}: {}",
+        if (request.getType() == ActionType.OBJECT_BATCH) {
+            List<BoardChange> changes = boardStateEngine.applyBatch(request, userEmail);
+            log.debug(
+                "OBJECT_BATCH: Queued {} changes in board: {} at version {}",
+                changes.size(),
                 request.getBoardId(),
-                e.getMessage(),
-                e
+                changes.getLast().getVersion()
             );
-            throw new InvalidRequestException("Invalid board action data format: " + e.getMessage());
+            return;
         }
+
+        BoardChange change = boardStateEngine.apply(request, userEmail);
+        log.debug(
+            "{}: Queued instanceId: {} in board: {} at version {}",
+            change.getType(),
+            change.getInstanceId(),
+            change.getBoardId(),
+            change.getVersion()
+        );
     }
 
-    @Transactional(readOnly = true)
     public List<BoardActionDTO.Response> getObjectsForBoard(Long boardId, String userEmail) {
         validateBoardAccess(userEmail, boardId);
 
-        List<BoardObject> boardObjects = boardObjectRepository.findActiveByBoardWithUsers(boardId);
+        List<LiveBoardObject> boardObjects = boardStateEngine.getObjects(boardId);
 
-        return boardObjects.stream().map(this::mapEntityToResponse).collect(Collectors.toList());
+        return boardObjects.stream().map(this::mapLiveObjectToResponse).collect(Collectors.toList());
     }
 
-    private void handleObjectAdd(BoardActionDTO.Request request, GroupBoard board, User user, String payloadAsString) {
-        BoardObject newBoardObject = BoardObject.builder()
-            .board(board)
-            .createdByUser(user)
-            .lastEditedByUser(user)
-            .objectType(request.getType().name())
-            .objectData(payloadAsString)
-            .instanceId(request.getInstanceId())
-            .build();
-
-        BoardObject persistedBoardObject = boardObjectRepository.saveAndFlush(newBoardObject);
-        createActionHistory(board, user, persistedBoardObject, request.getType(), null, payloadAsString);
+    /**
+     * Prepares a streamed read of a board's active objects. The body is a JSON array of the same
+     * elements {@link #getObjectsForBoard} returns, written to the response as it is produced.
+     * Access is checked before the response starts.
+     *
+     * @param boardId the board ID
+     * @param userEmail the requesting user's email
+     * @return the response body, which writes the objects when the response is sent
+     * @throws AccessDeniedException if the user is not a member of the board
+     */
+    public StreamingResponseBody streamObjectsForBoard(Long boardId, String userEmail) {
+        validateBoardAccess(userEmail, boardId);
+        return (outputStream) -> writeObjects(boardId, null, outputStream);
     }
 
-    private void handleObjectUpdate(
-        BoardActionDTO.Request request,
-        GroupBoard board,
-        User user,
-        String payloadAsString
+    /**
+     * Prepares a streamed read of the active objects of a board whose bounding box intersects a
+     * region, in the same format and z-order as {@link #streamObjectsForBoard}. Access is checked
+     * before the response starts.
+     *
+     * @param boardId the board ID
+     * @param minX left edge of the region, in normalized canvas coordinates (0 to 1 spans the canvas)
+     * @param minY top edge of the region
+     * @param maxX right edge of the region
+     * @param maxY bottom edge of the region
+     * @param userEmail the requesting user's email
+     * @return the response body, which writes the objects when the response is sent
+     * @throws AccessDeniedException if the user is not a member of the board
+     * @throws InvalidRequestException if an edge is not a finite number or the region is inverted
+     */
+    public StreamingResponseBody streamObjectsInRegion(
+        Long boardId,
+        double minX,
+        double minY,
+        double maxX,
+        double maxY,
+        String userEmail
     ) {
-        log.debug(
-            "OBJECT_UPDATE: Searching for instanceId: {} in board: {}",
-            request.getInstanceId(),
-            board.getBoardGroupId()
-        );
-
-        BoardObject existingObject = boardObjectRepository
-            .findByInstanceIdAndBoardAndIsActive(request.getInstanceId(), board, true)
-            .orElseThrow(() -> {
-                log.error(
-                    "OBJECT_UPDATE: BoardObject not found - instanceId: {}, boardId: {}",
-                    request.getInstanceId(),
-                    board.getBoardGroupId()
-                );
-                return new ResourceNotFoundException(
-                    "BoardObject not found with instanceId: " + request.getInstanceId()
-                );
-            });
-
-        String previousPayload = existingObject.getObjectData();
-        existingObject.setObjectData(payloadAsString);
-        existingObject.setLastEditedByUser(user);
-
-        boardObjectRepository.saveAndFlush(existingObject);
-        createActionHistory(board, user, existingObject, request.getType(), previousPayload, payloadAsString);
+        validateBoardAccess(userEmail, boardId);
+        if (!(minX <= maxX && minY <= maxY)) {
+            throw new InvalidRequestException("Region must satisfy minX <= maxX and minY <= maxY");
+        }
+        BoundingBox region;
+        try {
+            region = BoundingBox.of(minX, minY, maxX, maxY);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException(e.getMessage());
+        }
+        return (outputStream) -> writeObjects(boardId, region, outputStream);
     }
 
-    private void handleObjectDelete(BoardActionDTO.Request request, GroupBoard board, User user) {
-        BoardObject objectToDelete = boardObjectRepository
-            .findByInstanceIdAndBoardAndIsActive(request.getInstanceId(), board, true)
-            .orElseThrow(() ->
-                new ResourceNotFoundException("BoardObject not found with instanceId: " + request.getInstanceId())
-            );
-
-        String previousPayload = objectToDelete.getObjectData();
-        objectToDelete.setActive(false);
-        objectToDelete.setLastEditedByUser(user);
-
-        boardObjectRepository.saveAndFlush(objectToDelete);
-        createActionHistory(board, user, objectToDelete, request.getType(), previousPayload, null);
+    /**
+     * Writes the board's active objects, or only those intersecting {@code region} when it is not
+     * null.
+     */
+    private void writeObjects(Long boardId, BoundingBox region, OutputStream outputStream) {
+        Optional<List<LiveBoardObject>> resident = region == null
+            ? boardStateEngine.getObjectsIfResident(boardId)
+            : boardStateEngine.getObjectsInIfResident(boardId, region);
+        try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+            generator.writeStartArray();
+            if (resident.isPresent()) {
+                for (LiveBoardObject object : resident.get()) {
+                    writeObject(
+                        generator,
+                        object.getObjectType(),
+                        (json) -> json.writeTree(object.getPayload()),
+                        object.getCreatedByEmail(),
+                        object.getInstanceId()
+                    );
+                }
+            } else {
+                // Changes still queued for write-back would be missing from what the database returns
+                boardWriteBehindService.flush();
+                ObjectRowHandler handler = (instanceId, objectType, objectData, createdByEmail) ->
+                    writeObject(
+                        generator,
+                        objectType,
+                        (json) -> writeRawOrNull(json, objectData),
+                        createdByEmail,
+                        instanceId
+                    );
+                streamTransaction.executeWithoutResult((status) -> {
+                    if (region == null) {
+                        boardObjectStreamRepository.forEachActiveObject(boardId, handler);
+                    } else {
+                        boardObjectStreamRepository.forEachActiveObjectIn(
+                            boardId,
+                            region.getMinX(),
+                            region.getMinY(),
+                            region.getMaxX(),
+                            region.getMaxY(),
+                            handler
+                        );
+                    }
+                });
+            }
+            generator.writeEndArray();
+        }
+        log.debug("Streamed objects of board {} from {}", boardId, resident.isPresent() ? "memory" : "database");
     }
 
-    private void createActionHistory(
-        GroupBoard board,
-        User user,
-        BoardObject boardObject,
-        ActionType actionType,
-        String stateBefore,
-        String stateAfter
+    private static void writeObject(
+        JsonGenerator generator,
+        String objectType,
+        Consumer<JsonGenerator> payloadWriter,
+        String createdByEmail,
+        String instanceId
     ) {
-        ActionHistory historyRecord = ActionHistory.builder()
-            .board(board)
-            .user(user)
-            .boardObject(boardObject)
-            .actionType(actionType.name())
-            .stateBefore(stateBefore)
-            .stateAfter(stateAfter)
-            .build();
-
-        actionHistoryRepository.save(historyRecord);
+        generator.writeStartObject();
+        generator.writeStringProperty("type", objectType);
+        generator.writeName("payload");
+        payloadWriter.accept(generator);
+        generator.writeStringProperty("sender", createdByEmail != null ? createdByEmail : DEFAULT_SENDER_EMAIL);
+        generator.writeStringProperty("instanceId", instanceId);
+        generator.writeEndObject();
     }
 
-    private BoardActionDTO.Response mapEntityToResponse(BoardObject entity) {
-        try {
-            JsonNode payload = objectMapper.readTree(entity.getObjectData());
-
-            String senderEmail = DEFAULT_SENDER_EMAIL;
-            if (entity.getCreatedByUser() != null) {
-                senderEmail = entity.getCreatedByUser().getEmail();
-            }
+    private static void writeRawOrNull(JsonGenerator generator, String json) {
+        if (json == null) {
+            generator.writeNull();
+        } else {
+            generator.writeRawValue(json);
+        }
+    }
 
-            return BoardActionDTO.Response.builder()
-                .type(ActionType.valueOf(entity.getObjectType()))
-                .payload(payload)
-                .sender(senderEmail)
-                .instanceId(entity.getInstanceId())
-                .build();
-        } catch (JacksonException | IllegalArgumentException e) {
-            log.error("Failed to parse BoardObject data for object ID: {}", entity.getObjectId(), e);
-            return BoardActionDTO.Response.builder()
-                .type(ActionType.OBJECT_DELETE)
-                .payload(null)
-                .sender("system-error")
-                .instanceId(entity.getInstanceId())
-                .build();
+    private BoardActionDTO.Response mapLiveObjectToResponse(LiveBoardObject object) {
+        String senderEmail = DEFAULT_SENDER_EMAIL;
+        if (object.getCreatedByEmail() != null) {
+            senderEmail = object.getCreatedByEmail();
         }
+
+        return BoardActionDTO.Response.builder()
+            .type(ActionType.valueOf(object.getObjectType()))
+            .payload(object.getPayload())
+            .sender(senderEmail)
+            .instanceId(object.getInstanceId())
+            .build();
     }
 
     private void validateBoardAccess(String userEmail, Long boardId) {
-        if (!groupMemberRepository.existsByUserEmailAndBoardGroupId(userEmail, boardId)) {
+        if (!boardMembershipCache.isMember(boardId, userEmail)) {
             throw new AccessDeniedException(MessageConstants.AUTH_NOT_MEMBER);
         }
     }
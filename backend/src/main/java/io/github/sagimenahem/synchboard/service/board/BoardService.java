@@ -1,5 +1,7 @@
 package io.github.sagimenahem.synchboard.service.board;
 
+import static io.github.sagimenahem.synchboard.constants.CanvasConstants.DEFAULT_CANVAS_HEIGHT;
+import static io.github.sagimenahem.synchboard.constants.CanvasConstants.DEFAULT_CANVAS_WIDTH;
 import static io.github.sagimenahem.synchboard.constants.LoggingConstants.*;
 
 import io.github.sagimenahem.synchboard.constants.MessageConstants;
@@ -10,17 +12,23 @@
 import io.github.sagimenahem.synchboard.entity.User;
 import io.github.sagimenahem.synchboard.exception.InvalidRequestException;
 import io.github.sagimenahem.synchboard.exception.ResourceNotFoundException;
+import io.github.sagimenahem.synchboard.repository.BoardWriteBatchRepository;
 import io.github.sagimenahem.synchboard.repository.GroupBoardRepository;
 import io.github.sagimenahem.synchboard.repository.GroupMemberRepository;
 import io.github.sagimenahem.synchboard.repository.UserRepository;
+import io.github.sagimenahem.synchboard.service.board.state.BoardStateEngine;
+import io.github.sagimenahem.synchboard.service.board.thumbnail.BoardThumbnailService;
 import io.github.sagimenahem.synchboard.service.storage.FileStorageService;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 /**
@@ -41,6 +49,10 @@ public class BoardService {
     private final FileStorageService fileStorageService;
     private final BoardNotificationService notificationService;
     private final BoardMemberService boardMemberService;
+    private final BoardMembershipCache boardMembershipCache;
+    private final BoardWriteBatchRepository boardWriteBatchRepository;
+    private final BoardStateEngine boardStateEngine;
+    private final BoardThumbnailService boardThumbnailService;
 
     @Transactional(readOnly = true)
     public List<BoardDTO> getBoardsForUser(String userEmail) {
@@ -101,6 +113,7 @@ public BoardDTO createBoard(CreateBoardRequest request, String ownerEmail) {
             .isAdmin(true)
             .build();
         groupMemberRepository.save(newMembership);
+        boardMembershipCache.invalidate(newBoard.getBoardGroupId());
 
         log.info(BOARD_CREATED, newBoard.getBoardGroupId(), request.getName(), ownerEmail);
 
@@ -114,7 +127,7 @@ public BoardDTO createBoard(CreateBoardRequest request, String ownerEmail) {
     public BoardDetailsDTO getBoardDetails(Long boardId, String userEmail) {
         log.debug(BOARD_ACCESS_ATTEMPT, boardId, userEmail);
 
-        if (!groupMemberRepository.existsByUserEmailAndBoardGroupId(userEmail, boardId)) {
+        if (!boardMembershipCache.isMember(boardId, userEmail)) {
             log.warn(BOARD_ACCESS_DENIED, boardId, userEmail);
             throw new AccessDeniedException(MessageConstants.AUTH_NOT_MEMBER);
         }
@@ -295,6 +308,7 @@ private BoardDTO mapToBoardResponse(GroupMember membership) {
             .name(membership.getGroupBoard().getBoardGroupName())
             .description(membership.getGroupBoard().getGroupDescription())
             .pictureUrl(membership.getGroupBoard().getGroupPictureUrl())
+            .thumbnailUrl(boardThumbnailService.getThumbnailUrl(membership.getGroupBoard()))
             .lastModifiedDate(membership.getGroupBoard().getLastModifiedDate())
             .isAdmin(membership.getIsAdmin())
             .canvasBackgroundColor(membership.getGroupBoard().getCanvasBackgroundColor())
@@ -360,6 +374,8 @@ public BoardDTO updateCanvasSettings(Long boardId, UpdateCanvasSettingsRequest r
         }
 
         GroupBoard boardToUpdate = member.getGroupBoard();
+        Integer previousWidth = boardToUpdate.getCanvasWidth();
+        Integer previousHeight = boardToUpdate.getCanvasHeight();
 
         if (request.getCanvasBackgroundColor() != null) {
             boardToUpdate.setCanvasBackgroundColor(request.getCanvasBackgroundColor());
@@ -371,7 +387,17 @@ public BoardDTO updateCanvasSettings(Long boardId, UpdateCanvasSettingsRequest r
             boardToUpdate.setCanvasHeight(request.getCanvasHeight());
         }
 
-        groupBoardRepository.save(boardToUpdate);
+        boolean resized =
+            !Objects.equals(previousWidth, boardToUpdate.getCanvasWidth()) ||
+            !Objects.equals(previousHeight, boardToUpdate.getCanvasHeight());
+        if (resized) {
+            // Object bounds are measured against the canvas size, so they are recomputed from the new one
+            groupBoardRepository.saveAndFlush(boardToUpdate);
+            boardWriteBatchRepository.refreshBounds(boardId);
+            resizeLiveBoardAfterCommit(boardId, boardToUpdate.getCanvasWidth(), boardToUpdate.getCanvasHeight());
+        } else {
+            groupBoardRepository.save(boardToUpdate);
+        }
 
         log.info(BOARD_UPDATED, boardId, "canvas settings", userEmail);
 
@@ -381,6 +407,27 @@ public BoardDTO updateCanvasSettings(Long boardId, UpdateCanvasSettingsRequest r
         return mapToBoardResponse(member);
     }
 
+    /**
+     * Re-measures the resident board's objects for its new canvas size once the resize is committed,
+     * so the live index never runs ahead of the stored size.
+     */
+    private void resizeLiveBoardAfterCommit(Long boardId, Integer canvasWidth, Integer canvasHeight) {
+        int width = Objects.requireNonNullElse(canvasWidth, DEFAULT_CANVAS_WIDTH);
+        int height = Objects.requireNonNullElse(canvasHeight, DEFAULT_CANVAS_HEIGHT);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            boardStateEngine.resizeCanvas(boardId, width, height);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    boardStateEngine.resizeCanvas(boardId, width, height);
+                }
+            }
+        );
+    }
+
     private MemberDTO toMemberDTO(GroupMember membership) {
         return MemberDTO.builder()
             .email(membership.getUser().getEmail())
@@ -0,0 +1,139 @@
+package io.github.sagimenahem.synchboard.service.board;
+
+import jakarta.annotation.PreDestroy;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs board work off the WebSocket inbound threads while keeping it ordered per board. Each board
+ * has a lane: tasks submitted for the same board run one at a time in submission order, tasks for
+ * different boards run concurrently. Lanes are drained on virtual threads, so a task blocked on the
+ * database parks cheaply instead of holding a platform thread.
+ *
+ * <p>
+ * A lane exists only while it has work; the last task to finish removes it.
+ * </p>
+ *
+ * @author Sagi Menahem
+ */
+@Slf4j
+@Component
+// Destroyed before the write-behind queue, so tasks still running on shutdown can reach it
+@DependsOn("boardWriteBehindService")
+public class BoardTaskExecutor {
+
+    private final ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<Long, Lane> lanes = new ConcurrentHashMap<>();
+
+    /**
+     * Submits a task to a board's lane.
+     *
+     * @param boardId the board the task belongs to
+     * @param task the work to run after every task previously submitted for the board
+     */
+    public void execute(Long boardId, Runnable task) {
+        boolean[] start = new boolean[1];
+        Lane lane = lanes.compute(boardId, (id, existing) -> {
+            Lane current = existing != null ? existing : new Lane();
+            current.tasks.add(task);
+            if (!current.draining) {
+                current.draining = true;
+                start[0] = true;
+            }
+            return current;
+        });
+        if (start[0]) {
+            try {
+                virtualThreads.execute(() -> drain(boardId, lane));
+            } catch (RejectedExecutionException e) {
+                // Shutting down: finish the lane on the caller rather than strand its tasks
+                drain(boardId, lane);
+            }
+        }
+    }
+
+    /**
+     * Runs a task on a board's lane and waits for its result, for callers such as HTTP requests
+     * that answer with what the task did. Must not be called from a task on the same board's lane,
+     * which would wait for itself.
+     *
+     * @param boardId the board the task belongs to
+     * @param task the work to run after every task previously submitted for the board
+     * @return the task's result
+     * @throws RuntimeException whatever the task threw
+     */
+    public <T> T call(Long boardId, Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        execute(boardId, () -> {
+            try {
+                result.complete(task.get());
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Stops accepting tasks and waits for queued ones to finish.
+     */
+    @PreDestroy
+    public void shutdown() {
+        virtualThreads.shutdown();
+        try {
+            if (!virtualThreads.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Board task lanes did not drain within 10 seconds; {} boards still busy", lanes.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain(Long boardId, Lane lane) {
+        while (true) {
+            Runnable task = lane.tasks.poll();
+            if (task == null) {
+                // Tasks are only added inside compute, so an empty check here cannot miss one
+                Lane remaining = lanes.compute(boardId, (id, current) -> current.tasks.isEmpty() ? null : current);
+                if (remaining == null) {
+                    return;
+                }
+                continue;
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("Board task failed for board {}: {}", boardId, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Pending tasks of one board. {@code draining} is only read and written inside
+     * {@code lanes.compute}.
+     */
+    private static final class Lane {
+
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private boolean draining;
+    }
+}
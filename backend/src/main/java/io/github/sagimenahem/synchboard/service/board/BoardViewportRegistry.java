@@ -0,0 +1,291 @@
+package io.github.sagimenahem.synchboard.service.board;
+
+import io.github.sagimenahem.synchboard.service.board.state.BoundingBox;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tracks, for every board topic subscription, the viewport its client reported and what the client
+ * knows about each object, and decides which object broadcasts the client needs.
+ *
+ * <p>
+ * A broadcast is held back from a subscription only when it cannot change what the client shows:
+ * the object's new bounds lie outside the viewport and so does the client's copy of the object.
+ * The client's copy is only known for objects the subscription has received a broadcast for since
+ * the viewport was first set; until then it is assumed to be visible, since the client loaded the
+ * whole board. Held-back objects are marked stale, and when the viewport moves, the stale objects
+ * it now covers are caught up with their current state.
+ * </p>
+ *
+ * <p>
+ * The catch-up reads the live board state on the board's lane. A broadcast filtered after the
+ * viewport moved may describe a change the lane has not applied yet, so such objects are left out
+ * of the catch-up: the filter has already compared their newest state against the new viewport.
+ * </p>
+ *
+ * <p>
+ * Since held-back broadcasts leave gaps in the sequence numbers a client sees, a client that
+ * reconnects must resume from before its oldest held-back change, not from the last number it
+ * received; {@link #resumeSequence} tells it which.
+ * </p>
+ *
+ * <p>
+ * An OBJECT_BATCH is always delivered. Its objects are not known individually here, so delivering
+ * one makes the subscription forget every copy it knew of; its objects count as visible again until
+ * their next broadcast.
+ * </p>
+ *
+ * <p>
+ * Subscriptions without a viewport receive every broadcast. Each subscription has its own state,
+ * since a client may subscribe to the same board topic more than once.
+ * </p>
+ *
+ * @author Sagi Menahem
+ */
+@Component
+public class BoardViewportRegistry {
+
+    private final Map<String, SessionViewports> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Source of current object states for a catch-up, and where the catch-up messages go.
+     */
+    public interface CatchUp {
+        /**
+         * Returns the current bounding box of an object, or null if it is no longer on the board.
+         */
+        BoundingBox locate(String instanceId);
+
+        /**
+         * Sends the object's current state, or its deletion if {@link #locate} returned null, to one
+         * subscription. Called with the subscription locked, so no broadcast overtakes it.
+         */
+        void send(String subscriptionId, String instanceId);
+    }
+
+    /**
+     * Records a subscription to a board topic. It inherits the viewport the session reported for
+     * the board, if any.
+     */
+    public void subscribed(String sessionId, String subscriptionId, Long boardId) {
+        SessionViewports session = sessions.computeIfAbsent(sessionId, (id) -> new SessionViewports());
+        synchronized (session) {
+            SubscriptionView view = new SubscriptionView(boardId);
+            view.viewport = session.viewports.get(boardId);
+            session.subscriptions.put(subscriptionId, view);
+        }
+    }
+
+    public void unsubscribed(String sessionId, String subscriptionId) {
+        SessionViewports session = sessions.get(sessionId);
+        if (session != null) {
+            synchronized (session) {
+                session.subscriptions.remove(subscriptionId);
+            }
+        }
+    }
+
+    public void disconnected(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    /**
+     * Sets the viewport a session shows of a board, for its current and future subscriptions to the
+     * board.
+     *
+     * @return whether the session has subscriptions to the board that may need a catch-up
+     */
+    public boolean setViewport(String sessionId, Long boardId, BoundingBox viewport) {
+        SessionViewports session = sessions.computeIfAbsent(sessionId, (id) -> new SessionViewports());
+        boolean subscribed = false;
+        synchronized (session) {
+            session.viewports.put(boardId, viewport);
+            for (SubscriptionView view : session.subscriptions.values()) {
+                if (view.boardId.equals(boardId)) {
+                    view.setViewport(viewport);
+                    subscribed = true;
+                }
+            }
+        }
+        return subscribed;
+    }
+
+    /**
+     * Decides whether a broadcast about an object is delivered to a subscription.
+     *
+     * @param sessionId the receiving session
+     * @param subscriptionId the subscription the broadcast arrived on
+     * @param instanceId the object the broadcast is about
+     * @param bounds the bounding box of the object's new state, or null if it was deleted
+     * @param sequence the broadcast's board sequence number
+     * @return false if the broadcast cannot change what the subscription's client shows
+     */
+    public boolean admit(
+        String sessionId,
+        String subscriptionId,
+        String instanceId,
+        BoundingBox bounds,
+        long sequence
+    ) {
+        SubscriptionView view = viewOf(sessionId, subscriptionId);
+        return view == null || view.admit(instanceId, bounds, sequence);
+    }
+
+    /**
+     * Records that an OBJECT_BATCH was delivered to a subscription, which may have changed the
+     * client's copy of any object.
+     *
+     * @param sessionId the receiving session
+     * @param subscriptionId the subscription the batch arrived on
+     */
+    public void batchDelivered(String sessionId, String subscriptionId) {
+        SubscriptionView view = viewOf(sessionId, subscriptionId);
+        if (view != null) {
+            view.forgetCopies();
+        }
+    }
+
+    /**
+     * Returns the board sequence number a subscription's client should resume from after
+     * reconnecting, if it differs from the last one it received.
+     *
+     * @param sessionId the receiving session
+     * @param subscriptionId the subscription
+     * @return the number before the subscription's oldest held-back broadcast, or null if nothing
+     *         is held back from it
+     */
+    public Long resumeSequence(String sessionId, String subscriptionId) {
+        SubscriptionView view = viewOf(sessionId, subscriptionId);
+        return view != null ? view.resumeSequence() : null;
+    }
+
+    private SubscriptionView viewOf(String sessionId, String subscriptionId) {
+        SessionViewports session = sessions.get(sessionId);
+        return session != null ? session.subscriptions.get(subscriptionId) : null;
+    }
+
+    /**
+     * Brings a session's subscriptions to a board up to date with the stale objects their viewport
+     * now covers. Runs on the board's lane, after every change broadcast before the viewport moved
+     * has been applied.
+     *
+     * @param sessionId the session whose viewport moved
+     * @param boardId the board
+     * @param catchUp where current states come from and go to
+     * @return the number of catch-up messages sent
+     */
+    public int catchUp(String sessionId, Long boardId, CatchUp catchUp) {
+        SessionViewports session = sessions.get(sessionId);
+        if (session == null) {
+            return 0;
+        }
+        Map<String, SubscriptionView> views;
+        synchronized (session) {
+            views = new HashMap<>(session.subscriptions);
+        }
+        int sent = 0;
+        for (Map.Entry<String, SubscriptionView> entry : views.entrySet()) {
+            if (entry.getValue().boardId.equals(boardId)) {
+                sent += entry.getValue().catchUp(entry.getKey(), catchUp);
+            }
+        }
+        return sent;
+    }
+
+    private static final class SessionViewports {
+
+        private final Map<Long, BoundingBox> viewports = new HashMap<>();
+        private final Map<String, SubscriptionView> subscriptions = new ConcurrentHashMap<>();
+    }
+
+    private static final class SubscriptionView {
+
+        private final Long boardId;
+        private BoundingBox viewport;
+        /**
+         * Bounding box of the client's copy of each object whose copy is known; a null value means
+         * the client has no copy
+         */
+        private final Map<String, BoundingBox> copies = new HashMap<>();
+        /** Objects whose latest broadcast was held back, with the sequence number of the first one */
+        private final Map<String, Long> stale = new HashMap<>();
+        /** Sequence numbers in {@link #stale}, to find the oldest */
+        private final NavigableSet<Long> heldBackSince = new TreeSet<>();
+        /** Stale objects due for the next catch-up; broadcasts after the viewport moved take them out */
+        private final Set<String> pending = new HashSet<>();
+
+        private SubscriptionView(Long boardId) {
+            this.boardId = boardId;
+        }
+
+        private synchronized void setViewport(BoundingBox viewport) {
+            this.viewport = viewport;
+            pending.clear();
+            pending.addAll(stale.keySet());
+        }
+
+        private synchronized boolean admit(String instanceId, BoundingBox bounds, long sequence) {
+            if (viewport == null) {
+                return true;
+            }
+            pending.remove(instanceId);
+            boolean copyKnown = copies.containsKey(instanceId);
+            BoundingBox copy = copies.get(instanceId);
+            boolean visible =
+                (bounds != null && bounds.intersects(viewport)) ||
+                !copyKnown ||
+                (copy != null && copy.intersects(viewport));
+            if (visible) {
+                copies.put(instanceId, bounds);
+                markFresh(instanceId);
+            } else if (!stale.containsKey(instanceId)) {
+                stale.put(instanceId, sequence);
+                heldBackSince.add(sequence);
+            }
+            return visible;
+        }
+
+        private synchronized void forgetCopies() {
+            copies.clear();
+        }
+
+        private synchronized Long resumeSequence() {
+            return heldBackSince.isEmpty() ? null : heldBackSince.first() - 1;
+        }
+
+        private void markFresh(String instanceId) {
+            Long since = stale.remove(instanceId);
+            if (since != null) {
+                heldBackSince.remove(since);
+            }
+        }
+
+        private synchronized int catchUp(String subscriptionId, CatchUp catchUp) {
+            int sent = 0;
+            for (String instanceId : pending) {
+                if (!stale.containsKey(instanceId)) {
+                    continue;
+                }
+                BoundingBox current = catchUp.locate(instanceId);
+                BoundingBox copy = copies.get(instanceId);
+                if (
+                    (current != null && current.intersects(viewport)) ||
+                    (copy != null && copy.intersects(viewport))
+                ) {
+                    catchUp.send(subscriptionId, instanceId);
+                    copies.put(instanceId, current);
+                    markFresh(instanceId);
+                    sent++;
+                }
+            }
+            pending.clear();
+            return sent;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package io.github.sagimenahem.synchboard.service.board;
+
+import static io.github.sagimenahem.synchboard.constants.FileConstants.DEFAULT_SENDER_EMAIL;
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.WEBSOCKET_BOARD_TOPIC_PREFIX;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import io.github.sagimenahem.synchboard.constants.MessageConstants;
+import io.github.sagimenahem.synchboard.dto.websocket.BoardActionDTO;
+import io.github.sagimenahem.synchboard.dto.websocket.BoardActionDTO.ActionType;
+import io.github.sagimenahem.synchboard.dto.websocket.BoardViewportDTO;
+import io.github.sagimenahem.synchboard.exception.InvalidRequestException;
+import io.github.sagimenahem.synchboard.service.board.state.BoardStateEngine;
+import io.github.sagimenahem.synchboard.service.board.state.BoundingBox;
+import io.github.sagimenahem.synchboard.service.board.state.LiveBoardObject;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Handles the viewports clients report for the boards they show. Object broadcasts outside a
+ * client's viewport are held back by {@link BoardViewportRegistry}; when the viewport moves, this
+ * service catches the client up with the held-back objects it now covers.
+ *
+ * <p>
+ * The catch-up runs on the board's lane in {@link BoardTaskExecutor}, behind every draw action
+ * broadcast before the viewport moved, so it reads object states at least as new as the ones the
+ * client was spared. Its messages are written straight to the session's board subscription as
+ * OBJECT_ADD (current state) or OBJECT_DELETE, without a trip through the broker.
+ * </p>
+ *
+ * @author Sagi Menahem
+ */
+@Slf4j
+@Service
+public class BoardViewportService {
+
+    private final BoardViewportRegistry boardViewportRegistry;
+    private final BoardStateEngine boardStateEngine;
+    private final BoardMembershipCache boardMembershipCache;
+    private final BoardTaskExecutor boardTaskExecutor;
+    private final MessageChannel clientOutboundChannel;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final AtomicLong catchUpMessageIds = new AtomicLong();
+
+    public BoardViewportService(
+        BoardViewportRegistry boardViewportRegistry,
+        BoardStateEngine boardStateEngine,
+        BoardMembershipCache boardMembershipCache,
+        BoardTaskExecutor boardTaskExecutor,
+        @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+        ObjectMapper objectMapper,
+        AppProperties appProperties
+    ) {
+        this.boardViewportRegistry = boardViewportRegistry;
+        this.boardStateEngine = boardStateEngine;
+        this.boardMembershipCache = boardMembershipCache;
+        this.boardTaskExecutor = boardTaskExecutor;
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.objectMapper = objectMapper;
+        this.enabled = appProperties.getStomp().isViewportFilteringEnabled();
+    }
+
+    /**
+     * Records the viewport a session shows of a board and schedules its catch-up. Ignored when
+     * viewport filtering is disabled, so every client keeps receiving every change.
+     *
+     * @param sessionId the WebSocket session that reported the viewport
+     * @param request the board and viewport rectangle
+     * @param userEmail the session's user
+     * @throws InvalidRequestException if the board or an edge is missing, or the rectangle is
+     *         inverted or not finite
+     * @throws AccessDeniedException if the user is not a member of the board
+     */
+    public void updateViewport(String sessionId, BoardViewportDTO request, String userEmail) {
+        Long boardId = request.getBoardId();
+        BoundingBox viewport = toViewport(request);
+        if (!boardMembershipCache.isMember(boardId, userEmail)) {
+            throw new AccessDeniedException(MessageConstants.AUTH_NOT_MEMBER);
+        }
+        if (!enabled) {
+            return;
+        }
+
+        if (boardViewportRegistry.setViewport(sessionId, boardId, viewport)) {
+            boardTaskExecutor.execute(boardId, () -> catchUp(sessionId, boardId));
+        }
+    }
+
+    private static BoundingBox toViewport(BoardViewportDTO request) {
+        if (
+            request.getBoardId() == null ||
+            request.getMinX() == null ||
+            request.getMinY() == null ||
+            request.getMaxX() == null ||
+            request.getMaxY() == null
+        ) {
+            throw new InvalidRequestException("Viewport must name a board and all four edges");
+        }
+        if (!(request.getMinX() <= request.getMaxX() && request.getMinY() <= request.getMaxY())) {
+            throw new InvalidRequestException("Viewport must satisfy minX <= maxX and minY <= maxY");
+        }
+        try {
+            return BoundingBox.of(request.getMinX(), request.getMinY(), request.getMaxX(), request.getMaxY());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException(e.getMessage());
+        }
+    }
+
+    private void catchUp(String sessionId, Long boardId) {
+        // Current states looked up for the decision, reused for the message
+        Map<String, LiveBoardObject> current = new HashMap<>();
+        int sent = boardViewportRegistry.catchUp(
+            sessionId,
+            boardId,
+            new BoardViewportRegistry.CatchUp() {
+                @Override
+                public BoundingBox locate(String instanceId) {
+                    LiveBoardObject object = boardStateEngine.find(boardId, instanceId).orElse(null);
+                    current.put(instanceId, object);
+                    return object != null ? boardStateEngine.measure(boardId, object.getPayload()) : null;
+                }
+
+                @Override
+                public void send(String subscriptionId, String instanceId) {
+                    BoardActionDTO.Response response = toResponse(instanceId, current.get(instanceId));
+                    sendToSubscription(sessionId, subscriptionId, boardId, response);
+                }
+            }
+        );
+        if (sent > 0) {
+            log.debug("Caught up session {} on board {} with {} objects", sessionId, boardId, sent);
+        }
+    }
+
+    private static BoardActionDTO.Response toResponse(String instanceId, LiveBoardObject object) {
+        if (object == null) {
+            return BoardActionDTO.Response.builder()
+                .type(ActionType.OBJECT_DELETE)
+                .instanceId(instanceId)
+                .sender(DEFAULT_SENDER_EMAIL)
+                .build();
+        }
+        return BoardActionDTO.Response.builder()
+            .type(ActionType.OBJECT_ADD)
+            .instanceId(instanceId)
+            .payload(object.getPayload())
+            .sender(object.getCreatedByEmail() != null ? object.getCreatedByEmail() : DEFAULT_SENDER_EMAIL)
+            .build();
+    }
+
+    /**
+     * Writes a message to one subscription of one session, as if the broker had delivered it. It
+     * still passes the client outbound interceptors, so it is re-encoded for CBOR sessions.
+     */
+    private void sendToSubscription(
+        String sessionId,
+        String subscriptionId,
+        Long boardId,
+        BoardActionDTO.Response response
+    ) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(WEBSOCKET_BOARD_TOPIC_PREFIX + boardId);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setNativeHeader(
+            StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER,
+            sessionId + "-catch-up-" + catchUpMessageIds.incrementAndGet()
+        );
+        byte[] body = objectMapper.writeValueAsBytes(response);
+        clientOutboundChannel.send(MessageBuilder.createMessage(body, accessor.getMessageHeaders()));
+    }
+}
@@ -3,23 +3,31 @@
 import static io.github.sagimenahem.synchboard.constants.LoggingConstants.DIAGNOSTIC_PREFIX;
 import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.WEBSOCKET_BOARD_TOPIC_PREFIX;
 
+import io.github.sagimenahem.synchboard.config.AppProperties;
 import io.github.sagimenahem.synchboard.constants.LoggingConstants;
 import io.github.sagimenahem.synchboard.constants.MessageConstants;
+import io.github.sagimenahem.synchboard.dto.board.MessagePageDTO;
 import io.github.sagimenahem.synchboard.dto.websocket.ChatMessageDTO;
 import io.github.sagimenahem.synchboard.entity.GroupBoard;
 import io.github.sagimenahem.synchboard.entity.Message;
 import io.github.sagimenahem.synchboard.entity.User;
+import io.github.sagimenahem.synchboard.exception.InvalidRequestException;
 import io.github.sagimenahem.synchboard.exception.ResourceNotFoundException;
 import io.github.sagimenahem.synchboard.repository.GroupBoardRepository;
-import io.github.sagimenahem.synchboard.repository.GroupMemberRepository;
 import io.github.sagimenahem.synchboard.repository.MessageRepository;
 import io.github.sagimenahem.synchboard.repository.UserRepository;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,7 +35,8 @@
 /**
  * Service for managing real-time chat functionality within collaborative boards. Handles message
  * processing, persistence, broadcasting to board members, and retrieval of message history with
- * proper access control validation.
+ * proper access control validation. History can be read in full or in keyset-paginated pages,
+ * newest first, so opening a board with a long chat does not load all of it.
  *
  * @author Sagi Menahem
  */
@@ -39,11 +48,13 @@ public class ChatService {
     private final UserRepository userRepository;
     private final MessageRepository messageRepository;
     private final GroupBoardRepository groupBoardRepository;
-    private final GroupMemberRepository groupMemberRepository;
-    private final SimpMessageSendingOperations messagingTemplate;
+    private final BoardMembershipCache boardMembershipCache;
+    private final BoardEventLog boardEventLog;
+    private final AppProperties appProperties;
 
     /**
-     * Processes and saves a chat message, then broadcasts it to all board subscribers.
+     * Processes and saves a chat message, then broadcasts it to all board subscribers through the
+     * board's {@link BoardEventLog}.
      *
      * @param request the chat message request containing content and board ID
      * @param principal the authenticated user's principal
@@ -90,7 +101,7 @@ public void processAndSaveMessage(ChatMessageDTO.Request request, Principal prin
             response.toString()
         );
 
-        messagingTemplate.convertAndSend(destination, response);
+        boardEventLog.publish(request.getBoardId(), null, response, new HashMap<>());
         log.debug("Chat message broadcasted to topic: {} with instanceId: {}", destination, request.getInstanceId());
     }
 
@@ -109,6 +120,66 @@ public List<ChatMessageDTO.Response> getMessagesForBoard(Long boardId, String us
             .collect(Collectors.toList());
     }
 
+    /**
+     * Retrieves one page of a board's chat history. The first page, requested without a cursor,
+     * holds the newest messages; each page's cursor leads to the messages just before it. Pages
+     * are located by {@code (timestamp, messageId)} rather than by offset, so a page costs the same
+     * however far back it is, and messages sent while the user scrolls do not shift the pages.
+     *
+     * @param boardId the board ID
+     * @param userEmail the requesting user's email
+     * @param before the cursor returned with the previous page, or null for the newest page
+     * @param size the number of messages requested, or null for the configured page size; capped
+     *        at the configured maximum
+     * @return the page, with its messages oldest first
+     * @throws AccessDeniedException if the user is not a member of the board
+     * @throws InvalidRequestException if the cursor is malformed or the size is below one
+     */
+    @Transactional(readOnly = true)
+    public MessagePageDTO getMessagePage(Long boardId, String userEmail, String before, Integer size) {
+        validateBoardAccess(userEmail, boardId);
+        int pageSize = pageSize(size);
+
+        // One extra row tells whether an older page exists without a count query
+        Limit limit = Limit.of(pageSize + 1);
+        List<Message> newestFirst;
+        if (before == null || before.isBlank()) {
+            newestFirst = messageRepository.findLatestByBoardWithSender(boardId, limit);
+        } else {
+            MessageCursor cursor = MessageCursor.decode(before);
+            newestFirst = messageRepository.findOlderByBoardWithSender(
+                boardId,
+                cursor.timestamp(),
+                cursor.messageId(),
+                limit
+            );
+        }
+
+        boolean hasOlder = newestFirst.size() > pageSize;
+        List<Message> page = hasOlder ? newestFirst.subList(0, pageSize) : newestFirst;
+        String nextCursor = hasOlder ? MessageCursor.of(page.get(page.size() - 1)).encode() : null;
+
+        List<ChatMessageDTO.Response> messages = page
+            .stream()
+            .map((message) -> mapMessageToDto(message, null))
+            .collect(Collectors.toList());
+        Collections.reverse(messages);
+
+        log.debug("Retrieved page of {} messages for board {} by user: {}", messages.size(), boardId, userEmail);
+        return MessagePageDTO.builder().messages(messages).nextCursor(nextCursor).build();
+    }
+
+    private int pageSize(Integer requested) {
+        AppProperties.Chat chat = appProperties.getChat();
+        if (requested == null) {
+            return chat.getPageSize();
+        }
+        if (requested < 1) {
+            throw new InvalidRequestException(MessageConstants.CHAT_INVALID_PAGE_SIZE);
+        }
+        return Math.min(requested, chat.getMaxPageSize());
+    }
+
     private ChatMessageDTO.Response mapMessageToDto(Message message, String instanceId) {
         String senderEmail;
         String senderFullName;
@@ -138,8 +209,41 @@ private ChatMessageDTO.Response mapMessageToDto(Message message, String instance
     }
 
     private void validateBoardAccess(String userEmail, Long boardId) {
-        if (!groupMemberRepository.existsByUserEmailAndBoardGroupId(userEmail, boardId)) {
+        if (!boardMembershipCache.isMember(boardId, userEmail)) {
             throw new AccessDeniedException(MessageConstants.AUTH_NOT_MEMBER);
         }
     }
+
+    /**
+     * Position of a message in {@code (timestamp, messageId)} order, handed to clients as an opaque
+     * URL-safe string.
+     */
+    private record MessageCursor(LocalDateTime timestamp, Long messageId) {
+        private static final char SEPARATOR = '|';
+
+        static MessageCursor of(Message message) {
+            return new MessageCursor(message.getTimestamp(), message.getMessageId());
+        }
+
+        static MessageCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf(SEPARATOR);
+                if (separator < 0) {
+                    throw new InvalidRequestException(MessageConstants.CHAT_INVALID_CURSOR);
+                }
+                return new MessageCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.valueOf(raw.substring(separator + 1))
+                );
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new InvalidRequestException(MessageConstants.CHAT_INVALID_CURSOR);
+            }
+        }
+
+        String encode() {
+            String raw = timestamp.toString() + SEPARATOR + messageId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+    }
 }
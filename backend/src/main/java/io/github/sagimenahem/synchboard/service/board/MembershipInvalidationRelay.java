@@ -0,0 +1,60 @@
+package io.github.sagimenahem.synchboard.service.board;
+
+import io.github.sagimenahem.synchboard.config.MembershipInvalidationConfig;
+import jakarta.jms.ConnectionFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jms.JmsException;
+import org.springframework.jms.annotation.JmsListener;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shares membership cache invalidations between backend nodes through the message broker. Active
+ * only with {@code app.membership-cache.invalidation=broker}. Each node publishes the ID of a board
+ * whose membership changed to a topic and drops its own cached members for every ID it receives,
+ * including the ones it published itself. Every node checks access to every board, not only to
+ * the boards it owns ({@code BoardOwnership}), so each one needs the invalidations of all of them.
+ *
+ * @author Sagi Menahem
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.membership-cache.invalidation", havingValue = "broker")
+public class MembershipInvalidationRelay {
+
+    private final JmsTemplate jmsTemplate;
+    private final BoardMembershipCache boardMembershipCache;
+
+    public MembershipInvalidationRelay(ConnectionFactory connectionFactory, BoardMembershipCache boardMembershipCache) {
+        this.jmsTemplate = new JmsTemplate(connectionFactory);
+        this.jmsTemplate.setPubSubDomain(true);
+        this.boardMembershipCache = boardMembershipCache;
+    }
+
+    /**
+     * Tells every node, this one included, that a board's membership changed.
+     *
+     * @param boardId the board ID
+     */
+    public void publish(Long boardId) {
+        try {
+            jmsTemplate.convertAndSend(MembershipInvalidationConfig.TOPIC, String.valueOf(boardId));
+        } catch (JmsException e) {
+            // Other nodes still drop the entry once its TTL runs out
+            log.warn("Failed to publish membership invalidation for board {}: {}", boardId, e.getMessage());
+        }
+    }
+
+    @JmsListener(
+        destination = MembershipInvalidationConfig.TOPIC,
+        containerFactory = MembershipInvalidationConfig.LISTENER_FACTORY
+    )
+    public void onInvalidation(String boardId) {
+        try {
+            boardMembershipCache.evictLocal(Long.valueOf(boardId));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed membership invalidation: {}", boardId);
+        }
+    }
+}
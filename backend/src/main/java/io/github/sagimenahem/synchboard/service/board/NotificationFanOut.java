@@ -0,0 +1,141 @@
+package io.github.sagimenahem.synchboard.service.board;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Sends one notification to many destinations, such as the user topics of every member of a board.
+ * The payload is serialized to JSON once, and the same message is handed to the broker for each
+ * destination, instead of being converted again per destination.
+ *
+ * <p>
+ * Destinations are sent to in chunks of {@code app.notifications.fan-out-chunk-size} on a fixed
+ * pool of {@code app.notifications.fan-out-threads} threads owned by this class, so large
+ * fan-outs neither run on the caller's thread nor take the common fork-join pool from other work.
+ * The pool's queue is bounded by {@code app.notifications.fan-out-queue-capacity} chunks; when it
+ * is full, the caller sends its chunk itself, which slows the producer down rather than dropping
+ * the notification. Notifications are hints to refetch, so no order is kept between destinations
+ * or between fan-outs.
+ * </p>
+ *
+ * <p>
+ * Each fan-out records its number of destinations ({@code synchboard.notifications.fan-out.size})
+ * and the time from the call to its last send ({@code synchboard.notifications.fan-out.duration}).
+ * </p>
+ *
+ * @author Sagi Menahem
+ */
+@Slf4j
+@Component
+public class NotificationFanOut {
+
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final ThreadPoolExecutor senders;
+    private final DistributionSummary fanOutSize;
+    private final Timer fanOutDuration;
+
+    public NotificationFanOut(
+        SimpMessageSendingOperations messagingTemplate,
+        ObjectMapper objectMapper,
+        MeterRegistry meterRegistry,
+        AppProperties appProperties
+    ) {
+        AppProperties.Notifications notifications = appProperties.getNotifications();
+        int threads = Math.max(notifications.getFanOutThreads(), 1);
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.chunkSize = Math.max(notifications.getFanOutChunkSize(), 1);
+        this.senders = new ThreadPoolExecutor(
+            threads,
+            threads,
+            0,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(notifications.getFanOutQueueCapacity(), 1)),
+            Thread.ofPlatform().name("notification-fan-out-", 0).daemon().factory(),
+            // Queue full or shutting down: the caller sends the chunk itself
+            (task, executor) -> task.run()
+        );
+        this.fanOutSize = DistributionSummary.builder("synchboard.notifications.fan-out.size")
+            .description("Destinations a notification was sent to in one fan-out")
+            .baseUnit("destinations")
+            .register(meterRegistry);
+        this.fanOutDuration = Timer.builder("synchboard.notifications.fan-out.duration")
+            .description("Time from a fan-out request to the notification's last send")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Stops accepting fan-outs and waits for queued chunks to be sent.
+     */
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdown();
+        try {
+            if (!senders.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn(
+                    "Notification fan-out did not finish within 10 seconds; {} chunks left",
+                    senders.getQueue().size()
+                );
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Serializes a payload once and sends it to every destination in the background.
+     *
+     * @param destinations the topics to send to
+     * @param payload the notification, serialized as JSON
+     */
+    public void send(List<String> destinations, Object payload) {
+        if (destinations.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<String> targets = List.copyOf(destinations);
+        Message<byte[]> message = MessageBuilder.withPayload(objectMapper.writeValueAsBytes(payload))
+            .setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON)
+            .build();
+        fanOutSize.record(targets.size());
+
+        AtomicInteger remaining = new AtomicInteger((targets.size() + chunkSize - 1) / chunkSize);
+        for (int from = 0; from < targets.size(); from += chunkSize) {
+            List<String> chunk = targets.subList(from, Math.min(from + chunkSize, targets.size()));
+            senders.execute(() -> {
+                sendChunk(chunk, message);
+                if (remaining.decrementAndGet() == 0) {
+                    fanOutDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            });
+        }
+    }
+
+    private void sendChunk(List<String> destinations, Message<byte[]> message) {
+        for (String destination : destinations) {
+            try {
+                messagingTemplate.send(destination, message);
+            } catch (RuntimeException e) {
+                log.error("Failed to send notification to {}", destination, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package io.github.sagimenahem.synchboard.service.board.persistence;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import io.github.sagimenahem.synchboard.repository.ActionHistoryRetentionRepository;
+import io.github.sagimenahem.synchboard.repository.ActionHistoryRetentionRepository.DeletedHistory;
+import io.github.sagimenahem.synchboard.repository.ActionHistoryRetentionRepository.HistoryPosition;
+import io.github.sagimenahem.synchboard.repository.PartitionRepository;
+import io.github.sagimenahem.synchboard.repository.PartitionRepository.DroppedPartition;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Trims action history that can no longer be undone or is too old to keep. Every
+ * {@code app.history-retention.interval-ms} the newest {@code app.history-retention.max-depth}
+ * undo steps of each board are kept, and of those only the ones younger than
+ * {@code app.history-retention.max-age-days}; everything older is deleted. A batch's rows are one
+ * step, so depth is not a row count, and no limit ever deletes part of a batch.
+ *
+ * <p>
+ * {@code action_history} is partitioned by month, so the age limit is applied first by dropping
+ * the partitions that lie wholly before it ({@link PartitionRepository}), which frees their space
+ * at once and without deleting row by row. Only the rows in the month the limit falls in, and the
+ * rows past a board's depth limit, are left to the batched deletes below.
+ * </p>
+ *
+ * <p>
+ * Undo only ever reaches the latest {@code app.board-state.max-history-entries} steps of a
+ * board, which is what {@code BoardStateEngine} loads, so the depth is never set below that.
+ * Rows are deleted oldest first in batches of {@code app.history-retention.batch-size}, each its
+ * own short transaction, and a run stops after {@code app.history-retention.max-batches-per-run}
+ * batches so it never holds up the other scheduled tasks for long; the next run picks up where
+ * it stopped.
+ * </p>
+ *
+ * <p>
+ * Deleted rows and the stored size of their states are counted in the
+ * {@code synchboard.history.retention.rows} and {@code synchboard.history.retention.bytes} metrics.
+ * The space is reused by later inserts once autovacuum has processed the table.
+ * </p>
+ *
+ * @author Sagi Menahem
+ */
+@Slf4j
+@Service
+public class ActionHistoryRetentionService {
+
+    private static final Comparator<HistoryPosition> HISTORY_ORDER = Comparator.comparing(HistoryPosition::getTimestamp)
+        .thenComparingLong(HistoryPosition::getActionId);
+
+    private final ActionHistoryRetentionRepository retentionRepository;
+    private final PartitionRepository partitionRepository;
+    private final boolean enabled;
+    private final int maxDepth;
+    private final int maxAgeDays;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Counter deletedRows;
+    private final Counter deletedBytes;
+
+    public ActionHistoryRetentionService(
+        ActionHistoryRetentionRepository retentionRepository,
+        PartitionRepository partitionRepository,
+        MeterRegistry meterRegistry,
+        AppProperties appProperties
+    ) {
+        AppProperties.HistoryRetention retention = appProperties.getHistoryRetention();
+        int undoDepth = appProperties.getBoardState().getMaxHistoryEntries();
+        if (retention.getMaxDepth() < undoDepth) {
+            log.warn(
+                "app.history-retention.max-depth {} is below the undo depth; keeping {} steps per board",
+                retention.getMaxDepth(),
+                undoDepth
+            );
+        }
+
+        this.retentionRepository = retentionRepository;
+        this.partitionRepository = partitionRepository;
+        this.enabled = retention.isEnabled();
+        this.maxDepth = Math.max(retention.getMaxDepth(), undoDepth);
+        this.maxAgeDays = retention.getMaxAgeDays();
+        this.batchSize = Math.max(retention.getBatchSize(), 1);
+        this.maxBatchesPerRun = Math.max(retention.getMaxBatchesPerRun(), 1);
+        this.deletedRows = Counter.builder("synchboard.history.retention.rows")
+            .description("Action history rows deleted by the retention job")
+            .baseUnit("rows")
+            .register(meterRegistry);
+        this.deletedBytes = Counter.builder("synchboard.history.retention.bytes")
+            .description("Stored size of the states of the action history rows deleted by the retention job")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Deletes the history rows that are past the depth or age limit.
+     */
+    @Scheduled(
+        fixedDelayString = "${app.history-retention.interval-ms:600000}",
+        initialDelayString = "${app.history-retention.interval-ms:600000}"
+    )
+    public void purgeExpired() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            // History timestamps are UTC
+            purge(LocalDateTime.now(ZoneOffset.UTC));
+        } catch (RuntimeException e) {
+            log.warn("Action history retention run failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drops the history partitions past the age limit as of the given time, then deletes, oldest
+     * first, the remaining history rows past the depth or age limit, until none are left or the
+     * run's batches are used up.
+     *
+     * @param now the current time, which the age limit is measured from
+     * @return the number of rows deleted by the batched deletes
+     */
+    public int purge(LocalDateTime now) {
+        LocalDateTime olderThan = maxAgeDays > 0 ? now.minusDays(maxAgeDays) : null;
+        if (olderThan != null) {
+            dropPartitions(olderThan);
+        }
+        List<Long> boardIds = retentionRepository.findBoardsOverLimits(maxDepth, olderThan);
+
+        int batches = 0;
+        int rows = 0;
+        long bytes = 0;
+        for (Long boardId : boardIds) {
+            HistoryPosition keepFrom = oldestKept(boardId, olderThan);
+            if (keepFrom == null) {
+                continue;
+            }
+            DeletedHistory deleted;
+            do {
+                if (batches == maxBatchesPerRun) {
+                    log.info("Action history retention stopped after {} batches; the next run continues", batches);
+                    return report(rows, bytes, boardIds.size());
+                }
+                deleted = retentionRepository.deleteBefore(boardId, keepFrom, batchSize);
+                batches++;
+                rows += deleted.getRows();
+                bytes += deleted.getBytes();
+                deletedRows.increment(deleted.getRows());
+                deletedBytes.increment(deleted.getBytes());
+            } while (deleted.getRows() == batchSize);
+        }
+        return report(rows, bytes, boardIds.size());
+    }
+
+    private void dropPartitions(LocalDateTime olderThan) {
+        List<DroppedPartition> dropped = partitionRepository.dropPartitionsBefore(
+            PartitionRepository.ACTION_HISTORY,
+            olderThan
+        );
+        for (DroppedPartition partition : dropped) {
+            deletedRows.increment(partition.getEstimatedRows());
+            deletedBytes.increment(partition.getBytes());
+            log.info(
+                "Dropped action history partition {} (about {} rows, {} bytes) past the age limit",
+                partition.getName(),
+                partition.getEstimatedRows(),
+                partition.getBytes()
+            );
+        }
+    }
+
+    /** The later of the depth and age limits, or null if neither applies to the board */
+    private HistoryPosition oldestKept(Long boardId, LocalDateTime olderThan) {
+        HistoryPosition byDepth = retentionRepository.findPosition(boardId, maxDepth).orElse(null);
+        // Action IDs start at 1, so this keeps exactly the rows not older than the cutoff
+        HistoryPosition byAge =
+            olderThan != null ? HistoryPosition.builder().timestamp(olderThan).actionId(0).build() : null;
+        if (byDepth == null || byAge == null) {
+            return byDepth != null ? byDepth : byAge;
+        }
+        return HISTORY_ORDER.compare(byDepth, byAge) >= 0 ? byDepth : byAge;
+    }
+
+    private int report(int rows, long bytes, int boards) {
+        if (rows > 0) {
+            log.info(
+                "Deleted {} action history rows ({} bytes of state) from {} boards over the limits",
+                rows,
+                bytes,
+                boards
+            );
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,348 @@
+package io.github.sagimenahem.synchboard.service.board.persistence;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import io.github.sagimenahem.synchboard.repository.BoardSnapshotRepository;
+import io.github.sagimenahem.synchboard.repository.BoardSnapshotRepository.ObjectChange;
+import io.github.sagimenahem.synchboard.repository.BoardSnapshotRepository.StoredSnapshot;
+import io.github.sagimenahem.synchboard.service.board.state.LiveBoardObject;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Compacted snapshots of board contents. A board is loaded from its snapshot, one gzip-compressed
+ * JSON document holding the active objects as of a {@code change_seq} version, plus the
+ * board_objects rows written since that version: active rows replace or add their object,
+ * inactive ones remove it. Opening a board therefore reads one blob and a short index range
+ * instead of every row the board ever had.
+ *
+ * <p>
+ * The write-behind queue reports how many rows it wrote per board. Once a board has
+ * {@code app.board-snapshot.delta-threshold} rows on top of its snapshot, the compactor rebuilds
+ * the snapshot from the previous one and that delta, every
+ * {@code app.board-snapshot.compaction-interval-ms}. A board without a snapshot is read in full
+ * and gets one as soon as it is large enough to be worth it. Snapshots are derived data: a
+ * missing or unreadable one only makes the next load read the whole board.
+ * </p>
+ *
+ * <p>
+ * A write to board_objects outside the write-behind queue has to set a new change_seq on every
+ * row it rewrites, as account deletion does, or delete the snapshots it invalidates
+ * ({@link #delete}). Such a transaction may commit after write-behind batches that took higher
+ * change_seq values, so it first locks the boards it rewrites out of compaction
+ * ({@link #holdCompactionUntilCompletion}): a snapshot is only compacted under a shared
+ * per-board database lock, and would otherwise take a version above rows not yet visible to it.
+ * The locks are advisory locks in the database, so they hold against every backend node.
+ * </p>
+ *
+ * @author Sagi Menahem
+ */
+@Slf4j
+@Service
+public class BoardSnapshotService {
+
+    /** Layout version of the encoded snapshot document */
+    private static final int FORMAT = 1;
+
+    private final BoardSnapshotRepository snapshotRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int deltaThreshold;
+    /** Rows known to have been written on top of each board's snapshot since it was last compacted */
+    private final Map<Long, Integer> pendingRows = new ConcurrentHashMap<>();
+
+    public BoardSnapshotService(
+        BoardSnapshotRepository snapshotRepository,
+        ObjectMapper objectMapper,
+        PlatformTransactionManager transactionManager,
+        AppProperties appProperties
+    ) {
+        this.snapshotRepository = snapshotRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.deltaThreshold = appProperties.getBoardSnapshot().getDeltaThreshold();
+    }
+
+    /**
+     * Reads the active objects of a board in canvas z-order from its snapshot and the changes made
+     * since. Changes still queued for write-back are not included.
+     *
+     * @param boardId the board ID
+     * @return the active objects
+     */
+    public List<LiveBoardObject> load(Long boardId) {
+        BoardContents contents = read(boardId);
+        if (contents.deltaRows() >= deltaThreshold) {
+            pendingRows.merge(boardId, contents.deltaRows(), Math::max);
+        }
+
+        List<LiveBoardObject> objects = new ArrayList<>(contents.entries().size());
+        for (SnapshotEntry entry : contents.entries()) {
+            objects.add(
+                LiveBoardObject.builder()
+                    .instanceId(entry.instanceId())
+                    .objectType(entry.objectType())
+                    .payload(entry.data())
+                    .createdByEmail(entry.createdByEmail())
+                    .lastEditedByEmail(entry.lastEditedByEmail())
+                    .build()
+            );
+        }
+        log.debug(
+            "Loaded board {} from snapshot version {} plus {} changed rows",
+            boardId,
+            contents.snapshotVersion(),
+            contents.deltaRows()
+        );
+        return objects;
+    }
+
+    /**
+     * Records board object rows written for a board. Cheap enough to call for every batch.
+     *
+     * @param boardId the board written to
+     * @param rows the number of rows inserted or updated
+     */
+    public void recordChanges(Long boardId, int rows) {
+        if (rows > 0) {
+            pendingRows.merge(boardId, rows, Integer::sum);
+        }
+    }
+
+    /**
+     * Rebuilds the snapshot of every board whose delta has reached the threshold.
+     */
+    @Scheduled(
+        fixedDelayString = "${app.board-snapshot.compaction-interval-ms:30000}",
+        initialDelayString = "${app.board-snapshot.compaction-interval-ms:30000}"
+    )
+    public void compactPending() {
+        List<Long> due = new ArrayList<>();
+        pendingRows.forEach((boardId, rows) -> {
+            if (rows >= deltaThreshold && pendingRows.remove(boardId, rows)) {
+                due.add(boardId);
+            }
+        });
+
+        for (Long boardId : due) {
+            try {
+                compact(boardId);
+            } catch (RuntimeException e) {
+                log.warn("Board snapshot compaction failed for board {}: {}", boardId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the snapshot of a board from the current snapshot and the rows written since. A
+     * board locked out of compaction is left for the next run.
+     *
+     * @param boardId the board ID
+     * @return true if a new snapshot was stored
+     */
+    public boolean compact(Long boardId) {
+        return Boolean.TRUE.equals(transactionTemplate.execute((status) -> compactLocked(boardId)));
+    }
+
+    /**
+     * Keeps the given boards from being compacted until the caller's transaction completes, waiting
+     * for compactions already running. Call before rewriting their board_objects rows outside the
+     * write-behind queue.
+     *
+     * @param boardIds the boards about to be rewritten
+     * @throws IllegalStateException if no transaction is active
+     */
+    public void holdCompactionUntilCompletion(Collection<Long> boardIds) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("holdCompactionUntilCompletion needs an active transaction");
+        }
+        // A fixed order, so two such transactions cannot deadlock
+        boardIds.stream().sorted().forEach(snapshotRepository::lockOutCompaction);
+    }
+
+    private boolean compactLocked(Long boardId) {
+        if (!snapshotRepository.tryLockCompaction(boardId)) {
+            log.debug("Board {} is locked out of compaction, retrying on the next run", boardId);
+            pendingRows.merge(boardId, deltaThreshold, Math::max);
+            return false;
+        }
+
+        BoardContents contents = read(boardId);
+        if (contents.deltaRows() == 0) {
+            return false;
+        }
+
+        byte[] data = encode(contents);
+        boolean stored = snapshotRepository.save(boardId, contents.version(), contents.entries().size(), data);
+        if (stored) {
+            log.debug(
+                "Compacted board {} to snapshot version {} - {} objects, {} bytes, {} rows folded in",
+                boardId,
+                contents.version(),
+                contents.entries().size(),
+                data.length,
+                contents.deltaRows()
+            );
+        }
+        return stored;
+    }
+
+    /**
+     * Drops the snapshot of a board, e.g. because the board is being deleted.
+     *
+     * @param boardId the board ID
+     */
+    public void delete(Long boardId) {
+        pendingRows.remove(boardId);
+        snapshotRepository.delete(boardId);
+    }
+
+    private BoardContents read(Long boardId) {
+        Map<String, SnapshotEntry> entries = new LinkedHashMap<>();
+        long snapshotVersion = 0;
+        StoredSnapshot stored = snapshotRepository.find(boardId).orElse(null);
+        if (stored != null) {
+            try {
+                decode(stored.getData(), entries);
+                snapshotVersion = stored.getVersion();
+            } catch (IOException | JacksonException | IllegalStateException e) {
+                log.warn("Ignoring unreadable snapshot of board {}: {}", boardId, e.getMessage());
+                entries.clear();
+            }
+        }
+
+        long version = snapshotVersion;
+        List<ObjectChange> changes = snapshotRepository.findChangedSince(boardId, snapshotVersion);
+        for (ObjectChange change : changes) {
+            version = Math.max(version, change.getChangeSeq());
+            JsonNode data = change.isActive() ? parse(change) : null;
+            if (data == null) {
+                entries.remove(change.getInstanceId());
+            } else {
+                entries.put(
+                    change.getInstanceId(),
+                    new SnapshotEntry(
+                        change.getObjectId(),
+                        change.getInstanceId(),
+                        change.getObjectType(),
+                        data,
+                        change.getCreatedByEmail(),
+                        change.getLastEditedByEmail()
+                    )
+                );
+            }
+        }
+
+        List<SnapshotEntry> ordered = new ArrayList<>(entries.values());
+        if (!changes.isEmpty()) {
+            // object_id is the stacking order; re-added and new objects may be out of place
+            ordered.sort(Comparator.comparingLong(SnapshotEntry::objectId));
+        }
+        return new BoardContents(ordered, snapshotVersion, version, changes.size());
+    }
+
+    private JsonNode parse(ObjectChange change) {
+        if (change.getObjectData() == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(change.getObjectData());
+        } catch (JacksonException e) {
+            log.error("Failed to parse BoardObject data for object ID: {}", change.getObjectId(), e);
+            return null;
+        }
+    }
+
+    private void decode(byte[] data, Map<String, SnapshotEntry> entries) throws IOException {
+        JsonNode root;
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            root = objectMapper.readTree(in);
+        }
+        if (root.path("format").asInt() != FORMAT) {
+            throw new IllegalStateException("unsupported snapshot format " + root.path("format"));
+        }
+        for (JsonNode node : root.path("objects")) {
+            SnapshotEntry entry = new SnapshotEntry(
+                node.path("objectId").asLong(),
+                text(node, "instanceId"),
+                text(node, "objectType"),
+                node.get("data"),
+                text(node, "createdBy"),
+                text(node, "lastEditedBy")
+            );
+            entries.put(entry.instanceId(), entry);
+        }
+    }
+
+    private byte[] encode(BoardContents contents) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (
+            GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+            JsonGenerator generator = objectMapper.createGenerator(gzip)
+        ) {
+            generator.writeStartObject();
+            generator.writeNumberProperty("format", FORMAT);
+            generator.writeNumberProperty("version", contents.version());
+            generator.writeName("objects");
+            generator.writeStartArray();
+            for (SnapshotEntry entry : contents.entries()) {
+                generator.writeStartObject();
+                generator.writeNumberProperty("objectId", entry.objectId());
+                generator.writeStringProperty("instanceId", entry.instanceId());
+                generator.writeStringProperty("objectType", entry.objectType());
+                generator.writeName("data");
+                generator.writeTree(entry.data());
+                generator.writeStringProperty("createdBy", entry.createdByEmail());
+                generator.writeStringProperty("lastEditedBy", entry.lastEditedByEmail());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asString();
+    }
+
+    /** One active object as kept in a snapshot */
+    private record SnapshotEntry(
+        long objectId,
+        String instanceId,
+        String objectType,
+        JsonNode data,
+        String createdByEmail,
+        String lastEditedByEmail
+    ) {}
+
+    /**
+     * Active objects of a board in z-order, the snapshot version they were read on top of, the
+     * highest change_seq they include and how many rows had to be applied to the snapshot.
+     */
+    private record BoardContents(List<SnapshotEntry> entries, long snapshotVersion, long version, int deltaRows) {}
+}
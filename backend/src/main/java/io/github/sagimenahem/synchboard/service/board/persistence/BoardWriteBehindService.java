@@ -0,0 +1,674 @@
+package io.github.sagimenahem.synchboard.service.board.persistence;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import io.github.sagimenahem.synchboard.dto.websocket.BoardActionDTO.ActionType;
+import io.github.sagimenahem.synchboard.repository.BoardWriteBatchRepository;
+import io.github.sagimenahem.synchboard.repository.BoardWriteBatchRepository.HistoryRow;
+import io.github.sagimenahem.synchboard.repository.BoardWriteBatchRepository.ObjectRow;
+import io.github.sagimenahem.synchboard.repository.BoardWriteBatchRepository.UndoneFlag;
+import io.github.sagimenahem.synchboard.service.board.BoardNotificationService;
+import io.github.sagimenahem.synchboard.service.board.state.BoardChange;
+import io.github.sagimenahem.synchboard.service.board.state.BoardChange.HistoryEffect;
+import io.github.sagimenahem.synchboard.service.board.state.BoardStateEngine;
+import io.github.sagimenahem.synchboard.service.board.state.JsonPatch;
+import io.github.sagimenahem.synchboard.service.board.state.LiveBoardObject;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Write-behind stage between the live board state and Postgres. Every change accepted by
+ * {@link BoardStateEngine} is queued here and written back in batches: a flush runs when
+ * {@code app.write-behind.batch-size} changes are pending or
+ * {@code app.write-behind.flush-interval-ms} has passed, whichever comes first.
+ *
+ * <p>
+ * Within a batch each object is folded to a single row write carrying its latest state, and all
+ * rows go out as multi-row INSERT and UPDATE statements. Every new action still gets its own
+ * action_history row, inserted in acceptance order; undo and redo flip the is_undone flag of the
+ * row they revert, and a new action taken while undone rows are pending redo deletes them. A batch
+ * is one transaction; if it fails, each board in it is retried on its own, and a board that still
+ * fails has its changes retried one at a time, a group's changes together. Only the changes that
+ * fail on their own are lost: the board is evicted from the live state so it reloads what was
+ * actually persisted, and their authors and the board's subscribers are told through
+ * {@link BoardNotificationService#broadcastRejectedChanges}.
+ * </p>
+ *
+ * <p>
+ * OBJECT_ADD and OBJECT_DELETE rows store the full object in state_after or state_before. An
+ * OBJECT_UPDATE row stores JSON Patches instead: state_after turns the old payload into the new
+ * one and state_before turns it back, so recoloring a long stroke records one small operation each
+ * way. {@link BoardStateEngine} rebuilds the full states when it loads the history, by walking the
+ * patches back from each object's current payload.
+ * </p>
+ *
+ * <p>
+ * OBJECT_UPDATE changes are first held for {@code app.write-behind.coalesce-window-ms}. Further
+ * updates to the same object by the same user within the window are merged into the held one,
+ * which keeps the first state_before, the latest state_after and the first's timestamp, so
+ * the entry sorts where the gesture began. A drag or resize therefore
+ * persists as one row write and one history entry, and a single undo reverts the whole gesture. A
+ * held update is released early when anything else happens to its object. {@link #enqueue} reports
+ * a merge so the caller can fold the update into its own history entry the same way.
+ * </p>
+ *
+ * <p>
+ * The changes of an OBJECT_BATCH, or of one undo or redo of it, form a group ({@link #enqueueAll}).
+ * A group enters the queue as a unit, is never coalesced, and is written back in a single
+ * transaction: a flush that reaches the middle of a group takes the rest of it into the same batch.
+ * </p>
+ *
+ * <p>
+ * The queue is bounded by {@code app.write-behind.queue-capacity}. When it is full the producing
+ * thread flushes inline, which slows producers to the rate the database accepts. On shutdown the
+ * queue is drained before the data source closes; a hard crash loses at most the changes accepted
+ * since the last flush.
+ * </p>
+ *
+ * <p>
+ * Anything that reads board objects or history straight from the database must call
+ * {@link #flush()} first. Every object row write takes a new change_seq, and the rows written per
+ * board are reported to {@link BoardSnapshotService} once their batch commits.
+ * </p>
+ *
+ * @author Sagi Menahem
+ */
+@Slf4j
+@Service
+// Destroyed before board ownership is given up, so the drain writes boards this node still owns
+@DependsOn("boardOwnership")
+public class BoardWriteBehindService {
+
+    private final BoardWriteBatchRepository batchRepository;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<BoardStateEngine> boardStateEngine;
+    private final ObjectProvider<BoardNotificationService> notificationService;
+    private final BoardSnapshotService boardSnapshotService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long coalesceWindowNanos;
+    private final int queueCapacity;
+    private final BlockingQueue<BoardChange> queue;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    /** Updates waiting out their coalescing window, by board and instance ID. Guards queue inserts. */
+    private final Map<String, HeldUpdate> heldUpdates = new LinkedHashMap<>();
+
+    private volatile boolean running;
+    private volatile Thread flusher;
+
+    public BoardWriteBehindService(
+        BoardWriteBatchRepository batchRepository,
+        ObjectMapper objectMapper,
+        ObjectProvider<BoardStateEngine> boardStateEngine,
+        ObjectProvider<BoardNotificationService> notificationService,
+        BoardSnapshotService boardSnapshotService,
+        PlatformTransactionManager transactionManager,
+        AppProperties appProperties
+    ) {
+        AppProperties.WriteBehind settings = appProperties.getWriteBehind();
+        this.batchRepository = batchRepository;
+        this.objectMapper = objectMapper;
+        this.boardStateEngine = boardStateEngine;
+        this.notificationService = notificationService;
+        this.boardSnapshotService = boardSnapshotService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Batches commit on their own, never inside whatever transaction triggered the flush
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = settings.getBatchSize();
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(settings.getFlushIntervalMs());
+        this.coalesceWindowNanos = TimeUnit.MILLISECONDS.toNanos(settings.getCoalesceWindowMs());
+        this.queueCapacity = settings.getQueueCapacity();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = Thread.ofPlatform().name("board-write-behind").daemon().start(this::runFlusher);
+        log.info(
+            "Board write-behind started - batchSize: {}, flushIntervalMs: {}, coalesceWindowMs: {}, queueCapacity: {}",
+            batchSize,
+            TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos),
+            TimeUnit.NANOSECONDS.toMillis(coalesceWindowNanos),
+            queue.remainingCapacity()
+        );
+    }
+
+    /**
+     * Stops the flusher and writes back everything still queued.
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        Thread thread = flusher;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        int pending = getPendingCount();
+        flush();
+        log.info("Board write-behind stopped - drained {} pending changes", pending);
+    }
+
+    /**
+     * Queues an accepted change for write-back, merging it into a held update of the same object
+     * where possible. Blocks the caller behind an inline flush when the queue is full.
+     *
+     * @param change the change to persist
+     * @return true if the change was merged into the held update of its object rather than queued
+     *         as a history entry of its own
+     */
+    public boolean enqueue(BoardChange change) {
+        Staged staged;
+        while ((staged = stage(change)) == Staged.FULL) {
+            log.warn("Board write-behind queue full ({} pending), flushing inline", queue.size());
+            flush();
+        }
+        wakeFlusher();
+        return staged == Staged.MERGED;
+    }
+
+    /**
+     * Queues the changes of one group for write-back as a unit. They are never coalesced, held
+     * updates of the same objects are released ahead of them, and they are written back in the
+     * same transaction. Blocks the caller behind an inline flush when the queue lacks room for the
+     * whole group; a group larger than the queue itself is written back right away.
+     *
+     * @param changes the changes of the group, in the order they were accepted
+     */
+    public void enqueueAll(List<BoardChange> changes) {
+        if (changes.size() > queueCapacity) {
+            flushLock.lock();
+            try {
+                flush();
+                writeBatch(changes);
+            } finally {
+                flushLock.unlock();
+            }
+            return;
+        }
+        while (!stageAll(changes)) {
+            log.warn("Board write-behind queue full ({} pending), flushing inline", queue.size());
+            flush();
+        }
+        wakeFlusher();
+    }
+
+    /**
+     * Synchronously writes back every queued and held change. When this returns, all changes
+     * queued before the call are either persisted or their boards have been evicted from the live
+     * state.
+     */
+    public void flush() {
+        flush(true);
+    }
+
+    /**
+     * Returns the number of changes waiting to be written back, including held updates.
+     *
+     * @return the queue depth
+     */
+    public int getPendingCount() {
+        synchronized (heldUpdates) {
+            return queue.size() + heldUpdates.size();
+        }
+    }
+
+    private void wakeFlusher() {
+        Thread thread = flusher;
+        if (thread != null && queue.size() >= batchSize) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void flush(boolean releaseAll) {
+        flushLock.lock();
+        try {
+            List<BoardChange> batch = new ArrayList<>(batchSize);
+            boolean drained;
+            do {
+                drained = release(releaseAll);
+                while (drainTo(batch) > 0) {
+                    writeBatch(batch);
+                    batch.clear();
+                }
+            } while (!drained);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Moves a change into the queue, or into the held updates. Every queue insert happens under
+     * the held-updates lock, so a released update can never be overtaken by a later change to the
+     * same object.
+     *
+     * @return how the change was staged; nothing is staged when the queue lacks room
+     */
+    private Staged stage(BoardChange change) {
+        String key = change.getBoardId() + ":" + change.getInstanceId();
+        synchronized (heldUpdates) {
+            // Room for a released held update plus the change itself
+            if (queue.remainingCapacity() < 2) {
+                return Staged.FULL;
+            }
+            HeldUpdate held = heldUpdates.get(key);
+            boolean coalesce =
+                coalesceWindowNanos > 0 &&
+                change.getType() == ActionType.OBJECT_UPDATE &&
+                change.getHistory() == HistoryEffect.RECORD &&
+                !change.isTruncatesRedo();
+
+            if (held != null && coalesce && held.change.getActorEmail().equals(change.getActorEmail())) {
+                // The merged entry keeps the held change's time, which is its place in the history
+                held.change = held.change.toBuilder().after(change.getAfter()).version(change.getVersion()).build();
+                held.merged++;
+                return Staged.MERGED;
+            }
+            if (held != null) {
+                heldUpdates.remove(key);
+                queue.add(held.change);
+            }
+            if (coalesce) {
+                heldUpdates.put(key, new HeldUpdate(change, System.nanoTime() + coalesceWindowNanos));
+            } else {
+                queue.add(change);
+            }
+            return Staged.QUEUED;
+        }
+    }
+
+    /**
+     * Moves the changes of a group into the queue together, after any held updates of their
+     * objects.
+     *
+     * @return false if the queue lacks room for the group, in which case nothing is staged
+     */
+    private boolean stageAll(List<BoardChange> changes) {
+        synchronized (heldUpdates) {
+            Map<String, HeldUpdate> released = new LinkedHashMap<>();
+            for (BoardChange change : changes) {
+                String key = change.getBoardId() + ":" + change.getInstanceId();
+                HeldUpdate held = heldUpdates.get(key);
+                if (held != null) {
+                    released.put(key, held);
+                }
+            }
+            if (queue.remainingCapacity() < released.size() + changes.size()) {
+                return false;
+            }
+            released.forEach((key, held) -> {
+                heldUpdates.remove(key);
+                queue.add(held.change);
+            });
+            queue.addAll(changes);
+            return true;
+        }
+    }
+
+    /**
+     * Takes up to a batch of changes off the queue, plus the rest of a group the batch would
+     * otherwise end in the middle of. Groups enter the queue under the held-updates lock, so
+     * draining under it too always finds a group whole.
+     *
+     * @return the number of changes taken
+     */
+    private int drainTo(List<BoardChange> batch) {
+        synchronized (heldUpdates) {
+            int drained = queue.drainTo(batch, batchSize);
+            UUID groupId = drained > 0 ? batch.getLast().getGroupId() : null;
+            while (groupId != null && queue.peek() != null && groupId.equals(queue.peek().getGroupId())) {
+                batch.add(queue.poll());
+                drained++;
+            }
+            return drained;
+        }
+    }
+
+    /**
+     * Releases held updates into the queue: all of them, or only those whose window has closed.
+     *
+     * @return true if every update that should be released fit into the queue
+     */
+    private boolean release(boolean releaseAll) {
+        synchronized (heldUpdates) {
+            long now = System.nanoTime();
+            Iterator<HeldUpdate> iterator = heldUpdates.values().iterator();
+            while (iterator.hasNext()) {
+                HeldUpdate held = iterator.next();
+                if (!releaseAll && held.releaseAtNanos > now) {
+                    continue;
+                }
+                if (!queue.offer(held.change)) {
+                    return false;
+                }
+                iterator.remove();
+                if (held.merged > 0) {
+                    log.debug(
+                        "Coalesced {} updates of instanceId: {} in board: {}",
+                        held.merged + 1,
+                        held.change.getInstanceId(),
+                        held.change.getBoardId()
+                    );
+                }
+            }
+            return true;
+        }
+    }
+
+    private void runFlusher() {
+        while (running) {
+            LockSupport.parkNanos(this, flushIntervalNanos);
+            try {
+                flush(false);
+            } catch (RuntimeException e) {
+                log.error("Board write-behind flush failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void writeBatch(List<BoardChange> batch) {
+        try {
+            transactionTemplate.executeWithoutResult((status) -> write(batch));
+            recordWritten(batch);
+            log.debug("Board write-behind flushed {} changes", batch.size());
+            return;
+        } catch (RuntimeException e) {
+            log.warn("Board write-behind batch of {} failed, retrying per board: {}", batch.size(), e.getMessage());
+        }
+
+        Map<Long, List<BoardChange>> byBoard = new LinkedHashMap<>();
+        for (BoardChange change : batch) {
+            byBoard.computeIfAbsent(change.getBoardId(), (id) -> new ArrayList<>()).add(change);
+        }
+        byBoard.forEach((boardId, changes) -> {
+            try {
+                transactionTemplate.executeWithoutResult((status) -> write(changes));
+                recordWritten(changes);
+            } catch (RuntimeException e) {
+                log.warn(
+                    "Board write-behind batch of {} for board {} failed, retrying per change: {}",
+                    changes.size(),
+                    boardId,
+                    e.getMessage()
+                );
+                writeEach(boardId, changes);
+            }
+        });
+    }
+
+    /**
+     * Writes a board's changes one at a time, in order, the changes of a group together, so a
+     * change the database rejects, such as an add whose instance ID is taken, costs only itself.
+     * If any is rejected the board is evicted and the rejection reported.
+     */
+    private void writeEach(Long boardId, List<BoardChange> changes) {
+        Set<String> rejectedActors = new LinkedHashSet<>();
+        int rejected = 0;
+        int start = 0;
+        while (start < changes.size()) {
+            UUID groupId = changes.get(start).getGroupId();
+            int end = start + 1;
+            while (groupId != null && end < changes.size() && groupId.equals(changes.get(end).getGroupId())) {
+                end++;
+            }
+            List<BoardChange> unit = changes.subList(start, end);
+            try {
+                transactionTemplate.executeWithoutResult((status) -> write(unit));
+                recordWritten(unit);
+            } catch (RuntimeException e) {
+                BoardChange first = unit.getFirst();
+                log.error(
+                    "Board write-behind dropped {} change(s) to instanceId: {} in board {} by {}: {}",
+                    unit.size(),
+                    first.getInstanceId(),
+                    boardId,
+                    first.getActorEmail(),
+                    e.getMessage(),
+                    e
+                );
+                rejected += unit.size();
+                unit.stream().map(BoardChange::getActorEmail).filter(Objects::nonNull).forEach(rejectedActors::add);
+            }
+            start = end;
+        }
+        if (rejected == 0) {
+            return;
+        }
+
+        log.warn("Board write-behind dropped {} of {} changes for board {}", rejected, changes.size(), boardId);
+        boardStateEngine.getObject().evict(boardId);
+        try {
+            notificationService.getObject().broadcastRejectedChanges(boardId, rejectedActors);
+        } catch (RuntimeException e) {
+            log.error("Failed to report rejected changes for board {}: {}", boardId, e.getMessage(), e);
+        }
+    }
+
+    private void write(List<BoardChange> changes) {
+        Map<String, FoldedObject> folded = new LinkedHashMap<>();
+        for (BoardChange change : changes) {
+            if (change.getType() != null) {
+                String key = change.getBoardId() + ":" + change.getInstanceId();
+                folded.computeIfAbsent(key, (k) -> new FoldedObject(change)).apply(change);
+            }
+        }
+
+        List<ObjectRow> inserts = new ArrayList<>();
+        List<ObjectRow> updates = new ArrayList<>();
+        for (FoldedObject object : folded.values()) {
+            if (object.inserted) {
+                inserts.add(object.toRow());
+            } else {
+                updates.add(object.toRow());
+            }
+        }
+
+        batchRepository.insertObjects(inserts);
+        int updated = batchRepository.updateObjects(updates);
+        if (updated < updates.size()) {
+            log.warn("Board write-behind updated {} of {} objects; some rows were missing", updated, updates.size());
+        }
+
+        HistoryWrites history = new HistoryWrites();
+        for (BoardChange change : changes) {
+            if (change.isTruncatesRedo()) {
+                history.discardRedo(change.getBoardId());
+            }
+            if (change.getHistory() == HistoryEffect.RECORD) {
+                history.record(change);
+            } else {
+                history.flip(change);
+            }
+        }
+        history.write();
+    }
+
+    /**
+     * Reports the object rows a committed batch wrote, per board, so snapshots are compacted once
+     * enough changes have built up on top of them.
+     */
+    private void recordWritten(List<BoardChange> changes) {
+        Map<Long, Set<String>> objectsByBoard = new LinkedHashMap<>();
+        for (BoardChange change : changes) {
+            if (change.getType() != null) {
+                objectsByBoard
+                    .computeIfAbsent(change.getBoardId(), (id) -> new HashSet<>())
+                    .add(change.getInstanceId());
+            }
+        }
+        objectsByBoard.forEach((boardId, objects) -> boardSnapshotService.recordChanges(boardId, objects.size()));
+    }
+
+    private String toJson(LiveBoardObject object) {
+        return object != null ? objectMapper.writeValueAsString(object.getPayload()) : null;
+    }
+
+    /**
+     * One side of a history row: for an update, the patch from the other side; otherwise the full
+     * object, or null.
+     */
+    private String toHistoryState(BoardChange change, LiveBoardObject from, LiveBoardObject to) {
+        if (change.getType() != ActionType.OBJECT_UPDATE || from == null || to == null) {
+            return toJson(to);
+        }
+        return objectMapper.writeValueAsString(JsonPatch.diff(from.getPayload(), to.getPayload()));
+    }
+
+    private enum Staged {
+        FULL,
+        QUEUED,
+        MERGED,
+    }
+
+    /**
+     * History writes of one batch, issued in an order equivalent to the changes they came from.
+     * New rows are inserted before any flag is flipped, since a flip may target a row inserted in
+     * the same batch, and discarding a redo branch first writes everything queued before it.
+     */
+    private final class HistoryWrites {
+
+        private List<HistoryRow> rows = new ArrayList<>();
+        /** Latest flag per history row */
+        private Map<String, UndoneFlag> flags = new LinkedHashMap<>();
+
+        private void record(BoardChange change) {
+            rows.add(
+                HistoryRow.builder()
+                    .boardGroupId(change.getBoardId())
+                    .instanceId(change.getInstanceId())
+                    .userEmail(change.getActorEmail())
+                    .actionType(change.getType().name())
+                    .stateBefore(toHistoryState(change, change.getAfter(), change.getBefore()))
+                    .stateAfter(toHistoryState(change, change.getBefore(), change.getAfter()))
+                    .occurredAt(change.getOccurredAt())
+                    .groupId(change.getGroupId())
+                    .build()
+            );
+        }
+
+        private void flip(BoardChange change) {
+            flags.put(
+                change.getBoardId() + ":" + change.getInstanceId() + ":" + change.getRevertedAt(),
+                UndoneFlag.builder()
+                    .boardGroupId(change.getBoardId())
+                    .instanceId(change.getInstanceId())
+                    .occurredAt(change.getRevertedAt())
+                    .undone(change.getHistory() == HistoryEffect.UNDO)
+                    .build()
+            );
+        }
+
+        private void discardRedo(Long boardId) {
+            write();
+            batchRepository.deleteUndone(boardId);
+        }
+
+        private void write() {
+            if (!rows.isEmpty()) {
+                batchRepository.insertHistory(rows);
+                rows = new ArrayList<>();
+            }
+            if (!flags.isEmpty()) {
+                batchRepository.updateUndone(new ArrayList<>(flags.values()));
+                flags = new LinkedHashMap<>();
+            }
+        }
+    }
+
+    /**
+     * An OBJECT_UPDATE waiting out its coalescing window. Guarded by the held-updates lock.
+     */
+    private static final class HeldUpdate {
+
+        private BoardChange change;
+        private final long releaseAtNanos;
+        private int merged;
+
+        private HeldUpdate(BoardChange change, long releaseAtNanos) {
+            this.change = change;
+            this.releaseAtNanos = releaseAtNanos;
+        }
+    }
+
+    /**
+     * Net effect of one or more changes to the same object within a batch.
+     */
+    private final class FoldedObject {
+
+        private final Long boardId;
+        private final String instanceId;
+        /** The first change in the batch created the object, so it is inserted rather than updated */
+        private final boolean inserted;
+        private final String createdByEmail;
+        private final LocalDateTime createdAt;
+        private String objectType;
+        private JsonNode payload;
+        private boolean active;
+        private String lastEditedByEmail;
+        private LocalDateTime editedAt;
+
+        private FoldedObject(BoardChange first) {
+            this.boardId = first.getBoardId();
+            this.instanceId = first.getInstanceId();
+            // Undo and redo only ever reactivate rows that already exist
+            this.inserted = first.getType() == ActionType.OBJECT_ADD && first.getHistory() == HistoryEffect.RECORD;
+            this.createdByEmail = first.getActorEmail();
+            this.createdAt = first.getOccurredAt();
+        }
+
+        private void apply(BoardChange change) {
+            LiveBoardObject after = change.getAfter();
+            if (after != null) {
+                objectType = after.getObjectType();
+                payload = after.getPayload();
+            }
+            active = after != null;
+            lastEditedByEmail = change.getActorEmail();
+            editedAt = change.getOccurredAt();
+        }
+
+        private ObjectRow toRow() {
+            return ObjectRow.builder()
+                .boardGroupId(boardId)
+                .instanceId(instanceId)
+                .objectType(objectType)
+                .objectData(payload != null ? objectMapper.writeValueAsString(payload) : null)
+                .createdByEmail(createdByEmail)
+                .lastEditedByEmail(lastEditedByEmail)
+                .active(active)
+                .createdAt(createdAt)
+                .editedAt(editedAt)
+                .build();
+        }
+    }
+}
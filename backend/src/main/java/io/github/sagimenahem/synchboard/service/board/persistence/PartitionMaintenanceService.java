@@ -0,0 +1,88 @@
+package io.github.sagimenahem.synchboard.service.board.persistence;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import io.github.sagimenahem.synchboard.repository.PartitionRepository;
+import io.github.sagimenahem.synchboard.repository.PartitionRepository.DroppedPartition;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps the monthly partitions of {@code action_history} and {@code messages} ahead of the clock.
+ * On startup and every {@code app.partitions.maintenance-interval-ms}, the partitions for the
+ * current month and the next {@code app.partitions.months-ahead} months are created if missing;
+ * the tables have no default partition, so a row for a month without one would be rejected.
+ *
+ * <p>
+ * Chat messages are kept forever unless {@code app.partitions.message-max-age-days} is set, in
+ * which case each run also drops the message partitions that lie wholly before that age. Old
+ * action history partitions are dropped by {@link ActionHistoryRetentionService}, along with the
+ * rest of the history retention.
+ * </p>
+ *
+ * @author Sagi Menahem
+ */
+@Slf4j
+@Service
+public class PartitionMaintenanceService {
+
+    private static final List<String> PARTITIONED_TABLES = List.of(
+        PartitionRepository.ACTION_HISTORY,
+        PartitionRepository.MESSAGES
+    );
+
+    private final PartitionRepository partitionRepository;
+    private final int monthsAhead;
+    private final int messageMaxAgeDays;
+
+    public PartitionMaintenanceService(PartitionRepository partitionRepository, AppProperties appProperties) {
+        this.partitionRepository = partitionRepository;
+        this.monthsAhead = Math.max(appProperties.getPartitions().getMonthsAhead(), 1);
+        this.messageMaxAgeDays = appProperties.getPartitions().getMessageMaxAgeDays();
+    }
+
+    /**
+     * Creates the coming months' partitions and drops expired message partitions.
+     */
+    @Scheduled(fixedDelayString = "${app.partitions.maintenance-interval-ms:86400000}")
+    public void maintainPartitions() {
+        try {
+            maintain(LocalDateTime.now());
+        } catch (RuntimeException e) {
+            log.error("Partition maintenance failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Creates the partitions for the month of the given time and the months after it, then drops
+     * the message partitions past the age limit as of that time.
+     *
+     * @param now the current time
+     */
+    public void maintain(LocalDateTime now) {
+        LocalDateTime until = now.plusMonths(monthsAhead);
+        for (String table : PARTITIONED_TABLES) {
+            int created = partitionRepository.createPartitions(table, now, until);
+            if (created > 0) {
+                log.info("Created {} monthly partitions of {} through {}", created, table, until.toLocalDate());
+            }
+        }
+
+        if (messageMaxAgeDays > 0) {
+            List<DroppedPartition> dropped = partitionRepository.dropPartitionsBefore(
+                PartitionRepository.MESSAGES,
+                now.minusDays(messageMaxAgeDays)
+            );
+            for (DroppedPartition partition : dropped) {
+                log.info(
+                    "Dropped message partition {} (about {} rows, {} bytes) past the age limit",
+                    partition.getName(),
+                    partition.getEstimatedRows(),
+                    partition.getBytes()
+                );
+            }
+        }
+    }
+}
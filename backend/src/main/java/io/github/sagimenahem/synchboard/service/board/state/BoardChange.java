@@ -0,0 +1,74 @@
+package io.github.sagimenahem.synchboard.service.board.state;
+
+import io.github.sagimenahem.synchboard.dto.websocket.BoardActionDTO.ActionType;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Outcome of applying one draw action, undo or redo to the live board state. Carries everything
+ * persistence needs to write the change back — the object before and after, who made the change
+ * and when, the board version it produced and what it means for the board's history — so the write
+ * path never has to re-read the row it is about to modify.
+ *
+ * @author Sagi Menahem
+ */
+@Getter
+@Builder(toBuilder = true)
+public class BoardChange {
+
+    /** How a change relates to the board's action history */
+    public enum HistoryEffect {
+        /** A new action, recorded as a history entry of its own */
+        RECORD,
+        /** Reverts the history entry taken at {@code revertedAt} and marks it undone */
+        UNDO,
+        /** Reapplies the history entry taken at {@code revertedAt} and marks it no longer undone */
+        REDO,
+    }
+
+    /** Board the change was applied to */
+    private final Long boardId;
+
+    /**
+     * Effect on the object: OBJECT_ADD when it becomes active, OBJECT_UPDATE when its data changes,
+     * OBJECT_DELETE when it is deactivated. Null for an undo or redo that left the object as it was.
+     */
+    private final ActionType type;
+
+    /** Client-generated identifier of the affected object */
+    private final String instanceId;
+
+    /** Object as it was before the change, null if it was not active */
+    private final LiveBoardObject before;
+
+    /** Object as it is after the change, null if it is not active */
+    private final LiveBoardObject after;
+
+    /** Email of the user the object write is attributed to */
+    private final String actorEmail;
+
+    /** When the change was accepted; strictly increasing across changes */
+    private final LocalDateTime occurredAt;
+
+    /** Board version after the change */
+    private final long version;
+
+    /** How the change affects the history */
+    @Builder.Default
+    private final HistoryEffect history = HistoryEffect.RECORD;
+
+    /** Timestamp of the history entry an UNDO or REDO flips, which identifies its row */
+    private final LocalDateTime revertedAt;
+
+    /** The change was made while undone entries were pending redo, and discards them */
+    private final boolean truncatesRedo;
+
+    /**
+     * Identifies the changes made by one OBJECT_BATCH, or by one undo or redo of it, which are
+     * written back in the same transaction. A batch's ID is also stored on its history rows, which
+     * keeps it one undo step once the history is reloaded. Null for a change made on its own.
+     */
+    private final UUID groupId;
+}
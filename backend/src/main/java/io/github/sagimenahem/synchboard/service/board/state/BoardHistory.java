@@ -0,0 +1,101 @@
+package io.github.sagimenahem.synchboard.service.board.state;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Undo/redo history of a single board: a list of entries, oldest first, and a cursor. Entries
+ * before the cursor are applied and can be undone, most recent first; entries from the cursor on
+ * are undone and can be redone in the order they were undone. Recording a new action discards
+ * everything past the cursor, so nothing can be redone once the board has moved on.
+ *
+ * <p>
+ * An entry is one action: a single object change, or the object changes of an OBJECT_BATCH in the
+ * order they were applied, which are undone and redone together. Only the most recent
+ * {@code maxEntries} entries are kept. Instances are not thread-safe; the engine only touches them
+ * while holding the board's lock.
+ * </p>
+ *
+ * @author Sagi Menahem
+ */
+class BoardHistory {
+
+    private final List<List<HistoryEntry>> entries;
+    private final int maxEntries;
+    private int cursor;
+
+    /**
+     * @param applied entries that are in effect, oldest first
+     * @param undone entries that are undone, in the order they would be redone
+     * @param maxEntries the number of entries to keep
+     */
+    BoardHistory(List<List<HistoryEntry>> applied, List<List<HistoryEntry>> undone, int maxEntries) {
+        this.entries = new ArrayList<>(applied.size() + undone.size());
+        this.entries.addAll(applied);
+        this.entries.addAll(undone);
+        this.cursor = applied.size();
+        this.maxEntries = maxEntries;
+    }
+
+    boolean hasRedo() {
+        return cursor < entries.size();
+    }
+
+    /**
+     * Appends a new action, discarding the redo branch and the oldest entry beyond the bound.
+     *
+     * @param changes the object changes of the action, in the order they were applied
+     */
+    void record(List<HistoryEntry> changes) {
+        entries.subList(cursor, entries.size()).clear();
+        entries.add(List.copyOf(changes));
+        if (entries.size() > maxEntries) {
+            entries.subList(0, entries.size() - maxEntries).clear();
+        }
+        cursor = entries.size();
+    }
+
+    /**
+     * Folds a coalesced update into the latest entry of its object, which is the one it was merged
+     * into on the way to the database. The entry keeps its time and so its place in the history,
+     * as the merged row does.
+     */
+    void amend(String instanceId, LiveBoardObject after) {
+        for (int i = cursor - 1; i >= 0; i--) {
+            List<HistoryEntry> changes = entries.get(i);
+            for (int j = changes.size() - 1; j >= 0; j--) {
+                HistoryEntry entry = changes.get(j);
+                if (entry.getInstanceId().equals(instanceId)) {
+                    List<HistoryEntry> amended = new ArrayList<>(changes);
+                    amended.set(j, entry.toBuilder().after(after).build());
+                    entries.set(i, List.copyOf(amended));
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the cursor back over the most recent applied entry.
+     *
+     * @return the object changes to revert, in the order they were applied, or null if nothing can
+     *         be undone
+     */
+    List<HistoryEntry> undo() {
+        return cursor > 0 ? entries.get(--cursor) : null;
+    }
+
+    /**
+     * Moves the cursor forward over the next undone entry.
+     *
+     * @return the object changes to reapply, in the order they were applied, or null if nothing
+     *         can be redone
+     */
+    List<HistoryEntry> redo() {
+        return cursor < entries.size() ? entries.get(cursor++) : null;
+    }
+
+    int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,219 @@
+package io.github.sagimenahem.synchboard.service.board.state;
+
+import io.github.sagimenahem.synchboard.service.board.persistence.BoardWriteBehindService;
+import jakarta.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gives every board at most one owning backend node. The live board state
+ * ({@link BoardStateEngine}), the write-behind queue and the board event numbering are held in the
+ * memory of the node serving a board and are the authority for it; two nodes serving one board
+ * would each accept changes against their own copy and write back over each other. A node
+ * therefore claims a board before loading it, and a board another node owns is refused.
+ *
+ * <p>
+ * A claim is a PostgreSQL session-level advisory lock on the board, taken on a connection of its
+ * own, opened outside the pool from {@code spring.datasource.*}, so the pool keeps its full size
+ * and a pool recycling connections never drops a claim. A board stays claimed while it is resident;
+ * every {@code app.board-state.ownership-check-interval-ms} the boards that have left the live
+ * state are written back and released, so another node can take them.
+ * </p>
+ *
+ * <p>
+ * Failover needs no cleanup. The claims belong to the session, so they are released when the
+ * node's connection closes: on shutdown, once the write-behind queue has drained, or when the
+ * database notices a node that died (bounded by the server's TCP keepalive settings). If this
+ * node's connection is lost, its claims may already be gone, so it drops the live state of every
+ * board it held and claims each again on its next access.
+ * </p>
+ *
+ * @author Sagi Menahem
+ */
+@Slf4j
+@Component
+public class BoardOwnership {
+
+    /** First key of every board's advisory lock, keeping them apart from other locks */
+    static final int LOCK_SPACE = 0x53594e43;
+
+    private static final String TRY_LOCK = "SELECT pg_try_advisory_lock(?, ?)";
+    private static final String UNLOCK = "SELECT pg_advisory_unlock(?, ?)";
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final ObjectProvider<BoardStateEngine> boardStateEngine;
+    private final ObjectProvider<BoardWriteBehindService> boardWriteBehindService;
+    /** Boards this node holds the lock of; guarded by this */
+    private final Set<Long> owned = new HashSet<>();
+    private Connection connection;
+
+    public BoardOwnership(
+        @Value("${spring.datasource.url}") String url,
+        @Value("${spring.datasource.username}") String username,
+        @Value("${spring.datasource.password}") String password,
+        ObjectProvider<BoardStateEngine> boardStateEngine,
+        ObjectProvider<BoardWriteBehindService> boardWriteBehindService
+    ) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.boardStateEngine = boardStateEngine;
+        this.boardWriteBehindService = boardWriteBehindService;
+    }
+
+    /**
+     * Claims a board for this node, unless it already holds it.
+     *
+     * @param boardId the board ID
+     * @return true if this node owns the board; false if another node does, or the claim could not
+     *         be made
+     */
+    public synchronized boolean claim(Long boardId) {
+        if (owned.contains(boardId)) {
+            return true;
+        }
+        try {
+            if (!execute(TRY_LOCK, boardId)) {
+                log.debug("Board {} is owned by another node", boardId);
+                return false;
+            }
+        } catch (SQLException e) {
+            log.warn("Could not claim board {}: {}", boardId, e.getMessage());
+            dropAll();
+            return false;
+        }
+        owned.add(boardId);
+        return true;
+    }
+
+    /**
+     * Checks the claims' connection and releases the boards that are no longer resident. Their
+     * queued changes are written back first, so the node that claims one next loads all of them.
+     */
+    @Scheduled(
+        fixedDelayString = "${app.board-state.ownership-check-interval-ms:5000}",
+        initialDelayString = "${app.board-state.ownership-check-interval-ms:5000}"
+    )
+    public void maintain() {
+        BoardStateEngine engine = boardStateEngine.getObject();
+        List<Long> idle = new ArrayList<>();
+        synchronized (this) {
+            if (owned.isEmpty()) {
+                return;
+            }
+            if (!isConnectionValid()) {
+                log.warn("Lost the board ownership connection; dropping {} boards", owned.size());
+                dropAll();
+                return;
+            }
+            for (Long boardId : owned) {
+                if (!engine.isResident(boardId)) {
+                    idle.add(boardId);
+                }
+            }
+        }
+        if (idle.isEmpty()) {
+            return;
+        }
+
+        boardWriteBehindService.getObject().flush();
+        synchronized (this) {
+            for (Long boardId : idle) {
+                // A board loaded again since is claimed again, so it stays
+                if (!engine.isResident(boardId) && owned.remove(boardId)) {
+                    unlock(boardId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Releases every claim by closing the connection. The write-behind queue has drained by now
+     * ({@link BoardWriteBehindService} is destroyed first).
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        owned.clear();
+        closeConnection();
+    }
+
+    /**
+     * Opens the connection the claims are held on.
+     */
+    Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(url, username, password);
+    }
+
+    private boolean execute(String sql, Long boardId) throws SQLException {
+        if (connection == null) {
+            connection = openConnection();
+            connection.setAutoCommit(true);
+        }
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, LOCK_SPACE);
+            // Board IDs beyond the int range fold onto others, which then only share a lock
+            statement.setInt(2, Long.hashCode(boardId));
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && result.getBoolean(1);
+            }
+        }
+    }
+
+    private void unlock(Long boardId) {
+        try {
+            execute(UNLOCK, boardId);
+        } catch (SQLException e) {
+            // The lock goes with the session whenever the database drops it
+            log.debug("Failed to release board {}: {}", boardId, e.getMessage());
+        }
+    }
+
+    private boolean isConnectionValid() {
+        try {
+            return connection != null && connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Gives up every claim after the connection failed: the locks may already be gone, so the
+     * boards' live state is dropped and each is claimed again on its next access.
+     */
+    private void dropAll() {
+        List<Long> dropped = new ArrayList<>(owned);
+        owned.clear();
+        closeConnection();
+        BoardStateEngine engine = boardStateEngine.getObject();
+        for (Long boardId : dropped) {
+            engine.evict(boardId);
+        }
+    }
+
+    private void closeConnection() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("Failed to close the board ownership connection: {}", e.getMessage());
+        }
+        connection = null;
+    }
+}
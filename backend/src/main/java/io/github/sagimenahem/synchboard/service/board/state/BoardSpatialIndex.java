@@ -0,0 +1,192 @@
+package io.github.sagimenahem.synchboard.service.board.state;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loose quadtree over the objects of one board, answering "which objects intersect this region"
+ * without looking at every object.
+ *
+ * <p>
+ * Each node covers a quadrant of its parent, but accepts any object whose box fits in the quadrant
+ * grown by half its size on every side. An object is kept at the deepest node that accepts it,
+ * chosen by the object's center, so a small object straddling a quadrant boundary still sinks as
+ * far as its size allows instead of being stuck near the root. A node only gets children once it
+ * holds {@link #NODE_CAPACITY} objects, and the tree stops at {@link #MAX_DEPTH}. Objects outside
+ * the root region stay at the root.
+ * </p>
+ *
+ * <p>
+ * Every object also carries its z-order position, so regions come back in the order clients
+ * render them. Not thread-safe; {@link LiveBoardState} guards it with its own lock.
+ * </p>
+ *
+ * @author Sagi Menahem
+ */
+class BoardSpatialIndex {
+
+    /** Objects a node holds before it starts pushing new ones down to children */
+    static final int NODE_CAPACITY = 16;
+
+    /** Deepest level; quadrants there are 1/1024 of the root region across */
+    static final int MAX_DEPTH = 10;
+
+    /** Root region: the canvas plus a canvas-sized margin, where objects dragged off it end up */
+    private static final BoundingBox ROOT = BoundingBox.of(-1, -1, 2, 2);
+
+    private final Node root = new Node(ROOT.getMinX(), ROOT.getMinY(), ROOT.getMaxX(), ROOT.getMaxY(), 0);
+    private final Map<String, Entry> entries = new HashMap<>();
+    private long nextOrder;
+
+    /**
+     * Adds an object, or moves it if it is already indexed. A moved object keeps its z-order
+     * position; a new one goes on top.
+     */
+    void put(String instanceId, BoundingBox box) {
+        Entry existing = entries.remove(instanceId);
+        long order;
+        if (existing != null) {
+            existing.node.entries.remove(existing);
+            order = existing.order;
+        } else {
+            order = nextOrder++;
+        }
+        Entry entry = new Entry(instanceId, box, order);
+        root.insert(entry);
+        entries.put(instanceId, entry);
+    }
+
+    void remove(String instanceId) {
+        Entry entry = entries.remove(instanceId);
+        if (entry != null) {
+            entry.node.entries.remove(entry);
+        }
+    }
+
+    void clear() {
+        entries.clear();
+        root.entries.clear();
+        root.children = null;
+        nextOrder = 0;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the objects whose box intersects the region, bottom-most first.
+     */
+    List<String> query(BoundingBox region) {
+        List<Entry> hits = new ArrayList<>();
+        root.collect(region, hits);
+        hits.sort(Comparator.comparingLong((entry) -> entry.order));
+        List<String> instanceIds = new ArrayList<>(hits.size());
+        for (Entry hit : hits) {
+            instanceIds.add(hit.instanceId);
+        }
+        return instanceIds;
+    }
+
+    private static final class Entry {
+
+        private final String instanceId;
+        private final BoundingBox box;
+        private final long order;
+        private Node node;
+
+        private Entry(String instanceId, BoundingBox box, long order) {
+            this.instanceId = instanceId;
+            this.box = box;
+            this.order = order;
+        }
+    }
+
+    private static final class Node {
+
+        private final double minX;
+        private final double minY;
+        private final double maxX;
+        private final double maxY;
+        /** The quadrant grown by half its size on every side; what the node accepts and is searched by */
+        private final BoundingBox loose;
+        private final int depth;
+        private final List<Entry> entries = new ArrayList<>();
+        private Node[] children;
+
+        private Node(double minX, double minY, double maxX, double maxY, int depth) {
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            double marginX = (maxX - minX) / 2;
+            double marginY = (maxY - minY) / 2;
+            this.loose = BoundingBox.of(minX - marginX, minY - marginY, maxX + marginX, maxY + marginY);
+            this.depth = depth;
+        }
+
+        private void insert(Entry entry) {
+            Node node = this;
+            while (true) {
+                Node child = node.childFor(entry.box);
+                if (child == null) {
+                    node.entries.add(entry);
+                    entry.node = node;
+                    return;
+                }
+                node = child;
+            }
+        }
+
+        /**
+         * The child that should hold the box, created if needed, or null if the box stays here.
+         */
+        private Node childFor(BoundingBox box) {
+            if (depth >= MAX_DEPTH || (children == null && entries.size() < NODE_CAPACITY)) {
+                return null;
+            }
+            double centerX = (box.getMinX() + box.getMaxX()) / 2;
+            double centerY = (box.getMinY() + box.getMaxY()) / 2;
+            double midX = (minX + maxX) / 2;
+            double midY = (minY + maxY) / 2;
+            int quadrant = (centerX < midX ? 0 : 1) + (centerY < midY ? 0 : 2);
+            if (children == null) {
+                children = new Node[4];
+            }
+            Node child = children[quadrant];
+            if (child == null) {
+                child = new Node(
+                    quadrant % 2 == 0 ? minX : midX,
+                    quadrant < 2 ? minY : midY,
+                    quadrant % 2 == 0 ? midX : maxX,
+                    quadrant < 2 ? midY : maxY,
+                    depth + 1
+                );
+                if (!child.loose.contains(box)) {
+                    return null;
+                }
+                children[quadrant] = child;
+            }
+            return child.loose.contains(box) ? child : null;
+        }
+
+        private void collect(BoundingBox region, List<Entry> hits) {
+            for (Entry entry : entries) {
+                if (entry.box.intersects(region)) {
+                    hits.add(entry);
+                }
+            }
+            if (children == null) {
+                return;
+            }
+            for (Node child : children) {
+                if (child != null && child.loose.intersects(region)) {
+                    child.collect(region, hits);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,820 @@
+package io.github.sagimenahem.synchboard.service.board.state;
+
+import static io.github.sagimenahem.synchboard.constants.CanvasConstants.DEFAULT_CANVAS_HEIGHT;
+import static io.github.sagimenahem.synchboard.constants.CanvasConstants.DEFAULT_CANVAS_WIDTH;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import io.github.sagimenahem.synchboard.dto.websocket.BoardActionDTO;
+import io.github.sagimenahem.synchboard.dto.websocket.BoardActionDTO.ActionType;
+import io.github.sagimenahem.synchboard.entity.ActionHistory;
+import io.github.sagimenahem.synchboard.entity.BoardObject;
+import io.github.sagimenahem.synchboard.exception.InvalidRequestException;
+import io.github.sagimenahem.synchboard.exception.ResourceConflictException;
+import io.github.sagimenahem.synchboard.exception.ResourceNotFoundException;
+import io.github.sagimenahem.synchboard.repository.ActionHistoryRepository;
+import io.github.sagimenahem.synchboard.repository.ActionHistoryRetentionRepository;
+import io.github.sagimenahem.synchboard.repository.ActionHistoryRetentionRepository.HistoryPosition;
+import io.github.sagimenahem.synchboard.repository.BoardObjectRepository;
+import io.github.sagimenahem.synchboard.repository.GroupBoardRepository;
+import io.github.sagimenahem.synchboard.service.board.persistence.BoardSnapshotService;
+import io.github.sagimenahem.synchboard.service.board.persistence.BoardWriteBehindService;
+import io.github.sagimenahem.synchboard.service.board.state.BoardChange.HistoryEffect;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Authoritative in-memory state of every board currently in use. Holds the active object set of
+ * each board (instanceId to current object) together with a version counter, so board reads and
+ * update/delete target resolution are served from memory. Postgres remains the durable store: a
+ * board is loaded from it lazily on first access, through its compacted snapshot
+ * ({@link BoardSnapshotService}), and every accepted change is handed to
+ * {@link BoardWriteBehindService} under the board's lock, so changes to a board reach the database
+ * in the order they were accepted.
+ *
+ * <p>
+ * Each board also keeps its undo/redo history in memory ({@link BoardHistory}), loaded from
+ * {@code action_history} the first time the board is changed, undone or redone. Undo and redo are
+ * answered from that history and applied like any other change: the object write and the
+ * is_undone flip are queued for write-back instead of running against the database. A new action
+ * taken after an undo discards the undone entries, so they can no longer be redone. The history
+ * keeps the latest {@code app.board-state.max-history-entries} entries per board, and only those
+ * within {@code app.history-retention.max-age-days}, which retention would delete anyway. A load
+ * counts entries, not rows, so a batch of any size reloads as one entry.
+ * </p>
+ *
+ * <p>
+ * An OBJECT_BATCH is applied whole or not at all, reaches the database in one transaction and is
+ * a single history entry, which undo and redo revert together, again in one transaction. Its
+ * history rows share a group ID, from which a reloaded history rebuilds the same entry.
+ * </p>
+ *
+ * <p>
+ * Objects are also indexed by bounding box, measured against the board's canvas size, so a region
+ * of a board can be read without going through all of its objects.
+ * </p>
+ *
+ * <p>
+ * The number of resident boards is bounded by {@code app.board-state.max-cached-boards}; the least
+ * recently used board is dropped when the bound is exceeded and simply reloaded on its next access.
+ * </p>
+ *
+ * <p>
+ * A board is loaded only once this node has claimed it through {@link BoardOwnership}, so no two
+ * nodes hold live state for the same board. Any access that needs the live state of a board another
+ * node owns is refused with a {@link ResourceConflictException}.
+ * </p>
+ *
+ * @author Sagi Menahem
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BoardStateEngine {
+
+    /** Lower bound of a history load when retention keeps actions of any age */
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final ActionHistoryRepository actionHistoryRepository;
+    private final ActionHistoryRetentionRepository actionHistoryRetentionRepository;
+    private final ObjectMapper objectMapper;
+    private final AppProperties appProperties;
+    private final BoardWriteBehindService boardWriteBehindService;
+    private final BoardSnapshotService boardSnapshotService;
+    private final GroupBoardRepository groupBoardRepository;
+    private final BoardObjectRepository boardObjectRepository;
+    private final BoardOwnership boardOwnership;
+
+    private final Map<Long, LiveBoardState> states = new ConcurrentHashMap<>();
+    private final AtomicLong lastChangeMicros = new AtomicLong();
+
+    /**
+     * Validates a draw action against the live state and applies it. OBJECT_UPDATE and
+     * OBJECT_DELETE targets are resolved from memory, and the resulting change is queued for
+     * write-back before the board is released.
+     *
+     * @param request the draw action
+     * @param userEmail the user performing the action
+     * @return the applied change
+     * @throws ResourceNotFoundException if an update or delete targets an object that is not active
+     * @throws ResourceConflictException if an add reuses the instance ID of an active or deleted
+     *         object
+     * @throws InvalidRequestException if the action type is not supported
+     */
+    public BoardChange apply(BoardActionDTO.Request request, String userEmail) {
+        LiveBoardState state = acquire(request.getBoardId());
+        String instanceId = request.getInstanceId();
+
+        synchronized (state) {
+            BoardHistory history = history(state);
+            LiveBoardObject existing = state.get(instanceId);
+            validate(state, request.getType(), instanceId, existing);
+            LiveBoardObject after = applyOperation(
+                state,
+                request.getType(),
+                instanceId,
+                request.getPayload(),
+                userEmail
+            );
+
+            BoardChange change = change(
+                state,
+                request.getType(),
+                instanceId,
+                existing,
+                after,
+                userEmail,
+                state.getVersion()
+            )
+                .truncatesRedo(history.hasRedo())
+                .build();
+            if (boardWriteBehindService.enqueue(change)) {
+                history.amend(instanceId, after);
+            } else {
+                history.record(List.of(historyEntryOf(change)));
+            }
+            return change;
+        }
+    }
+
+    /**
+     * Validates an OBJECT_BATCH against the live state and applies its operations in order, as one
+     * action: either every operation is valid and all are applied, or none is. The changes are
+     * queued for write-back as one group, committed in a single transaction, and recorded as one
+     * history entry, so a single undo reverts the whole batch.
+     *
+     * @param request the OBJECT_BATCH action
+     * @param userEmail the user performing the action
+     * @return the applied changes, one per operation
+     * @throws ResourceNotFoundException if an update or delete targets an object that is not active
+     * @throws ResourceConflictException if an add reuses the instance ID of an active or deleted
+     *         object
+     * @throws InvalidRequestException if the batch is empty or too large, an operation has no
+     *         instance ID or an unsupported type, or two operations target the same object
+     */
+    public List<BoardChange> applyBatch(BoardActionDTO.Request request, String userEmail) {
+        List<BoardActionDTO.Operation> operations = request.getOperations();
+        validateBatch(operations);
+        LiveBoardState state = acquire(request.getBoardId());
+
+        synchronized (state) {
+            // Nothing is applied until every operation is known to be valid
+            for (BoardActionDTO.Operation operation : operations) {
+                String instanceId = operation.getInstanceId();
+                validate(state, operation.getType(), instanceId, state.get(instanceId));
+            }
+
+            BoardHistory history = history(state);
+            boolean truncatesRedo = history.hasRedo();
+            UUID groupId = UUID.randomUUID();
+            List<BoardChange> changes = new ArrayList<>(operations.size());
+            for (BoardActionDTO.Operation operation : operations) {
+                String instanceId = operation.getInstanceId();
+                LiveBoardObject existing = state.get(instanceId);
+                LiveBoardObject after = applyOperation(
+                    state,
+                    operation.getType(),
+                    instanceId,
+                    operation.getPayload(),
+                    userEmail
+                );
+                changes.add(
+                    change(state, operation.getType(), instanceId, existing, after, userEmail, state.getVersion())
+                        .truncatesRedo(truncatesRedo && changes.isEmpty())
+                        .groupId(groupId)
+                        .build()
+                );
+            }
+
+            boardWriteBehindService.enqueueAll(changes);
+            history.record(changes.stream().map(BoardStateEngine::historyEntryOf).toList());
+            log.debug("Applied batch of {} operations in board: {}", changes.size(), state.getBoardId());
+            return changes;
+        }
+    }
+
+    /**
+     * Reverts the most recent action on a board that has not been undone. An OBJECT_BATCH is
+     * reverted as a whole, its operations in reverse order.
+     *
+     * @param boardId the board ID
+     * @return the resulting changes, one per object the action changed, whose type is null where
+     *         the object was already in the reverted state; or empty if there is nothing to undo
+     */
+    public List<BoardChange> undo(Long boardId) {
+        return revert(boardId, HistoryEffect.UNDO);
+    }
+
+    /**
+     * Reapplies the most recently undone action on a board. An OBJECT_BATCH is reapplied as a
+     * whole, its operations in their original order.
+     *
+     * @param boardId the board ID
+     * @return the resulting changes, one per object the action changed, whose type is null where
+     *         the object was already in the reapplied state; or empty if there is nothing to redo
+     */
+    public List<BoardChange> redo(Long boardId) {
+        return revert(boardId, HistoryEffect.REDO);
+    }
+
+    /**
+     * Returns the active objects of a board in canvas z-order.
+     *
+     * @param boardId the board ID
+     * @return a point-in-time copy of the board's active objects
+     */
+    public List<LiveBoardObject> getObjects(Long boardId) {
+        return acquire(boardId).snapshot();
+    }
+
+    /**
+     * Returns the active objects of a board in canvas z-order if its live state is already
+     * resident, without loading it. Lets a one-off read of a board nobody is drawing on go to the
+     * database directly instead of pulling the whole board into memory.
+     *
+     * @param boardId the board ID
+     * @return a point-in-time copy of the board's active objects, or empty if the board is not
+     *         resident
+     */
+    public Optional<List<LiveBoardObject>> getObjectsIfResident(Long boardId) {
+        LiveBoardState state = states.get(boardId);
+        if (state == null || !state.isLoaded()) {
+            return Optional.empty();
+        }
+        return Optional.of(state.snapshot());
+    }
+
+    /**
+     * Returns the active objects of a board whose bounding box intersects a region, in canvas
+     * z-order.
+     *
+     * @param boardId the board ID
+     * @param region the region in normalized canvas coordinates
+     * @return a point-in-time copy of the matching objects
+     */
+    public List<LiveBoardObject> getObjectsIn(Long boardId, BoundingBox region) {
+        return acquire(boardId).query(region);
+    }
+
+    /**
+     * Like {@link #getObjectsIn}, but only if the board's live state is already resident; see
+     * {@link #getObjectsIfResident}.
+     *
+     * @param boardId the board ID
+     * @param region the region in normalized canvas coordinates
+     * @return a point-in-time copy of the matching objects, or empty if the board is not resident
+     */
+    public Optional<List<LiveBoardObject>> getObjectsInIfResident(Long boardId, BoundingBox region) {
+        LiveBoardState state = states.get(boardId);
+        if (state == null || !state.isLoaded()) {
+            return Optional.empty();
+        }
+        return Optional.of(state.query(region));
+    }
+
+    /**
+     * Re-measures a resident board's objects against a new canvas size. Boards that are not
+     * resident read the size when they load.
+     *
+     * @param boardId the board ID
+     * @param canvasWidth the new canvas width in pixels
+     * @param canvasHeight the new canvas height in pixels
+     */
+    public void resizeCanvas(Long boardId, int canvasWidth, int canvasHeight) {
+        LiveBoardState state = states.get(boardId);
+        if (state != null) {
+            state.resize(canvasWidth, canvasHeight);
+        }
+    }
+
+    /**
+     * Measures an object payload against the board's canvas size, without loading the board. A
+     * board that is not resident is measured against the default canvas size.
+     *
+     * @param boardId the board ID
+     * @param payload the object data
+     * @return the object's bounding box
+     */
+    public BoundingBox measure(Long boardId, JsonNode payload) {
+        LiveBoardState state = states.get(boardId);
+        if (state == null) {
+            return BoundingBox.of(payload, DEFAULT_CANVAS_WIDTH, DEFAULT_CANVAS_HEIGHT);
+        }
+        return state.measure(payload);
+    }
+
+    /**
+     * Looks up a single active object.
+     *
+     * @param boardId the board ID
+     * @param instanceId the client-generated object identifier
+     * @return the object, or empty if it is not active on the board
+     */
+    public Optional<LiveBoardObject> find(Long boardId, String instanceId) {
+        return Optional.ofNullable(acquire(boardId).get(instanceId));
+    }
+
+    /**
+     * Returns the current version of a board's live state.
+     *
+     * @param boardId the board ID
+     * @return the version counter, incremented by every accepted change
+     */
+    public long getVersion(Long boardId) {
+        return acquire(boardId).getVersion();
+    }
+
+    /**
+     * Drops a board's live state. The next access reloads it from the database. Used when the
+     * durable state changes underneath the engine, such as a failed write-back or board deletion.
+     * The board's history goes with it.
+     *
+     * @param boardId the board ID
+     */
+    public void evict(Long boardId) {
+        if (states.remove(boardId) != null) {
+            log.debug("Evicted live state for board {}", boardId);
+        }
+    }
+
+    /**
+     * Whether a board's live state is held by this node, loaded or being loaded.
+     *
+     * @param boardId the board ID
+     * @return true if the board is resident
+     */
+    public boolean isResident(Long boardId) {
+        return states.containsKey(boardId);
+    }
+
+    private LiveBoardState acquire(Long boardId) {
+        LiveBoardState state = states.computeIfAbsent(boardId, LiveBoardState::new);
+        try {
+            state.ensureLoaded(() -> load(state));
+        } catch (RuntimeException e) {
+            states.remove(boardId, state);
+            throw e;
+        }
+        if (states.size() > appProperties.getBoardState().getMaxCachedBoards()) {
+            evictLeastRecentlyUsed(boardId);
+        }
+        return state;
+    }
+
+    private List<LiveBoardObject> load(LiveBoardState state) {
+        Long boardId = state.getBoardId();
+        if (!boardOwnership.claim(boardId)) {
+            throw new ResourceConflictException("Board " + boardId + " is being served by another backend node");
+        }
+        groupBoardRepository
+            .findById(boardId)
+            .ifPresent((board) ->
+                state.resize(
+                    Objects.requireNonNullElse(board.getCanvasWidth(), DEFAULT_CANVAS_WIDTH),
+                    Objects.requireNonNullElse(board.getCanvasHeight(), DEFAULT_CANVAS_HEIGHT)
+                )
+            );
+        // Changes still queued for write-back would be missing from what the database returns
+        boardWriteBehindService.flush();
+        List<LiveBoardObject> objects = boardSnapshotService.load(boardId);
+        state.retire(boardObjectRepository.findInactiveInstanceIds(boardId));
+        log.debug("Loaded live state for board {} with {} objects", boardId, objects.size());
+        return objects;
+    }
+
+    private List<BoardChange> revert(Long boardId, HistoryEffect effect) {
+        LiveBoardState state = acquire(boardId);
+
+        synchronized (state) {
+            BoardHistory history = history(state);
+            boolean undo = effect == HistoryEffect.UNDO;
+            List<HistoryEntry> entries = undo ? history.undo() : history.redo();
+            if (entries == null) {
+                return List.of();
+            }
+            if (undo) {
+                entries = entries.reversed();
+            }
+
+            UUID groupId = entries.size() > 1 ? UUID.randomUUID() : null;
+            List<BoardChange> changes = new ArrayList<>(entries.size());
+            for (HistoryEntry entry : entries) {
+                changes.add(revert(state, entry, effect, groupId));
+            }
+            if (groupId == null) {
+                boardWriteBehindService.enqueue(changes.getFirst());
+            } else {
+                boardWriteBehindService.enqueueAll(changes);
+            }
+            return changes;
+        }
+    }
+
+    private BoardChange revert(LiveBoardState state, HistoryEntry entry, HistoryEffect effect, UUID groupId) {
+        boolean undo = effect == HistoryEffect.UNDO;
+        LiveBoardObject existing = state.get(entry.getInstanceId());
+        LiveBoardObject outcome = outcome(entry, existing, undo);
+        ActionType type = null;
+        long version = state.getVersion();
+        if (outcome == null && existing != null) {
+            type = ActionType.OBJECT_DELETE;
+            version = state.remove(entry.getInstanceId());
+        } else if (outcome != existing) {
+            type = existing != null ? ActionType.OBJECT_UPDATE : ActionType.OBJECT_ADD;
+            version = state.put(outcome);
+        }
+
+        log.debug(
+            "{} of {} on instanceId: {} in board: {}",
+            effect,
+            entry.getType(),
+            entry.getInstanceId(),
+            state.getBoardId()
+        );
+        return change(state, type, entry.getInstanceId(), existing, outcome, entry.getActorEmail(), version)
+            .history(effect)
+            .revertedAt(entry.getOccurredAt())
+            .groupId(groupId)
+            .build();
+    }
+
+    /**
+     * Works out what undoing or redoing an entry leaves its object as.
+     *
+     * @return the object as it should be on the board, null if it should not be active, or
+     *         {@code existing} itself when the object is already in that state
+     */
+    private static LiveBoardObject outcome(HistoryEntry entry, LiveBoardObject existing, boolean undo) {
+        switch (entry.getType()) {
+            case OBJECT_ADD:
+                if (undo) {
+                    return null;
+                }
+                return existing != null ? existing : entry.getAfter();
+            case OBJECT_UPDATE:
+                LiveBoardObject state = undo ? entry.getBefore() : entry.getAfter();
+                // Only an object that is still on the board can have an update reverted or reapplied
+                if (existing == null || state == null) {
+                    return existing;
+                }
+                return existing
+                    .toBuilder()
+                    .payload(state.getPayload())
+                    .lastEditedByEmail(entry.getActorEmail())
+                    .build();
+            case OBJECT_DELETE:
+                if (!undo) {
+                    return null;
+                }
+                if (existing != null || entry.getBefore() == null) {
+                    return existing;
+                }
+                return entry.getBefore().toBuilder().lastEditedByEmail(entry.getActorEmail()).build();
+            default:
+                return existing;
+        }
+    }
+
+    private BoardHistory history(LiveBoardState state) {
+        BoardHistory history = state.getHistory();
+        if (history == null) {
+            history = loadHistory(state);
+            state.setHistory(history);
+        }
+        return history;
+    }
+
+    private BoardHistory loadHistory(LiveBoardState state) {
+        // Queued changes carry history rows the query would otherwise miss
+        boardWriteBehindService.flush();
+        Long boardId = state.getBoardId();
+        int maxEntries = appProperties.getBoardState().getMaxHistoryEntries();
+        // Bounded by the oldest entry to load rather than a row count, which a large batch would exceed
+        LocalDateTime since = historyHorizon();
+        Optional<HistoryPosition> oldestEntry = actionHistoryRetentionRepository.findPosition(boardId, maxEntries);
+        if (oldestEntry.isPresent() && oldestEntry.get().getTimestamp().isAfter(since)) {
+            since = oldestEntry.get().getTimestamp();
+        }
+        List<ActionHistory> rows = actionHistoryRepository.findRecentByBoardWithRelations(boardId, since);
+        List<List<ActionHistory>> actions = toActions(rows);
+        if (actions.size() > maxEntries) {
+            actions = actions.subList(0, maxEntries);
+        }
+
+        // Rows arrive newest first; the leading undone actions are the redo branch, replayed oldest first
+        List<List<ActionHistory>> appliedActions = new ArrayList<>(actions.size());
+        List<List<ActionHistory>> undoneActions = new ArrayList<>();
+        for (List<ActionHistory> action : actions) {
+            if (!action.getFirst().isUndone()) {
+                appliedActions.add(action);
+            } else if (appliedActions.isEmpty()) {
+                undoneActions.add(action.reversed());
+            }
+            // Older undone actions lie below later ones and can no longer be redone
+        }
+        Collections.reverse(undoneActions);
+
+        // Updates are stored as patches, so their full states are rebuilt by walking away from the
+        // live board: backwards through the applied entries, forwards through the redo branch
+        List<List<HistoryEntry>> applied = new ArrayList<>(appliedActions.size());
+        Map<String, JsonNode> payloads = new HashMap<>();
+        for (List<ActionHistory> action : appliedActions) {
+            List<HistoryEntry> entries = toHistoryEntries(state, action, payloads, true);
+            if (!entries.isEmpty()) {
+                applied.add(entries.reversed());
+            }
+        }
+        Collections.reverse(applied);
+
+        List<List<HistoryEntry>> undone = new ArrayList<>(undoneActions.size());
+        payloads.clear();
+        for (List<ActionHistory> action : undoneActions) {
+            List<HistoryEntry> entries = toHistoryEntries(state, action, payloads, false);
+            if (!entries.isEmpty()) {
+                undone.add(entries);
+            }
+        }
+        log.debug(
+            "Loaded history for board {} with {} applied and {} undone entries",
+            boardId,
+            applied.size(),
+            undone.size()
+        );
+        return new BoardHistory(applied, undone, maxEntries);
+    }
+
+    /** Time of the oldest action history retention keeps, the lower bound of a history load */
+    private LocalDateTime historyHorizon() {
+        AppProperties.HistoryRetention retention = appProperties.getHistoryRetention();
+        if (!retention.isEnabled() || retention.getMaxAgeDays() <= 0) {
+            return HISTORY_START;
+        }
+        return LocalDateTime.now(ZoneOffset.UTC).minusDays(retention.getMaxAgeDays());
+    }
+
+    /**
+     * Splits history rows, newest first, into actions: a run of rows sharing a group ID is one
+     * action, any other row an action of its own.
+     */
+    private static List<List<ActionHistory>> toActions(List<ActionHistory> rows) {
+        List<List<ActionHistory>> actions = new ArrayList<>(rows.size());
+        List<ActionHistory> action = null;
+        for (ActionHistory row : rows) {
+            UUID groupId = row.getGroupId();
+            if (action == null || groupId == null || !groupId.equals(action.getFirst().getGroupId())) {
+                action = new ArrayList<>();
+                actions.add(action);
+            }
+            action.add(row);
+        }
+        return actions;
+    }
+
+    /** Rebuilds the entries of one action's rows, in the order of the walk, skipping unreadable ones */
+    private List<HistoryEntry> toHistoryEntries(
+        LiveBoardState state,
+        List<ActionHistory> rows,
+        Map<String, JsonNode> payloads,
+        boolean backwards
+    ) {
+        List<HistoryEntry> entries = new ArrayList<>(rows.size());
+        for (ActionHistory row : rows) {
+            HistoryEntry entry = toHistoryEntry(state, row, payloads, backwards);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Rebuilds one history entry. {@code payloads} holds each object's payload as of the walk so
+     * far; objects it has not reached yet are as on the live board. Walking backwards, the row's
+     * stored before-state is the next one reached, walking forwards its after-state.
+     */
+    private HistoryEntry toHistoryEntry(
+        LiveBoardState state,
+        ActionHistory row,
+        Map<String, JsonNode> payloads,
+        boolean backwards
+    ) {
+        BoardObject object = row.getBoardObject();
+        String instanceId = object.getInstanceId();
+        String actorEmail = row.getUser().getEmail();
+        try {
+            JsonNode before = readState(row.getStateBefore());
+            JsonNode after = readState(row.getStateAfter());
+            if (JsonPatch.isPatch(before) || JsonPatch.isPatch(after)) {
+                JsonNode current = currentPayload(state, payloads, instanceId);
+                if (current == null) {
+                    throw new IllegalArgumentException("No object to apply the update patch to");
+                }
+                if (backwards) {
+                    before = JsonPatch.apply(current, before);
+                    after = current;
+                } else {
+                    before = current;
+                    after = JsonPatch.apply(current, after);
+                }
+            }
+            payloads.put(instanceId, backwards ? before : after);
+            return HistoryEntry.builder()
+                .type(ActionType.valueOf(row.getActionType()))
+                .instanceId(instanceId)
+                .before(toLiveObject(object, before, actorEmail))
+                .after(toLiveObject(object, after, actorEmail))
+                .actorEmail(actorEmail)
+                .occurredAt(row.getTimestamp())
+                .build();
+        } catch (JacksonException | IllegalArgumentException e) {
+            log.error("Failed to parse history entry for action ID: {}", row.getActionId(), e);
+            // Entries further along the walk cannot be rebuilt from an unknown state either
+            payloads.put(instanceId, null);
+            return null;
+        }
+    }
+
+    private static JsonNode currentPayload(LiveBoardState state, Map<String, JsonNode> payloads, String instanceId) {
+        if (payloads.containsKey(instanceId)) {
+            return payloads.get(instanceId);
+        }
+        LiveBoardObject live = state.get(instanceId);
+        return live != null ? live.getPayload() : null;
+    }
+
+    private JsonNode readState(String json) {
+        return json != null ? objectMapper.readTree(json) : null;
+    }
+
+    private LiveBoardObject toLiveObject(BoardObject object, JsonNode payload, String editorEmail) {
+        if (payload == null) {
+            return null;
+        }
+        return LiveBoardObject.builder()
+            .instanceId(object.getInstanceId())
+            .objectType(object.getObjectType())
+            .payload(payload)
+            .createdByEmail(object.getCreatedByUser() != null ? object.getCreatedByUser().getEmail() : null)
+            .lastEditedByEmail(editorEmail)
+            .build();
+    }
+
+    private void evictLeastRecentlyUsed(Long keep) {
+        states
+            .values()
+            .stream()
+            .filter((state) -> !state.getBoardId().equals(keep))
+            .min(Comparator.comparingLong(LiveBoardState::getLastAccessNanos))
+            .ifPresent((state) -> evict(state.getBoardId()));
+    }
+
+    private static void requireActive(LiveBoardObject existing, String instanceId, Long boardId) {
+        if (existing == null) {
+            log.error("BoardObject not found - instanceId: {}, boardId: {}", instanceId, boardId);
+            throw new ResourceNotFoundException("BoardObject not found with instanceId: " + instanceId);
+        }
+    }
+
+    /**
+     * Checks that an object operation can be applied to the object as it currently is.
+     */
+    private static void validate(LiveBoardState state, ActionType type, String instanceId, LiveBoardObject existing) {
+        switch (type) {
+            case OBJECT_ADD:
+                if (existing != null) {
+                    throw new ResourceConflictException("BoardObject already exists with instanceId: " + instanceId);
+                }
+                // A deleted object keeps its row, so its ID cannot be taken by a new object
+                if (state.isRetired(instanceId)) {
+                    throw new ResourceConflictException("BoardObject was deleted with instanceId: " + instanceId);
+                }
+                break;
+            case OBJECT_UPDATE:
+            case OBJECT_DELETE:
+                requireActive(existing, instanceId, state.getBoardId());
+                break;
+            default:
+                throw new InvalidRequestException("Unsupported action type: " + type);
+        }
+    }
+
+    /**
+     * Checks the shape of an OBJECT_BATCH before the board is touched: it carries between one and
+     * {@code app.board-state.max-batch-operations} object operations, each on a different object.
+     */
+    private void validateBatch(List<BoardActionDTO.Operation> operations) {
+        int maxOperations = appProperties.getBoardState().getMaxBatchOperations();
+        if (operations == null || operations.isEmpty()) {
+            throw new InvalidRequestException("OBJECT_BATCH must carry at least one operation");
+        }
+        if (operations.size() > maxOperations) {
+            throw new InvalidRequestException(
+                "OBJECT_BATCH carries " + operations.size() + " operations; at most " + maxOperations + " are allowed"
+            );
+        }
+        Set<String> instanceIds = new HashSet<>();
+        for (BoardActionDTO.Operation operation : operations) {
+            if (operation == null || operation.getInstanceId() == null || operation.getType() == null) {
+                throw new InvalidRequestException("Every OBJECT_BATCH operation needs a type and an instanceId");
+            }
+            if (!instanceIds.add(operation.getInstanceId())) {
+                throw new InvalidRequestException(
+                    "OBJECT_BATCH changes instanceId " + operation.getInstanceId() + " more than once"
+                );
+            }
+        }
+    }
+
+    /**
+     * Applies a validated object operation to the live state.
+     *
+     * @return the object after the operation, null if it was deleted
+     */
+    private static LiveBoardObject applyOperation(
+        LiveBoardState state,
+        ActionType type,
+        String instanceId,
+        JsonNode payload,
+        String userEmail
+    ) {
+        if (type == ActionType.OBJECT_DELETE) {
+            state.remove(instanceId);
+            return null;
+        }
+        LiveBoardObject existing = state.get(instanceId);
+        LiveBoardObject after = existing != null
+            ? existing.toBuilder().payload(payload).lastEditedByEmail(userEmail).build()
+            : LiveBoardObject.builder()
+                .instanceId(instanceId)
+                .objectType(type.name())
+                .payload(payload)
+                .createdByEmail(userEmail)
+                .lastEditedByEmail(userEmail)
+                .build();
+        state.put(after);
+        return after;
+    }
+
+    private static HistoryEntry historyEntryOf(BoardChange change) {
+        return HistoryEntry.builder()
+            .type(change.getType())
+            .instanceId(change.getInstanceId())
+            .before(change.getBefore())
+            .after(change.getAfter())
+            .actorEmail(change.getActorEmail())
+            .occurredAt(change.getOccurredAt())
+            .build();
+    }
+
+    private BoardChange.BoardChangeBuilder change(
+        LiveBoardState state,
+        ActionType type,
+        String instanceId,
+        LiveBoardObject before,
+        LiveBoardObject after,
+        String userEmail,
+        long version
+    ) {
+        return BoardChange.builder()
+            .boardId(state.getBoardId())
+            .type(type)
+            .instanceId(instanceId)
+            .before(before)
+            .after(after)
+            .actorEmail(userEmail)
+            .occurredAt(nextChangeTimestamp())
+            .version(version);
+    }
+
+    /**
+     * Returns the current UTC time at microsecond precision, bumped past the previous change if
+     * needed. History is ordered by timestamp, and changes written in the same batch must not tie.
+     * A zone with daylight saving time would repeat an hour of local times every autumn, sorting
+     * actions from that hour among ones an hour older.
+     */
+    private LocalDateTime nextChangeTimestamp() {
+        long now = ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+        long micros = lastChangeMicros.updateAndGet((last) -> Math.max(last + 1, now));
+        return LocalDateTime.ofInstant(Instant.EPOCH.plus(micros, ChronoUnit.MICROS), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,181 @@
+package io.github.sagimenahem.synchboard.service.board.state;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import tools.jackson.databind.JsonNode;
+
+/**
+ * Axis-aligned rectangle in normalized canvas coordinates, where (0, 0) is the top-left and (1, 1)
+ * the bottom-right corner of the canvas. Objects may extend past the canvas, so coordinates are not
+ * clamped.
+ *
+ * <p>
+ * {@link #of} measures an object payload exactly like the {@code board_object_bounds} database
+ * function that fills {@code board_objects.bounds}; the two must stay in step.
+ * </p>
+ *
+ * @author Sagi Menahem
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public final class BoundingBox {
+
+    /** The whole canvas; also the box of any object whose geometry cannot be read */
+    public static final BoundingBox CANVAS = new BoundingBox(0, 0, 1, 1);
+
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+
+    private BoundingBox(double minX, double minY, double maxX, double maxY) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+    }
+
+    /**
+     * Creates a box from two corners given in any order.
+     *
+     * @throws IllegalArgumentException if a coordinate is not a finite number
+     */
+    public static BoundingBox of(double x1, double y1, double x2, double y2) {
+        if (!Double.isFinite(x1) || !Double.isFinite(y1) || !Double.isFinite(x2) || !Double.isFinite(y2)) {
+            throw new IllegalArgumentException("Bounding box coordinates must be finite numbers");
+        }
+        return new BoundingBox(Math.min(x1, x2), Math.min(y1, y2), Math.max(x1, x2), Math.max(y1, y2));
+    }
+
+    /**
+     * Measures an object payload. Freehand lines are bounded by their points, triangles, lines and
+     * arrows by their vertices, circles and polygons by center and radius, rectangles and text
+     * boxes by position and size. The box is padded by half the stroke width (three stroke widths
+     * for arrowheads).
+     *
+     * @param payload the object data
+     * @param canvasWidth the board's canvas width in pixels; circle radii and stroke widths are
+     *        measured against it
+     * @param canvasHeight the board's canvas height in pixels
+     * @return the object's box, or {@link #CANVAS} if the payload has no recognisable geometry
+     */
+    public static BoundingBox of(JsonNode payload, int canvasWidth, int canvasHeight) {
+        if (payload == null || !payload.isObject()) {
+            return CANVAS;
+        }
+        double w = Math.max(canvasWidth, 1);
+        double h = Math.max(canvasHeight, 1);
+        double stroke = orElse(number(payload, "strokeWidth"), orElse(number(payload, "lineWidth"), 0));
+        Double x = number(payload, "x");
+        Double y = number(payload, "y");
+        Double r = number(payload, "radius");
+
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        JsonNode points = payload.get("points");
+        if (points != null && points.isArray()) {
+            for (JsonNode point : points) {
+                Double px = number(point, "x");
+                Double py = number(point, "y");
+                if (px != null) {
+                    minX = Math.min(minX, px);
+                    maxX = Math.max(maxX, px);
+                }
+                if (py != null) {
+                    minY = Math.min(minY, py);
+                    maxY = Math.max(maxY, py);
+                }
+            }
+        } else if (number(payload, "x1") != null && number(payload, "y1") != null) {
+            for (String suffix : new String[] { "1", "2", "3" }) {
+                Double vx = number(payload, "x" + suffix);
+                Double vy = number(payload, "y" + suffix);
+                if (vx != null) {
+                    minX = Math.min(minX, vx);
+                    maxX = Math.max(maxX, vx);
+                }
+                if (vy != null) {
+                    minY = Math.min(minY, vy);
+                    maxY = Math.max(maxY, vy);
+                }
+            }
+        } else if (x != null && y != null && r != null) {
+            // Circles scale their radius by the canvas width, regular polygons by the shorter side
+            boolean circle = "circle".equals(payload.path("tool").asString());
+            double scale = circle ? w : Math.min(w, h);
+            minX = x - (r * scale) / w;
+            maxX = x + (r * scale) / w;
+            minY = y - (r * scale) / h;
+            maxY = y + (r * scale) / h;
+        } else if (x != null && y != null) {
+            double width = orElse(number(payload, "width"), 0);
+            double height = orElse(number(payload, "height"), 0);
+            minX = Math.min(x, x + width);
+            maxX = Math.max(x, x + width);
+            minY = Math.min(y, y + height);
+            maxY = Math.max(y, y + height);
+        }
+
+        if (minX > maxX || minY > maxY) {
+            return CANVAS;
+        }
+        double pad = "arrow".equals(payload.path("tool").asString()) ? stroke * 3 : stroke / 2;
+        return new BoundingBox(minX - pad / w, minY - pad / h, maxX + pad / w, maxY + pad / h);
+    }
+
+    /**
+     * Whether this box and another share at least one point. Touching edges count.
+     */
+    public boolean intersects(BoundingBox other) {
+        return minX <= other.maxX && other.minX <= maxX && minY <= other.maxY && other.minY <= maxY;
+    }
+
+    /**
+     * Whether the other box lies entirely inside this one.
+     */
+    public boolean contains(BoundingBox other) {
+        return minX <= other.minX && other.maxX <= maxX && minY <= other.minY && other.maxY <= maxY;
+    }
+
+    /**
+     * Reads a box written by {@link #format}.
+     *
+     * @throws IllegalArgumentException if the text is not four comma-separated finite numbers
+     */
+    public static BoundingBox parse(String text) {
+        String[] parts = text.split(",");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Bounding box must have four coordinates: " + text);
+        }
+        return of(
+            Double.parseDouble(parts[0]),
+            Double.parseDouble(parts[1]),
+            Double.parseDouble(parts[2]),
+            Double.parseDouble(parts[3])
+        );
+    }
+
+    /**
+     * Writes the box as {@code minX,minY,maxX,maxY}, the form message headers carry it in.
+     */
+    public String format() {
+        return minX + "," + minY + "," + maxX + "," + maxY;
+    }
+
+    private static Double number(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || !value.isNumber()) {
+            return null;
+        }
+        double number = value.asDouble();
+        return Double.isFinite(number) ? number : null;
+    }
+
+    private static double orElse(Double value, double otherwise) {
+        return value != null ? value : otherwise;
+    }
+}
@@ -0,0 +1,36 @@
+package io.github.sagimenahem.synchboard.service.board.state;
+
+import io.github.sagimenahem.synchboard.dto.websocket.BoardActionDTO.ActionType;
+import java.time.LocalDateTime;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * One recorded action in a board's in-memory history, holding what undo and redo need to revert
+ * or reapply it. Mirrors an {@code action_history} row, which it is matched to by board, object
+ * and timestamp.
+ *
+ * @author Sagi Menahem
+ */
+@Getter
+@Builder(toBuilder = true)
+public class HistoryEntry {
+
+    /** Kind of action recorded */
+    private final ActionType type;
+
+    /** Client-generated identifier of the affected object */
+    private final String instanceId;
+
+    /** Object before the action, null for OBJECT_ADD */
+    private final LiveBoardObject before;
+
+    /** Object after the action, null for OBJECT_DELETE */
+    private final LiveBoardObject after;
+
+    /** Email of the user who performed the action */
+    private final String actorEmail;
+
+    /** Timestamp of the action, as stored in {@code action_history.timestamp} */
+    private final LocalDateTime occurredAt;
+}
@@ -0,0 +1,218 @@
+package io.github.sagimenahem.synchboard.service.board.state;
+
+import java.util.Map;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.node.ArrayNode;
+import tools.jackson.databind.node.JsonNodeFactory;
+import tools.jackson.databind.node.ObjectNode;
+
+/**
+ * Minimal JSON Patch (RFC 6902) support for storing object updates as the difference between two
+ * versions of a payload. {@link #diff} only emits {@code add}, {@code remove} and {@code replace}
+ * operations, descending into objects and into arrays that kept their length, so recoloring a
+ * freehand stroke produces one {@code replace} of {@code /color} rather than a copy of every point.
+ * When the operations would take more space than the target itself, as when moving a stroke
+ * changes every coordinate, the patch is a single {@code replace} of the whole document instead.
+ * {@link #apply} accepts those three operations.
+ *
+ * @author Sagi Menahem
+ */
+public final class JsonPatch {
+
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+    private JsonPatch() {}
+
+    /**
+     * Computes the operations that turn one document into another.
+     *
+     * @param source the document the patch applies to
+     * @param target the document the patch produces
+     * @return the patch, an empty array if the documents are equal, or a single replace of the
+     *         document root if the operations would be larger than the target
+     */
+    public static ArrayNode diff(JsonNode source, JsonNode target) {
+        ArrayNode patch = NODES.arrayNode();
+        diff(source, target, "", patch);
+        if (patch.size() > 1 && patch.toString().length() > target.toString().length()) {
+            patch.removeAll();
+            patch.add(operation("replace", "", target));
+        }
+        return patch;
+    }
+
+    /**
+     * Applies a patch to a copy of a document.
+     *
+     * @param document the document to patch; left unchanged
+     * @param patch the operations to apply, in order
+     * @return the patched copy
+     * @throws IllegalArgumentException if the patch is malformed or does not fit the document
+     */
+    public static JsonNode apply(JsonNode document, JsonNode patch) {
+        if (patch == null || !patch.isArray()) {
+            throw new IllegalArgumentException("JSON Patch must be an array");
+        }
+        JsonNode result = document.deepCopy();
+        for (JsonNode operation : patch) {
+            result = applyOperation(result, operation);
+        }
+        return result;
+    }
+
+    /**
+     * Tells a stored patch from a stored payload, which is always a JSON object.
+     *
+     * @param node a stored state
+     * @return true if the node is a patch
+     */
+    public static boolean isPatch(JsonNode node) {
+        return node != null && node.isArray();
+    }
+
+    private static void diff(JsonNode source, JsonNode target, String path, ArrayNode patch) {
+        if (source.equals(target)) {
+            return;
+        }
+        if (source.isObject() && target.isObject()) {
+            for (Map.Entry<String, JsonNode> property : source.properties()) {
+                String childPath = path + "/" + escape(property.getKey());
+                JsonNode targetValue = target.get(property.getKey());
+                if (targetValue == null) {
+                    patch.add(operation("remove", childPath, null));
+                } else {
+                    diff(property.getValue(), targetValue, childPath, patch);
+                }
+            }
+            for (Map.Entry<String, JsonNode> property : target.properties()) {
+                if (source.get(property.getKey()) == null) {
+                    patch.add(operation("add", path + "/" + escape(property.getKey()), property.getValue()));
+                }
+            }
+        } else if (source.isArray() && target.isArray() && source.size() == target.size()) {
+            for (int i = 0; i < source.size(); i++) {
+                diff(source.get(i), target.get(i), path + "/" + i, patch);
+            }
+        } else {
+            patch.add(operation("replace", path, target));
+        }
+    }
+
+    private static ObjectNode operation(String op, String path, JsonNode value) {
+        ObjectNode operation = NODES.objectNode();
+        operation.put("op", op);
+        operation.put("path", path);
+        if (value != null) {
+            operation.set("value", value.deepCopy());
+        }
+        return operation;
+    }
+
+    private static JsonNode applyOperation(JsonNode document, JsonNode operation) {
+        String op = text(operation, "op");
+        String path = text(operation, "path");
+        JsonNode value = operation.get("value");
+        if (path.isEmpty()) {
+            if (!"replace".equals(op) || value == null) {
+                throw new IllegalArgumentException("Unsupported operation on the document root: " + op);
+            }
+            return value.deepCopy();
+        }
+
+        int split = path.lastIndexOf('/');
+        JsonNode parent = resolve(document, path.substring(0, split));
+        String token = unescape(path.substring(split + 1));
+        switch (op) {
+            case "add":
+                requireValue(value, op);
+                if (parent instanceof ObjectNode object) {
+                    object.set(token, value.deepCopy());
+                } else if (parent instanceof ArrayNode array) {
+                    if ("-".equals(token)) {
+                        array.add(value.deepCopy());
+                    } else {
+                        array.insert(index(token, array.size()), value.deepCopy());
+                    }
+                } else {
+                    throw new IllegalArgumentException("No container at " + path);
+                }
+                break;
+            case "remove":
+            case "replace":
+                if (parent instanceof ObjectNode object && object.has(token)) {
+                    if ("remove".equals(op)) {
+                        object.remove(token);
+                    } else {
+                        requireValue(value, op);
+                        object.set(token, value.deepCopy());
+                    }
+                } else if (parent instanceof ArrayNode array) {
+                    int index = index(token, array.size() - 1);
+                    if ("remove".equals(op)) {
+                        array.remove(index);
+                    } else {
+                        requireValue(value, op);
+                        array.set(index, value.deepCopy());
+                    }
+                } else {
+                    throw new IllegalArgumentException("Nothing to " + op + " at " + path);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported JSON Patch operation: " + op);
+        }
+        return document;
+    }
+
+    private static JsonNode resolve(JsonNode document, String pointer) {
+        JsonNode node = document;
+        if (pointer.isEmpty()) {
+            return node;
+        }
+        for (String token : pointer.substring(1).split("/", -1)) {
+            String name = unescape(token);
+            if (node instanceof ArrayNode array) {
+                node = array.get(index(name, array.size() - 1));
+            } else if (node instanceof ObjectNode object && object.has(name)) {
+                node = object.get(name);
+            } else {
+                throw new IllegalArgumentException("Path not found: " + pointer);
+            }
+        }
+        return node;
+    }
+
+    private static int index(String token, int max) {
+        try {
+            int index = Integer.parseInt(token);
+            if (index < 0 || index > max) {
+                throw new IllegalArgumentException("Array index out of range: " + token);
+            }
+            return index;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not an array index: " + token);
+        }
+    }
+
+    private static void requireValue(JsonNode value, String op) {
+        if (value == null) {
+            throw new IllegalArgumentException("Operation '" + op + "' needs a value");
+        }
+    }
+
+    private static String text(JsonNode operation, String field) {
+        JsonNode value = operation.get(field);
+        if (value == null || !value.isString()) {
+            throw new IllegalArgumentException("JSON Patch operation lacks '" + field + "'");
+        }
+        return value.asString();
+    }
+
+    private static String escape(String token) {
+        return token.replace("~", "~0").replace("/", "~1");
+    }
+
+    private static String unescape(String token) {
+        return token.replace("~1", "/").replace("~0", "~");
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.sagimenahem.synchboard.service.board.state;
+
+import lombok.Builder;
+import lombok.Getter;
+import tools.jackson.databind.JsonNode;
+
+/**
+ * Immutable in-memory view of one active canvas object. Mirrors the persisted
+ * {@code board_objects} row closely enough to answer reads and resolve update/delete targets
+ * without a database round trip.
+ *
+ * @author Sagi Menahem
+ */
+@Getter
+@Builder(toBuilder = true)
+public class LiveBoardObject {
+
+    /** Client-generated identifier the object is addressed by */
+    private final String instanceId;
+
+    /** Stored object type, as kept in {@code board_objects.object_type} */
+    private final String objectType;
+
+    /** Current object data (position, size, color, points, ...) */
+    private final JsonNode payload;
+
+    /** Email of the user who created the object, or null when unknown or deleted */
+    private final String createdByEmail;
+
+    /** Email of the user who last modified the object */
+    private final String lastEditedByEmail;
+}
@@ -0,0 +1,182 @@
+package io.github.sagimenahem.synchboard.service.board.state;
+
+import static io.github.sagimenahem.synchboard.constants.CanvasConstants.DEFAULT_CANVAS_HEIGHT;
+import static io.github.sagimenahem.synchboard.constants.CanvasConstants.DEFAULT_CANVAS_WIDTH;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import tools.jackson.databind.JsonNode;
+
+/**
+ * Live object set of a single board. Objects are kept in insertion order, which is the canvas
+ * z-order clients render in, and every mutation bumps a monotonic version counter. A
+ * {@link BoardSpatialIndex} over the objects' bounding boxes answers region reads; boxes are
+ * measured against the board's canvas size, so a resize re-measures every object. The instance IDs
+ * of the board's inactive objects are kept as well: their rows stay in the database, so no new
+ * object may take one.
+ *
+ * <p>
+ * All access is synchronized on the instance. Boards are independent, so contention is limited to
+ * users drawing on the same board, and every critical section is a map operation.
+ * </p>
+ *
+ * @author Sagi Menahem
+ */
+public class LiveBoardState {
+
+    private final Long boardId;
+    private final Map<String, LiveBoardObject> objects = new LinkedHashMap<>();
+    private final BoardSpatialIndex index = new BoardSpatialIndex();
+    /** Instance IDs of deleted or undone objects, whose rows are still in the database */
+    private final Set<String> retired = new HashSet<>();
+    private int canvasWidth = DEFAULT_CANVAS_WIDTH;
+    private int canvasHeight = DEFAULT_CANVAS_HEIGHT;
+    private boolean loaded;
+    /** Undo/redo history, loaded separately on first use */
+    private BoardHistory history;
+    private long version;
+    private volatile long lastAccessNanos = System.nanoTime();
+
+    LiveBoardState(Long boardId) {
+        this.boardId = boardId;
+    }
+
+    public Long getBoardId() {
+        return boardId;
+    }
+
+    /**
+     * Populates the state from the durable store on first use. Later calls are no-ops.
+     *
+     * @param loader supplies the persisted active objects, in z-order
+     */
+    synchronized void ensureLoaded(Supplier<List<LiveBoardObject>> loader) {
+        touch();
+        if (loaded) {
+            return;
+        }
+        for (LiveBoardObject object : loader.get()) {
+            objects.put(object.getInstanceId(), object);
+            index.put(object.getInstanceId(), measure(object));
+        }
+        loaded = true;
+    }
+
+    synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    synchronized LiveBoardObject get(String instanceId) {
+        touch();
+        return objects.get(instanceId);
+    }
+
+    /**
+     * Tells the state which instance IDs belong to inactive objects. May be called from the loader
+     * passed to {@link #ensureLoaded}.
+     */
+    synchronized void retire(Collection<String> instanceIds) {
+        retired.addAll(instanceIds);
+    }
+
+    /**
+     * Whether an instance ID belongs to an inactive object, one deleted or undone.
+     */
+    synchronized boolean isRetired(String instanceId) {
+        return retired.contains(instanceId);
+    }
+
+    synchronized long put(LiveBoardObject object) {
+        touch();
+        retired.remove(object.getInstanceId());
+        objects.put(object.getInstanceId(), object);
+        index.put(object.getInstanceId(), measure(object));
+        return ++version;
+    }
+
+    synchronized long remove(String instanceId) {
+        touch();
+        if (objects.remove(instanceId) != null) {
+            retired.add(instanceId);
+        }
+        index.remove(instanceId);
+        return ++version;
+    }
+
+    synchronized List<LiveBoardObject> snapshot() {
+        touch();
+        return new ArrayList<>(objects.values());
+    }
+
+    /**
+     * Returns the objects whose bounding box intersects a region, in z-order.
+     *
+     * @param region the region in normalized canvas coordinates
+     */
+    synchronized List<LiveBoardObject> query(BoundingBox region) {
+        touch();
+        List<String> instanceIds = index.query(region);
+        List<LiveBoardObject> hits = new ArrayList<>(instanceIds.size());
+        for (String instanceId : instanceIds) {
+            hits.add(objects.get(instanceId));
+        }
+        return hits;
+    }
+
+    /**
+     * Sets the canvas size object boxes are measured against, re-measuring every object if it
+     * changed. May be called from the loader passed to {@link #ensureLoaded}.
+     */
+    synchronized void resize(int canvasWidth, int canvasHeight) {
+        if (canvasWidth == this.canvasWidth && canvasHeight == this.canvasHeight) {
+            return;
+        }
+        this.canvasWidth = canvasWidth;
+        this.canvasHeight = canvasHeight;
+        index.clear();
+        for (LiveBoardObject object : objects.values()) {
+            index.put(object.getInstanceId(), measure(object));
+        }
+    }
+
+    synchronized BoardHistory getHistory() {
+        return history;
+    }
+
+    synchronized void setHistory(BoardHistory history) {
+        this.history = history;
+    }
+
+    synchronized int size() {
+        return objects.size();
+    }
+
+    synchronized long getVersion() {
+        return version;
+    }
+
+    long getLastAccessNanos() {
+        return lastAccessNanos;
+    }
+
+    /**
+     * Measures a payload against the board's current canvas size.
+     */
+    synchronized BoundingBox measure(JsonNode payload) {
+        return BoundingBox.of(payload, canvasWidth, canvasHeight);
+    }
+
+    private BoundingBox measure(LiveBoardObject object) {
+        return measure(object.getPayload());
+    }
+
+    private void touch() {
+        lastAccessNanos = System.nanoTime();
+    }
+}
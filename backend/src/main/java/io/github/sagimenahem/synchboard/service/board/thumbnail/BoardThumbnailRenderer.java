@@ -0,0 +1,433 @@
+package io.github.sagimenahem.synchboard.service.board.thumbnail;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import javax.imageio.ImageIO;
+import tools.jackson.databind.JsonNode;
+
+/**
+ * Rasterizes a board's objects into a small PNG with Java2D, without a display. Objects are drawn
+ * the way the canvas draws them: coordinates are normalized to the canvas size, stroke widths and
+ * font sizes are canvas pixels, and the eraser clears what was drawn before it so the background
+ * shows through. The whole canvas is scaled down to fit the thumbnail, keeping its aspect ratio.
+ *
+ * <p>
+ * Feed the objects in z-order to {@link #draw}, then call {@link #toPng}. An instance renders one
+ * thumbnail and is not thread-safe.
+ * </p>
+ *
+ * @author Sagi Menahem
+ */
+public class BoardThumbnailRenderer {
+
+    private static final Color DEFAULT_BACKGROUND = new Color(0x22, 0x22, 0x22);
+    private static final Color DEFAULT_STROKE = Color.WHITE;
+    private static final double STAR_INNER_RATIO = 0.4;
+    private static final double TEXT_LINE_HEIGHT = 1.2;
+
+    private final int canvasWidth;
+    private final int canvasHeight;
+    private final Color background;
+    private final BufferedImage layer;
+    private final Graphics2D graphics;
+
+    /**
+     * Starts a thumbnail of a canvas.
+     *
+     * @param canvasWidth the canvas width in pixels
+     * @param canvasHeight the canvas height in pixels
+     * @param backgroundColor the canvas background as a CSS color, or null for the default
+     * @param maxSize the longest side of the thumbnail in pixels
+     */
+    public BoardThumbnailRenderer(int canvasWidth, int canvasHeight, String backgroundColor, int maxSize) {
+        this.canvasWidth = Math.max(canvasWidth, 1);
+        this.canvasHeight = Math.max(canvasHeight, 1);
+        Color parsed = parseColor(backgroundColor);
+        this.background = parsed != null ? parsed : DEFAULT_BACKGROUND;
+
+        double scale = Math.min(1.0, (double) maxSize / Math.max(this.canvasWidth, this.canvasHeight));
+        int width = Math.max((int) Math.round(this.canvasWidth * scale), 1);
+        int height = Math.max((int) Math.round(this.canvasHeight * scale), 1);
+
+        // Objects go on a transparent layer so the eraser can clear them without clearing the background
+        this.layer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        this.graphics = layer.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        graphics.scale((double) width / this.canvasWidth, (double) height / this.canvasHeight);
+    }
+
+    /**
+     * Draws one object on top of the ones drawn before it. Payloads with an unknown tool or missing
+     * coordinates are skipped.
+     *
+     * @param payload the object data
+     */
+    public void draw(JsonNode payload) {
+        if (payload == null || !payload.isObject()) {
+            return;
+        }
+        graphics.setComposite(AlphaComposite.SrcOver);
+        switch (payload.path("tool").asString("")) {
+            case "brush" -> drawPolyline(payload, false);
+            case "eraser" -> drawPolyline(payload, true);
+            case "square", "rectangle" -> drawRectangle(payload);
+            case "circle" -> drawCircle(payload);
+            case "triangle" -> drawTriangle(payload);
+            case "pentagon", "hexagon" -> drawPolygon(payload);
+            case "star" -> drawStar(payload);
+            case "line", "dottedLine" -> drawLine(payload);
+            case "arrow" -> drawArrow(payload);
+            case "text" -> drawText(payload);
+            default -> {}
+        }
+    }
+
+    /**
+     * Composes the drawn objects over the background and encodes the result.
+     *
+     * @return the thumbnail as PNG bytes
+     */
+    public byte[] toPng() {
+        graphics.dispose();
+        BufferedImage image = new BufferedImage(layer.getWidth(), layer.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D composed = image.createGraphics();
+        try {
+            composed.setColor(background);
+            composed.fillRect(0, 0, image.getWidth(), image.getHeight());
+            composed.drawImage(layer, 0, 0, null);
+        } finally {
+            composed.dispose();
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.toByteArray();
+    }
+
+    private void drawPolyline(JsonNode payload, boolean erase) {
+        JsonNode points = payload.path("points");
+        if (!points.isArray() || points.size() < 2) {
+            return;
+        }
+        Path2D path = new Path2D.Double();
+        for (int i = 0; i < points.size(); i++) {
+            double x = points.get(i).path("x").asDouble(Double.NaN) * canvasWidth;
+            double y = points.get(i).path("y").asDouble(Double.NaN) * canvasHeight;
+            if (!Double.isFinite(x) || !Double.isFinite(y)) {
+                return;
+            }
+            if (i == 0) {
+                path.moveTo(x, y);
+            } else {
+                path.lineTo(x, y);
+            }
+        }
+        if (erase) {
+            graphics.setComposite(AlphaComposite.Clear);
+        }
+        graphics.setColor(colorOf(payload, "color", DEFAULT_STROKE));
+        graphics.setStroke(roundStroke(payload.path("lineWidth").asDouble(1)));
+        graphics.draw(path);
+    }
+
+    private void drawRectangle(JsonNode payload) {
+        double x = x(payload, "x");
+        double y = y(payload, "y");
+        double width = x(payload, "width");
+        double height = y(payload, "height");
+        if (!finite(x, y, width, height)) {
+            return;
+        }
+        // Dragging up or left stores a negative size, which the canvas draws mirrored
+        fillAndStroke(payload, new Rectangle2D.Double(
+            Math.min(x, x + width),
+            Math.min(y, y + height),
+            Math.abs(width),
+            Math.abs(height)
+        ));
+    }
+
+    private void drawCircle(JsonNode payload) {
+        double x = x(payload, "x");
+        double y = y(payload, "y");
+        double radius = x(payload, "radius");
+        if (!finite(x, y, radius)) {
+            return;
+        }
+        radius = Math.abs(radius);
+        fillAndStroke(payload, new Ellipse2D.Double(x - radius, y - radius, radius * 2, radius * 2));
+    }
+
+    private void drawTriangle(JsonNode payload) {
+        double[] xs = { x(payload, "x1"), x(payload, "x2"), x(payload, "x3") };
+        double[] ys = { y(payload, "y1"), y(payload, "y2"), y(payload, "y3") };
+        if (!finite(xs[0], xs[1], xs[2], ys[0], ys[1], ys[2])) {
+            return;
+        }
+        fillAndStroke(payload, polygon(xs, ys));
+    }
+
+    private void drawPolygon(JsonNode payload) {
+        int sides = payload.path("sides").asInt(0);
+        double x = x(payload, "x");
+        double y = y(payload, "y");
+        double radius = payload.path("radius").asDouble(Double.NaN) * Math.min(canvasWidth, canvasHeight);
+        if (sides < 3 || !finite(x, y, radius)) {
+            return;
+        }
+        double[] xs = new double[sides];
+        double[] ys = new double[sides];
+        for (int i = 0; i < sides; i++) {
+            double angle = (i * 2 * Math.PI) / sides - Math.PI / 2;
+            xs[i] = x + radius * Math.cos(angle);
+            ys[i] = y + radius * Math.sin(angle);
+        }
+        fillAndStroke(payload, polygon(xs, ys));
+    }
+
+    private void drawStar(JsonNode payload) {
+        double x = x(payload, "x");
+        double y = y(payload, "y");
+        double outer = payload.path("radius").asDouble(Double.NaN) * Math.min(canvasWidth, canvasHeight);
+        if (!finite(x, y, outer)) {
+            return;
+        }
+        double[] xs = new double[10];
+        double[] ys = new double[10];
+        for (int i = 0; i < 10; i++) {
+            double angle = (i * Math.PI) / 5 - Math.PI / 2;
+            double radius = i % 2 == 0 ? outer : outer * STAR_INNER_RATIO;
+            xs[i] = x + radius * Math.cos(angle);
+            ys[i] = y + radius * Math.sin(angle);
+        }
+        fillAndStroke(payload, polygon(xs, ys));
+    }
+
+    private void drawLine(JsonNode payload) {
+        double x1 = x(payload, "x1");
+        double y1 = y(payload, "y1");
+        double x2 = x(payload, "x2");
+        double y2 = y(payload, "y2");
+        if (!finite(x1, y1, x2, y2)) {
+            return;
+        }
+        float width = (float) payload.path("strokeWidth").asDouble(1);
+        JsonNode dashes = payload.path("dashPattern");
+        if (dashes.isArray() && !dashes.isEmpty()) {
+            float[] dash = new float[dashes.size()];
+            for (int i = 0; i < dash.length; i++) {
+                dash[i] = Math.max((float) dashes.get(i).asDouble(1), 0.1f);
+            }
+            graphics.setStroke(new BasicStroke(width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10, dash, 0));
+        } else {
+            graphics.setStroke(new BasicStroke(width));
+        }
+        graphics.setColor(colorOf(payload, "color", DEFAULT_STROKE));
+        graphics.draw(new Line2D.Double(x1, y1, x2, y2));
+    }
+
+    private void drawArrow(JsonNode payload) {
+        double x1 = x(payload, "x1");
+        double y1 = y(payload, "y1");
+        double x2 = x(payload, "x2");
+        double y2 = y(payload, "y2");
+        if (!finite(x1, y1, x2, y2)) {
+            return;
+        }
+        double strokeWidth = payload.path("strokeWidth").asDouble(1);
+        double angle = Math.atan2(y2 - y1, x2 - x1);
+        double length = Math.hypot(x2 - x1, y2 - y1);
+        // Same arrowhead proportions as the canvas
+        double headLength = Math.max(strokeWidth * 3, Math.min(strokeWidth * 6, length * 0.15));
+        double headAngle = Math.atan(0.6);
+
+        graphics.setColor(colorOf(payload, "color", DEFAULT_STROKE));
+        graphics.setStroke(roundStroke(strokeWidth));
+        graphics.draw(new Line2D.Double(
+            x1,
+            y1,
+            x2 - headLength * 0.3 * Math.cos(angle),
+            y2 - headLength * 0.3 * Math.sin(angle)
+        ));
+        graphics.fill(polygon(
+            new double[] {
+                x2,
+                x2 - headLength * Math.cos(angle - headAngle),
+                x2 - headLength * Math.cos(angle + headAngle),
+            },
+            new double[] {
+                y2,
+                y2 - headLength * Math.sin(angle - headAngle),
+                y2 - headLength * Math.sin(angle + headAngle),
+            }
+        ));
+    }
+
+    private void drawText(JsonNode payload) {
+        double x = x(payload, "x");
+        double y = y(payload, "y");
+        double width = x(payload, "width");
+        double height = y(payload, "height");
+        String text = payload.path("text").asString("");
+        if (!finite(x, y, width, height) || text.isBlank()) {
+            return;
+        }
+        float fontSize = (float) Math.max(payload.path("fontSize").asDouble(16), 1);
+        Graphics2D textGraphics = (Graphics2D) graphics.create();
+        try {
+            textGraphics.clip(new Rectangle2D.Double(x, y, width, height));
+            textGraphics.setColor(colorOf(payload, "color", DEFAULT_STROKE));
+            textGraphics.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 1).deriveFont(fontSize));
+            FontMetrics metrics = textGraphics.getFontMetrics();
+            double lineHeight = fontSize * TEXT_LINE_HEIGHT;
+            double baseline = y + metrics.getAscent();
+            for (String line : wrap(text, metrics, width)) {
+                if (baseline - metrics.getAscent() + lineHeight > y + height) {
+                    break;
+                }
+                textGraphics.drawString(line, (float) x, (float) baseline);
+                baseline += lineHeight;
+            }
+        } finally {
+            textGraphics.dispose();
+        }
+    }
+
+    private static List<String> wrap(String text, FontMetrics metrics, double width) {
+        List<String> lines = new ArrayList<>();
+        String current = "";
+        for (String word : text.split(" ")) {
+            String candidate = current.isEmpty() ? word : current + " " + word;
+            if (metrics.stringWidth(candidate) > width && !current.isEmpty()) {
+                lines.add(current);
+                current = word;
+            } else {
+                current = candidate;
+            }
+        }
+        if (!current.isEmpty()) {
+            lines.add(current);
+        }
+        return lines;
+    }
+
+    private void fillAndStroke(JsonNode payload, Shape shape) {
+        Color fill = colorOf(payload, "fillColor", null);
+        if (fill != null) {
+            graphics.setColor(fill);
+            graphics.fill(shape);
+        }
+        graphics.setColor(colorOf(payload, "color", DEFAULT_STROKE));
+        graphics.setStroke(new BasicStroke((float) payload.path("strokeWidth").asDouble(1)));
+        graphics.draw(shape);
+    }
+
+    private double x(JsonNode payload, String field) {
+        return payload.path(field).asDouble(Double.NaN) * canvasWidth;
+    }
+
+    private double y(JsonNode payload, String field) {
+        return payload.path(field).asDouble(Double.NaN) * canvasHeight;
+    }
+
+    private static boolean finite(double... values) {
+        for (double value : values) {
+            if (!Double.isFinite(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Path2D polygon(double[] xs, double[] ys) {
+        Path2D path = new Path2D.Double();
+        path.moveTo(xs[0], ys[0]);
+        for (int i = 1; i < xs.length; i++) {
+            path.lineTo(xs[i], ys[i]);
+        }
+        path.closePath();
+        return path;
+    }
+
+    private static BasicStroke roundStroke(double width) {
+        return new BasicStroke((float) Math.max(width, 0), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+    }
+
+    private static Color colorOf(JsonNode payload, String field, Color fallback) {
+        Color color = parseColor(payload.path(field).asString(null));
+        return color != null ? color : fallback;
+    }
+
+    /**
+     * Parses the CSS color forms the client produces: {@code #rgb}, {@code #rrggbb},
+     * {@code #rrggbbaa}, {@code rgb(...)} and {@code rgba(...)}.
+     *
+     * @param value the CSS color
+     * @return the color, or null if the value is missing, transparent or not understood
+     */
+    static Color parseColor(String value) {
+        if (value == null) {
+            return null;
+        }
+        String color = value.trim().toLowerCase(Locale.ROOT);
+        try {
+            if (color.startsWith("#")) {
+                String hex = color.substring(1);
+                if (hex.length() == 3) {
+                    hex = "" + hex.charAt(0) + hex.charAt(0) + hex.charAt(1) + hex.charAt(1) + hex.charAt(2) +
+                        hex.charAt(2);
+                }
+                if (hex.length() == 6) {
+                    return new Color(Integer.parseInt(hex, 16));
+                }
+                if (hex.length() == 8) {
+                    return new Color((int) Long.parseLong(hex.substring(6) + hex.substring(0, 6), 16), true);
+                }
+                return null;
+            }
+            if (color.startsWith("rgb(") || color.startsWith("rgba(")) {
+                String[] parts = color.substring(color.indexOf('(') + 1, color.lastIndexOf(')')).split(",");
+                if (parts.length < 3) {
+                    return null;
+                }
+                int alpha = parts.length > 3 ? (int) Math.round(Double.parseDouble(parts[3].trim()) * 255) : 255;
+                return new Color(
+                    channel(parts[0]),
+                    channel(parts[1]),
+                    channel(parts[2]),
+                    Math.clamp(alpha, 0, 255)
+                );
+            }
+        } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+            return null;
+        }
+        return null;
+    }
+
+    private static int channel(String value) {
+        return Math.clamp(Math.round(Double.parseDouble(value.trim())), 0, 255);
+    }
+}
@@ -0,0 +1,310 @@
+package io.github.sagimenahem.synchboard.service.board.thumbnail;
+
+import static io.github.sagimenahem.synchboard.constants.CanvasConstants.DEFAULT_CANVAS_HEIGHT;
+import static io.github.sagimenahem.synchboard.constants.CanvasConstants.DEFAULT_CANVAS_WIDTH;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import io.github.sagimenahem.synchboard.constants.FileConstants;
+import io.github.sagimenahem.synchboard.entity.GroupBoard;
+import io.github.sagimenahem.synchboard.repository.BoardObjectStreamRepository;
+import io.github.sagimenahem.synchboard.repository.GroupBoardRepository;
+import io.github.sagimenahem.synchboard.service.board.persistence.BoardWriteBehindService;
+import io.github.sagimenahem.synchboard.service.board.state.BoardStateEngine;
+import io.github.sagimenahem.synchboard.service.board.state.LiveBoardObject;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Keeps a small PNG preview of every board on disk, so the board list can show what each board
+ * contains without its objects being downloaded. Thumbnails are written to the {@code thumbnails}
+ * folder of {@code app.upload.dir} and served from {@code /images/thumbnails/}.
+ *
+ * <p>
+ * A thumbnail is keyed by the board's last modified date, which {@link
+ * io.github.sagimenahem.synchboard.service.board.BoardActivityTracker} bumps after drawing activity
+ * and which any edit of the board's settings bumps too. Its file name is a keyed hash of the board
+ * and that date, so the URL changes whenever the board does and can be cached by browsers forever,
+ * and cannot be guessed by someone who is not a member of the board.
+ * </p>
+ *
+ * <p>
+ * Rendering is debounced: each change pushes the board's render back by
+ * {@code app.thumbnails.quiet-period-ms}, so a board being drawn on is rendered once it goes quiet
+ * rather than after every stroke. Renders run on a single background thread, from the live state
+ * when the board is resident and from the database otherwise. Until a board's current thumbnail
+ * exists its previous one is returned, or none if it never had one.
+ * </p>
+ *
+ * @author Sagi Menahem
+ */
+@Slf4j
+@Service
+public class BoardThumbnailService {
+
+    private static final String THUMBNAIL_EXTENSION = ".png";
+
+    private final GroupBoardRepository groupBoardRepository;
+    private final BoardStateEngine boardStateEngine;
+    private final BoardObjectStreamRepository boardObjectStreamRepository;
+    private final BoardWriteBehindService boardWriteBehindService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readTransaction;
+    private final boolean enabled;
+    private final int maxSize;
+    private final long quietPeriodMs;
+    private final Path directory;
+    private final SecretKeySpec nameKey;
+
+    /** Boards waiting to be rendered, with the time their quiet period ends */
+    private final Map<Long, Long> dueBoards = new ConcurrentHashMap<>();
+    /** Boards queued on or being rendered by the render thread */
+    private final Set<Long> rendering = ConcurrentHashMap.newKeySet();
+    /** The newest thumbnail written for each board */
+    private final Map<Long, Thumbnail> latest = new ConcurrentHashMap<>();
+    private final ExecutorService renderThread = Executors.newSingleThreadExecutor(
+        Thread.ofPlatform().name("board-thumbnails").daemon().factory()
+    );
+
+    public BoardThumbnailService(
+        GroupBoardRepository groupBoardRepository,
+        BoardStateEngine boardStateEngine,
+        BoardObjectStreamRepository boardObjectStreamRepository,
+        BoardWriteBehindService boardWriteBehindService,
+        ObjectMapper objectMapper,
+        PlatformTransactionManager transactionManager,
+        AppProperties appProperties
+    ) {
+        this.groupBoardRepository = groupBoardRepository;
+        this.boardStateEngine = boardStateEngine;
+        this.boardObjectStreamRepository = boardObjectStreamRepository;
+        this.boardWriteBehindService = boardWriteBehindService;
+        this.objectMapper = objectMapper;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        AppProperties.Thumbnails thumbnails = appProperties.getThumbnails();
+        this.enabled = thumbnails.isEnabled();
+        this.maxSize = Math.max(thumbnails.getMaxSize(), 16);
+        this.quietPeriodMs = thumbnails.getQuietPeriodMs();
+        this.directory = Paths.get(appProperties.getUpload().getDir(), FileConstants.THUMBNAILS_FOLDER)
+            .toAbsolutePath()
+            .normalize();
+        this.nameKey = new SecretKeySpec(
+            appProperties.getJwt().getSecretKey().getBytes(StandardCharsets.UTF_8),
+            "HmacSHA256"
+        );
+    }
+
+    /**
+     * Records that boards changed, pushing their next render back by the quiet period.
+     *
+     * @param boardIds the boards that changed
+     */
+    public void boardsChanged(Collection<Long> boardIds) {
+        if (!enabled) {
+            return;
+        }
+        long due = System.currentTimeMillis() + quietPeriodMs;
+        for (Long boardId : boardIds) {
+            dueBoards.put(boardId, due);
+        }
+    }
+
+    /**
+     * Returns the URL of a board's thumbnail. If the thumbnail of the board's current version has
+     * not been rendered yet, it is scheduled and the previous one, if any, is returned meanwhile.
+     *
+     * @param board the board, with its last modified date and canvas settings loaded
+     * @return the thumbnail URL relative to the server root, or null if the board has none yet
+     */
+    public String getThumbnailUrl(GroupBoard board) {
+        if (!enabled || board.getLastModifiedDate() == null) {
+            return null;
+        }
+        Long boardId = board.getBoardGroupId();
+        Thumbnail current = latest.get(boardId);
+        if (current != null && current.version().equals(board.getLastModifiedDate())) {
+            return current.url();
+        }
+
+        String fileName = fileName(boardId, board.getLastModifiedDate());
+        if (Files.exists(directory.resolve(fileName))) {
+            Thumbnail found = new Thumbnail(board.getLastModifiedDate(), url(fileName));
+            latest.merge(boardId, found, BoardThumbnailService::newer);
+            return found.url();
+        }
+
+        // Not rendered yet; a render already waiting out its quiet period keeps its time
+        dueBoards.putIfAbsent(boardId, System.currentTimeMillis());
+        return current != null ? current.url() : null;
+    }
+
+    /**
+     * Hands the boards whose quiet period has ended to the render thread.
+     */
+    @Scheduled(fixedDelayString = "${app.thumbnails.sweep-interval-ms:1000}")
+    public void renderDueThumbnails() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Long, Long> entry : dueBoards.entrySet()) {
+            Long boardId = entry.getKey();
+            if (entry.getValue() > now || rendering.contains(boardId)) {
+                continue;
+            }
+            // Skips the board if it changed again since the entry was read
+            if (dueBoards.remove(boardId, entry.getValue())) {
+                rendering.add(boardId);
+                try {
+                    renderThread.execute(() -> {
+                        try {
+                            render(boardId);
+                        } finally {
+                            rendering.remove(boardId);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    rendering.remove(boardId);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Renders a board's thumbnail for its current version unless it already exists, and deletes its
+     * older thumbnails. A board that no longer exists has its thumbnails deleted.
+     *
+     * @param boardId the board ID
+     */
+    void render(Long boardId) {
+        try {
+            Optional<GroupBoard> found = groupBoardRepository.findById(boardId);
+            if (found.isEmpty()) {
+                latest.remove(boardId);
+                deleteThumbnails(boardId, null);
+                return;
+            }
+            GroupBoard board = found.get();
+            LocalDateTime version = board.getLastModifiedDate();
+            if (version == null) {
+                return;
+            }
+            String fileName = fileName(boardId, version);
+            Path file = directory.resolve(fileName);
+            if (!Files.exists(file)) {
+                long startNanos = System.nanoTime();
+                byte[] png = renderObjects(board);
+                Files.createDirectories(directory);
+                Path temporary = Files.createTempFile(directory, boardId + "-", ".tmp");
+                Files.write(temporary, png);
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                log.debug(
+                    "Rendered thumbnail of board {} ({} bytes) in {} ms",
+                    boardId,
+                    png.length,
+                    (System.nanoTime() - startNanos) / 1_000_000
+                );
+            }
+            latest.merge(boardId, new Thumbnail(version, url(fileName)), BoardThumbnailService::newer);
+            deleteThumbnails(boardId, fileName);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to render thumbnail of board {}: {}", boardId, e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the render thread; renders still queued are dropped and redone on demand.
+     */
+    @PreDestroy
+    public void shutdown() {
+        renderThread.shutdownNow();
+    }
+
+    private byte[] renderObjects(GroupBoard board) {
+        Long boardId = board.getBoardGroupId();
+        BoardThumbnailRenderer renderer = new BoardThumbnailRenderer(
+            board.getCanvasWidth() != null ? board.getCanvasWidth() : DEFAULT_CANVAS_WIDTH,
+            board.getCanvasHeight() != null ? board.getCanvasHeight() : DEFAULT_CANVAS_HEIGHT,
+            board.getCanvasBackgroundColor(),
+            maxSize
+        );
+        Optional<List<LiveBoardObject>> resident = boardStateEngine.getObjectsIfResident(boardId);
+        if (resident.isPresent()) {
+            for (LiveBoardObject object : resident.get()) {
+                renderer.draw(object.getPayload());
+            }
+        } else {
+            // A board nobody has open is read from the database rather than loaded into the engine
+            boardWriteBehindService.flush();
+            readTransaction.executeWithoutResult((status) ->
+                boardObjectStreamRepository.forEachActiveObject(
+                    boardId,
+                    (instanceId, objectType, objectData, createdByEmail) -> {
+                        if (objectData != null) {
+                            renderer.draw(objectMapper.readTree(objectData));
+                        }
+                    }
+                )
+            );
+        }
+        return renderer.toPng();
+    }
+
+    private void deleteThumbnails(Long boardId, String keep) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, boardId + "-*" + THUMBNAIL_EXTENSION)) {
+            for (Path file : files) {
+                if (!file.getFileName().toString().equals(keep)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private String fileName(Long boardId, LocalDateTime version) {
+        try {
+            Mac mac = Mac.getInstance(nameKey.getAlgorithm());
+            mac.init(nameKey);
+            byte[] digest = mac.doFinal(("thumbnail:" + boardId + ":" + version).getBytes(StandardCharsets.UTF_8));
+            return boardId + "-" + HexFormat.of().formatHex(digest, 0, 16) + THUMBNAIL_EXTENSION;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private static String url(String fileName) {
+        return FileConstants.IMAGES_BASE_PATH + FileConstants.THUMBNAILS_FOLDER + "/" + fileName;
+    }
+
+    private static Thumbnail newer(Thumbnail existing, Thumbnail candidate) {
+        return candidate.version().isAfter(existing.version()) ? candidate : existing;
+    }
+
+    private record Thumbnail(LocalDateTime version, String url) {}
+}
@@ -10,14 +10,21 @@
 import io.github.sagimenahem.synchboard.exception.ResourceNotFoundException;
 import io.github.sagimenahem.synchboard.repository.*;
 import io.github.sagimenahem.synchboard.service.board.BoardMemberService;
+import io.github.sagimenahem.synchboard.service.board.persistence.BoardSnapshotService;
+import io.github.sagimenahem.synchboard.service.board.persistence.BoardWriteBehindService;
+import io.github.sagimenahem.synchboard.service.board.state.BoardStateEngine;
 import io.github.sagimenahem.synchboard.service.storage.FileStorageService;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
 /**
@@ -46,6 +53,12 @@ public class UserAccountService {
     private final MessageRepository messageRepository;
     /** Service for file storage operations */
     private final FileStorageService fileStorageService;
+    /** Live board state, which caches creator and editor attribution and action history */
+    private final BoardStateEngine boardStateEngine;
+    /** Write-behind queue for draw actions, flushed before the user's rows are rewritten */
+    private final BoardWriteBehindService boardWriteBehindService;
+    /** Board snapshots, kept from compacting the boards whose rows are rewritten */
+    private final BoardSnapshotService boardSnapshotService;
 
     /** Service for board membership operations (lazy to avoid circular dependency) */
     @Lazy
@@ -70,6 +83,25 @@ public void deleteAccount(String userEmail) {
 
         log.info("Starting data cleanup for user: {}", userEmail);
 
+        // Queued draw actions write in their own transaction; land them before this one rewrites
+        // their rows
+        boardWriteBehindService.flush();
+
+        // Attribution and history are cached in the live board state of these boards
+        Set<Long> referencingBoardIds = new HashSet<>(boardObjectRepository.findBoardIdsReferencingUser(userEmail));
+        Set<Long> affectedBoardIds = new HashSet<>(referencingBoardIds);
+        affectedBoardIds.addAll(actionHistoryRepository.findBoardIdsByUser(userEmail));
+        evictLiveBoardsAfterCommit(affectedBoardIds);
+
+        // Batches committing first may take change_seq values above the ones taken below; no
+        // snapshot of a rewritten board may be compacted past this transaction's rows before it
+        // commits. The user's own boards are included, as the user may still be drawing there.
+        List<GroupMember> memberships = groupMemberRepository.findAllByUserEmail(userEmail);
+        List<Long> boardIds = memberships.stream().map(GroupMember::getBoardGroupId).collect(Collectors.toList());
+        Set<Long> rewrittenBoardIds = new HashSet<>(referencingBoardIds);
+        rewrittenBoardIds.addAll(boardIds);
+        boardSnapshotService.holdCompactionUntilCompletion(rewrittenBoardIds);
+
         boardObjectRepository.nullifyCreatedByUser(userEmail);
         log.debug("Nullified board object creator references for user: {}", userEmail);
 
@@ -85,9 +117,6 @@ public void deleteAccount(String userEmail) {
         messageRepository.nullifySenderByUserEmail(userEmail);
         log.debug("Nullified message sender references for user: {}", userEmail);
 
-        List<GroupMember> memberships = groupMemberRepository.findAllByUserEmail(userEmail);
-        List<Long> boardIds = memberships.stream().map(GroupMember::getBoardGroupId).collect(Collectors.toList());
-
         log.info("User {} is member of {} boards, initiating board leave process", userEmail, boardIds.size());
         boardIds.forEach((boardId) -> {
             log.debug("Processing board leave for user {} from board {}", userEmail, boardId);
@@ -107,4 +136,21 @@ public void deleteAccount(String userEmail) {
         boolean userStillExists = userRepository.existsById(userEmail);
         log.info("User deletion verification for {}: still exists in DB = {}", userEmail, userStillExists);
     }
+
+    /**
+     * Drops the live state of the given boards once the deletion is committed, so they reload
+     * without the user's attribution and history. Dropping them earlier would let a board reload
+     * the rows this transaction has not committed yet.
+     */
+    private void evictLiveBoardsAfterCommit(Set<Long> boardIds) {
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    boardIds.forEach(boardStateEngine::evict);
+                    log.debug("Evicted live state of {} boards after account deletion", boardIds.size());
+                }
+            }
+        );
+    }
 }
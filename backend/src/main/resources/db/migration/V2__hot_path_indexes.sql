@@ -0,0 +1,92 @@
+-- SynchBoard hot-path indexes (V2)
+--
+-- V1 only carries primary keys and the (instance_id, board_group_id) unique constraint, so
+-- every per-board read and every cleanup by user fell back to a sequential scan. Each index
+-- below names the repository queries it serves; QueryPlanTest runs EXPLAIN on those queries
+-- against a migrated database and fails if one of them scans a whole table again.
+--
+-- Indexes are owned by the migrations only. They are deliberately not mirrored on the JPA
+-- entities (partial and INCLUDE indexes cannot be expressed there), so SchemaBaselineTest,
+-- which compares tables and constraints, is unaffected.
+--
+-- Locking: each CREATE INDEX takes a SHARE lock on its table, and Flyway runs the script in one
+-- transaction (which also rules out CONCURRENTLY), so the locks are held until the last index is
+-- built. Reads carry on throughout; inserts, updates and deletes on board_objects,
+-- action_history, messages and group_members wait for the whole script, about one scan and sort
+-- of each of those tables.
+
+-- ---------------------------------------------------------------------------
+-- board_objects
+-- ---------------------------------------------------------------------------
+
+-- Streaming a board's canvas from the database: BoardObjectStreamRepository.forEachActiveObject.
+-- Deleted and undone objects stay in the table as inactive rows and are kept out of the index;
+-- object_id gives the stacking order for free.
+create index if not exists idx_board_objects_board_active
+    on board_objects (board_group_id, object_id)
+    where is_active;
+
+-- Board deletion (deleteAllByBoard_BoardGroupId), which has to reach inactive rows too.
+create index if not exists idx_board_objects_board
+    on board_objects (board_group_id);
+
+-- Account deletion: nullifyCreatedByUser / nullifyLastEditedByUser, and the foreign key checks
+-- run when a user row is deleted.
+create index if not exists idx_board_objects_created_by
+    on board_objects (created_by_user_email)
+    where created_by_user_email is not null;
+
+create index if not exists idx_board_objects_last_edited_by
+    on board_objects (last_edited_by_user_email)
+    where last_edited_by_user_email is not null;
+
+-- ---------------------------------------------------------------------------
+-- action_history
+-- ---------------------------------------------------------------------------
+
+-- Loading a board's undo/redo history newest first (findRecentByBoardWithRelations), the
+-- is_undone flips written by the write-behind queue, which address a row by board and
+-- timestamp, and board deletion.
+create index if not exists idx_action_history_board_timestamp
+    on action_history (board_group_id, timestamp desc);
+
+-- The redo branch, discarded when a new action follows an undo
+-- (BoardWriteBatchRepository.deleteUndone). Undone rows are a small fraction of the table.
+create index if not exists idx_action_history_board_undone
+    on action_history (board_group_id, timestamp desc)
+    where is_undone;
+
+-- Account deletion: deleteAllByUser_Email.
+create index if not exists idx_action_history_user
+    on action_history (user_email);
+
+-- Foreign key checks when board objects are deleted; without it every deleted object scans
+-- the whole history table.
+create index if not exists idx_action_history_object
+    on action_history (object_id);
+
+-- ---------------------------------------------------------------------------
+-- messages
+-- ---------------------------------------------------------------------------
+
+-- Chat history in send order (findByBoardWithSender, findAllByBoard_BoardGroupIdOrderByTimestampAsc)
+-- and board deletion.
+create index if not exists idx_messages_board_timestamp
+    on messages (board_group_id, timestamp);
+
+-- Account deletion: nullifySenderByUserEmail.
+create index if not exists idx_messages_sender
+    on messages (sender_user_email)
+    where sender_user_email is not null;
+
+-- ---------------------------------------------------------------------------
+-- group_members
+-- ---------------------------------------------------------------------------
+
+-- The board list and account deletion: findAllByUserEmail and findByUserWithBoard. The primary
+-- key leads with board_group_id and cannot serve a lookup by user; the included columns make
+-- findAllByUserEmail an index-only scan. Lookups by board, or by board and user, use the
+-- primary key.
+create index if not exists idx_group_members_user
+    on group_members (user_email)
+    include (board_group_id, is_admin, join_date);
@@ -0,0 +1,12 @@
+-- SynchBoard chat history keyset index (V3)
+--
+-- Chat history is paged newest first by (timestamp, message_id). Adding message_id to the
+-- per-board message index lets a page be read straight off the index, backwards, from the
+-- cursor of the previous page: no sort and no offset, however far back the user scrolls.
+-- The wider index still serves the full-history reads and board deletion, so it replaces
+-- the V2 index rather than sitting next to it.
+
+create index if not exists idx_messages_board_timestamp_id
+    on messages (board_group_id, timestamp, message_id);
+
+drop index if exists idx_messages_board_timestamp;
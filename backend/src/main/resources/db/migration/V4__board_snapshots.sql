@@ -0,0 +1,48 @@
+-- SynchBoard board snapshots (V4)
+--
+-- Opening a board used to read every active board_objects row and parse each one. Boards now
+-- load from a compacted snapshot plus the rows changed since it was taken (see
+-- BoardSnapshotService), which needs two things:
+--
+-- 1. A change sequence on board_objects. Every insert takes the next value by default and every
+--    write-behind update sets a new one, so "changed since the snapshot" is a range over
+--    (board_group_id, change_seq). Rows are written by the single write-behind flusher, and
+--    account deletion, the one other writer, holds the flusher off until it commits, so
+--    sequence order is commit order. Deactivations bump the sequence too; that is how a
+--    snapshot learns an object was deleted.
+--
+-- 2. The snapshot table itself: one gzip-compressed JSON document per board holding its active
+--    objects as of change_seq = version.
+--
+-- Like V2, nothing here is mirrored on the JPA entities; the snapshot table is accessed through
+-- JDBC only and Hibernate validation ignores the extra column.
+
+create sequence if not exists board_object_change_seq;
+
+-- Locking: nextval is volatile, so adding the column rewrites every board_objects row under an
+-- ACCESS EXCLUSIVE lock, held until the script commits along with the index build below. Boards
+-- can be neither read nor written for that time, which grows with the table, and the rewrite
+-- needs disk for a second copy of it.
+alter table board_objects
+    add column if not exists change_seq bigint not null default nextval('board_object_change_seq');
+
+alter sequence board_object_change_seq owned by board_objects.change_seq;
+
+-- The delta read: BoardSnapshotRepository.findChangedSince, for active and inactive rows alike.
+create index if not exists idx_board_objects_board_change
+    on board_objects (board_group_id, change_seq);
+
+create table if not exists board_snapshots (
+    board_group_id bigint not null,
+    version bigint not null,
+    object_count integer not null,
+    snapshot bytea not null,
+    created_at timestamp(6) not null,
+    primary key (board_group_id)
+);
+
+alter table board_snapshots
+    add constraint fk_board_snapshots_board foreign key (board_group_id) references group_boards;
+
+-- The blob is already gzip-compressed; store it out of line without a second TOAST compression.
+alter table board_snapshots alter column snapshot set storage external;
@@ -0,0 +1,110 @@
+-- SynchBoard board object bounds (V5)
+--
+-- Every board read used to return every active object, whatever part of the canvas the client
+-- shows. Objects now carry a bounding box so a board can be read one region at a time
+-- (GET /api/boards/{boardId}/objects/region), visible region first.
+--
+-- Boxes are in normalized canvas coordinates, the same 0-1 space the payloads use, padded by
+-- half the stroke width. Two shapes need the canvas size to be measured: circles scale their
+-- radius by the canvas width and regular polygons by the shorter side, and stroke widths are in
+-- pixels. board_object_bounds therefore takes the board's canvas size; a canvas resize
+-- recomputes the board's boxes (BoardWriteBatchRepository.refreshBounds). An object whose
+-- payload has no recognisable geometry gets the whole canvas, so every region returns it.
+--
+-- BoundingBox.of computes the same box in memory for the live board index; keep the two in
+-- step.
+--
+-- Like V2, nothing here is mirrored on the JPA entities; the column is read and written through
+-- JDBC only and Hibernate validation ignores it.
+
+-- Lets one GiST index hold both the board ID and the box. btree_gist is a trusted extension, so
+-- the database owner can create it.
+create extension if not exists btree_gist;
+
+create or replace function board_object_number(data jsonb, field text)
+returns double precision
+language sql
+immutable
+as $$
+    select case when jsonb_typeof(data -> field) = 'number' then (data ->> field)::double precision end
+$$;
+
+create or replace function board_object_bounds(data jsonb, canvas_width integer, canvas_height integer)
+returns box
+language plpgsql
+immutable
+as $$
+declare
+    -- Boards without a stored size use the defaults of CanvasConstants
+    w double precision := greatest(coalesce(canvas_width, 1200), 1);
+    h double precision := greatest(coalesce(canvas_height, 800), 1);
+    stroke double precision := coalesce(
+        board_object_number(data, 'strokeWidth'),
+        board_object_number(data, 'lineWidth'),
+        0
+    );
+    x double precision := board_object_number(data, 'x');
+    y double precision := board_object_number(data, 'y');
+    r double precision := board_object_number(data, 'radius');
+    pad double precision;
+    min_x double precision;
+    min_y double precision;
+    max_x double precision;
+    max_y double precision;
+begin
+    if jsonb_typeof(data -> 'points') = 'array' then
+        select min(board_object_number(p.pt, 'x')), min(board_object_number(p.pt, 'y')),
+               max(board_object_number(p.pt, 'x')), max(board_object_number(p.pt, 'y'))
+          into min_x, min_y, max_x, max_y
+          from jsonb_array_elements(data -> 'points') as p(pt);
+    elsif board_object_number(data, 'x1') is not null and board_object_number(data, 'y1') is not null then
+        min_x := least(board_object_number(data, 'x1'), board_object_number(data, 'x2'), board_object_number(data, 'x3'));
+        max_x := greatest(board_object_number(data, 'x1'), board_object_number(data, 'x2'), board_object_number(data, 'x3'));
+        min_y := least(board_object_number(data, 'y1'), board_object_number(data, 'y2'), board_object_number(data, 'y3'));
+        max_y := greatest(board_object_number(data, 'y1'), board_object_number(data, 'y2'), board_object_number(data, 'y3'));
+    elsif x is not null and y is not null and r is not null then
+        if data ->> 'tool' = 'circle' then
+            min_x := x - r;
+            max_x := x + r;
+            min_y := y - r * w / h;
+            max_y := y + r * w / h;
+        else
+            min_x := x - r * least(w, h) / w;
+            max_x := x + r * least(w, h) / w;
+            min_y := y - r * least(w, h) / h;
+            max_y := y + r * least(w, h) / h;
+        end if;
+    elsif x is not null and y is not null then
+        min_x := least(x, x + coalesce(board_object_number(data, 'width'), 0));
+        max_x := greatest(x, x + coalesce(board_object_number(data, 'width'), 0));
+        min_y := least(y, y + coalesce(board_object_number(data, 'height'), 0));
+        max_y := greatest(y, y + coalesce(board_object_number(data, 'height'), 0));
+    end if;
+
+    if min_x is null or min_y is null or max_x is null or max_y is null then
+        return box(point(0, 0), point(1, 1));
+    end if;
+
+    -- Arrowheads reach up to three stroke widths to either side of the shaft
+    pad := case when data ->> 'tool' = 'arrow' then stroke * 3 else stroke / 2 end;
+    return box(point(min_x - pad / w, min_y - pad / h), point(max_x + pad / w, max_y + pad / h));
+end;
+$$;
+
+alter table board_objects add column if not exists bounds box;
+
+-- Locking: adding the column is only a catalog change, but its ACCESS EXCLUSIVE lock on
+-- board_objects is held until the script commits. The update below measures every active and
+-- inactive row and writes a new version of each, and the GiST index is built after it, so boards
+-- can be neither read nor written for both passes, and the table holds about twice its rows
+-- until vacuum reclaims the old versions.
+update board_objects bo
+   set bounds = board_object_bounds(bo.object_data, gb.canvas_width, gb.canvas_height)
+  from group_boards gb
+ where gb.board_group_id = bo.board_group_id;
+
+-- The region read: BoardObjectStreamRepository.forEachActiveObjectIn. Only active objects are
+-- ever asked for.
+create index if not exists idx_board_objects_board_bounds
+    on board_objects using gist (board_group_id, bounds)
+    where is_active;
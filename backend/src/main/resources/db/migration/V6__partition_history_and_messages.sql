@@ -0,0 +1,165 @@
+-- SynchBoard time-partitioned history and chat (V6)
+--
+-- action_history and messages only ever grow at the recent end, are read per board newest
+-- first, and lose their old rows to retention. As plain tables, retention meant DELETE
+-- statements over millions of rows followed by vacuum. Both tables are now partitioned by month
+-- on their timestamp column:
+--
+-- - Retention detaches and drops whole partitions once every row in them is past the age limit
+--   (PartitionRepository); only the boundary month and the per-board depth limit still delete
+--   rows.
+-- - Reads with a timestamp bound only visit the months it covers, and the newest-first reads
+--   walk the partitions in order and stop at the first ones that fill the page.
+--
+-- Partitions are named <table>_pYYYYMM and are created ahead of time by create_monthly_partitions,
+-- which PartitionMaintenanceService calls on startup and daily for the coming months. There is
+-- no default partition: it would stop the planner from walking partitions in order, and would
+-- make DETACH PARTITION CONCURRENTLY impossible. A row whose month has no partition is rejected,
+-- so keep app.partitions.months-ahead above the longest time the service may be down.
+--
+-- A partitioned table's primary key has to include the partition column, so the keys become
+-- (action_id, timestamp) and (message_id, timestamp). IDs still come from one sequence per
+-- table and stay unique on their own; the entities keep mapping the ID alone. The identity
+-- columns become plain sequence defaults, which every Postgres version supports on partitioned
+-- tables.
+--
+-- Locking: the renames take ACCESS EXCLUSIVE locks on action_history and messages that are held
+-- until the script commits, through copying every row, adding keys and foreign keys and
+-- building indexes. History loads, chat reads and sends, and write-behind flushes (which insert
+-- history rows) all wait for the whole script. Adding the foreign keys also takes SHARE ROW
+-- EXCLUSIVE locks on users, group_boards and board_objects, held to the commit as well, so writes
+-- to those tables wait from the first foreign key until the script ends.
+
+create or replace function create_monthly_partitions(parent text, from_time timestamp, to_time timestamp)
+returns integer
+language plpgsql
+as $$
+declare
+    month_start timestamp := date_trunc('month', from_time);
+    partition_name text;
+    created integer := 0;
+begin
+    -- Serializes concurrent callers, e.g. two instances starting at once
+    perform pg_advisory_xact_lock(hashtext('create_monthly_partitions:' || parent));
+    while month_start <= to_time loop
+        partition_name := parent || '_p' || to_char(month_start, 'YYYYMM');
+        if to_regclass(partition_name) is null then
+            execute format(
+                'create table %I partition of %I for values from (%L) to (%L)',
+                partition_name,
+                parent,
+                month_start,
+                month_start + interval '1 month'
+            );
+            created := created + 1;
+        end if;
+        month_start := month_start + interval '1 month';
+    end loop;
+    return created;
+end;
+$$;
+
+-- ---------------------------------------------------------------------------
+-- action_history
+-- ---------------------------------------------------------------------------
+
+alter table action_history rename to action_history_unpartitioned;
+
+create table action_history (
+    action_id bigint not null,
+    action_type varchar(255) not null,
+    is_undone boolean not null,
+    state_after jsonb,
+    state_before jsonb,
+    timestamp timestamp(6) not null,
+    board_group_id bigint not null,
+    object_id bigint not null,
+    user_email varchar(255) not null
+) partition by range (timestamp);
+
+select create_monthly_partitions(
+    'action_history',
+    coalesce(min(timestamp), localtimestamp),
+    greatest(max(timestamp), localtimestamp + interval '3 months')
+)
+from action_history_unpartitioned;
+
+insert into action_history (
+    action_id, action_type, is_undone, state_after, state_before, timestamp, board_group_id, object_id, user_email
+)
+select action_id, action_type, is_undone, state_after, state_before, timestamp, board_group_id, object_id, user_email
+from action_history_unpartitioned;
+
+-- Takes the old identity sequence, constraints and indexes with it, freeing their names
+drop table action_history_unpartitioned;
+
+create sequence action_history_action_id_seq owned by action_history.action_id;
+select setval('action_history_action_id_seq', coalesce(max(action_id), 0) + 1, false) from action_history;
+alter table action_history alter column action_id set default nextval('action_history_action_id_seq');
+
+alter table action_history add primary key (action_id, timestamp);
+
+alter table action_history add constraint FKbgtmloy5jmvxowv4lm9xcgcp5 foreign key (user_email) references users;
+alter table action_history add constraint FKfjpkavcqytyk2wb1cb1uy80pv foreign key (board_group_id) references group_boards;
+alter table action_history add constraint FKj34x0usx6q6j7687hnhgemb7y foreign key (object_id) references board_objects;
+
+-- The V2 indexes, now created on every partition
+create index idx_action_history_board_timestamp
+    on action_history (board_group_id, timestamp desc);
+
+create index idx_action_history_board_undone
+    on action_history (board_group_id, timestamp desc)
+    where is_undone;
+
+create index idx_action_history_user
+    on action_history (user_email);
+
+create index idx_action_history_object
+    on action_history (object_id);
+
+-- ---------------------------------------------------------------------------
+-- messages
+-- ---------------------------------------------------------------------------
+
+alter table messages rename to messages_unpartitioned;
+
+create table messages (
+    message_id bigint not null,
+    message_content TEXT not null,
+    sender_full_name_snapshot varchar(255) not null,
+    timestamp timestamp(6) not null,
+    board_group_id bigint not null,
+    sender_user_email varchar(255)
+) partition by range (timestamp);
+
+select create_monthly_partitions(
+    'messages',
+    coalesce(min(timestamp), localtimestamp),
+    greatest(max(timestamp), localtimestamp + interval '3 months')
+)
+from messages_unpartitioned;
+
+insert into messages (
+    message_id, message_content, sender_full_name_snapshot, timestamp, board_group_id, sender_user_email
+)
+select message_id, message_content, sender_full_name_snapshot, timestamp, board_group_id, sender_user_email
+from messages_unpartitioned;
+
+drop table messages_unpartitioned;
+
+create sequence messages_message_id_seq owned by messages.message_id;
+select setval('messages_message_id_seq', coalesce(max(message_id), 0) + 1, false) from messages;
+alter table messages alter column message_id set default nextval('messages_message_id_seq');
+
+alter table messages add primary key (message_id, timestamp);
+
+alter table messages add constraint FKg6pj5rwl3cfnpmmdw838wxc3g foreign key (sender_user_email) references users;
+alter table messages add constraint FKrnv8t8xw7gkd1yox4qsdiksu2 foreign key (board_group_id) references group_boards;
+
+-- The V3 and V2 indexes, now created on every partition
+create index idx_messages_board_timestamp_id
+    on messages (board_group_id, timestamp, message_id);
+
+create index idx_messages_sender
+    on messages (sender_user_email)
+    where sender_user_email is not null;
@@ -0,0 +1,21 @@
+-- SynchBoard grouped action history (V7)
+--
+-- An action that changes several objects at once (an OBJECT_BATCH: a paste, a multi-delete, a
+-- recolor of a selection) writes one action_history row per object. Those rows now carry the
+-- batch's group ID, so a board's history, when it is loaded back into memory, turns them into a
+-- single undo step again instead of one per object. Undoing or redoing the group flips all of
+-- its is_undone flags in one statement (BoardWriteBatchRepository.updateUndone) and one
+-- transaction.
+--
+-- Rows written before this migration, and every action on a single object, keep a null group ID
+-- and stay undo steps of their own. Rows of a group are written together and share a board, so
+-- loading groups needs no index beyond the existing (board_group_id, timestamp) one.
+--
+-- Like V5, the column is written through JDBC only (BoardWriteBatchRepository.insertHistory).
+-- ActionHistory reads it through a @Formula, which Hibernate validation and the baseline DDL
+-- ignore.
+--
+-- Adding a nullable column without a default only changes the catalog, on the partitioned table
+-- and on every partition.
+
+alter table action_history add column group_id uuid;
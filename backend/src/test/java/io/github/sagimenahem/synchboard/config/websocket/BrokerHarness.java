@@ -0,0 +1,99 @@
+package io.github.sagimenahem.synchboard.config.websocket;
+
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.WEBSOCKET_TOPIC_PREFIX;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+/**
+ * A broker handler of one {@code app.stomp.broker-mode} between the three channels it sits between
+ * in the application, driven the way the STOMP endpoint and the messaging template drive it.
+ * Clients are sessions whose frames are sent to the inbound channel; what the broker hands them
+ * arrives on the client outbound channel. The channels are synchronous.
+ */
+final class BrokerHarness {
+
+    final ExecutorSubscribableChannel inbound = new ExecutorSubscribableChannel();
+    final ExecutorSubscribableChannel outbound = new ExecutorSubscribableChannel();
+    final ExecutorSubscribableChannel broker = new ExecutorSubscribableChannel();
+
+    /** Spring's in-memory broker, as in {@code simple} mode */
+    SimpleBrokerMessageHandler simple() {
+        return new SimpleBrokerMessageHandler(inbound, outbound, broker, List.of(WEBSOCKET_TOPIC_PREFIX));
+    }
+
+    /** The relay to a STOMP broker, as in {@code relay} and {@code embedded} mode */
+    StompBrokerRelayMessageHandler relay(String host, int port, String login, String passcode) {
+        StompBrokerRelayMessageHandler relay = new StompBrokerRelayMessageHandler(
+            inbound,
+            outbound,
+            broker,
+            List.of(WEBSOCKET_TOPIC_PREFIX)
+        );
+        relay.setRelayHost(host);
+        relay.setRelayPort(port);
+        if (login != null && passcode != null) {
+            relay.setClientLogin(login);
+            relay.setClientPasscode(passcode);
+            relay.setSystemLogin(login);
+            relay.setSystemPasscode(passcode);
+        }
+        return relay;
+    }
+
+    /** Sends a session's CONNECT frame; the broker answers on the outbound channel */
+    void connect(String sessionId) {
+        StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+        connect.setSessionId(sessionId);
+        connect.setAcceptVersion("1.2");
+        connect.setHeartbeat(0, 0);
+        inbound.send(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()));
+    }
+
+    /** Subscribes a connected session to a destination, with the subscription ID sub-{sessionId} */
+    void subscribe(String sessionId, String destination) {
+        StompHeaderAccessor subscribe = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        subscribe.setSessionId(sessionId);
+        subscribe.setSubscriptionId("sub-" + sessionId);
+        subscribe.setDestination(destination);
+        inbound.send(MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders()));
+    }
+
+    /**
+     * Tells whether an outbound message acknowledges a CONNECT: a CONNECTED frame from a relay, a
+     * CONNECT_ACK from the simple broker.
+     */
+    static boolean isConnectAck(Message<?> message) {
+        return (
+            SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.CONNECT_ACK ||
+            StompHeaderAccessor.wrap(message).getCommand() == StompCommand.CONNECTED
+        );
+    }
+
+    static void awaitAvailable(AbstractBrokerMessageHandler handler) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!handler.isBrokerAvailable()) {
+            assertThat(System.nanoTime()).as("broker connects within 10 seconds").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package io.github.sagimenahem.synchboard.config.websocket;
+
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.WEBSOCKET_BOARD_TOPIC_PREFIX;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+
+/**
+ * Compares board broadcast latency and throughput across the {@code app.stomp.broker-mode} options.
+ * Each run subscribes {@value #SUBSCRIBERS} sessions to one board topic, publishes
+ * {@value #MESSAGES} board-sized JSON messages through the broker channel the way the messaging
+ * template does, and measures every delivery on the client outbound channel, which is where the
+ * STOMP endpoint would take over. The WebSocket write to the browser is the same in every mode and
+ * left out.
+ *
+ * <p>
+ * Run with {@code ./gradlew benchmark}. The relay run needs an external broker, given by
+ * {@code BENCHMARK_RELAY_HOST} and {@code BENCHMARK_RELAY_PORT} (for example the activemq
+ * container: {@code localhost} and {@code 61613}) plus {@code ACTIVEMQ_USER} and
+ * {@code ACTIVEMQ_PASSWORD}; it is skipped without them.
+ * </p>
+ */
+@Tag("benchmark")
+@DisplayName("Broker mode benchmark")
+class BrokerModeBenchmark {
+
+    private static final int SUBSCRIBERS = 50;
+    private static final int MESSAGES = 2000;
+    private static final String DESTINATION = WEBSOCKET_BOARD_TOPIC_PREFIX + "1";
+    private static final String SENT_AT_HEADER = "sent-at";
+    private static final String PROBE_HEADER = "probe";
+    /** An OBJECT_UPDATE of a short stroke, about the size of a typical board broadcast */
+    private static final byte[] PAYLOAD = (
+        "{\"type\":\"OBJECT_UPDATE\",\"instanceId\":\"0b6f3c1e-5d2a-4c8e-9f1b-7a2d4e6c8b10\"," +
+        "\"sender\":\"user@example.com\",\"payload\":{\"tool\":\"brush\",\"color\":\"#1e88e5\",\"lineWidth\":3," +
+        "\"points\":[0.1,0.1,0.1125,0.1042,0.125,0.1094,0.1375,0.1146,0.15,0.1198,0.1625,0.125]}}"
+    ).getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    @DisplayName("simple: Spring's in-memory broker")
+    void simpleBroker() throws InterruptedException {
+        run("simple", BrokerHarness::simple);
+    }
+
+    @Test
+    @DisplayName("embedded: relay to ActiveMQ Artemis in this process, over loopback")
+    void embeddedBroker() throws Exception {
+        int port = BrokerHarness.freePort();
+        AppProperties appProperties = new AppProperties();
+        appProperties.getStomp().setBrokerPort(port);
+        EmbeddedStompBroker broker = new EmbeddedStompBroker(appProperties);
+        broker.start();
+        try {
+            run("embedded", (harness) -> harness.relay("127.0.0.1", port, null, null));
+        } finally {
+            broker.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("relay: relay to the external broker")
+    void externalBroker() throws InterruptedException {
+        String host = System.getenv("BENCHMARK_RELAY_HOST");
+        String port = System.getenv("BENCHMARK_RELAY_PORT");
+        Assumptions.assumeTrue(host != null && port != null, "BENCHMARK_RELAY_HOST and BENCHMARK_RELAY_PORT not set");
+        String user = System.getenv("ACTIVEMQ_USER");
+        String password = System.getenv("ACTIVEMQ_PASSWORD");
+        run("relay", (harness) -> harness.relay(host, Integer.parseInt(port), user, password));
+    }
+
+    private void run(String mode, Function<BrokerHarness, AbstractBrokerMessageHandler> brokerFactory)
+        throws InterruptedException {
+        BrokerHarness harness = new BrokerHarness();
+        Deliveries deliveries = new Deliveries();
+        harness.outbound.subscribe(deliveries::handle);
+
+        AbstractBrokerMessageHandler broker = brokerFactory.apply(harness);
+        broker.setPreservePublishOrder(true);
+        broker.start();
+        try {
+            BrokerHarness.awaitAvailable(broker);
+            for (int i = 0; i < SUBSCRIBERS; i++) {
+                String sessionId = "session-" + i;
+                harness.connect(sessionId);
+                deliveries.awaitConnected(sessionId);
+                harness.subscribe(sessionId, DESTINATION);
+            }
+            SimpMessagingTemplate template = new SimpMessagingTemplate(harness.broker);
+            awaitSubscriptions(template, deliveries);
+
+            deliveries.expect(MESSAGES * SUBSCRIBERS);
+            long start = System.nanoTime();
+            for (int i = 0; i < MESSAGES; i++) {
+                template.convertAndSend(DESTINATION, PAYLOAD, Map.of(SENT_AT_HEADER, System.nanoTime()));
+            }
+            assertThat(deliveries.await(60)).as("all %s deliveries arrive", mode).isTrue();
+            long elapsed = System.nanoTime() - start;
+
+            long[] latencies = deliveries.latencies();
+            Arrays.sort(latencies);
+            System.out.printf(
+                "%-8s %d messages x %d subscribers: %,.0f deliveries/s, latency p50 %.3f ms, p99 %.3f ms, " +
+                "max %.3f ms%n",
+                mode,
+                MESSAGES,
+                SUBSCRIBERS,
+                latencies.length / (elapsed / 1e9),
+                latencies[latencies.length / 2] / 1e6,
+                latencies[latencies.length * 99 / 100] / 1e6,
+                latencies[latencies.length - 1] / 1e6
+            );
+        } finally {
+            broker.stop();
+        }
+    }
+
+    /** Broker subscriptions are set up asynchronously; probes are published until every session got one */
+    private static void awaitSubscriptions(SimpMessagingTemplate template, Deliveries deliveries)
+        throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (deliveries.probed.size() < SUBSCRIBERS) {
+            assertThat(System.nanoTime()).as("every subscription is active within 10 seconds").isLessThan(deadline);
+            template.convertAndSend(DESTINATION, PAYLOAD, Map.of(PROBE_HEADER, "true"));
+            Thread.sleep(100);
+        }
+    }
+
+    /** What arrives on the client outbound channel */
+    private static final class Deliveries {
+
+        private final Set<String> connected = ConcurrentHashMap.newKeySet();
+        private final Set<String> probed = ConcurrentHashMap.newKeySet();
+        private volatile long[] latencies = new long[0];
+        private final AtomicInteger count = new AtomicInteger();
+        private volatile CountDownLatch done = new CountDownLatch(0);
+
+        private void expect(int deliveries) {
+            latencies = new long[deliveries];
+            count.set(0);
+            done = new CountDownLatch(deliveries);
+        }
+
+        private boolean await(int seconds) throws InterruptedException {
+            return done.await(seconds, TimeUnit.SECONDS);
+        }
+
+        private long[] latencies() {
+            return Arrays.copyOf(latencies, Math.min(count.get(), latencies.length));
+        }
+
+        private void awaitConnected(String sessionId) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (!connected.contains(sessionId)) {
+                assertThat(System.nanoTime()).as("%s connects within 10 seconds", sessionId).isLessThan(deadline);
+                Thread.sleep(5);
+            }
+        }
+
+        private void handle(Message<?> message) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+            String sessionId = accessor.getSessionId();
+            if (BrokerHarness.isConnectAck(message)) {
+                connected.add(sessionId);
+                return;
+            }
+            if (accessor.getFirstNativeHeader(PROBE_HEADER) != null) {
+                probed.add(sessionId);
+                return;
+            }
+            String sentAt = accessor.getFirstNativeHeader(SENT_AT_HEADER);
+            if (sentAt == null) {
+                return;
+            }
+            int index = count.getAndIncrement();
+            if (index < latencies.length) {
+                latencies[index] = System.nanoTime() - Long.parseLong(sentAt);
+                done.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package io.github.sagimenahem.synchboard.config.websocket;
+
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.WEBSOCKET_BOARD_TOPIC_PREFIX;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+
+/**
+ * Functional tests for the in-process {@code app.stomp.broker-mode} options, {@code simple} and
+ * {@code embedded}. Sessions subscribe to two board topics and every one must receive exactly the
+ * broadcasts of its own board, whole and in publish order. The {@code relay} mode needs an external
+ * broker and is covered by {@link BrokerModeBenchmark} only.
+ */
+@DisplayName("Broker mode delivery")
+class BrokerModeDeliveryTest {
+
+    private static final String BOARD_1 = WEBSOCKET_BOARD_TOPIC_PREFIX + "1";
+    private static final String BOARD_2 = WEBSOCKET_BOARD_TOPIC_PREFIX + "2";
+    /** Subscribed session → its board topic */
+    private static final Map<String, String> SESSIONS = Map.of(
+        "session-a",
+        BOARD_1,
+        "session-b",
+        BOARD_1,
+        "session-c",
+        BOARD_2
+    );
+    private static final int MESSAGES = 200;
+    private static final String INDEX_HEADER = "index";
+    private static final String PROBE_HEADER = "probe";
+
+    @Test
+    @DisplayName("simple: delivers each board's broadcasts to its subscribers in order")
+    void simpleBroker() throws InterruptedException {
+        assertDelivery(BrokerHarness::simple);
+    }
+
+    @Test
+    @DisplayName("embedded: delivers each board's broadcasts to its subscribers in order")
+    void embeddedBroker() throws Exception {
+        int port = BrokerHarness.freePort();
+        AppProperties appProperties = new AppProperties();
+        appProperties.getStomp().setBrokerPort(port);
+        EmbeddedStompBroker broker = new EmbeddedStompBroker(appProperties);
+        broker.start();
+        try {
+            assertDelivery((harness) -> harness.relay("127.0.0.1", port, null, null));
+        } finally {
+            broker.stop();
+        }
+    }
+
+    private static byte[] body(String destination, int index) {
+        return ("{\"destination\":\"" + destination + "\",\"index\":" + index + "}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void assertDelivery(Function<BrokerHarness, AbstractBrokerMessageHandler> brokerFactory)
+        throws InterruptedException {
+        BrokerHarness harness = new BrokerHarness();
+        Received received = new Received();
+        harness.outbound.subscribe(received::handle);
+
+        AbstractBrokerMessageHandler broker = brokerFactory.apply(harness);
+        broker.setPreservePublishOrder(true);
+        broker.start();
+        try {
+            BrokerHarness.awaitAvailable(broker);
+            for (Map.Entry<String, String> session : SESSIONS.entrySet()) {
+                harness.connect(session.getKey());
+                received.awaitConnected(session.getKey());
+                harness.subscribe(session.getKey(), session.getValue());
+            }
+            SimpMessagingTemplate template = new SimpMessagingTemplate(harness.broker);
+            received.awaitSubscriptions(template);
+
+            // Interleaved, two broadcasts to board 1 for every one to board 2
+            for (int i = 0; i < MESSAGES; i++) {
+                String destination = i % 3 == 2 ? BOARD_2 : BOARD_1;
+                template.convertAndSend(destination, body(destination, i), Map.of(INDEX_HEADER, i));
+            }
+
+            for (Map.Entry<String, String> session : SESSIONS.entrySet()) {
+                String destination = session.getValue();
+                List<Integer> expected = IntStream.range(0, MESSAGES)
+                    .filter((i) -> (i % 3 == 2 ? BOARD_2 : BOARD_1).equals(destination))
+                    .boxed()
+                    .toList();
+                List<Delivery> deliveries = received.await(session.getKey(), expected.size());
+
+                assertThat(deliveries)
+                    .as("broadcasts delivered to %s", session.getKey())
+                    .extracting(Delivery::index)
+                    .containsExactlyElementsOf(expected);
+                assertThat(deliveries).allSatisfy((delivery) -> {
+                    assertThat(delivery.destination()).isEqualTo(destination);
+                    assertThat(delivery.subscriptionId()).isEqualTo("sub-" + session.getKey());
+                    assertThat(delivery.body()).isEqualTo(body(destination, delivery.index()));
+                });
+            }
+        } finally {
+            broker.stop();
+        }
+    }
+
+    /** One broadcast as a session received it */
+    private record Delivery(int index, String destination, String subscriptionId, byte[] body) {}
+
+    /** What arrives on the client outbound channel, per session */
+    private static final class Received {
+
+        private final Set<String> connected = ConcurrentHashMap.newKeySet();
+        private final Set<String> probed = ConcurrentHashMap.newKeySet();
+        private final Map<String, List<Delivery>> deliveries = new ConcurrentHashMap<>();
+
+        private void handle(Message<?> message) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+            String sessionId = accessor.getSessionId();
+            if (BrokerHarness.isConnectAck(message)) {
+                connected.add(sessionId);
+                return;
+            }
+            if (accessor.getFirstNativeHeader(PROBE_HEADER) != null) {
+                probed.add(sessionId);
+                return;
+            }
+            String index = accessor.getFirstNativeHeader(INDEX_HEADER);
+            if (index == null) {
+                return;
+            }
+            deliveries
+                .computeIfAbsent(sessionId, (id) -> Collections.synchronizedList(new ArrayList<>()))
+                .add(
+                    new Delivery(
+                        Integer.parseInt(index),
+                        accessor.getDestination(),
+                        accessor.getSubscriptionId(),
+                        (byte[]) message.getPayload()
+                    )
+                );
+        }
+
+        private void awaitConnected(String sessionId) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (!connected.contains(sessionId)) {
+                assertThat(System.nanoTime()).as("%s connects within 10 seconds", sessionId).isLessThan(deadline);
+                Thread.sleep(5);
+            }
+        }
+
+        /** Subscriptions are set up asynchronously; probes are published until every session got one */
+        private void awaitSubscriptions(SimpMessagingTemplate template) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (probed.size() < SESSIONS.size()) {
+                assertThat(System.nanoTime()).as("every subscription is active within 10 seconds").isLessThan(deadline);
+                for (String destination : List.of(BOARD_1, BOARD_2)) {
+                    template.convertAndSend(destination, new byte[0], Map.of(PROBE_HEADER, "true"));
+                }
+                Thread.sleep(100);
+            }
+        }
+
+        /** Waits for a session's broadcasts, then a moment longer so any extra one would show up */
+        private List<Delivery> await(String sessionId, int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (deliveries.getOrDefault(sessionId, List.of()).size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            Thread.sleep(100);
+            return List.copyOf(deliveries.getOrDefault(sessionId, List.of()));
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package io.github.sagimenahem.synchboard.config.websocket;
+
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.BOARD_SEQUENCE_HEADER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompDecoder;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Unit tests for {@link SlowConsumerGuard} and {@link SessionSendQueue}. The session's socket
+ * blocks on its first write until released, so frames sent meanwhile pile up in the queue as they
+ * would for a client that stopped reading.
+ */
+@DisplayName("SlowConsumerGuard")
+class SlowConsumerGuardTest {
+
+    private static final StompEncoder ENCODER = new StompEncoder();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WebSocketSession session = mock(WebSocketSession.class);
+    private final List<WebSocketMessage<?>> written = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private SlowConsumerGuard guard;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(session.getId()).thenReturn("s1");
+        doAnswer((invocation) -> {
+            release.await();
+            written.add(invocation.getArgument(0));
+            return null;
+        })
+            .when(session)
+            .sendMessage(any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (guard != null) {
+            guard.shutdown();
+        }
+    }
+
+    private static TextMessage boardEvent(long sequence, String type, String instanceId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setSubscriptionId("sub-1");
+        accessor.setDestination("/topic/board/1");
+        accessor.setMessageId("m" + sequence);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setNativeHeader(BOARD_SEQUENCE_HEADER, String.valueOf(sequence));
+        byte[] body = ("{\"type\":\"" + type + "\",\"instanceId\":\"" + instanceId + "\"}").getBytes(
+            StandardCharsets.UTF_8
+        );
+        return new TextMessage(ENCODER.encode(MessageBuilder.createMessage(body, accessor.getMessageHeaders())));
+    }
+
+    private static Message<byte[]> decode(WebSocketMessage<?> message) {
+        return new StompDecoder().decode(ByteBuffer.wrap(((TextMessage) message).asBytes())).getFirst();
+    }
+
+    private static String sequenceOf(WebSocketMessage<?> message) {
+        return StompHeaderAccessor.wrap(decode(message)).getFirstNativeHeader(BOARD_SEQUENCE_HEADER);
+    }
+
+    /** Creates the guard and returns the queue it hands the STOMP handler for the session */
+    private SessionSendQueue connect(String policy, long queueLimitBytes, long sendTimeLimitMs) throws Exception {
+        return connect(policy, queueLimitBytes, 4 * 1024 * 1024, sendTimeLimitMs);
+    }
+
+    private SessionSendQueue connect(String policy, long queueLimitBytes, long queueMaxBytes, long sendTimeLimitMs)
+        throws Exception {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getStomp().setSlowConsumerPolicy(policy);
+        appProperties.getStomp().setSendQueueLimitBytes((int) queueLimitBytes);
+        appProperties.getStomp().setSendQueueMaxBytes((int) queueMaxBytes);
+        appProperties.getStomp().setSendTimeLimitMs(sendTimeLimitMs);
+        guard = new SlowConsumerGuard(JsonMapper.builder().build(), meterRegistry, appProperties);
+
+        WebSocketHandler handler = mock(WebSocketHandler.class);
+        guard.decorate(handler).afterConnectionEstablished(session);
+        ArgumentCaptor<WebSocketSession> decorated = ArgumentCaptor.forClass(WebSocketSession.class);
+        verify(handler).afterConnectionEstablished(decorated.capture());
+        return (SessionSendQueue) decorated.getValue();
+    }
+
+    private void awaitWritten(int frames) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (written.size() < frames && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private double slowConsumers(String action) {
+        return meterRegistry.counter("synchboard.websocket.slow-consumers", "action", action).count();
+    }
+
+    @Test
+    @DisplayName("coalesce: drops a queued OBJECT_UPDATE once the session is behind and a newer one arrives")
+    void coalescesUpdates() throws Exception {
+        TextMessage second = boardEvent(2, "OBJECT_UPDATE", "a");
+        TextMessage third = boardEvent(3, "OBJECT_UPDATE", "b");
+        TextMessage fourth = boardEvent(4, "CHAT", "c");
+        long limit = second.getPayloadLength() + third.getPayloadLength() + fourth.getPayloadLength();
+        SessionSendQueue queue = connect("coalesce", limit, 60000);
+
+        queue.sendMessage(boardEvent(1, "OBJECT_UPDATE", "a"));
+        Thread.sleep(50);
+        queue.sendMessage(second);
+        queue.sendMessage(third);
+        queue.sendMessage(fourth);
+        assertThat(queue.isBehind()).isFalse();
+        queue.sendMessage(boardEvent(5, "OBJECT_UPDATE", "a"));
+        assertThat(queue.isBehind()).isTrue();
+
+        release.countDown();
+        awaitWritten(4);
+        assertThat(written).extracting(SlowConsumerGuardTest::sequenceOf).containsExactly("1", "3", "4", "5");
+        assertThat(slowConsumers("coalesced")).isEqualTo(1);
+        assertThat(meterRegistry.timer("synchboard.websocket.send-queue.wait").count()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("coalesce: resyncs the session once updates that replace nothing go over the hard limit")
+    void coalesceEscalatesToResync() throws Exception {
+        TextMessage second = boardEvent(2, "OBJECT_UPDATE", "a");
+        TextMessage third = boardEvent(3, "OBJECT_UPDATE", "b");
+        long max = second.getPayloadLength() + third.getPayloadLength();
+        SessionSendQueue queue = connect("coalesce", second.getPayloadLength(), max, 60000);
+
+        queue.sendMessage(boardEvent(1, "OBJECT_UPDATE", "a"));
+        Thread.sleep(50);
+        queue.sendMessage(second);
+        queue.sendMessage(third);
+        assertThat(queue.isBehind()).isTrue();
+        queue.sendMessage(boardEvent(4, "OBJECT_UPDATE", "c"));
+
+        release.countDown();
+        awaitWritten(2);
+        assertThat(written).hasSize(2);
+        assertThat(sequenceOf(written.get(0))).isEqualTo("1");
+        assertThat(new String(decode(written.get(1)).getPayload(), StandardCharsets.UTF_8)).contains(
+            "RESYNC_REQUIRED"
+        );
+        assertThat(slowConsumers("coalesced")).isZero();
+        assertThat(slowConsumers("resynced")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("coalesce: closes the session when a resync leaves its queue over the hard limit")
+    void disconnectsOverHardLimit() throws Exception {
+        SessionSendQueue queue = connect("coalesce", 1, 2, 60000);
+
+        queue.sendMessage(boardEvent(1, "OBJECT_UPDATE", "a"));
+        Thread.sleep(50);
+        queue.sendMessage(new TextMessage("\n"));
+        queue.sendMessage(new TextMessage("\n"));
+
+        assertThatThrownBy(() -> queue.sendMessage(new TextMessage("\n"))).isInstanceOf(
+            SessionLimitExceededException.class
+        );
+        assertThat(queue.queuedBytes()).isZero();
+        assertThat(slowConsumers("resynced")).isZero();
+        assertThat(slowConsumers("disconnected")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("resync: drops the queued board events and tells the subscription to fetch them")
+    void resyncsSubscription() throws Exception {
+        TextMessage heartbeat = new TextMessage("\n");
+        TextMessage second = boardEvent(2, "OBJECT_UPDATE", "a");
+        TextMessage third = boardEvent(3, "CHAT", "c");
+        SessionSendQueue queue = connect("resync", second.getPayloadLength() + 1, 60000);
+
+        queue.sendMessage(boardEvent(1, "OBJECT_UPDATE", "a"));
+        Thread.sleep(50);
+        queue.sendMessage(second);
+        queue.sendMessage(heartbeat);
+        queue.sendMessage(third);
+
+        release.countDown();
+        awaitWritten(3);
+        assertThat(written).hasSize(3);
+        assertThat(sequenceOf(written.get(0))).isEqualTo("1");
+        assertThat(written.get(1)).isSameAs(heartbeat);
+        Message<byte[]> resync = decode(written.get(2));
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(resync);
+        assertThat(accessor.getCommand()).isEqualTo(StompCommand.MESSAGE);
+        assertThat(accessor.getSubscriptionId()).isEqualTo("sub-1");
+        assertThat(accessor.getDestination()).isEqualTo("/topic/board/1");
+        assertThat(new String(resync.getPayload(), StandardCharsets.UTF_8)).contains("RESYNC_REQUIRED");
+        assertThat(slowConsumers("resynced")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("disconnect: closes the session once its queue goes over the limit")
+    void disconnectsSession() throws Exception {
+        TextMessage second = boardEvent(2, "OBJECT_UPDATE", "a");
+        SessionSendQueue queue = connect("disconnect", second.getPayloadLength(), 60000);
+
+        queue.sendMessage(boardEvent(1, "OBJECT_UPDATE", "a"));
+        Thread.sleep(50);
+        queue.sendMessage(second);
+
+        assertThatThrownBy(() -> queue.sendMessage(boardEvent(3, "OBJECT_UPDATE", "b")))
+            .isInstanceOfSatisfying(SessionLimitExceededException.class, (e) ->
+                assertThat(e.getStatus()).isEqualTo(CloseStatus.SESSION_NOT_RELIABLE)
+            );
+        assertThat(queue.queuedBytes()).isZero();
+        assertThat(slowConsumers("disconnected")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("closes the session when a frame waits longer than the send time limit, whatever the policy")
+    void enforcesSendTimeLimit() throws Exception {
+        SessionSendQueue queue = connect("coalesce", 1024 * 1024, 20);
+
+        queue.sendMessage(boardEvent(1, "OBJECT_UPDATE", "a"));
+        Thread.sleep(50);
+
+        assertThatThrownBy(() -> queue.sendMessage(boardEvent(2, "OBJECT_UPDATE", "a"))).isInstanceOf(
+            SessionLimitExceededException.class
+        );
+        assertThat(slowConsumers("disconnected")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("rejects an unknown policy at startup")
+    void rejectsUnknownPolicy() {
+        assertThatThrownBy(() -> connect("buffer", 1024, 1000))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("slow-consumer-policy");
+    }
+}
@@ -0,0 +1,149 @@
+package io.github.sagimenahem.synchboard.config.websocket;
+
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.BOARD_FRAME_HEADER;
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.BOARD_SEQUENCE_HEADER;
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.OBJECT_BOUNDS_HEADER;
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.OBJECT_INSTANCE_HEADER;
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.RESUME_SEQUENCE_HEADER;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.sagimenahem.synchboard.service.board.BoardViewportRegistry;
+import io.github.sagimenahem.synchboard.service.board.state.BoundingBox;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Unit tests for {@link ViewportFilterInterceptor}: board messages are built the way the broker
+ * relay delivers them and passed through the interceptor directly, with a real registry behind it.
+ */
+@DisplayName("ViewportFilterInterceptor")
+class ViewportFilterInterceptorTest {
+
+    private static final String SESSION = "s1";
+    private static final String SUBSCRIPTION = "sub-1";
+    private static final String OUTSIDE = "0.7,0.7,0.8,0.8";
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+    private final MessageChannel channel = Mockito.mock(MessageChannel.class);
+    private BoardViewportRegistry registry;
+    private ViewportFilterInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        registry = new BoardViewportRegistry();
+        interceptor = new ViewportFilterInterceptor(registry, objectMapper);
+
+        StompHeaderAccessor subscribe = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        subscribe.setSessionId(SESSION);
+        subscribe.setSubscriptionId(SUBSCRIPTION);
+        subscribe.setDestination("/topic/board/1");
+        interceptor.preSend(MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders()), channel);
+        registry.setViewport(SESSION, 1L, BoundingBox.of(0, 0, 0.5, 0.5));
+
+        // The client's copy of "b" is now known to lie outside its viewport
+        Map<String, String> headers = Map.of(
+            BOARD_SEQUENCE_HEADER,
+            "1",
+            OBJECT_INSTANCE_HEADER,
+            "b",
+            OBJECT_BOUNDS_HEADER,
+            OUTSIDE
+        );
+        interceptor.preSend(message("{}", headers), channel);
+    }
+
+    private static Message<byte[]> message(String json, Map<String, String> headers) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setSessionId(SESSION);
+        accessor.setSubscriptionId(SUBSCRIPTION);
+        accessor.setDestination("/topic/board/1");
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.forEach(accessor::setNativeHeader);
+        return MessageBuilder.createMessage(json.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> simpleBrokerMessage(String instanceId, String bounds, String sequence) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(SESSION);
+        accessor.setSubscriptionId(SUBSCRIPTION);
+        accessor.setDestination("/topic/board/1");
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setNativeHeader(BOARD_SEQUENCE_HEADER, sequence);
+        accessor.setNativeHeader(OBJECT_INSTANCE_HEADER, instanceId);
+        accessor.setNativeHeader(OBJECT_BOUNDS_HEADER, bounds);
+        return MessageBuilder.createMessage("{}".getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+
+    @Test
+    @DisplayName("removes only the held-back events from a board frame and tells the client where to resume")
+    void filtersFrameEvents() {
+        String frame =
+            "[{\"sequence\":2,\"payload\":{\"instanceId\":\"a\"}}," +
+            "{\"sequence\":3,\"payload\":{\"instanceId\":\"b\"}}," +
+            "{\"sequence\":4,\"payload\":{\"type\":\"CHAT\"}}]";
+
+        Message<?> delivered = interceptor.preSend(
+            message(
+                frame,
+                Map.of(BOARD_SEQUENCE_HEADER, "4", BOARD_FRAME_HEADER, "a 0.1,0.1,0.2,0.2;b " + OUTSIDE + ";")
+            ),
+            channel
+        );
+
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(delivered);
+        assertThat(objectMapper.readTree((byte[]) delivered.getPayload()).findValues("sequence"))
+            .extracting((node) -> node.asLong())
+            .containsExactly(2L, 4L);
+        assertThat(accessor.getFirstNativeHeader(BOARD_FRAME_HEADER)).isNull();
+        assertThat(accessor.getFirstNativeHeader(RESUME_SEQUENCE_HEADER)).isEqualTo("2");
+    }
+
+    @Test
+    @DisplayName("drops a board frame whose events are all held back, and passes one with none unchanged")
+    void dropsOrKeepsWholeFrames() {
+        String frame = "[{\"sequence\":2,\"payload\":{}},{\"sequence\":3,\"payload\":{}}]";
+
+        assertThat(
+            interceptor.preSend(
+                message(frame, Map.of(BOARD_SEQUENCE_HEADER, "3", BOARD_FRAME_HEADER, "b " + OUTSIDE + ";b")),
+                channel
+            )
+        ).isNull();
+
+        Message<byte[]> inView = message(
+            frame,
+            Map.of(BOARD_SEQUENCE_HEADER, "5", BOARD_FRAME_HEADER, "a%3Bx 0.1,0.1,0.2,0.2;")
+        );
+        Message<?> delivered = interceptor.preSend(inView, channel);
+        assertThat(delivered.getPayload()).isSameAs(inView.getPayload());
+        assertThat(StompHeaderAccessor.wrap(delivered).getFirstNativeHeader(BOARD_FRAME_HEADER)).isNull();
+    }
+
+    @Test
+    @DisplayName("filters the simple broker's deliveries like the relay's MESSAGE frames")
+    void filtersSimpleBrokerDeliveries() {
+        assertThat(interceptor.preSend(simpleBrokerMessage("b", OUTSIDE, "2"), channel)).isNull();
+
+        Message<?> delivered = interceptor.preSend(simpleBrokerMessage("a", "0.1,0.1,0.2,0.2", "3"), channel);
+
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(delivered);
+        assertThat(accessor.getCommand()).isEqualTo(StompCommand.MESSAGE);
+        assertThat(accessor.getFirstNativeHeader(OBJECT_INSTANCE_HEADER)).isNull();
+        assertThat(accessor.getFirstNativeHeader(OBJECT_BOUNDS_HEADER)).isNull();
+        assertThat(accessor.getFirstNativeHeader(RESUME_SEQUENCE_HEADER)).isEqualTo("1");
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.sagimenahem.synchboard.config.websocket;
+
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.WIRE_FORMAT_CBOR;
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.WIRE_FORMAT_HEADER;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+/**
+ * Measures the CPU the outbound wire format costs per board broadcast. Each broadcast is a
+ * distinct board-sized stroke delivered to {@value #SUBSCRIBERS} sessions the way the simple
+ * broker delivers it, one MESSAGE per session through {@link WireFormatInterceptor}, and the
+ * calling thread's CPU time is read around the whole run. Three runs are compared: sessions that
+ * kept JSON, CBOR sessions through the interceptor, and a parse and encode per session, which is
+ * what CBOR cost before encodings were shared.
+ *
+ * <p>
+ * Run with {@code ./gradlew benchmark}.
+ * </p>
+ */
+@Tag("benchmark")
+@DisplayName("Wire format benchmark")
+class WireFormatBenchmark {
+
+    private static final int SUBSCRIBERS = 50;
+    private static final int BROADCASTS = 2000;
+    private static final int WARMUP_BROADCASTS = 500;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+    private final MessageChannel channel = Mockito.mock(MessageChannel.class);
+
+    @Test
+    @DisplayName("CPU per broadcast: JSON, shared CBOR encoding, CBOR encoded per session")
+    void cpuPerBroadcast() {
+        WireFormatInterceptor json = interceptor(false);
+        WireFormatInterceptor cbor = interceptor(true);
+        CBORMapper cborMapper = new CBORMapper();
+
+        measure("json", (body) -> deliver(json, body));
+        measure("cbor", (body) -> deliver(cbor, body));
+        measure("cbor-each", (body) -> {
+            for (int i = 0; i < SUBSCRIBERS; i++) {
+                cborMapper.writeValueAsBytes(objectMapper.readTree(body));
+            }
+        });
+    }
+
+    private WireFormatInterceptor interceptor(boolean cbor) {
+        WireFormatInterceptor interceptor = new WireFormatInterceptor(objectMapper, new AppProperties());
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+            connect.setSessionId("session-" + i);
+            if (cbor) {
+                connect.setNativeHeader(WIRE_FORMAT_HEADER, WIRE_FORMAT_CBOR);
+            }
+            interceptor.preSend(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()), channel);
+        }
+        return interceptor;
+    }
+
+    /** Delivers one broadcast to every session, sharing the body the way the simple broker does */
+    private void deliver(WireFormatInterceptor interceptor, byte[] body) {
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+            accessor.setSessionId("session-" + i);
+            accessor.setSubscriptionId("sub-" + i);
+            accessor.setDestination("/topic/board/1");
+            accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            Message<byte[]> message = MessageBuilder.createMessage(body, accessor.getMessageHeaders());
+            interceptor.preSend(message, channel);
+        }
+    }
+
+    private void measure(String mode, Consumer<byte[]> broadcast) {
+        for (int i = 0; i < WARMUP_BROADCASTS; i++) {
+            broadcast.accept(stroke(-i - 1));
+        }
+        byte[][] bodies = new byte[BROADCASTS][];
+        for (int i = 0; i < BROADCASTS; i++) {
+            bodies[i] = stroke(i);
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long start = threads.getCurrentThreadCpuTime();
+        for (byte[] body : bodies) {
+            broadcast.accept(body);
+        }
+        long cpu = threads.getCurrentThreadCpuTime() - start;
+        System.out.printf(
+            "%-9s %d broadcasts x %d subscribers: %.1f us CPU per broadcast, %.2f us per delivery%n",
+            mode,
+            BROADCASTS,
+            SUBSCRIBERS,
+            cpu / 1e3 / BROADCASTS,
+            cpu / 1e3 / BROADCASTS / SUBSCRIBERS
+        );
+    }
+
+    /** An OBJECT_UPDATE of a 100-point stroke, distinct for every seed */
+    private static byte[] stroke(int seed) {
+        StringBuilder points = new StringBuilder();
+        for (int i = 1; i <= 100; i++) {
+            points.append(i > 1 ? "," : "").append((seed + i) / 7.0 / 1000).append(',').append(i / 13.0 / 200);
+        }
+        return (
+            "{\"type\":\"OBJECT_UPDATE\",\"instanceId\":\"stroke-" + seed + "\",\"sender\":\"user@example.com\"," +
+            "\"payload\":{\"tool\":\"brush\",\"color\":\"#1e88e5\",\"lineWidth\":3,\"points\":[" + points + "]}}"
+        ).getBytes(StandardCharsets.UTF_8);
+    }
+}
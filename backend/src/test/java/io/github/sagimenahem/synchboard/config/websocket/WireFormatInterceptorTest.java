@@ -0,0 +1,188 @@
+package io.github.sagimenahem.synchboard.config.websocket;
+
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.CBOR_FRAME_CONTENT_TYPE;
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.WIRE_FORMAT_CBOR;
+import static io.github.sagimenahem.synchboard.constants.WebSocketConstants.WIRE_FORMAT_HEADER;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.node.ArrayNode;
+import tools.jackson.databind.node.ObjectNode;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+/**
+ * Unit tests for {@link WireFormatInterceptor}: frames are built the way the STOMP endpoint, the
+ * broker relay and the simple broker build them and passed through the interceptor directly.
+ */
+@DisplayName("WireFormatInterceptor")
+class WireFormatInterceptorTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+    private final MessageChannel channel = Mockito.mock(MessageChannel.class);
+    private WireFormatInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new WireFormatInterceptor(objectMapper, new AppProperties());
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String sessionId, String wireFormat) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(sessionId);
+        if (wireFormat != null) {
+            accessor.setNativeHeader(WIRE_FORMAT_HEADER, wireFormat);
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> jsonMessage(String sessionId, byte[] json) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination("/topic/board/1");
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(json, accessor.getMessageHeaders());
+    }
+
+    /** A freehand stroke as the client sends it: normalized coordinates at full double precision */
+    private byte[] stroke() {
+        ObjectNode payload = objectMapper.createObjectNode().put("tool", "brush").put("lineWidth", 3);
+        ArrayNode points = payload.putArray("points");
+        for (int i = 1; i <= 200; i++) {
+            points.addObject().put("x", i / 7.0 / 200).put("y", i / 13.0 / 200);
+        }
+        ObjectNode action = objectMapper.createObjectNode().put("type", "OBJECT_ADD").put("instanceId", "a");
+        action.set("payload", payload);
+        return objectMapper.writeValueAsBytes(action);
+    }
+
+    @Test
+    @DisplayName("re-encodes messages as CBOR for a session that asked for it at CONNECT")
+    void encodesNegotiatedSession() {
+        interceptor.preSend(frame(StompCommand.CONNECT, "s1", WIRE_FORMAT_CBOR), channel);
+
+        Message<?> connected = interceptor.preSend(frame(StompCommand.CONNECTED, "s1", null), channel);
+        assertThat(StompHeaderAccessor.wrap(connected).getFirstNativeHeader(WIRE_FORMAT_HEADER)).isEqualTo(
+            WIRE_FORMAT_CBOR
+        );
+
+        byte[] json = stroke();
+        Message<?> delivered = interceptor.preSend(jsonMessage("s1", json), channel);
+        byte[] cbor = (byte[]) delivered.getPayload();
+
+        assertThat(StompHeaderAccessor.wrap(delivered).getContentType()).isEqualTo(
+            MimeType.valueOf(CBOR_FRAME_CONTENT_TYPE)
+        );
+        assertThat(new CBORMapper().readTree(cbor)).isEqualTo(objectMapper.readTree(json));
+        assertThat(cbor.length).isLessThan(json.length * 6 / 10);
+    }
+
+    @Test
+    @DisplayName("encodes a broadcast once however many sessions receive it, whether or not they share its body array")
+    void encodesBroadcastOnce() {
+        for (String sessionId : List.of("s1", "s2", "s3")) {
+            interceptor.preSend(frame(StompCommand.CONNECT, sessionId, WIRE_FORMAT_CBOR), channel);
+        }
+        byte[] json = stroke();
+
+        Object first = interceptor.preSend(jsonMessage("s1", json), channel).getPayload();
+        Object shared = interceptor.preSend(jsonMessage("s2", json), channel).getPayload();
+        Object copied = interceptor.preSend(jsonMessage("s3", json.clone()), channel).getPayload();
+        Object other = interceptor.preSend(jsonMessage("s1", "{\"x\":1}".getBytes(StandardCharsets.UTF_8)), channel)
+            .getPayload();
+
+        assertThat(shared).isSameAs(first);
+        assertThat(copied).isSameAs(first);
+        assertThat(other).isNotSameAs(first);
+        assertThat(new CBORMapper().readTree((byte[]) other)).isEqualTo(objectMapper.readTree("{\"x\":1}"));
+    }
+
+    @Test
+    @DisplayName("leaves JSON text frames alone for sessions that did not negotiate")
+    void keepsJsonForOtherSessions() {
+        interceptor.preSend(frame(StompCommand.CONNECT, "s1", WIRE_FORMAT_CBOR), channel);
+        interceptor.preSend(frame(StompCommand.CONNECT, "s2", null), channel);
+
+        Message<byte[]> message = jsonMessage("s2", "{\"x\":1}".getBytes(StandardCharsets.UTF_8));
+        Message<?> connected = interceptor.preSend(frame(StompCommand.CONNECTED, "s2", null), channel);
+
+        assertThat(interceptor.preSend(message, channel)).isSameAs(message);
+        assertThat(StompHeaderAccessor.wrap(connected).getFirstNativeHeader(WIRE_FORMAT_HEADER)).isNull();
+    }
+
+    @Test
+    @DisplayName("stops re-encoding once the session disconnects, and ignores the request when disabled")
+    void forgetsSessionsAndHonoursSwitch() {
+        interceptor.preSend(frame(StompCommand.CONNECT, "s1", WIRE_FORMAT_CBOR), channel);
+        interceptor.preSend(frame(StompCommand.DISCONNECT, "s1", null), channel);
+        Message<byte[]> afterDisconnect = jsonMessage("s1", "{\"x\":1}".getBytes(StandardCharsets.UTF_8));
+        assertThat(interceptor.preSend(afterDisconnect, channel)).isSameAs(afterDisconnect);
+
+        AppProperties disabled = new AppProperties();
+        disabled.getStomp().setBinaryFramesEnabled(false);
+        interceptor = new WireFormatInterceptor(objectMapper, disabled);
+        interceptor.preSend(frame(StompCommand.CONNECT, "s3", WIRE_FORMAT_CBOR), channel);
+        Message<byte[]> message = jsonMessage("s3", "{\"x\":1}".getBytes(StandardCharsets.UTF_8));
+        assertThat(interceptor.preSend(message, channel)).isSameAs(message);
+    }
+
+    @Test
+    @DisplayName("echoes the wire format and re-encodes messages with the simple broker too")
+    void encodesSimpleBrokerMessages() {
+        StompHeaderAccessor connectHeaders = StompHeaderAccessor.create(StompCommand.CONNECT);
+        connectHeaders.setSessionId("s1");
+        connectHeaders.setAcceptVersion("1.1,1.2");
+        connectHeaders.setNativeHeader(WIRE_FORMAT_HEADER, WIRE_FORMAT_CBOR);
+        Message<byte[]> connect = MessageBuilder.createMessage(new byte[0], connectHeaders.getMessageHeaders());
+        interceptor.preSend(connect, channel);
+
+        SimpMessageHeaderAccessor connectAck = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT_ACK);
+        connectAck.setSessionId("s1");
+        connectAck.setHeader(SimpMessageHeaderAccessor.CONNECT_MESSAGE_HEADER, connect);
+        connectAck.setHeader(SimpMessageHeaderAccessor.HEART_BEAT_HEADER, new long[] { 10000, 10000 });
+        Message<?> connected = interceptor.preSend(
+            MessageBuilder.createMessage(new byte[0], connectAck.getMessageHeaders()),
+            channel
+        );
+        StompHeaderAccessor connectedHeaders = StompHeaderAccessor.wrap(connected);
+        assertThat(connectedHeaders.getCommand()).isEqualTo(StompCommand.CONNECTED);
+        assertThat(connectedHeaders.getSessionId()).isEqualTo("s1");
+        assertThat(connectedHeaders.getVersion()).isEqualTo("1.2");
+        assertThat(connectedHeaders.getHeartbeat()).containsExactly(10000, 10000);
+        assertThat(connectedHeaders.getFirstNativeHeader(WIRE_FORMAT_HEADER)).isEqualTo(WIRE_FORMAT_CBOR);
+
+        SimpMessageHeaderAccessor delivery = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        delivery.setSessionId("s1");
+        delivery.setSubscriptionId("sub-1");
+        delivery.setDestination("/topic/board/1");
+        delivery.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        byte[] json = stroke();
+        Message<?> delivered = interceptor.preSend(
+            MessageBuilder.createMessage(json, delivery.getMessageHeaders()),
+            channel
+        );
+        StompHeaderAccessor deliveredHeaders = StompHeaderAccessor.wrap(delivered);
+        assertThat(deliveredHeaders.getCommand()).isEqualTo(StompCommand.MESSAGE);
+        assertThat(deliveredHeaders.getFirstNativeHeader(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER)).isEqualTo(
+            "sub-1"
+        );
+        assertThat(deliveredHeaders.getContentType()).isEqualTo(MimeType.valueOf(CBOR_FRAME_CONTENT_TYPE));
+        assertThat(new CBORMapper().readTree((byte[]) delivered.getPayload())).isEqualTo(objectMapper.readTree(json));
+    }
+}
@@ -0,0 +1,193 @@
+package io.github.sagimenahem.synchboard.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import io.github.sagimenahem.synchboard.dto.error.ErrorResponseDTO;
+import io.github.sagimenahem.synchboard.dto.websocket.BoardActionDTO;
+import io.github.sagimenahem.synchboard.dto.websocket.BoardActionDTO.ActionType;
+import io.github.sagimenahem.synchboard.exception.ResourceNotFoundException;
+import io.github.sagimenahem.synchboard.service.board.BoardActivityTracker;
+import io.github.sagimenahem.synchboard.service.board.BoardNotificationService;
+import io.github.sagimenahem.synchboard.service.board.BoardObjectService;
+import io.github.sagimenahem.synchboard.service.board.BoardTaskExecutor;
+import io.github.sagimenahem.synchboard.service.board.BoardViewportService;
+import io.github.sagimenahem.synchboard.service.board.ChatService;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+
+/**
+ * Unit tests for {@link BoardActivityController}. The board lanes are real and the services
+ * behind them are mocked, recording when each action is applied and broadcast, so these cover
+ * the order drawing actions reach subscribers in when several users draw at once.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BoardActivityController")
+class BoardActivityControllerTest {
+
+    private static final List<Long> BOARDS = List.of(1L, 2L);
+    private static final int SENDERS = 4;
+    private static final int ACTIONS_PER_SENDER = 100;
+
+    @Mock
+    private SimpMessageSendingOperations messagingTemplate;
+
+    @Mock
+    private BoardObjectService boardObjectService;
+
+    @Mock
+    private ChatService chatService;
+
+    @Mock
+    private BoardActivityTracker boardActivityTracker;
+
+    @Mock
+    private BoardNotificationService notificationService;
+
+    @Mock
+    private BoardViewportService boardViewportService;
+
+    private final BoardTaskExecutor executor = new BoardTaskExecutor();
+    /** What happened on each board's lane, as "apply:" or "broadcast:" plus the instance ID */
+    private final List<List<String>> events = List.of(
+        Collections.synchronizedList(new ArrayList<>()),
+        Collections.synchronizedList(new ArrayList<>())
+    );
+    private BoardActivityController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new BoardActivityController(
+            messagingTemplate,
+            boardObjectService,
+            chatService,
+            boardActivityTracker,
+            executor,
+            notificationService,
+            boardViewportService
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    private List<String> eventsOf(Long boardId) {
+        return events.get(BOARDS.indexOf(boardId));
+    }
+
+    private static BoardActionDTO.Request action(Long boardId, String instanceId) {
+        return BoardActionDTO.Request.builder()
+            .boardId(boardId)
+            .type(ActionType.OBJECT_UPDATE)
+            .instanceId(instanceId)
+            .build();
+    }
+
+    @Test
+    @DisplayName("applies then broadcasts each draw action, one at a time and in arrival order per board")
+    void appliesThenBroadcastsInOrder() throws Exception {
+        doAnswer((invocation) -> {
+            BoardActionDTO.Request request = invocation.getArgument(0);
+            eventsOf(request.getBoardId()).add("apply:" + request.getInstanceId());
+            // Give another board's lane, or a misplaced broadcast, the chance to slip in
+            Thread.yield();
+            if (request.getInstanceId().endsWith("-rejected")) {
+                throw new ResourceNotFoundException("No such object");
+            }
+            return null;
+        })
+            .when(boardObjectService)
+            .saveDrawAction(any(), anyString());
+        doAnswer((invocation) -> {
+            BoardActionDTO.Response response = invocation.getArgument(1);
+            eventsOf(invocation.getArgument(0)).add("broadcast:" + response.getInstanceId());
+            return null;
+        })
+            .when(notificationService)
+            .broadcastObjectChange(anyLong(), any());
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService senders = Executors.newFixedThreadPool(SENDERS);
+        try {
+            for (int sender = 0; sender < SENDERS; sender++) {
+                String user = "user" + sender + "@synchboard.com";
+                Principal principal = () -> user;
+                int senderId = sender;
+                senders.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ACTIONS_PER_SENDER; i++) {
+                        String instanceId = "s" + senderId + "-" + i + (i % 10 == 9 ? "-rejected" : "");
+                        controller.handleDrawAction(action(BOARDS.get(i % BOARDS.size()), instanceId), principal);
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            senders.shutdown();
+            assertThat(senders.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            senders.shutdownNow();
+        }
+        for (Long boardId : BOARDS) {
+            executor.call(boardId, () -> null);
+        }
+
+        int rejected = 0;
+        for (Long boardId : BOARDS) {
+            List<String> boardEvents = List.copyOf(eventsOf(boardId));
+            List<String> applied = new ArrayList<>();
+            for (int i = 0; i < boardEvents.size(); i++) {
+                String event = boardEvents.get(i);
+                assertThat(event).startsWith("apply:");
+                String instanceId = event.substring("apply:".length());
+                applied.add(instanceId);
+                if (instanceId.endsWith("-rejected")) {
+                    rejected++;
+                } else {
+                    // Broadcast right after its own apply, before the board's next action is applied
+                    assertThat(boardEvents.get(++i)).isEqualTo("broadcast:" + instanceId);
+                }
+            }
+
+            assertThat(applied).hasSize(SENDERS * ACTIONS_PER_SENDER / BOARDS.size());
+            for (int sender = 0; sender < SENDERS; sender++) {
+                String prefix = "s" + sender + "-";
+                List<Integer> order = applied
+                    .stream()
+                    .filter((id) -> id.startsWith(prefix))
+                    .map((id) -> Integer.parseInt(id.substring(prefix.length()).split("-")[0]))
+                    .toList();
+                assertThat(order).as("actions of sender %d on board %d", sender, boardId).isSorted();
+            }
+        }
+
+        assertThat(rejected).isEqualTo(SENDERS * ACTIONS_PER_SENDER / 10);
+        verify(messagingTemplate, times(rejected)).convertAndSendToUser(
+            anyString(),
+            eq("/topic/errors"),
+            any(ErrorResponseDTO.class)
+        );
+    }
+}
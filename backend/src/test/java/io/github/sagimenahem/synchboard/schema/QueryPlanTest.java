@@ -0,0 +1,323 @@
+package io.github.sagimenahem.synchboard.schema;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Guards the hot-path indexes against silent regression.
+ *
+ * <p>
+ * Where {@link SchemaBaselineTest} checks that the migrations describe the tables the entities
+ * expect, this test checks that they also index them for the queries the application runs. It
+ * applies every migration to an in-process PostgreSQL, then runs {@code EXPLAIN} on the SQL behind
+ * each hot repository query with sequential scans disabled. The tables are empty, so the planner
+ * would otherwise happily scan them; with scans disabled it still falls back to one, or to a full
+ * pass over an unrelated index, exactly when no index can serve the query. Dropping an index, or
+ * adding a query no index covers, fails here rather than as a slow board in production.
+ * </p>
+ *
+ * <p>
+ * The SQL mirrors what Hibernate and the JDBC repositories send, with literals in place
+ * of bind parameters. Add an entry to {@link #hotQueries()} for every new query on a per-board or
+ * per-user path.
+ * </p>
+ */
+@DisplayName("Hot query plans")
+class QueryPlanTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Set<String> INDEXED_SCANS = Set.of("Index Scan", "Index Only Scan");
+
+    private static EmbeddedPostgres postgres;
+
+    @BeforeAll
+    static void migrate() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        Flyway.configure()
+            .dataSource(postgres.getPostgresDatabase())
+            .locations("classpath:db/migration")
+            .load()
+            .migrate();
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        postgres.close();
+    }
+
+    static Stream<Arguments> hotQueries() {
+        return Stream.of(
+            // BoardObjectRepository
+            Arguments.of(
+                "BoardObjectRepository.deleteAllByBoard_BoardGroupId",
+                "board_objects",
+                "SELECT * FROM board_objects WHERE board_group_id = 1"
+            ),
+            Arguments.of(
+                "BoardObjectRepository.findInactiveInstanceIds",
+                "board_objects",
+                "SELECT instance_id FROM board_objects WHERE board_group_id = 1 AND is_active = false"
+            ),
+            Arguments.of(
+                "BoardObjectRepository.findBoardIdsReferencingUser",
+                "board_objects",
+                "SELECT DISTINCT board_group_id FROM board_objects " +
+                    "WHERE created_by_user_email = 'a@example.com' OR last_edited_by_user_email = 'a@example.com'"
+            ),
+            Arguments.of(
+                "BoardObjectRepository.nullifyCreatedByUser",
+                "board_objects",
+                "UPDATE board_objects SET created_by_user_email = NULL, " +
+                    "change_seq = nextval('board_object_change_seq') WHERE created_by_user_email = 'a@example.com'"
+            ),
+            Arguments.of(
+                "BoardObjectRepository.nullifyLastEditedByUser",
+                "board_objects",
+                "UPDATE board_objects SET last_edited_by_user_email = NULL, " +
+                    "change_seq = nextval('board_object_change_seq') WHERE last_edited_by_user_email = 'a@example.com'"
+            ),
+            // ActionHistoryRepository
+            Arguments.of(
+                "ActionHistoryRepository.findRecentByBoardWithRelations",
+                "action_history",
+                "SELECT ah.*, bo.*, u.*, cu.* FROM action_history ah " +
+                    "JOIN board_objects bo ON bo.object_id = ah.object_id " +
+                    "JOIN users u ON u.email = ah.user_email " +
+                    "LEFT JOIN users cu ON cu.email = bo.created_by_user_email " +
+                    "WHERE ah.board_group_id = 1 AND ah.timestamp >= '2026-01-01 00:00:00' " +
+                    "ORDER BY ah.timestamp DESC, ah.action_id DESC"
+            ),
+            Arguments.of(
+                "ActionHistoryRepository.deleteAllByBoard_BoardGroupId",
+                "action_history",
+                "SELECT * FROM action_history WHERE board_group_id = 1"
+            ),
+            Arguments.of(
+                "ActionHistoryRepository.findBoardIdsByUser",
+                "action_history",
+                "SELECT DISTINCT board_group_id FROM action_history WHERE user_email = 'a@example.com'"
+            ),
+            Arguments.of(
+                "ActionHistoryRepository.deleteAllByUser_Email",
+                "action_history",
+                "SELECT * FROM action_history WHERE user_email = 'a@example.com'"
+            ),
+            Arguments.of(
+                "foreign key check when a board object is deleted",
+                "action_history",
+                "SELECT 1 FROM action_history WHERE object_id = 1"
+            ),
+            // ActionHistoryRetentionRepository
+            Arguments.of(
+                "ActionHistoryRetentionRepository.findPosition",
+                "action_history",
+                "SELECT timestamp, action_id FROM (" +
+                    "SELECT timestamp, action_id, count(*) FILTER (WHERE starts_step) " +
+                    "OVER (ORDER BY timestamp DESC, action_id DESC) AS step FROM (" +
+                    "SELECT timestamp, action_id, group_id IS NULL OR group_id IS DISTINCT FROM " +
+                    "lag(group_id) OVER (ORDER BY timestamp DESC, action_id DESC) AS starts_step " +
+                    "FROM action_history WHERE board_group_id = 1) history) steps " +
+                    "WHERE step = 100 ORDER BY timestamp, action_id LIMIT 1"
+            ),
+            // MessageRepository
+            Arguments.of(
+                "MessageRepository.findByBoardWithSender",
+                "messages",
+                "SELECT m.*, u.* FROM messages m LEFT JOIN users u ON u.email = m.sender_user_email " +
+                    "WHERE m.board_group_id = 1 ORDER BY m.timestamp ASC"
+            ),
+            Arguments.of(
+                "MessageRepository.findAllByBoard_BoardGroupIdOrderByTimestampAsc",
+                "messages",
+                "SELECT * FROM messages WHERE board_group_id = 1 ORDER BY timestamp ASC"
+            ),
+            Arguments.of(
+                "MessageRepository.findLatestByBoardWithSender",
+                "messages",
+                "SELECT m.*, u.* FROM messages m LEFT JOIN users u ON u.email = m.sender_user_email " +
+                    "WHERE m.board_group_id = 1 ORDER BY m.timestamp DESC, m.message_id DESC LIMIT 51"
+            ),
+            Arguments.of(
+                "MessageRepository.findOlderByBoardWithSender",
+                "messages",
+                "SELECT m.*, u.* FROM messages m LEFT JOIN users u ON u.email = m.sender_user_email " +
+                    "WHERE m.board_group_id = 1 AND m.timestamp <= '2026-01-01 00:00:00' " +
+                    "AND (m.timestamp < '2026-01-01 00:00:00' OR m.message_id < 42) " +
+                    "ORDER BY m.timestamp DESC, m.message_id DESC LIMIT 51"
+            ),
+            Arguments.of(
+                "MessageRepository.nullifySenderByUserEmail",
+                "messages",
+                "UPDATE messages SET sender_user_email = NULL WHERE sender_user_email = 'a@example.com'"
+            ),
+            Arguments.of(
+                "MessageRepository.deleteAllByBoard_BoardGroupId",
+                "messages",
+                "SELECT * FROM messages WHERE board_group_id = 1"
+            ),
+            // GroupMemberRepository
+            Arguments.of(
+                "GroupMemberRepository.findAllByUserEmail",
+                "group_members",
+                "SELECT * FROM group_members WHERE user_email = 'a@example.com'"
+            ),
+            Arguments.of(
+                "GroupMemberRepository.findByUserWithBoard",
+                "group_members",
+                "SELECT gm.*, gb.* FROM group_members gm " +
+                    "JOIN group_boards gb ON gb.board_group_id = gm.board_group_id " +
+                    "WHERE gm.user_email = 'a@example.com' ORDER BY gb.last_modified_date DESC"
+            ),
+            Arguments.of(
+                "GroupMemberRepository.existsByUserEmailAndBoardGroupId",
+                "group_members",
+                "SELECT 1 FROM group_members WHERE user_email = 'a@example.com' AND board_group_id = 1 LIMIT 1"
+            ),
+            Arguments.of(
+                "GroupMemberRepository.findAllByBoardGroupIdWithUser",
+                "group_members",
+                "SELECT gm.*, u.* FROM group_members gm JOIN users u ON u.email = gm.user_email " +
+                    "WHERE gm.board_group_id = 1"
+            ),
+            Arguments.of(
+                "GroupMemberRepository.findDistinctEmailsByBoardIds",
+                "group_members",
+                "SELECT DISTINCT user_email FROM group_members WHERE board_group_id IN (1, 2, 3)"
+            ),
+            // BoardWriteBatchRepository
+            Arguments.of(
+                "BoardWriteBatchRepository.updateObjects",
+                "board_objects",
+                "UPDATE board_objects bo SET is_active = v.is_active, " +
+                    "bounds = board_object_bounds(v.object_data, gb.canvas_width, gb.canvas_height) " +
+                    "FROM (VALUES (CAST(1 AS bigint), CAST('obj-1' AS varchar), CAST('{}' AS jsonb), true)) " +
+                    "AS v(board_group_id, instance_id, object_data, is_active), group_boards gb " +
+                    "WHERE bo.board_group_id = v.board_group_id AND bo.instance_id = v.instance_id " +
+                    "AND gb.board_group_id = v.board_group_id"
+            ),
+            Arguments.of(
+                "BoardWriteBatchRepository.refreshBounds",
+                "board_objects",
+                "UPDATE board_objects bo " +
+                    "SET bounds = board_object_bounds(bo.object_data, gb.canvas_width, gb.canvas_height) " +
+                    "FROM group_boards gb WHERE gb.board_group_id = bo.board_group_id AND bo.board_group_id = 1"
+            ),
+            Arguments.of(
+                "BoardWriteBatchRepository.updateUndone",
+                "action_history",
+                "UPDATE action_history ah SET is_undone = v.is_undone " +
+                    "FROM (VALUES (CAST(1 AS bigint), CAST('obj-1' AS varchar), " +
+                    "CAST('2026-01-01 00:00:00' AS timestamp), true)) " +
+                    "AS v(board_group_id, instance_id, occurred_at, is_undone), board_objects bo " +
+                    "WHERE bo.board_group_id = v.board_group_id AND bo.instance_id = v.instance_id " +
+                    "AND ah.board_group_id = v.board_group_id AND ah.object_id = bo.object_id " +
+                    "AND ah.timestamp = v.occurred_at"
+            ),
+            Arguments.of(
+                "BoardObjectStreamRepository.forEachActiveObject",
+                "board_objects",
+                "SELECT instance_id, object_type, object_data::text, created_by_user_email FROM board_objects " +
+                    "WHERE board_group_id = 1 AND is_active = true ORDER BY object_id"
+            ),
+            Arguments.of(
+                "BoardObjectStreamRepository.forEachActiveObjectIn",
+                "board_objects",
+                "SELECT instance_id, object_type, object_data::text, created_by_user_email FROM board_objects " +
+                    "WHERE board_group_id = 1 AND is_active = true " +
+                    "AND bounds && box(point(0, 0), point(0.5, 0.5)) ORDER BY object_id"
+            ),
+            Arguments.of(
+                "BoardWriteBatchRepository.deleteUndone",
+                "action_history",
+                "DELETE FROM action_history WHERE board_group_id = 1 AND is_undone = true"
+            ),
+            // BoardSnapshotRepository
+            Arguments.of(
+                "BoardSnapshotRepository.find",
+                "board_snapshots",
+                "SELECT version, snapshot FROM board_snapshots WHERE board_group_id = 1"
+            ),
+            Arguments.of(
+                "BoardSnapshotRepository.findChangedSince",
+                "board_objects",
+                "SELECT object_id, instance_id, object_type, object_data::text, is_active, created_by_user_email, " +
+                    "last_edited_by_user_email, change_seq FROM board_objects " +
+                    "WHERE board_group_id = 1 AND change_seq > 100 ORDER BY change_seq"
+            )
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotQueries")
+    @DisplayName("reaches its table through an index")
+    void hotQueryUsesIndex(String query, String table, String sql) throws SQLException {
+        JsonNode plan = explain(sql);
+
+        List<String> scans = new ArrayList<>();
+        collectScans(plan, scans);
+        // action_history and messages are partitioned, and are scanned through their partitions
+        List<String> tableScans = scans
+            .stream()
+            .filter((scan) -> scan.endsWith(" on " + table) || scan.matches(".* on " + table + "_p\\d{6}"))
+            .toList();
+
+        assertThat(scans)
+            .as("%s falls back to a sequential scan:%n%s", query, plan.toPrettyString())
+            .noneMatch((scan) -> scan.startsWith("Seq Scan"));
+        assertThat(tableScans)
+            .as("%s reads all of %s instead of seeking an index:%n%s", query, table, plan.toPrettyString())
+            .isNotEmpty()
+            .allMatch((scan) -> scan.startsWith("Bitmap Heap Scan") || scan.contains("[cond]"));
+    }
+
+    /**
+     * Plans a statement without running it, with sequential scans disabled for the session.
+     */
+    private static JsonNode explain(String sql) throws SQLException {
+        try (
+            Connection connection = postgres.getPostgresDatabase().getConnection();
+            Statement statement = connection.createStatement()
+        ) {
+            statement.execute("SET enable_seqscan = off");
+            try (ResultSet result = statement.executeQuery("EXPLAIN (FORMAT JSON) " + sql)) {
+                result.next();
+                return MAPPER.readTree(result.getString(1)).path(0).path("Plan");
+            }
+        }
+    }
+
+    /**
+     * Flattens the scan nodes of a plan into {@code "<node type> [cond] on <table>"} descriptions,
+     * where {@code [cond]} marks an index scan that is bounded by an index condition rather than
+     * reading the whole index.
+     */
+    private static void collectScans(JsonNode node, List<String> scans) {
+        String type = node.path("Node Type").asString();
+        if (type.endsWith("Scan") && node.has("Relation Name")) {
+            boolean bounded = INDEXED_SCANS.contains(type) && node.has("Index Cond");
+            scans.add(type + (bounded ? " [cond]" : "") + " on " + node.path("Relation Name").asString());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectScans(child, scans);
+        }
+    }
+}
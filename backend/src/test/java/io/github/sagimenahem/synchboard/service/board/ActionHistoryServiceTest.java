@@ -0,0 +1,207 @@
+package io.github.sagimenahem.synchboard.service.board;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import io.github.sagimenahem.synchboard.constants.WebSocketConstants;
+import io.github.sagimenahem.synchboard.dto.websocket.BoardActionDTO;
+import io.github.sagimenahem.synchboard.dto.websocket.BoardActionDTO.ActionType;
+import io.github.sagimenahem.synchboard.exception.ResourceNotFoundException;
+import io.github.sagimenahem.synchboard.repository.ActionHistoryRepository;
+import io.github.sagimenahem.synchboard.repository.ActionHistoryRetentionRepository;
+import io.github.sagimenahem.synchboard.repository.BoardObjectRepository;
+import io.github.sagimenahem.synchboard.repository.GroupBoardRepository;
+import io.github.sagimenahem.synchboard.repository.GroupMemberRepository;
+import io.github.sagimenahem.synchboard.service.board.persistence.BoardSnapshotService;
+import io.github.sagimenahem.synchboard.service.board.persistence.BoardWriteBehindService;
+import io.github.sagimenahem.synchboard.service.board.state.BoardOwnership;
+import io.github.sagimenahem.synchboard.service.board.state.BoardStateEngine;
+import io.github.sagimenahem.synchboard.service.board.state.LiveBoardObject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Unit tests for {@link ActionHistoryService}. The live board state, board lanes, event log and
+ * notification service are real and only the database and broker are mocked, so these cover the
+ * order in which undo and drawing actions on one board reach its subscribers.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ActionHistoryService")
+class ActionHistoryServiceTest {
+
+    private static final Long BOARD_ID = 7L;
+    private static final String USER = "member@synchboard.com";
+    private static final String TOPIC = WebSocketConstants.WEBSOCKET_BOARD_TOPIC_PREFIX + BOARD_ID;
+    private static final int ROUNDS = 200;
+
+    @Mock
+    private SimpMessageSendingOperations messagingTemplate;
+
+    @Mock
+    private BoardMembershipCache membershipCache;
+
+    @Mock
+    private GroupMemberRepository groupMemberRepository;
+
+    @Mock
+    private NotificationFanOut notificationFanOut;
+
+    @Mock
+    private BoardSnapshotService snapshotService;
+
+    @Mock
+    private ActionHistoryRepository actionHistoryRepository;
+
+    @Mock
+    private ActionHistoryRetentionRepository actionHistoryRetentionRepository;
+
+    @Mock
+    private BoardWriteBehindService boardWriteBehindService;
+
+    @Mock
+    private GroupBoardRepository groupBoardRepository;
+
+    @Mock
+    private BoardObjectRepository boardObjectRepository;
+
+    @Mock
+    private BoardOwnership boardOwnership;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+    private final BoardTaskExecutor executor = new BoardTaskExecutor();
+    private final AtomicInteger edits = new AtomicInteger();
+    private BoardStateEngine engine;
+    private BoardEventLog eventLog;
+    private BoardNotificationService notificationService;
+    private ActionHistoryService historyService;
+
+    @BeforeEach
+    void setUp() {
+        AppProperties appProperties = new AppProperties();
+        // Every event is sent as it is published, so the broker sees publish order
+        appProperties.getBoardEvents().setFrameTickMs(0);
+        engine = new BoardStateEngine(
+            actionHistoryRepository,
+            actionHistoryRetentionRepository,
+            objectMapper,
+            appProperties,
+            boardWriteBehindService,
+            snapshotService,
+            groupBoardRepository,
+            boardObjectRepository,
+            boardOwnership
+        );
+        eventLog = new BoardEventLog(messagingTemplate, membershipCache, appProperties);
+        notificationService = new BoardNotificationService(
+            messagingTemplate,
+            groupMemberRepository,
+            engine,
+            eventLog,
+            notificationFanOut
+        );
+        historyService = new ActionHistoryService(notificationService, membershipCache, engine, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+        eventLog.shutdown();
+    }
+
+    /** Applies and broadcasts a drawing action the way a board's lane does */
+    private Void draw(ActionType type, String instanceId) {
+        JsonNode payload = objectMapper.createObjectNode().put("edit", edits.incrementAndGet());
+        try {
+            engine.apply(
+                BoardActionDTO.Request.builder()
+                    .boardId(BOARD_ID)
+                    .type(type)
+                    .instanceId(instanceId)
+                    .payload(payload)
+                    .build(),
+                USER
+            );
+        } catch (ResourceNotFoundException e) {
+            // Updated after the undo removed it
+            return null;
+        }
+        notificationService.broadcastObjectChange(
+            BOARD_ID,
+            BoardActionDTO.Response.builder().type(type).instanceId(instanceId).payload(payload).sender(USER).build()
+        );
+        return null;
+    }
+
+    @Test
+    @DisplayName("broadcasts an undo and concurrent updates in the order the live state applied them")
+    void ordersUndoWithUpdates() throws Exception {
+        when(boardOwnership.claim(BOARD_ID)).thenReturn(true);
+        when(membershipCache.isMember(BOARD_ID, USER)).thenReturn(true);
+        List<BoardActionDTO.Response> published = Collections.synchronizedList(new ArrayList<>());
+        List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+        doAnswer((invocation) -> {
+            Map<String, Object> headers = invocation.getArgument(2);
+            sequences.add(Long.parseLong((String) headers.get(WebSocketConstants.BOARD_SEQUENCE_HEADER)));
+            published.add(invocation.getArgument(1));
+            return null;
+        })
+            .when(messagingTemplate)
+            .convertAndSend(eq(TOPIC), any(Object.class), anyMap());
+
+        ExecutorService requests = Executors.newSingleThreadExecutor();
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                String instanceId = "shape-" + round;
+                executor.call(BOARD_ID, () -> draw(ActionType.OBJECT_ADD, instanceId));
+                Future<?> undo = requests.submit(() -> historyService.undoLastAction(BOARD_ID, USER));
+                for (int i = 0; i < 3; i++) {
+                    executor.execute(BOARD_ID, () -> draw(ActionType.OBJECT_UPDATE, instanceId));
+                }
+                undo.get(5, TimeUnit.SECONDS);
+            }
+            executor.call(BOARD_ID, () -> null);
+        } finally {
+            requests.shutdownNow();
+        }
+
+        // A subscriber applying the broadcasts in the order received ends up with the live board
+        Map<String, JsonNode> replayed = new HashMap<>();
+        for (BoardActionDTO.Response response : published) {
+            if (response.getType() == ActionType.OBJECT_DELETE) {
+                replayed.remove(response.getInstanceId());
+            } else {
+                replayed.put(response.getInstanceId(), response.getPayload());
+            }
+        }
+        Map<String, JsonNode> live = new HashMap<>();
+        for (LiveBoardObject object : engine.getObjects(BOARD_ID)) {
+            live.put(object.getInstanceId(), object.getPayload());
+        }
+        assertThat(replayed).isEqualTo(live);
+        assertThat(sequences).isSorted().doesNotHaveDuplicates();
+    }
+}
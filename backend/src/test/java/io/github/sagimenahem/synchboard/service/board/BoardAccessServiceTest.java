@@ -10,11 +10,9 @@
 import static org.mockito.Mockito.when;
 
 import io.github.sagimenahem.synchboard.entity.GroupBoard;
-import io.github.sagimenahem.synchboard.entity.GroupMember;
 import io.github.sagimenahem.synchboard.entity.User;
 import io.github.sagimenahem.synchboard.exception.ResourceNotFoundException;
 import io.github.sagimenahem.synchboard.repository.GroupBoardRepository;
-import io.github.sagimenahem.synchboard.repository.GroupMemberRepository;
 import io.github.sagimenahem.synchboard.repository.UserRepository;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
@@ -46,7 +44,7 @@ class BoardAccessServiceTest {
     private GroupBoardRepository boardRepository;
 
     @Mock
-    private GroupMemberRepository memberRepository;
+    private BoardMembershipCache membershipCache;
 
     @Mock
     private UserRepository userRepository;
@@ -60,10 +58,6 @@ private static User user(String email) {
         return User.builder().email(email).build();
     }
 
-    private static GroupMember membership(String email, boolean isAdmin) {
-        return GroupMember.builder().userEmail(email).boardGroupId(BOARD_ID).isAdmin(isAdmin).build();
-    }
-
     @BeforeEach
     void setUp() {
         board = GroupBoard.builder()
@@ -91,23 +85,24 @@ void creatorIsAlwaysAllowed() {
             boardAndUserExist();
 
             assertThat(boardAccessService.validateBoardAccess(BOARD_ID, CREATOR)).isSameAs(board);
-            verify(memberRepository, never()).existsByUserEmailAndBoardGroupId(anyString(), any());
+            verify(membershipCache, never()).isMember(any(), anyString());
         }
 
         @Test
         @DisplayName("lets a plain member in")
         void memberIsAllowed() {
             boardAndUserExist();
-            when(memberRepository.existsByUserEmailAndBoardGroupId(MEMBER, BOARD_ID)).thenReturn(true);
+            when(membershipCache.isMember(BOARD_ID, MEMBER)).thenReturn(true);
 
             assertThat(boardAccessService.validateBoardAccess(BOARD_ID, MEMBER)).isSameAs(board);
+            verify(userRepository, never()).findById(anyString());
         }
 
         @Test
         @DisplayName("denies a user who is neither creator nor member")
         void outsiderIsDenied() {
             boardAndUserExist();
-            when(memberRepository.existsByUserEmailAndBoardGroupId(OUTSIDER, BOARD_ID)).thenReturn(false);
+            when(membershipCache.isMember(BOARD_ID, OUTSIDER)).thenReturn(false);
 
             assertThatThrownBy(() -> boardAccessService.validateBoardAccess(BOARD_ID, OUTSIDER))
                 .isInstanceOf(AccessDeniedException.class)
@@ -140,7 +135,7 @@ void missingUser() {
         void boardWithoutCreator() {
             board.setCreatedByUser(null);
             boardAndUserExist();
-            when(memberRepository.existsByUserEmailAndBoardGroupId(MEMBER, BOARD_ID)).thenReturn(true);
+            when(membershipCache.isMember(BOARD_ID, MEMBER)).thenReturn(true);
 
             assertThat(boardAccessService.validateBoardAccess(BOARD_ID, MEMBER)).isSameAs(board);
         }
@@ -162,10 +157,8 @@ void creatorIsAdmin() {
         @DisplayName("lets a member flagged as admin in")
         void adminMemberIsAllowed() {
             boardAndUserExist();
-            when(memberRepository.existsByUserEmailAndBoardGroupId(ADMIN, BOARD_ID)).thenReturn(true);
-            when(memberRepository.findByBoardGroupIdAndUserEmail(BOARD_ID, ADMIN)).thenReturn(
-                Optional.of(membership(ADMIN, true))
-            );
+            when(membershipCache.isMember(BOARD_ID, ADMIN)).thenReturn(true);
+            when(membershipCache.isAdmin(BOARD_ID, ADMIN)).thenReturn(true);
 
             assertThat(boardAccessService.validateAdminAccess(BOARD_ID, ADMIN)).isSameAs(board);
         }
@@ -174,10 +167,8 @@ void adminMemberIsAllowed() {
         @DisplayName("denies a member without the admin flag")
         void plainMemberIsDenied() {
             boardAndUserExist();
-            when(memberRepository.existsByUserEmailAndBoardGroupId(MEMBER, BOARD_ID)).thenReturn(true);
-            when(memberRepository.findByBoardGroupIdAndUserEmail(BOARD_ID, MEMBER)).thenReturn(
-                Optional.of(membership(MEMBER, false))
-            );
+            when(membershipCache.isMember(BOARD_ID, MEMBER)).thenReturn(true);
+            when(membershipCache.isAdmin(BOARD_ID, MEMBER)).thenReturn(false);
 
             assertThatThrownBy(() -> boardAccessService.validateAdminAccess(BOARD_ID, MEMBER))
                 .isInstanceOf(AccessDeniedException.class)
@@ -188,7 +179,7 @@ void plainMemberIsDenied() {
         @DisplayName("denies an outsider before it ever reaches the admin check")
         void outsiderIsDenied() {
             boardAndUserExist();
-            when(memberRepository.existsByUserEmailAndBoardGroupId(OUTSIDER, BOARD_ID)).thenReturn(false);
+            when(membershipCache.isMember(BOARD_ID, OUTSIDER)).thenReturn(false);
 
             assertThatThrownBy(() -> boardAccessService.validateAdminAccess(BOARD_ID, OUTSIDER)).isInstanceOf(
                 AccessDeniedException.class
@@ -248,8 +239,8 @@ class Predicates {
         @DisplayName("isBoardMember converts a denial into false")
         void isBoardMember() {
             boardAndUserExist();
-            when(memberRepository.existsByUserEmailAndBoardGroupId(MEMBER, BOARD_ID)).thenReturn(true);
-            when(memberRepository.existsByUserEmailAndBoardGroupId(OUTSIDER, BOARD_ID)).thenReturn(false);
+            when(membershipCache.isMember(BOARD_ID, MEMBER)).thenReturn(true);
+            when(membershipCache.isMember(BOARD_ID, OUTSIDER)).thenReturn(false);
 
             assertThat(boardAccessService.isBoardMember(BOARD_ID, MEMBER)).isTrue();
             assertThat(boardAccessService.isBoardMember(BOARD_ID, OUTSIDER)).isFalse();
@@ -267,10 +258,8 @@ void isBoardMemberMissingBoard() {
         @DisplayName("isBoardAdmin is true for the creator and false for a plain member")
         void isBoardAdmin() {
             boardAndUserExist();
-            when(memberRepository.existsByUserEmailAndBoardGroupId(MEMBER, BOARD_ID)).thenReturn(true);
-            when(memberRepository.findByBoardGroupIdAndUserEmail(BOARD_ID, MEMBER)).thenReturn(
-                Optional.of(membership(MEMBER, false))
-            );
+            when(membershipCache.isMember(BOARD_ID, MEMBER)).thenReturn(true);
+            when(membershipCache.isAdmin(BOARD_ID, MEMBER)).thenReturn(false);
 
             assertThat(boardAccessService.isBoardAdmin(BOARD_ID, CREATOR)).isTrue();
             assertThat(boardAccessService.isBoardAdmin(BOARD_ID, MEMBER)).isFalse();
@@ -0,0 +1,65 @@
+package io.github.sagimenahem.synchboard.service.board;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import io.github.sagimenahem.synchboard.repository.GroupBoardRepository;
+import io.github.sagimenahem.synchboard.service.board.thumbnail.BoardThumbnailService;
+import java.util.Collection;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for {@link BoardActivityTracker}.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BoardActivityTracker")
+class BoardActivityTrackerTest {
+
+    @Mock
+    private GroupBoardRepository groupBoardRepository;
+
+    @Mock
+    private BoardNotificationService notificationService;
+
+    @Mock
+    private BoardThumbnailService boardThumbnailService;
+
+    @InjectMocks
+    private BoardActivityTracker tracker;
+
+    @Test
+    @DisplayName("collapses repeated activity into one update and one fan-out per flush")
+    @SuppressWarnings("unchecked")
+    void collapsesActivity() {
+        tracker.markActive(1L);
+        tracker.markActive(1L);
+        tracker.markActive(2L);
+
+        tracker.flush();
+
+        ArgumentCaptor<Collection<Long>> updated = ArgumentCaptor.forClass(Collection.class);
+        verify(groupBoardRepository).updateLastModifiedDates(updated.capture());
+        assertThat(updated.getValue()).containsExactlyInAnyOrder(1L, 2L);
+        verify(notificationService).broadcastBoardDetailsChangedToMembersOf(updated.getValue());
+        verify(boardThumbnailService).boardsChanged(updated.getValue());
+
+        tracker.flush();
+        verifyNoMoreInteractions(groupBoardRepository, notificationService, boardThumbnailService);
+    }
+
+    @Test
+    @DisplayName("does nothing when no board saw activity")
+    void skipsIdleFlush() {
+        tracker.flush();
+
+        verifyNoInteractions(groupBoardRepository, notificationService, boardThumbnailService);
+    }
+}
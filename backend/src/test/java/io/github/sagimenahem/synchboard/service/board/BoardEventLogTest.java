@@ -0,0 +1,210 @@
+package io.github.sagimenahem.synchboard.service.board;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import io.github.sagimenahem.synchboard.constants.WebSocketConstants;
+import io.github.sagimenahem.synchboard.dto.board.BoardEventsDTO;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.security.access.AccessDeniedException;
+
+/**
+ * Unit tests for {@link BoardEventLog}. Payloads are plain strings, since the log never looks inside
+ * them.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BoardEventLog")
+class BoardEventLogTest {
+
+    private static final String MEMBER = "member@synchboard.com";
+    private static final Long BOARD_ID = 1L;
+
+    @Mock
+    private SimpMessageSendingOperations messagingTemplate;
+
+    @Mock
+    private BoardMembershipCache membershipCache;
+
+    private AppProperties appProperties;
+    private BoardEventLog eventLog;
+
+    @BeforeEach
+    void setUp() {
+        appProperties = new AppProperties();
+        appProperties.getBoardEvents().setBufferSize(4);
+        appProperties.getBoardEvents().setMaxBoards(2);
+        eventLog = new BoardEventLog(messagingTemplate, membershipCache, appProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventLog.shutdown();
+    }
+
+    /** A log whose frame tick never ends during a test, so only a full frame or shutdown sends one */
+    private void useFrames(int maxFrameEvents) {
+        eventLog.shutdown();
+        appProperties.getBoardEvents().setFrameTickMs(60000);
+        appProperties.getBoardEvents().setMaxFrameEvents(maxFrameEvents);
+        eventLog = new BoardEventLog(messagingTemplate, membershipCache, appProperties);
+    }
+
+    /** The last message sent on board 1, a frame */
+    @SuppressWarnings("unchecked")
+    private List<BoardEventsDTO.Event> sentFrame(ArgumentCaptor<Map<String, Object>> headers) {
+        ArgumentCaptor<Object> body = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, atLeastOnce()).convertAndSend(
+            eq("/topic/board/1"),
+            body.capture(),
+            headers.capture()
+        );
+        return (List<BoardEventsDTO.Event>) body.getValue();
+    }
+
+    private long publish(Long boardId, String instanceId, String payload) {
+        return eventLog.publish(boardId, instanceId, payload, new HashMap<>());
+    }
+
+    private BoardEventsDTO position(Long boardId) {
+        return eventLog.eventsSince(boardId, null, null, MEMBER);
+    }
+
+    @Test
+    @DisplayName("numbers each board's broadcasts and sends the number in a header")
+    void numbersBroadcasts() {
+        Map<String, Object> headers = new HashMap<>();
+        headers.put(WebSocketConstants.OBJECT_INSTANCE_HEADER, "a");
+
+        assertThat(eventLog.publish(BOARD_ID, "a", "add a", headers)).isEqualTo(1);
+        assertThat(publish(BOARD_ID, null, "chat")).isEqualTo(2);
+        assertThat(publish(2L, null, "chat")).isEqualTo(1);
+
+        assertThat(headers).containsEntry(WebSocketConstants.BOARD_SEQUENCE_HEADER, "1");
+        verify(messagingTemplate).convertAndSend(eq("/topic/board/1"), eq((Object) "add a"), eq(headers));
+    }
+
+    @Test
+    @DisplayName("sends an event at once on a quiet board and the burst after it as one frame, in order")
+    void combinesBurstIntoFrame() {
+        useFrames(50);
+        Map<String, Object> moveHeaders = new HashMap<>();
+        moveHeaders.put(WebSocketConstants.OBJECT_INSTANCE_HEADER, "a;1");
+        moveHeaders.put(WebSocketConstants.OBJECT_BOUNDS_HEADER, "0.1,0.1,0.2,0.2");
+        Map<String, Object> deleteHeaders = new HashMap<>();
+        deleteHeaders.put(WebSocketConstants.OBJECT_INSTANCE_HEADER, "b");
+        Map<String, Object> batchHeaders = new HashMap<>();
+        batchHeaders.put(WebSocketConstants.OBJECT_BATCH_HEADER, "2");
+
+        publish(BOARD_ID, null, "first");
+        verify(messagingTemplate).convertAndSend(eq("/topic/board/1"), eq((Object) "first"), any(Map.class));
+
+        eventLog.publish(BOARD_ID, "a;1", "move a", moveHeaders);
+        publish(BOARD_ID, null, "chat");
+        eventLog.publish(BOARD_ID, "b", "delete b", deleteHeaders);
+        eventLog.publish(BOARD_ID, null, "batch", batchHeaders);
+        verifyNoMoreInteractions(messagingTemplate);
+
+        eventLog.shutdown();
+        ArgumentCaptor<Map<String, Object>> headers = ArgumentCaptor.forClass(Map.class);
+        assertThat(sentFrame(headers))
+            .extracting(BoardEventsDTO.Event::getSequence, BoardEventsDTO.Event::getPayload)
+            .containsExactly(tuple(2L, "move a"), tuple(3L, "chat"), tuple(4L, "delete b"), tuple(5L, "batch"));
+        assertThat(headers.getValue())
+            .containsEntry(WebSocketConstants.BOARD_SEQUENCE_HEADER, "5")
+            .containsEntry(WebSocketConstants.BOARD_FRAME_HEADER, "a%3B1 0.1,0.1,0.2,0.2;;b;*");
+    }
+
+    @Test
+    @DisplayName("sends a frame before its tick ends once it is full")
+    void sendsFullFrame() {
+        useFrames(2);
+        publish(BOARD_ID, null, "first");
+        publish(BOARD_ID, null, "second");
+        publish(BOARD_ID, null, "third");
+
+        ArgumentCaptor<Map<String, Object>> headers = ArgumentCaptor.forClass(Map.class);
+        assertThat(sentFrame(headers))
+            .extracting(BoardEventsDTO.Event::getPayload)
+            .containsExactly("second", "third");
+    }
+
+    @Test
+    @DisplayName("returns the events after a sequence number, with only the latest change of each object")
+    void returnsMissedEvents() {
+        when(membershipCache.isMember(BOARD_ID, MEMBER)).thenReturn(true);
+        publish(BOARD_ID, "a", "add a");
+        String stream = position(BOARD_ID).getStream();
+        publish(BOARD_ID, "b", "add b");
+        publish(BOARD_ID, null, "chat");
+        publish(BOARD_ID, "b", "move b");
+
+        BoardEventsDTO missed = eventLog.eventsSince(BOARD_ID, stream, 1L, MEMBER);
+
+        assertThat(missed.isResumable()).isTrue();
+        assertThat(missed.getSequence()).isEqualTo(4);
+        assertThat(missed.getEvents())
+            .extracting(BoardEventsDTO.Event::getSequence, BoardEventsDTO.Event::getPayload)
+            .containsExactly(tuple(3L, "chat"), tuple(4L, "move b"));
+        assertThat(eventLog.eventsSince(BOARD_ID, stream, 4L, MEMBER).getEvents()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("tells the client to reload once the events it missed are no longer kept")
+    void refusesAgedOutSequence() {
+        when(membershipCache.isMember(BOARD_ID, MEMBER)).thenReturn(true);
+        String stream = position(BOARD_ID).getStream();
+        for (int i = 0; i < 6; i++) {
+            publish(BOARD_ID, null, "chat " + i);
+        }
+
+        assertThat(eventLog.eventsSince(BOARD_ID, stream, 1L, MEMBER).isResumable()).isFalse();
+        assertThat(eventLog.eventsSince(BOARD_ID, stream, 2L, MEMBER).getEvents()).hasSize(4);
+        assertThat(eventLog.eventsSince(BOARD_ID, stream, 7L, MEMBER).isResumable()).isFalse();
+    }
+
+    @Test
+    @DisplayName("tells the client to reload when its numbers belong to another stream")
+    void refusesOtherStream() {
+        when(membershipCache.isMember(BOARD_ID, MEMBER)).thenReturn(true);
+        when(membershipCache.isMember(2L, MEMBER)).thenReturn(true);
+        when(membershipCache.isMember(3L, MEMBER)).thenReturn(true);
+        String stream = position(BOARD_ID).getStream();
+
+        assertThat(eventLog.eventsSince(BOARD_ID, "other", 0L, MEMBER).isResumable()).isFalse();
+        assertThat(position(BOARD_ID).isResumable()).isFalse();
+
+        // Board 1 is the least recently used of three and loses its log
+        position(2L);
+        position(3L);
+        BoardEventsDTO restarted = eventLog.eventsSince(BOARD_ID, stream, 0L, MEMBER);
+        assertThat(restarted.isResumable()).isFalse();
+        assertThat(restarted.getStream()).isNotEqualTo(stream);
+    }
+
+    @Test
+    @DisplayName("refuses users who are not members of the board")
+    void rejectsNonMembers() {
+        when(membershipCache.isMember(BOARD_ID, MEMBER)).thenReturn(false);
+
+        assertThatThrownBy(() -> position(BOARD_ID)).isInstanceOf(AccessDeniedException.class);
+    }
+}
@@ -0,0 +1,121 @@
+package io.github.sagimenahem.synchboard.service.board;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import io.github.sagimenahem.synchboard.entity.GroupMember;
+import io.github.sagimenahem.synchboard.repository.GroupMemberRepository;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Unit tests for {@link BoardMembershipCache}. The repository is mocked so the tests can count how
+ * often a board's members are actually loaded.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BoardMembershipCache")
+class BoardMembershipCacheTest {
+
+    private static final String MEMBER = "member@synchboard.com";
+    private static final String ADMIN = "admin@synchboard.com";
+    private static final String OUTSIDER = "outsider@synchboard.com";
+
+    @Mock
+    private GroupMemberRepository memberRepository;
+
+    @Mock
+    private ObjectProvider<MembershipInvalidationRelay> relayProvider;
+
+    @Mock
+    private MembershipInvalidationRelay relay;
+
+    private BoardMembershipCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = newCache(2, 60_000);
+    }
+
+    private BoardMembershipCache newCache(int maxBoards, long ttlMs) {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getMembershipCache().setMaxBoards(maxBoards);
+        appProperties.getMembershipCache().setTtlMs(ttlMs);
+        return new BoardMembershipCache(memberRepository, relayProvider, appProperties);
+    }
+
+    private static GroupMember membership(Long boardId, String email, boolean isAdmin) {
+        return GroupMember.builder().userEmail(email).boardGroupId(boardId).isAdmin(isAdmin).build();
+    }
+
+    private void boardHasMembers(Long boardId) {
+        when(memberRepository.findAllByBoardGroupId(boardId)).thenReturn(
+            List.of(membership(boardId, MEMBER, false), membership(boardId, ADMIN, true))
+        );
+    }
+
+    @Test
+    @DisplayName("answers member and admin checks from one load per board")
+    void loadsOncePerBoard() {
+        boardHasMembers(1L);
+
+        assertThat(cache.isMember(1L, MEMBER)).isTrue();
+        assertThat(cache.isMember(1L, OUTSIDER)).isFalse();
+        assertThat(cache.isAdmin(1L, ADMIN)).isTrue();
+        assertThat(cache.isAdmin(1L, MEMBER)).isFalse();
+
+        verify(memberRepository, times(1)).findAllByBoardGroupId(1L);
+    }
+
+    @Test
+    @DisplayName("reloads a board after it is invalidated and tells the other nodes")
+    void reloadsAfterInvalidation() {
+        boardHasMembers(1L);
+        when(relayProvider.getIfAvailable()).thenReturn(relay);
+
+        cache.isMember(1L, MEMBER);
+        cache.invalidate(1L);
+        cache.isMember(1L, MEMBER);
+
+        verify(memberRepository, times(2)).findAllByBoardGroupId(1L);
+        verify(relay).publish(1L);
+    }
+
+    @Test
+    @DisplayName("drops the least recently used board beyond the size bound")
+    void boundsCachedBoards() {
+        boardHasMembers(1L);
+        boardHasMembers(2L);
+        boardHasMembers(3L);
+
+        cache.isMember(1L, MEMBER);
+        cache.isMember(2L, MEMBER);
+        cache.isMember(1L, MEMBER);
+        cache.isMember(3L, MEMBER);
+        cache.isMember(1L, MEMBER);
+        cache.isMember(2L, MEMBER);
+
+        verify(memberRepository, times(1)).findAllByBoardGroupId(1L);
+        verify(memberRepository, times(2)).findAllByBoardGroupId(2L);
+    }
+
+    @Test
+    @DisplayName("reloads a board once its entry outlives the TTL")
+    void expiresEntries() {
+        cache = newCache(2, 0);
+        boardHasMembers(1L);
+
+        cache.isMember(1L, MEMBER);
+        cache.isMember(1L, MEMBER);
+
+        verify(memberRepository, times(2)).findAllByBoardGroupId(1L);
+    }
+}
@@ -0,0 +1,123 @@
+package io.github.sagimenahem.synchboard.service.board;
+
+import static io.github.sagimenahem.synchboard.constants.FileConstants.DEFAULT_SENDER_EMAIL;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import io.github.sagimenahem.synchboard.repository.BoardObjectStreamRepository;
+import io.github.sagimenahem.synchboard.repository.BoardObjectStreamRepository.ObjectRowHandler;
+import io.github.sagimenahem.synchboard.service.board.persistence.BoardWriteBehindService;
+import io.github.sagimenahem.synchboard.service.board.state.BoardStateEngine;
+import io.github.sagimenahem.synchboard.service.board.state.LiveBoardObject;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Unit tests for the streamed board read of {@link BoardObjectService}.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BoardObjectService streaming")
+class BoardObjectServiceTest {
+
+    private static final String MEMBER = "member@synchboard.com";
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+    @Mock
+    private BoardMembershipCache membershipCache;
+
+    @Mock
+    private BoardStateEngine boardStateEngine;
+
+    @Mock
+    private BoardObjectStreamRepository streamRepository;
+
+    @Mock
+    private BoardWriteBehindService writeBehindService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BoardObjectService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new BoardObjectService(
+            membershipCache,
+            boardStateEngine,
+            streamRepository,
+            writeBehindService,
+            objectMapper,
+            transactionManager
+        );
+        when(membershipCache.isMember(1L, MEMBER)).thenReturn(true);
+    }
+
+    private JsonNode stream() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.streamObjectsForBoard(1L, MEMBER).writeTo(out);
+        return objectMapper.readTree(out.toByteArray());
+    }
+
+    @Test
+    @DisplayName("copies stored object data through verbatim when the board is not resident")
+    void streamsFromDatabase() throws IOException {
+        when(boardStateEngine.getObjectsIfResident(1L)).thenReturn(Optional.empty());
+        doAnswer((invocation) -> {
+            ObjectRowHandler handler = invocation.getArgument(1);
+            handler.handle("a", "OBJECT_ADD", "{\"x\": 1, \"points\": [1, 2]}", MEMBER);
+            handler.handle("b", "OBJECT_ADD", "{\"x\": 2}", null);
+            return null;
+        })
+            .when(streamRepository)
+            .forEachActiveObject(eq(1L), any(ObjectRowHandler.class));
+
+        JsonNode body = stream();
+
+        assertThat(body.size()).isEqualTo(2);
+        assertThat(body.get(0).get("instanceId").asString()).isEqualTo("a");
+        assertThat(body.get(0).get("payload").get("points").size()).isEqualTo(2);
+        assertThat(body.get(0).get("sender").asString()).isEqualTo(MEMBER);
+        assertThat(body.get(1).get("sender").asString()).isEqualTo(DEFAULT_SENDER_EMAIL);
+        InOrder order = inOrder(writeBehindService, streamRepository);
+        order.verify(writeBehindService).flush();
+        order.verify(streamRepository).forEachActiveObject(eq(1L), any(ObjectRowHandler.class));
+    }
+
+    @Test
+    @DisplayName("serves a resident board from the live state without touching the database")
+    void streamsFromMemory() throws IOException {
+        LiveBoardObject object = LiveBoardObject.builder()
+            .instanceId("a")
+            .objectType("OBJECT_ADD")
+            .payload(objectMapper.readTree("{\"x\": 1}"))
+            .createdByEmail(MEMBER)
+            .build();
+        when(boardStateEngine.getObjectsIfResident(1L)).thenReturn(Optional.of(List.of(object)));
+
+        JsonNode body = stream();
+
+        assertThat(body.size()).isEqualTo(1);
+        assertThat(body.get(0).get("type").asString()).isEqualTo("OBJECT_ADD");
+        assertThat(body.get(0).get("payload").get("x").asInt()).isEqualTo(1);
+        verifyNoInteractions(streamRepository, writeBehindService);
+    }
+}
@@ -0,0 +1,105 @@
+package io.github.sagimenahem.synchboard.service.board;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link BoardTaskExecutor}, covering per-board ordering and isolation between
+ * boards.
+ */
+@DisplayName("BoardTaskExecutor")
+class BoardTaskExecutorTest {
+
+    private final BoardTaskExecutor executor = new BoardTaskExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("runs a board's tasks one at a time in submission order")
+    void preservesOrderPerBoard() throws InterruptedException {
+        List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(500);
+
+        for (int i = 0; i < 500; i++) {
+            int value = i;
+            executor.execute(1L, () -> {
+                seen.add(value);
+                done.countDown();
+            });
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(seen).containsExactlyElementsOf(IntStream.range(0, 500).boxed().toList());
+    }
+
+    @Test
+    @DisplayName("keeps running other boards while one board's task is blocked")
+    void isolatesBoards() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherBoardRan = new CountDownLatch(1);
+
+        executor.execute(1L, () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute(2L, otherBoardRan::countDown);
+
+        assertThat(otherBoardRan.await(5, TimeUnit.SECONDS)).isTrue();
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("continues a lane after a task throws")
+    void survivesFailingTask() throws InterruptedException {
+        CountDownLatch next = new CountDownLatch(1);
+
+        executor.execute(1L, () -> {
+            throw new IllegalStateException("boom");
+        });
+        executor.execute(1L, next::countDown);
+
+        assertThat(next.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    @DisplayName("runs a called task after the board's earlier tasks and hands back its result or exception")
+    void callsOnLane() {
+        List<String> seen = Collections.synchronizedList(new ArrayList<>());
+
+        executor.execute(1L, () -> {
+            try {
+                // Still running when the call is submitted
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            seen.add("earlier");
+        });
+
+        assertThat(executor.call(1L, () -> seen.add("called") ? seen.size() : -1)).isEqualTo(2);
+        assertThat(seen).containsExactly("earlier", "called");
+        assertThatThrownBy(() ->
+            executor.call(1L, () -> {
+                throw new IllegalStateException("boom");
+            })
+        )
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("boom");
+    }
+}
@@ -0,0 +1,164 @@
+package io.github.sagimenahem.synchboard.service.board;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.sagimenahem.synchboard.service.board.state.BoundingBox;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link BoardViewportRegistry}. The catch-up source is a map of current bounds, and
+ * the messages it sends are recorded.
+ */
+@DisplayName("BoardViewportRegistry")
+class BoardViewportRegistryTest {
+
+    private static final String SESSION = "session-1";
+    private static final String SUBSCRIPTION = "sub-0";
+    private static final Long BOARD_ID = 1L;
+
+    private static final BoundingBox LEFT_HALF = BoundingBox.of(0, 0, 0.5, 1);
+    private static final BoundingBox LEFT_SPOT = BoundingBox.of(0.1, 0.1, 0.2, 0.2);
+    private static final BoundingBox RIGHT_SPOT = BoundingBox.of(0.8, 0.8, 0.9, 0.9);
+
+    private final BoardViewportRegistry registry = new BoardViewportRegistry();
+    private final Map<String, BoundingBox> current = new HashMap<>();
+    private final List<String> sent = new ArrayList<>();
+    private long sequence;
+
+    private final BoardViewportRegistry.CatchUp catchUp = new BoardViewportRegistry.CatchUp() {
+        @Override
+        public BoundingBox locate(String instanceId) {
+            return current.get(instanceId);
+        }
+
+        @Override
+        public void send(String subscriptionId, String instanceId) {
+            sent.add(subscriptionId + ":" + instanceId);
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        registry.subscribed(SESSION, SUBSCRIPTION, BOARD_ID);
+    }
+
+    private boolean admit(String instanceId, BoundingBox bounds) {
+        current.put(instanceId, bounds);
+        return admit(SUBSCRIPTION, instanceId, bounds);
+    }
+
+    private boolean admit(String subscriptionId, String instanceId, BoundingBox bounds) {
+        return registry.admit(SESSION, subscriptionId, instanceId, bounds, ++sequence);
+    }
+
+    @Test
+    @DisplayName("delivers everything to subscriptions without a viewport")
+    void deliversWithoutViewport() {
+        assertThat(admit("a", RIGHT_SPOT)).isTrue();
+        assertThat(admit("a", RIGHT_SPOT)).isTrue();
+        assertThat(admit("unknown", "a", RIGHT_SPOT)).isTrue();
+        assertThat(registry.admit("other-session", SUBSCRIPTION, "a", RIGHT_SPOT, ++sequence)).isTrue();
+    }
+
+    @Test
+    @DisplayName("delivers the first change of an object, then only the ones the viewport shows")
+    void filtersOnceCopyIsKnown() {
+        registry.setViewport(SESSION, BOARD_ID, LEFT_HALF);
+
+        assertThat(admit("a", RIGHT_SPOT)).isTrue();
+        assertThat(admit("a", RIGHT_SPOT)).isFalse();
+        assertThat(admit("a", LEFT_SPOT)).isTrue();
+    }
+
+    @Test
+    @DisplayName("delivers moves out of the viewport and withholds deletes of objects it does not show")
+    void deliversMovesOutOfView() {
+        registry.setViewport(SESSION, BOARD_ID, LEFT_HALF);
+        admit("a", LEFT_SPOT);
+        admit("b", RIGHT_SPOT);
+
+        assertThat(admit("a", RIGHT_SPOT)).isTrue();
+        assertThat(admit(SUBSCRIPTION, "a", null)).isFalse();
+        assertThat(admit(SUBSCRIPTION, "b", null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("catches up the held-back objects the new viewport shows")
+    void catchesUpOnMove() {
+        registry.setViewport(SESSION, BOARD_ID, LEFT_HALF);
+        admit("a", RIGHT_SPOT);
+        admit("b", BoundingBox.of(0.6, 0.2, 0.7, 0.3));
+        admit("a", BoundingBox.of(0.7, 0.7, 0.8, 0.8));
+        admit("b", BoundingBox.of(0.6, 0.1, 0.7, 0.2));
+
+        assertThat(registry.setViewport(SESSION, BOARD_ID, BoundingBox.of(0.5, 0.5, 1, 1))).isTrue();
+        assertThat(registry.catchUp(SESSION, BOARD_ID, catchUp)).isEqualTo(1);
+        assertThat(sent).containsExactly(SUBSCRIPTION + ":a");
+
+        // The caught-up copy is now known and visible, so its next change is delivered
+        assertThat(admit("a", BoundingBox.of(0.7, 0.7, 0.8, 0.8))).isTrue();
+    }
+
+    @Test
+    @DisplayName("leaves out objects changed after the viewport moved")
+    void skipsObjectsChangedAfterMove() {
+        registry.setViewport(SESSION, BOARD_ID, LEFT_HALF);
+        admit("a", RIGHT_SPOT);
+        admit("a", BoundingBox.of(0.8, 0.1, 0.9, 0.2));
+
+        registry.setViewport(SESSION, BOARD_ID, BoundingBox.of(0.5, 0, 1, 0.5));
+        // Broadcast after the move, not yet applied to the live state the catch-up reads
+        assertThat(admit(SUBSCRIPTION, "a", LEFT_SPOT)).isFalse();
+
+        assertThat(registry.catchUp(SESSION, BOARD_ID, catchUp)).isZero();
+        assertThat(sent).isEmpty();
+    }
+
+    @Test
+    @DisplayName("gives new subscriptions the viewport the session reported for the board")
+    void inheritsSessionViewport() {
+        registry.setViewport(SESSION, BOARD_ID, LEFT_HALF);
+        registry.subscribed(SESSION, "sub-1", BOARD_ID);
+        registry.subscribed(SESSION, "sub-2", 2L);
+
+        admit("sub-1", "a", RIGHT_SPOT);
+        assertThat(admit("sub-1", "a", RIGHT_SPOT)).isFalse();
+        admit("sub-2", "a", RIGHT_SPOT);
+        assertThat(admit("sub-2", "a", RIGHT_SPOT)).isTrue();
+    }
+
+    @Test
+    @DisplayName("forgets a session's viewports when it disconnects")
+    void forgetsOnDisconnect() {
+        registry.setViewport(SESSION, BOARD_ID, LEFT_HALF);
+        admit("a", RIGHT_SPOT);
+        registry.disconnected(SESSION);
+
+        assertThat(admit("a", RIGHT_SPOT)).isTrue();
+        assertThat(registry.catchUp(SESSION, BOARD_ID, catchUp)).isZero();
+    }
+
+    @Test
+    @DisplayName("tells clients to resume from before their oldest held-back change")
+    void reportsResumeSequence() {
+        registry.setViewport(SESSION, BOARD_ID, LEFT_HALF);
+        admit("a", RIGHT_SPOT);
+        admit("b", RIGHT_SPOT);
+        assertThat(registry.resumeSequence(SESSION, SUBSCRIPTION)).isNull();
+
+        admit("a", RIGHT_SPOT);
+        admit("b", RIGHT_SPOT);
+        admit("a", RIGHT_SPOT);
+        assertThat(registry.resumeSequence(SESSION, SUBSCRIPTION)).isEqualTo(2L);
+
+        admit("a", LEFT_SPOT);
+        assertThat(registry.resumeSequence(SESSION, SUBSCRIPTION)).isEqualTo(3L);
+        assertThat(registry.resumeSequence(SESSION, "unknown")).isNull();
+    }
+}
@@ -0,0 +1,128 @@
+package io.github.sagimenahem.synchboard.service.board;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import io.github.sagimenahem.synchboard.dto.board.MessagePageDTO;
+import io.github.sagimenahem.synchboard.dto.websocket.ChatMessageDTO;
+import io.github.sagimenahem.synchboard.entity.Message;
+import io.github.sagimenahem.synchboard.exception.InvalidRequestException;
+import io.github.sagimenahem.synchboard.repository.GroupBoardRepository;
+import io.github.sagimenahem.synchboard.repository.MessageRepository;
+import io.github.sagimenahem.synchboard.repository.UserRepository;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+/**
+ * Unit tests for the paginated chat history of {@link ChatService}.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ChatService message pages")
+class ChatServiceTest {
+
+    private static final String MEMBER = "member@synchboard.com";
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 1, 12, 0, 0, 123_456_000);
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private MessageRepository messageRepository;
+
+    @Mock
+    private GroupBoardRepository groupBoardRepository;
+
+    @Mock
+    private BoardMembershipCache membershipCache;
+
+    @Mock
+    private BoardEventLog boardEventLog;
+
+    private ChatService chatService;
+
+    @BeforeEach
+    void setUp() {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getChat().setPageSize(2);
+        appProperties.getChat().setMaxPageSize(3);
+        chatService = new ChatService(
+            userRepository,
+            messageRepository,
+            groupBoardRepository,
+            membershipCache,
+            boardEventLog,
+            appProperties
+        );
+    }
+
+    private static Message message(long id, LocalDateTime timestamp) {
+        return Message.builder()
+            .messageId(id)
+            .timestamp(timestamp)
+            .messageContent("message " + id)
+            .senderFullNameSnapshot("Former Member")
+            .build();
+    }
+
+    @Test
+    @DisplayName("serves the newest page oldest first with a cursor that resumes before it")
+    void pagesBackwards() {
+        when(membershipCache.isMember(1L, MEMBER)).thenReturn(true);
+        // Two messages share a timestamp, so the cursor must carry the ID to split them
+        Message newest = message(4L, NOW.plusSeconds(1));
+        Message tiedLater = message(3L, NOW);
+        Message tiedEarlier = message(2L, NOW);
+        when(messageRepository.findLatestByBoardWithSender(1L, Limit.of(3))).thenReturn(
+            List.of(newest, tiedLater, tiedEarlier)
+        );
+
+        MessagePageDTO first = chatService.getMessagePage(1L, MEMBER, null, null);
+
+        assertThat(first.getMessages()).extracting(ChatMessageDTO.Response::getId).containsExactly(3L, 4L);
+        assertThat(first.getNextCursor()).isNotNull();
+
+        when(
+            messageRepository.findOlderByBoardWithSender(eq(1L), eq(NOW), eq(3L), any(Limit.class))
+        ).thenReturn(List.of(tiedEarlier));
+
+        MessagePageDTO second = chatService.getMessagePage(1L, MEMBER, first.getNextCursor(), null);
+
+        assertThat(second.getMessages()).extracting(ChatMessageDTO.Response::getId).containsExactly(2L);
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("caps the requested page size at the configured maximum")
+    void capsPageSize() {
+        when(membershipCache.isMember(1L, MEMBER)).thenReturn(true);
+        when(messageRepository.findLatestByBoardWithSender(eq(1L), any(Limit.class))).thenReturn(List.of());
+
+        MessagePageDTO page = chatService.getMessagePage(1L, MEMBER, null, 1000);
+
+        verify(messageRepository).findLatestByBoardWithSender(1L, Limit.of(4));
+        assertThat(page.getMessages()).isEmpty();
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("rejects a cursor the server did not issue")
+    void rejectsMalformedCursor() {
+        when(membershipCache.isMember(1L, MEMBER)).thenReturn(true);
+
+        assertThatThrownBy(() -> chatService.getMessagePage(1L, MEMBER, "not-a-cursor", null)).isInstanceOf(
+            InvalidRequestException.class
+        );
+    }
+}
@@ -0,0 +1,96 @@
+package io.github.sagimenahem.synchboard.service.board;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import io.github.sagimenahem.synchboard.dto.websocket.UserUpdateDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.util.MimeTypeUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Unit tests for {@link NotificationFanOut}. Fan-outs are awaited by shutting the sender pool down,
+ * which waits for queued chunks.
+ */
+@DisplayName("NotificationFanOut")
+class NotificationFanOutTest {
+
+    private final SimpMessageSendingOperations messagingTemplate = mock(SimpMessageSendingOperations.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private NotificationFanOut fanOut;
+
+    @BeforeEach
+    void setUp() {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getNotifications().setFanOutThreads(2);
+        appProperties.getNotifications().setFanOutChunkSize(10);
+        fanOut = new NotificationFanOut(messagingTemplate, JsonMapper.builder().build(), meterRegistry, appProperties);
+    }
+
+    @Test
+    @DisplayName("serializes the payload once and sends the same message to every destination")
+    @SuppressWarnings("unchecked")
+    void sendsOneMessageToAll() {
+        List<String> destinations = IntStream.range(0, 25).mapToObj((i) -> "/topic/user/user" + i).toList();
+
+        fanOut.send(destinations, new UserUpdateDTO(UserUpdateDTO.UpdateType.BOARD_LIST_CHANGED));
+        fanOut.shutdown();
+
+        ArgumentCaptor<String> destination = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Message<?>> message = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate, times(25)).send(destination.capture(), message.capture());
+        assertThat(destination.getAllValues()).containsExactlyInAnyOrderElementsOf(destinations);
+        assertThat(message.getAllValues()).containsOnly(message.getValue());
+        assertThat(new String((byte[]) message.getValue().getPayload(), StandardCharsets.UTF_8)).contains(
+            "BOARD_LIST_CHANGED"
+        );
+        assertThat(message.getValue().getHeaders().get(MessageHeaders.CONTENT_TYPE)).isEqualTo(
+            MimeTypeUtils.APPLICATION_JSON
+        );
+        assertThat(meterRegistry.summary("synchboard.notifications.fan-out.size").totalAmount()).isEqualTo(25);
+        assertThat(meterRegistry.timer("synchboard.notifications.fan-out.duration").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("keeps sending to the other destinations when one send fails")
+    void isolatesFailures() {
+        doThrow(new IllegalStateException("broker unavailable"))
+            .when(messagingTemplate)
+            .send(eq("/topic/user/a"), any(Message.class));
+
+        UserUpdateDTO payload = new UserUpdateDTO(UserUpdateDTO.UpdateType.BOARD_LIST_CHANGED);
+        fanOut.send(List.of("/topic/user/a", "/topic/user/b"), payload);
+        fanOut.shutdown();
+
+        verify(messagingTemplate, times(2)).send(anyString(), any(Message.class));
+        assertThat(meterRegistry.timer("synchboard.notifications.fan-out.duration").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("sends nothing and records nothing for an empty destination list")
+    void ignoresEmptyFanOut() {
+        fanOut.send(List.of(), new UserUpdateDTO(UserUpdateDTO.UpdateType.BOARD_LIST_CHANGED));
+        fanOut.shutdown();
+
+        verifyNoInteractions(messagingTemplate);
+        assertThat(meterRegistry.summary("synchboard.notifications.fan-out.size").count()).isZero();
+    }
+}
@@ -0,0 +1,167 @@
+package io.github.sagimenahem.synchboard.service.board.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import io.github.sagimenahem.synchboard.repository.ActionHistoryRetentionRepository;
+import io.github.sagimenahem.synchboard.repository.ActionHistoryRetentionRepository.DeletedHistory;
+import io.github.sagimenahem.synchboard.repository.ActionHistoryRetentionRepository.HistoryPosition;
+import io.github.sagimenahem.synchboard.repository.PartitionRepository;
+import io.github.sagimenahem.synchboard.repository.PartitionRepository.DroppedPartition;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for {@link ActionHistoryRetentionService}. The repository is mocked; each test
+ * scripts the boards over the limits and the rows every delete batch reports.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ActionHistoryRetentionService")
+class ActionHistoryRetentionServiceTest {
+
+    private static final Long BOARD_ID = 5L;
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 1, 12, 0);
+
+    @Mock
+    private ActionHistoryRetentionRepository retentionRepository;
+
+    @Mock
+    private PartitionRepository partitionRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AppProperties appProperties;
+
+    @BeforeEach
+    void setUp() {
+        appProperties = new AppProperties();
+        appProperties.getBoardState().setMaxHistoryEntries(10);
+        appProperties.getHistoryRetention().setMaxDepth(20);
+        appProperties.getHistoryRetention().setMaxAgeDays(30);
+        appProperties.getHistoryRetention().setBatchSize(100);
+        appProperties.getHistoryRetention().setMaxBatchesPerRun(3);
+    }
+
+    private ActionHistoryRetentionService service() {
+        return new ActionHistoryRetentionService(
+            retentionRepository,
+            partitionRepository,
+            meterRegistry,
+            appProperties
+        );
+    }
+
+    private static HistoryPosition position(LocalDateTime timestamp, long actionId) {
+        return HistoryPosition.builder().timestamp(timestamp).actionId(actionId).build();
+    }
+
+    private static DeletedHistory deleted(int rows) {
+        return DeletedHistory.builder().rows(rows).bytes(rows * 50L).build();
+    }
+
+    @Test
+    @DisplayName("deletes in batches until a batch comes back short, and counts what it deleted")
+    void deletesInBatches() {
+        HistoryPosition depthLimit = position(NOW.minusDays(1), 700);
+        when(retentionRepository.findBoardsOverLimits(20, NOW.minusDays(30))).thenReturn(List.of(BOARD_ID));
+        when(retentionRepository.findPosition(BOARD_ID, 20)).thenReturn(Optional.of(depthLimit));
+        when(retentionRepository.deleteBefore(BOARD_ID, depthLimit, 100)).thenReturn(deleted(100), deleted(40));
+
+        assertThat(service().purge(NOW)).isEqualTo(140);
+
+        verify(retentionRepository, times(2)).deleteBefore(BOARD_ID, depthLimit, 100);
+        assertThat(meterRegistry.counter("synchboard.history.retention.rows").count()).isEqualTo(140);
+        assertThat(meterRegistry.counter("synchboard.history.retention.bytes").count()).isEqualTo(7000);
+    }
+
+    @Test
+    @DisplayName("drops the partitions past the age limit before deleting the rest row by row")
+    void dropsExpiredPartitions() {
+        DroppedPartition partition = DroppedPartition.builder()
+            .name("action_history_p202503")
+            .bytes(8192)
+            .estimatedRows(60)
+            .build();
+        when(retentionRepository.findBoardsOverLimits(20, NOW.minusDays(30))).thenReturn(List.of());
+        when(
+            partitionRepository.dropPartitionsBefore(PartitionRepository.ACTION_HISTORY, NOW.minusDays(30))
+        ).thenReturn(List.of(partition));
+
+        assertThat(service().purge(NOW)).isZero();
+
+        assertThat(meterRegistry.counter("synchboard.history.retention.rows").count()).isEqualTo(60);
+        assertThat(meterRegistry.counter("synchboard.history.retention.bytes").count()).isEqualTo(8192);
+    }
+
+    @Test
+    @DisplayName("keeps only the rows within both the depth and the age limit")
+    void appliesStricterLimit() {
+        when(retentionRepository.findBoardsOverLimits(20, NOW.minusDays(30))).thenReturn(List.of(1L, 2L, 3L));
+        when(retentionRepository.findPosition(1L, 20)).thenReturn(Optional.of(position(NOW.minusDays(40), 9)));
+        when(retentionRepository.findPosition(2L, 20)).thenReturn(Optional.of(position(NOW.minusDays(5), 9)));
+        when(retentionRepository.findPosition(3L, 20)).thenReturn(Optional.empty());
+        when(retentionRepository.deleteBefore(anyLong(), any(), anyInt())).thenReturn(deleted(1));
+
+        service().purge(NOW);
+
+        ArgumentCaptor<HistoryPosition> limits = ArgumentCaptor.forClass(HistoryPosition.class);
+        verify(retentionRepository, times(3)).deleteBefore(anyLong(), limits.capture(), eq(100));
+        assertThat(limits.getAllValues())
+            .extracting(HistoryPosition::getTimestamp)
+            .containsExactly(NOW.minusDays(30), NOW.minusDays(5), NOW.minusDays(30));
+    }
+
+    @Test
+    @DisplayName("never keeps fewer actions than undo can reach, and ignores age when it is turned off")
+    void keepsUndoDepth() {
+        appProperties.getHistoryRetention().setMaxDepth(5);
+        appProperties.getHistoryRetention().setMaxAgeDays(0);
+        when(retentionRepository.findBoardsOverLimits(10, null)).thenReturn(List.of(BOARD_ID));
+        when(retentionRepository.findPosition(BOARD_ID, 10)).thenReturn(Optional.empty());
+
+        assertThat(service().purge(NOW)).isZero();
+
+        verify(retentionRepository, never()).deleteBefore(anyLong(), any(), anyInt());
+        verify(partitionRepository, never()).dropPartitionsBefore(any(), any());
+    }
+
+    @Test
+    @DisplayName("stops after the run's batches and leaves the rest to the next run")
+    void stopsAfterMaxBatches() {
+        HistoryPosition depthLimit = position(NOW.minusDays(1), 700);
+        when(retentionRepository.findBoardsOverLimits(20, NOW.minusDays(30))).thenReturn(List.of(1L, 2L));
+        when(retentionRepository.findPosition(1L, 20)).thenReturn(Optional.of(depthLimit));
+        when(retentionRepository.deleteBefore(1L, depthLimit, 100)).thenReturn(deleted(100));
+
+        assertThat(service().purge(NOW)).isEqualTo(300);
+
+        verify(retentionRepository, times(3)).deleteBefore(1L, depthLimit, 100);
+        verify(retentionRepository, never()).findPosition(2L, 20);
+    }
+
+    @Test
+    @DisplayName("does nothing when turned off")
+    void skipsWhenDisabled() {
+        appProperties.getHistoryRetention().setEnabled(false);
+
+        service().purgeExpired();
+
+        verify(retentionRepository, never()).findBoardsOverLimits(anyInt(), any());
+    }
+}
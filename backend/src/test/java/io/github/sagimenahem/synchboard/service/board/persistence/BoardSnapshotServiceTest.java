@@ -0,0 +1,190 @@
+package io.github.sagimenahem.synchboard.service.board.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import io.github.sagimenahem.synchboard.repository.BoardSnapshotRepository;
+import io.github.sagimenahem.synchboard.repository.BoardSnapshotRepository.ObjectChange;
+import io.github.sagimenahem.synchboard.repository.BoardSnapshotRepository.StoredSnapshot;
+import io.github.sagimenahem.synchboard.service.board.state.LiveBoardObject;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Unit tests for {@link BoardSnapshotService}. The repository is mocked; snapshots written by
+ * {@link BoardSnapshotService#compact} are captured and served back to later loads.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BoardSnapshotService")
+class BoardSnapshotServiceTest {
+
+    private static final Long BOARD_ID = 3L;
+    private static final String USER = "member@synchboard.com";
+
+    @Mock
+    private BoardSnapshotRepository snapshotRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BoardSnapshotService service;
+
+    @BeforeEach
+    void setUp() {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getBoardSnapshot().setDeltaThreshold(2);
+        service = new BoardSnapshotService(
+            snapshotRepository,
+            JsonMapper.builder().build(),
+            transactionManager,
+            appProperties
+        );
+    }
+
+    private static ObjectChange row(long objectId, String instanceId, String json, boolean active, long changeSeq) {
+        return ObjectChange.builder()
+            .objectId(objectId)
+            .instanceId(instanceId)
+            .objectType("OBJECT_ADD")
+            .objectData(json)
+            .active(active)
+            .createdByEmail(USER)
+            .lastEditedByEmail(USER)
+            .changeSeq(changeSeq)
+            .build();
+    }
+
+    /** Compacts the given rows into a snapshot and returns it as the repository would store it */
+    private StoredSnapshot snapshotOf(List<ObjectChange> rows) {
+        when(snapshotRepository.tryLockCompaction(BOARD_ID)).thenReturn(true);
+        when(snapshotRepository.find(BOARD_ID)).thenReturn(Optional.empty());
+        when(snapshotRepository.findChangedSince(BOARD_ID, 0)).thenReturn(rows);
+        when(snapshotRepository.save(eq(BOARD_ID), anyLong(), anyInt(), any())).thenReturn(true);
+
+        assertThat(service.compact(BOARD_ID)).isTrue();
+
+        ArgumentCaptor<Long> version = ArgumentCaptor.forClass(Long.class);
+        ArgumentCaptor<byte[]> data = ArgumentCaptor.forClass(byte[].class);
+        verify(snapshotRepository).save(eq(BOARD_ID), version.capture(), eq(rows.size()), data.capture());
+        return StoredSnapshot.builder().version(version.getValue()).data(data.getValue()).build();
+    }
+
+    @Test
+    @DisplayName("loads the snapshot and applies only the rows changed since its version")
+    void loadsSnapshotPlusDelta() {
+        StoredSnapshot snapshot = snapshotOf(
+            List.of(
+                row(1, "a", "{\"x\":1}", true, 10),
+                row(2, "b", "{\"x\":2}", true, 11),
+                row(3, "c", "{}", true, 12)
+            )
+        );
+        assertThat(snapshot.getVersion()).isEqualTo(12);
+
+        when(snapshotRepository.find(BOARD_ID)).thenReturn(Optional.of(snapshot));
+        // b is deleted, d is added and a, further down the stack, is edited
+        when(snapshotRepository.findChangedSince(BOARD_ID, 12)).thenReturn(
+            List.of(
+                row(2, "b", "{\"x\":2}", false, 13),
+                row(4, "d", "{}", true, 14),
+                row(1, "a", "{\"x\":5}", true, 15)
+            )
+        );
+
+        List<LiveBoardObject> objects = service.load(BOARD_ID);
+
+        assertThat(objects).extracting(LiveBoardObject::getInstanceId).containsExactly("a", "c", "d");
+        assertThat(objects.get(0).getPayload().get("x").asInt()).isEqualTo(5);
+        assertThat(objects.get(1).getCreatedByEmail()).isEqualTo(USER);
+    }
+
+    @Test
+    @DisplayName("compacts a board only once its delta reaches the threshold")
+    void compactsPastThreshold() {
+        service.recordChanges(BOARD_ID, 1);
+        service.compactPending();
+        verify(snapshotRepository, never()).findChangedSince(eq(BOARD_ID), anyLong());
+
+        when(snapshotRepository.tryLockCompaction(BOARD_ID)).thenReturn(true);
+        when(snapshotRepository.find(BOARD_ID)).thenReturn(Optional.empty());
+        when(snapshotRepository.findChangedSince(BOARD_ID, 0)).thenReturn(
+            List.of(row(1, "a", "{}", true, 1), row(2, "b", "{}", true, 2))
+        );
+        service.recordChanges(BOARD_ID, 1);
+        service.compactPending();
+
+        verify(snapshotRepository).save(eq(BOARD_ID), eq(2L), eq(2), any());
+    }
+
+    @Test
+    @DisplayName("leaves a board locked out of compaction for the next run")
+    void retriesLockedOutBoard() {
+        when(snapshotRepository.tryLockCompaction(BOARD_ID)).thenReturn(false, true);
+        when(snapshotRepository.find(BOARD_ID)).thenReturn(Optional.empty());
+        when(snapshotRepository.findChangedSince(BOARD_ID, 0)).thenReturn(
+            List.of(row(1, "a", "{}", true, 1), row(2, "b", "{}", true, 2))
+        );
+        when(snapshotRepository.save(eq(BOARD_ID), anyLong(), anyInt(), any())).thenReturn(true);
+        service.recordChanges(BOARD_ID, 2);
+
+        service.compactPending();
+        verify(snapshotRepository, never()).findChangedSince(eq(BOARD_ID), anyLong());
+
+        service.compactPending();
+        verify(snapshotRepository).save(eq(BOARD_ID), eq(2L), eq(2), any());
+    }
+
+    @Test
+    @DisplayName("locks the boards out of compaction in a fixed order")
+    void locksOutBoardsInOrder() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            service.holdCompactionUntilCompletion(Set.of(9L, BOARD_ID, 5L));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        InOrder order = inOrder(snapshotRepository);
+        order.verify(snapshotRepository).lockOutCompaction(BOARD_ID);
+        order.verify(snapshotRepository).lockOutCompaction(5L);
+        order.verify(snapshotRepository).lockOutCompaction(9L);
+        assertThatThrownBy(() -> service.holdCompactionUntilCompletion(Set.of(BOARD_ID))).isInstanceOf(
+            IllegalStateException.class
+        );
+    }
+
+    @Test
+    @DisplayName("falls back to reading the whole board when the snapshot cannot be decoded")
+    void ignoresUnreadableSnapshot() {
+        StoredSnapshot corrupt = StoredSnapshot.builder()
+            .version(50)
+            .data("not a snapshot".getBytes(StandardCharsets.UTF_8))
+            .build();
+        when(snapshotRepository.find(BOARD_ID)).thenReturn(Optional.of(corrupt));
+        when(snapshotRepository.findChangedSince(BOARD_ID, 0)).thenReturn(List.of(row(1, "a", "{}", true, 40)));
+
+        assertThat(service.load(BOARD_ID)).extracting(LiveBoardObject::getInstanceId).containsExactly("a");
+    }
+}
@@ -0,0 +1,373 @@
+package io.github.sagimenahem.synchboard.service.board.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import io.github.sagimenahem.synchboard.dto.websocket.BoardActionDTO.ActionType;
+import io.github.sagimenahem.synchboard.repository.BoardWriteBatchRepository;
+import io.github.sagimenahem.synchboard.repository.BoardWriteBatchRepository.HistoryRow;
+import io.github.sagimenahem.synchboard.repository.BoardWriteBatchRepository.ObjectRow;
+import io.github.sagimenahem.synchboard.repository.BoardWriteBatchRepository.UndoneFlag;
+import io.github.sagimenahem.synchboard.service.board.BoardNotificationService;
+import io.github.sagimenahem.synchboard.service.board.state.BoardChange;
+import io.github.sagimenahem.synchboard.service.board.state.BoardChange.HistoryEffect;
+import io.github.sagimenahem.synchboard.service.board.state.BoardStateEngine;
+import io.github.sagimenahem.synchboard.service.board.state.LiveBoardObject;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Unit tests for {@link BoardWriteBehindService}. The flusher thread is never started; each test
+ * queues changes and calls {@link BoardWriteBehindService#flush()} directly, then inspects the rows
+ * handed to the mocked batch repository.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BoardWriteBehindService")
+class BoardWriteBehindServiceTest {
+
+    private static final String USER = "member@synchboard.com";
+    private static final String OTHER_USER = "other@synchboard.com";
+
+    @Mock
+    private BoardWriteBatchRepository batchRepository;
+
+    @Mock
+    private ObjectProvider<BoardStateEngine> engineProvider;
+
+    @Mock
+    private BoardStateEngine boardStateEngine;
+
+    @Mock
+    private ObjectProvider<BoardNotificationService> notificationProvider;
+
+    @Mock
+    private BoardNotificationService notificationService;
+
+    @Mock
+    private BoardSnapshotService snapshotService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+    private BoardWriteBehindService service;
+    private LocalDateTime clock;
+
+    @BeforeEach
+    void setUp() {
+        service = newService(0);
+        clock = LocalDateTime.of(2026, 1, 1, 12, 0);
+    }
+
+    private BoardWriteBehindService newService(long coalesceWindowMs) {
+        return newService(coalesceWindowMs, new AppProperties().getWriteBehind().getBatchSize());
+    }
+
+    private BoardWriteBehindService newService(long coalesceWindowMs, int batchSize) {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getWriteBehind().setCoalesceWindowMs(coalesceWindowMs);
+        appProperties.getWriteBehind().setBatchSize(batchSize);
+        return new BoardWriteBehindService(
+            batchRepository,
+            objectMapper,
+            engineProvider,
+            notificationProvider,
+            snapshotService,
+            transactionManager,
+            appProperties
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<HistoryRow> flushedHistory() {
+        ArgumentCaptor<List<HistoryRow>> history = ArgumentCaptor.forClass(List.class);
+        verify(batchRepository).insertHistory(history.capture());
+        return history.getValue();
+    }
+
+    private LiveBoardObject object(String instanceId, String json) {
+        return LiveBoardObject.builder()
+            .instanceId(instanceId)
+            .objectType(ActionType.OBJECT_ADD.name())
+            .payload(objectMapper.readTree(json))
+            .build();
+    }
+
+    private BoardChange change(
+        Long boardId,
+        ActionType type,
+        String instanceId,
+        LiveBoardObject before,
+        LiveBoardObject after,
+        String userEmail
+    ) {
+        clock = clock.plusNanos(1000);
+        return BoardChange.builder()
+            .boardId(boardId)
+            .type(type)
+            .instanceId(instanceId)
+            .before(before)
+            .after(after)
+            .actorEmail(userEmail)
+            .occurredAt(clock)
+            .build();
+    }
+
+    @Test
+    @DisplayName("folds each object to one row write and keeps one history row per change")
+    @SuppressWarnings("unchecked")
+    void foldsObjectsAndKeepsHistory() {
+        LiveBoardObject v1 = object("a", "{\"x\":1}");
+        LiveBoardObject v2 = object("a", "{\"x\":2}");
+        LiveBoardObject v3 = object("a", "{\"x\":3}");
+        LiveBoardObject existing = object("b", "{\"y\":1}");
+
+        service.enqueue(change(1L, ActionType.OBJECT_ADD, "a", null, v1, USER));
+        service.enqueue(change(1L, ActionType.OBJECT_UPDATE, "a", v1, v2, OTHER_USER));
+        service.enqueue(change(1L, ActionType.OBJECT_UPDATE, "a", v2, v3, OTHER_USER));
+        service.enqueue(change(1L, ActionType.OBJECT_DELETE, "b", existing, null, USER));
+        service.flush();
+
+        ArgumentCaptor<List<ObjectRow>> inserts = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<ObjectRow>> updates = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<HistoryRow>> history = ArgumentCaptor.forClass(List.class);
+        verify(batchRepository).insertObjects(inserts.capture());
+        verify(batchRepository).updateObjects(updates.capture());
+        verify(batchRepository).insertHistory(history.capture());
+
+        assertThat(inserts.getValue()).singleElement().satisfies((row) -> {
+            assertThat(row.getInstanceId()).isEqualTo("a");
+            assertThat(row.getObjectData()).isEqualTo("{\"x\":3}");
+            assertThat(row.getCreatedByEmail()).isEqualTo(USER);
+            assertThat(row.getLastEditedByEmail()).isEqualTo(OTHER_USER);
+            assertThat(row.isActive()).isTrue();
+        });
+        assertThat(updates.getValue()).singleElement().satisfies((row) -> {
+            assertThat(row.getInstanceId()).isEqualTo("b");
+            assertThat(row.getObjectData()).isNull();
+            assertThat(row.isActive()).isFalse();
+        });
+        assertThat(history.getValue())
+            .extracting(HistoryRow::getActionType)
+            .containsExactly("OBJECT_ADD", "OBJECT_UPDATE", "OBJECT_UPDATE", "OBJECT_DELETE");
+        assertThat(service.getPendingCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("merges a user's consecutive updates into one history entry timed at the gesture's start")
+    void coalescesUpdates() {
+        service = newService(60_000);
+        LiveBoardObject v1 = object("a", "{\"x\":1}");
+        LiveBoardObject v2 = object("a", "{\"x\":2}");
+        LiveBoardObject v3 = object("a", "{\"x\":3}");
+        LiveBoardObject v4 = object("a", "{\"x\":4}");
+
+        assertThat(service.enqueue(change(1L, ActionType.OBJECT_ADD, "a", null, v1, USER))).isFalse();
+        BoardChange gestureStart = change(1L, ActionType.OBJECT_UPDATE, "a", v1, v2, USER);
+        assertThat(service.enqueue(gestureStart)).isFalse();
+        assertThat(service.enqueue(change(1L, ActionType.OBJECT_UPDATE, "a", v2, v3, USER))).isTrue();
+        assertThat(service.enqueue(change(1L, ActionType.OBJECT_UPDATE, "a", v3, v4, OTHER_USER))).isFalse();
+        assertThat(service.getPendingCount()).isEqualTo(3);
+        service.flush();
+
+        List<HistoryRow> history = flushedHistory();
+        assertThat(history).extracting(HistoryRow::getActionType).containsExactly(
+            "OBJECT_ADD",
+            "OBJECT_UPDATE",
+            "OBJECT_UPDATE"
+        );
+        assertThat(history.get(1).getStateBefore()).isEqualTo("[{\"op\":\"replace\",\"path\":\"/x\",\"value\":1}]");
+        assertThat(history.get(1).getStateAfter()).isEqualTo("[{\"op\":\"replace\",\"path\":\"/x\",\"value\":3}]");
+        assertThat(history.get(1).getOccurredAt()).isEqualTo(gestureStart.getOccurredAt());
+        assertThat(history.get(2).getUserEmail()).isEqualTo(OTHER_USER);
+    }
+
+    @Test
+    @DisplayName("releases a held update before a later change to the same object")
+    void releasesHeldUpdateInOrder() {
+        service = newService(60_000);
+        LiveBoardObject v1 = object("a", "{\"x\":1}");
+        LiveBoardObject v2 = object("a", "{\"x\":2}");
+
+        service.enqueue(change(1L, ActionType.OBJECT_UPDATE, "a", v1, v2, USER));
+        service.enqueue(change(1L, ActionType.OBJECT_DELETE, "a", v2, null, USER));
+        service.flush();
+
+        assertThat(flushedHistory())
+            .extracting(HistoryRow::getActionType)
+            .containsExactly("OBJECT_UPDATE", "OBJECT_DELETE");
+    }
+
+    @Test
+    @DisplayName("writes a group in one transaction past the batch size, after held updates of its objects")
+    void keepsGroupsTogether() {
+        service = newService(60_000, 2);
+        UUID groupId = UUID.randomUUID();
+        LiveBoardObject v1 = object("a", "{\"x\":1}");
+        LiveBoardObject v2 = object("a", "{\"x\":2}");
+        LiveBoardObject v3 = object("a", "{\"x\":3}");
+
+        service.enqueue(change(1L, ActionType.OBJECT_UPDATE, "a", v1, v2, USER));
+        service.enqueueAll(
+            List.of(
+                change(1L, ActionType.OBJECT_UPDATE, "a", v2, v3, USER).toBuilder().groupId(groupId).build(),
+                change(1L, ActionType.OBJECT_ADD, "b", null, object("b", "{}"), USER)
+                    .toBuilder()
+                    .groupId(groupId)
+                    .build(),
+                change(1L, ActionType.OBJECT_ADD, "c", null, object("c", "{}"), USER)
+                    .toBuilder()
+                    .groupId(groupId)
+                    .build()
+            )
+        );
+        assertThat(service.getPendingCount()).isEqualTo(4);
+        service.flush();
+
+        assertThat(flushedHistory())
+            .extracting(HistoryRow::getInstanceId, HistoryRow::getStateAfter, HistoryRow::getGroupId)
+            .containsExactly(
+                tuple("a", "[{\"op\":\"replace\",\"path\":\"/x\",\"value\":2}]", null),
+                tuple("a", "[{\"op\":\"replace\",\"path\":\"/x\",\"value\":3}]", groupId),
+                tuple("b", "{}", groupId),
+                tuple("c", "{}", groupId)
+            );
+        verify(snapshotService).recordChanges(1L, 3);
+    }
+
+    @Test
+    @DisplayName("retries a failed batch per board and evicts only the board that still fails")
+    void isolatesFailingBoard() {
+        when(engineProvider.getObject()).thenReturn(boardStateEngine);
+        when(notificationProvider.getObject()).thenReturn(notificationService);
+        when(batchRepository.insertObjects(any())).thenAnswer((invocation) -> {
+            List<ObjectRow> rows = invocation.getArgument(0);
+            if (rows.stream().anyMatch((row) -> row.getBoardGroupId().equals(1L))) {
+                throw new DataAccessResourceFailureException("board 1 cannot be written");
+            }
+            return rows.size();
+        });
+
+        service.enqueue(change(1L, ActionType.OBJECT_ADD, "a", null, object("a", "{}"), USER));
+        service.enqueue(change(2L, ActionType.OBJECT_ADD, "b", null, object("b", "{}"), USER));
+        service.flush();
+
+        verify(boardStateEngine).evict(1L);
+        verify(boardStateEngine, never()).evict(2L);
+        verify(notificationService).broadcastRejectedChanges(1L, Set.of(USER));
+        verify(snapshotService).recordChanges(2L, 1);
+        verify(snapshotService, never()).recordChanges(eq(1L), anyInt());
+    }
+
+    @Test
+    @DisplayName("keeps the other changes of a failing board and reports only the rejected one to its author")
+    void isolatesRejectedChange() {
+        when(engineProvider.getObject()).thenReturn(boardStateEngine);
+        when(notificationProvider.getObject()).thenReturn(notificationService);
+        when(batchRepository.insertObjects(any())).thenAnswer((invocation) -> {
+            List<ObjectRow> rows = invocation.getArgument(0);
+            if (rows.stream().anyMatch((row) -> row.getInstanceId().equals("reused"))) {
+                throw new DataIntegrityViolationException("instance_id is taken");
+            }
+            return rows.size();
+        });
+
+        service.enqueue(change(1L, ActionType.OBJECT_ADD, "a", null, object("a", "{}"), USER));
+        service.enqueue(change(1L, ActionType.OBJECT_ADD, "reused", null, object("reused", "{}"), OTHER_USER));
+        service.enqueue(change(1L, ActionType.OBJECT_ADD, "b", null, object("b", "{}"), USER));
+        service.flush();
+
+        verify(batchRepository, times(2)).insertHistory(any());
+        verify(snapshotService, times(2)).recordChanges(1L, 1);
+        verify(boardStateEngine).evict(1L);
+        verify(notificationService).broadcastRejectedChanges(1L, Set.of(OTHER_USER));
+    }
+
+    @Test
+    @DisplayName("writes undo as a flag flip and discards the redo branch before the next action's row")
+    @SuppressWarnings("unchecked")
+    void ordersHistoryWrites() {
+        LiveBoardObject a = object("a", "{}");
+        BoardChange add = change(1L, ActionType.OBJECT_ADD, "a", null, a, USER);
+        BoardChange undo = change(1L, ActionType.OBJECT_DELETE, "a", a, null, USER)
+            .toBuilder()
+            .history(HistoryEffect.UNDO)
+            .revertedAt(add.getOccurredAt())
+            .build();
+        BoardChange next = change(1L, ActionType.OBJECT_ADD, "b", null, object("b", "{}"), USER)
+            .toBuilder()
+            .truncatesRedo(true)
+            .build();
+
+        service.enqueue(add);
+        service.enqueue(undo);
+        service.enqueue(next);
+        service.flush();
+
+        InOrder order = inOrder(batchRepository);
+        ArgumentCaptor<List<ObjectRow>> inserts = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<UndoneFlag>> flags = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<HistoryRow>> added = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<HistoryRow>> addedAfterUndo = ArgumentCaptor.forClass(List.class);
+        order.verify(batchRepository).insertObjects(inserts.capture());
+        order.verify(batchRepository).insertHistory(added.capture());
+        order.verify(batchRepository).updateUndone(flags.capture());
+        order.verify(batchRepository).deleteUndone(1L);
+        order.verify(batchRepository).insertHistory(addedAfterUndo.capture());
+
+        assertThat(inserts.getValue())
+            .extracting(ObjectRow::getInstanceId, ObjectRow::isActive)
+            .containsExactly(tuple("a", false), tuple("b", true));
+        assertThat(flags.getValue()).singleElement().satisfies((flag) -> {
+            assertThat(flag.getOccurredAt()).isEqualTo(add.getOccurredAt());
+            assertThat(flag.isUndone()).isTrue();
+        });
+        assertThat(added.getValue()).extracting(HistoryRow::getInstanceId).containsExactly("a");
+        assertThat(addedAfterUndo.getValue()).extracting(HistoryRow::getInstanceId).containsExactly("b");
+    }
+
+    @Test
+    @DisplayName("reactivates an existing row on redo instead of inserting it")
+    @SuppressWarnings("unchecked")
+    void redoReactivatesExistingRow() {
+        LiveBoardObject a = object("a", "{}");
+        service.enqueue(
+            change(1L, ActionType.OBJECT_ADD, "a", null, a, USER)
+                .toBuilder()
+                .history(HistoryEffect.REDO)
+                .revertedAt(clock)
+                .build()
+        );
+        service.flush();
+
+        ArgumentCaptor<List<ObjectRow>> updates = ArgumentCaptor.forClass(List.class);
+        verify(batchRepository).updateObjects(updates.capture());
+        assertThat(updates.getValue()).singleElement().satisfies((row) -> assertThat(row.isActive()).isTrue());
+        verify(batchRepository, never()).insertHistory(any());
+    }
+}
@@ -0,0 +1,62 @@
+package io.github.sagimenahem.synchboard.service.board.persistence;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import io.github.sagimenahem.synchboard.repository.PartitionRepository;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for {@link PartitionMaintenanceService}. The repository is mocked; the tests check
+ * which months are asked for and when message partitions are dropped.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PartitionMaintenanceService")
+class PartitionMaintenanceServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 31, 12, 0);
+
+    @Mock
+    private PartitionRepository partitionRepository;
+
+    private AppProperties appProperties;
+
+    @BeforeEach
+    void setUp() {
+        appProperties = new AppProperties();
+        appProperties.getPartitions().setMonthsAhead(2);
+    }
+
+    private PartitionMaintenanceService service() {
+        return new PartitionMaintenanceService(partitionRepository, appProperties);
+    }
+
+    @Test
+    @DisplayName("creates partitions from this month through the months ahead for both tables")
+    void createsComingPartitions() {
+        service().maintain(NOW);
+
+        verify(partitionRepository).createPartitions(PartitionRepository.ACTION_HISTORY, NOW, NOW.plusMonths(2));
+        verify(partitionRepository).createPartitions(PartitionRepository.MESSAGES, NOW, NOW.plusMonths(2));
+        verify(partitionRepository, never()).dropPartitionsBefore(any(), any());
+    }
+
+    @Test
+    @DisplayName("drops message partitions past the age limit once one is set")
+    void dropsExpiredMessages() {
+        appProperties.getPartitions().setMessageMaxAgeDays(365);
+        service().maintain(NOW);
+
+        verify(partitionRepository).dropPartitionsBefore(PartitionRepository.MESSAGES, NOW.minusDays(365));
+        verify(partitionRepository, never()).dropPartitionsBefore(eq(PartitionRepository.ACTION_HISTORY), any());
+    }
+}
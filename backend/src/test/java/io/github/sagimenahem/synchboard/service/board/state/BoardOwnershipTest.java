@@ -0,0 +1,161 @@
+package io.github.sagimenahem.synchboard.service.board.state;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.github.sagimenahem.synchboard.service.board.persistence.BoardWriteBehindService;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Unit tests for {@link BoardOwnership}. The claims' connection is mocked down to the advisory lock
+ * queries' result, which says whether another node already owns a board.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BoardOwnership")
+class BoardOwnershipTest {
+
+    private static final Long BOARD_ID = 7L;
+    private static final String URL = "jdbc:postgresql://db/synchboard";
+    private static final String TRY_LOCK = "SELECT pg_try_advisory_lock(?, ?)";
+    private static final String UNLOCK = "SELECT pg_advisory_unlock(?, ?)";
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement statement;
+
+    @Mock
+    private ResultSet result;
+
+    @Mock
+    private ObjectProvider<BoardStateEngine> engineProvider;
+
+    @Mock
+    private BoardStateEngine engine;
+
+    @Mock
+    private ObjectProvider<BoardWriteBehindService> writeBehindProvider;
+
+    @Mock
+    private BoardWriteBehindService writeBehind;
+
+    private int connectionsOpened;
+    private BoardOwnership ownership;
+
+    @BeforeEach
+    void setUp() {
+        ownership = new BoardOwnership(URL, "user", "secret", engineProvider, writeBehindProvider) {
+            @Override
+            Connection openConnection() {
+                connectionsOpened++;
+                return connection;
+            }
+        };
+    }
+
+    private void lockResult(boolean acquired) throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(result);
+        when(result.next()).thenReturn(true);
+        when(result.getBoolean(1)).thenReturn(acquired);
+    }
+
+    @Test
+    @DisplayName("claims a board once on its own connection and keeps it")
+    void claimsOnce() throws Exception {
+        lockResult(true);
+
+        assertThat(ownership.claim(BOARD_ID)).isTrue();
+        assertThat(ownership.claim(BOARD_ID)).isTrue();
+
+        assertThat(connectionsOpened).isEqualTo(1);
+        verify(connection, times(1)).prepareStatement(TRY_LOCK);
+        verify(statement).setInt(1, BoardOwnership.LOCK_SPACE);
+        verify(statement).setInt(2, BOARD_ID.intValue());
+        verify(connection, never()).close();
+    }
+
+    @Test
+    @DisplayName("refuses a board another node owns and tries again on the next claim")
+    void refusesBoardOwnedElsewhere() throws Exception {
+        lockResult(false);
+
+        assertThat(ownership.claim(BOARD_ID)).isFalse();
+        assertThat(ownership.claim(BOARD_ID)).isFalse();
+
+        verify(connection, times(2)).prepareStatement(TRY_LOCK);
+        verify(connection, never()).close();
+    }
+
+    @Test
+    @DisplayName("writes back and releases boards that left the live state, keeping resident ones")
+    void releasesIdleBoards() throws Exception {
+        lockResult(true);
+        when(engineProvider.getObject()).thenReturn(engine);
+        when(writeBehindProvider.getObject()).thenReturn(writeBehind);
+        when(connection.isValid(anyInt())).thenReturn(true);
+        when(engine.isResident(BOARD_ID)).thenReturn(false);
+        when(engine.isResident(8L)).thenReturn(true);
+        ownership.claim(BOARD_ID);
+        ownership.claim(8L);
+
+        ownership.maintain();
+
+        InOrder order = inOrder(writeBehind, connection);
+        order.verify(writeBehind).flush();
+        order.verify(connection).prepareStatement(UNLOCK);
+        verify(statement, times(1)).setInt(2, 8);
+        verify(statement, times(2)).setInt(2, BOARD_ID.intValue());
+
+        // Released, so the next access claims it again
+        ownership.claim(BOARD_ID);
+        verify(statement, times(3)).setInt(2, BOARD_ID.intValue());
+    }
+
+    @Test
+    @DisplayName("drops the live state of every owned board when the connection is lost")
+    void dropsBoardsOnLostConnection() throws Exception {
+        lockResult(true);
+        when(engineProvider.getObject()).thenReturn(engine);
+        when(connection.isValid(anyInt())).thenReturn(false);
+        ownership.claim(BOARD_ID);
+
+        ownership.maintain();
+
+        verify(engine).evict(BOARD_ID);
+        verify(connection).close();
+        verify(writeBehindProvider, never()).getObject();
+
+        ownership.claim(BOARD_ID);
+        assertThat(connectionsOpened).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("releases every claim by closing the connection on shutdown")
+    void closesOnShutdown() throws Exception {
+        lockResult(true);
+        ownership.claim(BOARD_ID);
+
+        ownership.shutdown();
+
+        verify(connection).close();
+        verify(connection, never()).prepareStatement(UNLOCK);
+    }
+}
@@ -0,0 +1,108 @@
+package io.github.sagimenahem.synchboard.service.board.state;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link BoardSpatialIndex}, checked against a linear scan over the same boxes.
+ */
+@DisplayName("BoardSpatialIndex")
+class BoardSpatialIndexTest {
+
+    private final BoardSpatialIndex index = new BoardSpatialIndex();
+
+    private static BoundingBox randomBox(Random random) {
+        double x = random.nextDouble() * 1.4 - 0.2;
+        double y = random.nextDouble() * 1.4 - 0.2;
+        double size = random.nextDouble() < 0.1 ? random.nextDouble() : random.nextDouble() * 0.02;
+        return BoundingBox.of(x, y, x + size, y + size * random.nextDouble());
+    }
+
+    private static List<String> scan(Map<String, BoundingBox> boxes, BoundingBox region) {
+        List<String> hits = new ArrayList<>();
+        boxes.forEach((instanceId, box) -> {
+            if (box.intersects(region)) {
+                hits.add(instanceId);
+            }
+        });
+        return hits;
+    }
+
+    @Test
+    @DisplayName("returns the same objects in the same order as a linear scan")
+    void matchesLinearScan() {
+        Random random = new Random(42);
+        // Insertion order is z-order, and a moved object keeps its place
+        Map<String, BoundingBox> boxes = new LinkedHashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            String instanceId = "obj-" + i;
+            BoundingBox box = randomBox(random);
+            boxes.put(instanceId, box);
+            index.put(instanceId, box);
+        }
+        for (int i = 0; i < 500; i++) {
+            String instanceId = "obj-" + random.nextInt(2000);
+            if (!boxes.containsKey(instanceId)) {
+                continue;
+            }
+            if (random.nextBoolean()) {
+                BoundingBox box = randomBox(random);
+                boxes.put(instanceId, box);
+                index.put(instanceId, box);
+            } else {
+                boxes.remove(instanceId);
+                index.remove(instanceId);
+            }
+        }
+
+        assertThat(index.size()).isEqualTo(boxes.size());
+        for (int i = 0; i < 200; i++) {
+            BoundingBox region = BoundingBox.of(
+                random.nextDouble() * 1.2 - 0.1,
+                random.nextDouble() * 1.2 - 0.1,
+                random.nextDouble() * 1.2 - 0.1,
+                random.nextDouble() * 1.2 - 0.1
+            );
+            assertThat(index.query(region)).isEqualTo(scan(boxes, region));
+        }
+    }
+
+    @Test
+    @DisplayName("puts new objects on top and keeps moved objects in place")
+    void keepsZOrder() {
+        index.put("a", BoundingBox.of(0.1, 0.1, 0.2, 0.2));
+        index.put("b", BoundingBox.of(0.15, 0.15, 0.25, 0.25));
+        index.put("a", BoundingBox.of(0.2, 0.2, 0.3, 0.3));
+        index.put("c", BoundingBox.of(0.2, 0.2, 0.22, 0.22));
+
+        assertThat(index.query(BoundingBox.CANVAS)).containsExactly("a", "b", "c");
+        assertThat(index.query(BoundingBox.of(0.1, 0.1, 0.14, 0.14))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("still finds objects dragged far outside the canvas")
+    void findsObjectsOffCanvas() {
+        index.put("far", BoundingBox.of(5, 5, 5.1, 5.1));
+        index.put("near", BoundingBox.of(0.5, 0.5, 0.6, 0.6));
+
+        assertThat(index.query(BoundingBox.of(4, 4, 6, 6))).containsExactly("far");
+        assertThat(index.query(BoundingBox.CANVAS)).containsExactly("near");
+    }
+
+    @Test
+    @DisplayName("forgets every object when cleared")
+    void clears() {
+        index.put("a", BoundingBox.CANVAS);
+        index.clear();
+
+        assertThat(index.size()).isZero();
+        assertThat(index.query(BoundingBox.CANVAS)).isEmpty();
+    }
+}
@@ -0,0 +1,560 @@
+package io.github.sagimenahem.synchboard.service.board.state;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import io.github.sagimenahem.synchboard.dto.websocket.BoardActionDTO;
+import io.github.sagimenahem.synchboard.dto.websocket.BoardActionDTO.ActionType;
+import io.github.sagimenahem.synchboard.entity.ActionHistory;
+import io.github.sagimenahem.synchboard.entity.BoardObject;
+import io.github.sagimenahem.synchboard.entity.User;
+import io.github.sagimenahem.synchboard.exception.InvalidRequestException;
+import io.github.sagimenahem.synchboard.exception.ResourceConflictException;
+import io.github.sagimenahem.synchboard.exception.ResourceNotFoundException;
+import io.github.sagimenahem.synchboard.repository.ActionHistoryRepository;
+import io.github.sagimenahem.synchboard.repository.ActionHistoryRetentionRepository;
+import io.github.sagimenahem.synchboard.repository.ActionHistoryRetentionRepository.HistoryPosition;
+import io.github.sagimenahem.synchboard.repository.BoardObjectRepository;
+import io.github.sagimenahem.synchboard.repository.GroupBoardRepository;
+import io.github.sagimenahem.synchboard.service.board.persistence.BoardSnapshotService;
+import io.github.sagimenahem.synchboard.service.board.persistence.BoardWriteBehindService;
+import io.github.sagimenahem.synchboard.service.board.state.BoardChange.HistoryEffect;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Unit tests for {@link BoardStateEngine}. The snapshot loader, history repository and write-behind
+ * queue are mocked, so these cover how the live state and history are loaded, mutated and bounded
+ * rather than anything about persistence.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BoardStateEngine")
+class BoardStateEngineTest {
+
+    private static final Long BOARD_ID = 7L;
+    private static final String USER = "member@synchboard.com";
+
+    @Mock
+    private BoardSnapshotService snapshotService;
+
+    @Mock
+    private ActionHistoryRepository actionHistoryRepository;
+
+    @Mock
+    private ActionHistoryRetentionRepository actionHistoryRetentionRepository;
+
+    @Mock
+    private BoardWriteBehindService boardWriteBehindService;
+
+    @Mock
+    private GroupBoardRepository groupBoardRepository;
+
+    @Mock
+    private BoardObjectRepository boardObjectRepository;
+
+    @Mock
+    private BoardOwnership boardOwnership;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+    private AppProperties appProperties;
+    private BoardStateEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        appProperties = new AppProperties();
+        engine = new BoardStateEngine(
+            actionHistoryRepository,
+            actionHistoryRetentionRepository,
+            objectMapper,
+            appProperties,
+            boardWriteBehindService,
+            snapshotService,
+            groupBoardRepository,
+            boardObjectRepository,
+            boardOwnership
+        );
+        lenient().when(boardOwnership.claim(any())).thenReturn(true);
+    }
+
+    private BoardObject row(String instanceId, String json) {
+        return BoardObject.builder()
+            .instanceId(instanceId)
+            .objectType(ActionType.OBJECT_ADD.name())
+            .objectData(json)
+            .createdByUser(User.builder().email(USER).build())
+            .isActive(true)
+            .build();
+    }
+
+    private LiveBoardObject live(String instanceId, String json) {
+        return LiveBoardObject.builder()
+            .instanceId(instanceId)
+            .objectType(ActionType.OBJECT_ADD.name())
+            .payload(objectMapper.readTree(json))
+            .createdByEmail(USER)
+            .build();
+    }
+
+    private ActionHistory history(BoardObject object, ActionType type, String before, String after, int minute) {
+        return ActionHistory.builder()
+            .boardObject(object)
+            .user(User.builder().email(USER).build())
+            .actionType(type.name())
+            .stateBefore(before)
+            .stateAfter(after)
+            .timestamp(LocalDateTime.of(2026, 1, 1, 12, minute))
+            .build();
+    }
+
+    private BoardActionDTO.Request request(ActionType type, String instanceId, String json) {
+        return BoardActionDTO.Request.builder()
+            .boardId(BOARD_ID)
+            .type(type)
+            .instanceId(instanceId)
+            .payload(json != null ? objectMapper.readTree(json) : null)
+            .build();
+    }
+
+    private BoardActionDTO.Operation operation(ActionType type, String instanceId, String json) {
+        return BoardActionDTO.Operation.builder()
+            .type(type)
+            .instanceId(instanceId)
+            .payload(json != null ? objectMapper.readTree(json) : null)
+            .build();
+    }
+
+    private BoardActionDTO.Request batch(BoardActionDTO.Operation... operations) {
+        return BoardActionDTO.Request.builder()
+            .boardId(BOARD_ID)
+            .type(ActionType.OBJECT_BATCH)
+            .instanceId("batch")
+            .operations(List.of(operations))
+            .build();
+    }
+
+    @Test
+    @DisplayName("loads a board once and serves later reads from memory")
+    void loadsLazilyOnce() {
+        when(snapshotService.load(BOARD_ID)).thenReturn(List.of(live("a", "{\"x\":1}"), live("b", "{\"x\":2}")));
+
+        assertThat(engine.getObjects(BOARD_ID)).extracting(LiveBoardObject::getInstanceId).containsExactly("a", "b");
+        assertThat(engine.find(BOARD_ID, "b")).isPresent();
+
+        verify(snapshotService, times(1)).load(BOARD_ID);
+    }
+
+    @Test
+    @DisplayName("resolves update and delete targets and reports the prior state")
+    void appliesUpdateAndDelete() {
+        when(snapshotService.load(BOARD_ID)).thenReturn(List.of(live("a", "{\"x\":1}")));
+
+        BoardChange update = engine.apply(request(ActionType.OBJECT_UPDATE, "a", "{\"x\":5}"), USER);
+        assertThat(update.getBefore().getPayload().get("x").asInt()).isEqualTo(1);
+        assertThat(update.getAfter().getPayload().get("x").asInt()).isEqualTo(5);
+        assertThat(update.getAfter().getCreatedByEmail()).isEqualTo(USER);
+
+        BoardChange delete = engine.apply(request(ActionType.OBJECT_DELETE, "a", null), USER);
+        assertThat(delete.getAfter()).isNull();
+        assertThat(delete.getVersion()).isGreaterThan(update.getVersion());
+        assertThat(engine.getObjects(BOARD_ID)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("keeps z-order: added objects go on top, updates stay in place")
+    void preservesOrder() {
+        when(snapshotService.load(BOARD_ID)).thenReturn(List.of(live("a", "{}"), live("b", "{}")));
+
+        engine.apply(request(ActionType.OBJECT_ADD, "c", "{}"), USER);
+        engine.apply(request(ActionType.OBJECT_UPDATE, "a", "{\"moved\":true}"), USER);
+
+        assertThat(engine.getObjects(BOARD_ID))
+            .extracting(LiveBoardObject::getInstanceId)
+            .containsExactly("a", "b", "c");
+    }
+
+    @Test
+    @DisplayName("rejects updates to unknown objects and duplicate adds without changing state")
+    void rejectsInvalidTargets() {
+        when(snapshotService.load(BOARD_ID)).thenReturn(List.of(live("a", "{}")));
+        long version = engine.getVersion(BOARD_ID);
+
+        assertThatThrownBy(() -> engine.apply(request(ActionType.OBJECT_UPDATE, "missing", "{}"), USER)).isInstanceOf(
+            ResourceNotFoundException.class
+        );
+        assertThatThrownBy(() -> engine.apply(request(ActionType.OBJECT_ADD, "a", "{}"), USER)).isInstanceOf(
+            ResourceConflictException.class
+        );
+        assertThat(engine.getVersion(BOARD_ID)).isEqualTo(version);
+        verify(boardWriteBehindService, never()).enqueue(any());
+    }
+
+    @Test
+    @DisplayName("rejects an add that reuses the instance ID of a deleted object, until the object is back")
+    void rejectsReusedInstanceIds() {
+        when(snapshotService.load(BOARD_ID)).thenReturn(List.of(live("a", "{}")));
+        when(boardObjectRepository.findInactiveInstanceIds(BOARD_ID)).thenReturn(List.of("gone"));
+
+        assertThatThrownBy(() -> engine.apply(request(ActionType.OBJECT_ADD, "gone", "{}"), USER)).isInstanceOf(
+            ResourceConflictException.class
+        );
+        engine.apply(request(ActionType.OBJECT_DELETE, "a", null), USER);
+        assertThatThrownBy(() ->
+            engine.applyBatch(batch(operation(ActionType.OBJECT_ADD, "a", "{}")), USER)
+        ).isInstanceOf(ResourceConflictException.class);
+
+        engine.undo(BOARD_ID);
+        assertThat(engine.find(BOARD_ID, "a")).isPresent();
+        engine.apply(request(ActionType.OBJECT_UPDATE, "a", "{\"x\":1}"), USER);
+        verify(boardWriteBehindService, never()).enqueueAll(any());
+    }
+
+    @Test
+    @DisplayName("refuses a board another node owns and keeps no state for it")
+    void refusesBoardOwnedElsewhere() {
+        when(boardOwnership.claim(BOARD_ID)).thenReturn(false);
+
+        assertThatThrownBy(() -> engine.apply(request(ActionType.OBJECT_ADD, "a", "{}"), USER)).isInstanceOf(
+            ResourceConflictException.class
+        );
+        assertThat(engine.isResident(BOARD_ID)).isFalse();
+        verify(snapshotService, never()).load(any());
+
+        when(boardOwnership.claim(BOARD_ID)).thenReturn(true);
+        when(snapshotService.load(BOARD_ID)).thenReturn(List.of());
+        engine.apply(request(ActionType.OBJECT_ADD, "a", "{}"), USER);
+        assertThat(engine.isResident(BOARD_ID)).isTrue();
+    }
+
+    @Test
+    @DisplayName("queues accepted changes for write-back in order with increasing UTC timestamps")
+    void queuesAcceptedChanges() {
+        when(snapshotService.load(BOARD_ID)).thenReturn(List.of());
+
+        engine.apply(request(ActionType.OBJECT_ADD, "a", "{}"), USER);
+        engine.apply(request(ActionType.OBJECT_UPDATE, "a", "{\"x\":1}"), USER);
+
+        ArgumentCaptor<BoardChange> queued = ArgumentCaptor.forClass(BoardChange.class);
+        verify(boardWriteBehindService, times(2)).enqueue(queued.capture());
+        List<BoardChange> changes = queued.getAllValues();
+        assertThat(changes).extracting(BoardChange::getType).containsExactly(
+            ActionType.OBJECT_ADD,
+            ActionType.OBJECT_UPDATE
+        );
+        assertThat(changes).allSatisfy((change) -> assertThat(change.getActorEmail()).isEqualTo(USER));
+        assertThat(changes.get(1).getOccurredAt()).isAfter(changes.get(0).getOccurredAt());
+        assertThat(Duration.between(changes.get(0).getOccurredAt(), LocalDateTime.now(ZoneOffset.UTC)).abs())
+            .isLessThan(Duration.ofMinutes(1));
+    }
+
+    @Test
+    @DisplayName("applies a batch as one group and undoes and redoes it as one history entry")
+    @SuppressWarnings("unchecked")
+    void appliesBatch() {
+        when(snapshotService.load(BOARD_ID)).thenReturn(List.of(live("a", "{\"x\":1}")));
+
+        List<BoardChange> changes = engine.applyBatch(
+            batch(
+                operation(ActionType.OBJECT_UPDATE, "a", "{\"x\":2}"),
+                operation(ActionType.OBJECT_ADD, "b", "{}"),
+                operation(ActionType.OBJECT_ADD, "c", "{}")
+            ),
+            USER
+        );
+
+        ArgumentCaptor<List<BoardChange>> queued = ArgumentCaptor.forClass(List.class);
+        verify(boardWriteBehindService).enqueueAll(queued.capture());
+        assertThat(queued.getValue()).isEqualTo(changes);
+        assertThat(changes).extracting(BoardChange::getInstanceId).containsExactly("a", "b", "c");
+        assertThat(changes).extracting(BoardChange::getGroupId).doesNotContainNull().containsOnly(
+            changes.getFirst().getGroupId()
+        );
+
+        List<BoardChange> undo = engine.undo(BOARD_ID);
+        assertThat(undo)
+            .extracting(BoardChange::getInstanceId, BoardChange::getType)
+            .containsExactly(
+                tuple("c", ActionType.OBJECT_DELETE),
+                tuple("b", ActionType.OBJECT_DELETE),
+                tuple("a", ActionType.OBJECT_UPDATE)
+            );
+        assertThat(undo).extracting(BoardChange::getGroupId).doesNotContainNull().containsOnly(
+            undo.getFirst().getGroupId()
+        );
+        assertThat(engine.getObjects(BOARD_ID)).singleElement().satisfies((object) ->
+            assertThat(object.getPayload().get("x").asInt()).isEqualTo(1)
+        );
+
+        assertThat(engine.redo(BOARD_ID)).extracting(BoardChange::getInstanceId).containsExactly("a", "b", "c");
+        assertThat(engine.getObjects(BOARD_ID)).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("rejects a whole batch when any operation is invalid")
+    void rejectsInvalidBatch() {
+        when(snapshotService.load(BOARD_ID)).thenReturn(List.of());
+
+        assertThatThrownBy(() ->
+            engine.applyBatch(
+                batch(
+                    operation(ActionType.OBJECT_ADD, "a", "{}"),
+                    operation(ActionType.OBJECT_DELETE, "missing", null)
+                ),
+                USER
+            )
+        ).isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() ->
+            engine.applyBatch(
+                batch(operation(ActionType.OBJECT_ADD, "a", "{}"), operation(ActionType.OBJECT_UPDATE, "a", "{}")),
+                USER
+            )
+        ).isInstanceOf(InvalidRequestException.class);
+
+        assertThat(engine.getObjects(BOARD_ID)).isEmpty();
+        verify(boardWriteBehindService, never()).enqueueAll(any());
+    }
+
+    @Test
+    @DisplayName("drops the least recently used board once the bound is exceeded")
+    void boundsResidentBoards() {
+        appProperties.getBoardState().setMaxCachedBoards(1);
+        when(snapshotService.load(1L)).thenReturn(List.of());
+        when(snapshotService.load(2L)).thenReturn(List.of());
+
+        engine.getObjects(1L);
+        engine.getObjects(2L);
+        engine.getObjects(1L);
+
+        verify(snapshotService, times(2)).load(1L);
+    }
+
+    @Test
+    @DisplayName("undoes and redoes from memory and discards the redo branch on a new action")
+    void undoesAndRedoes() {
+        when(snapshotService.load(BOARD_ID)).thenReturn(List.of());
+
+        engine.apply(request(ActionType.OBJECT_ADD, "a", "{\"x\":1}"), USER);
+        BoardChange update = engine.apply(request(ActionType.OBJECT_UPDATE, "a", "{\"x\":2}"), USER);
+
+        BoardChange undoUpdate = engine.undo(BOARD_ID).getFirst();
+        assertThat(undoUpdate.getType()).isEqualTo(ActionType.OBJECT_UPDATE);
+        assertThat(undoUpdate.getHistory()).isEqualTo(HistoryEffect.UNDO);
+        assertThat(undoUpdate.getRevertedAt()).isEqualTo(update.getOccurredAt());
+        assertThat(undoUpdate.getAfter().getPayload().get("x").asInt()).isEqualTo(1);
+
+        assertThat(engine.undo(BOARD_ID).getFirst().getType()).isEqualTo(ActionType.OBJECT_DELETE);
+        assertThat(engine.getObjects(BOARD_ID)).isEmpty();
+        assertThat(engine.undo(BOARD_ID)).isEmpty();
+
+        BoardChange redoAdd = engine.redo(BOARD_ID).getFirst();
+        assertThat(redoAdd.getType()).isEqualTo(ActionType.OBJECT_ADD);
+        assertThat(redoAdd.getHistory()).isEqualTo(HistoryEffect.REDO);
+
+        BoardChange next = engine.apply(request(ActionType.OBJECT_ADD, "b", "{}"), USER);
+        assertThat(next.isTruncatesRedo()).isTrue();
+        assertThat(engine.redo(BOARD_ID)).isEmpty();
+        verify(actionHistoryRepository, times(1)).findRecentByBoardWithRelations(eq(BOARD_ID), any());
+    }
+
+    @Test
+    @DisplayName("loads history lazily, treating the latest undone rows as the redo branch")
+    void loadsHistory() {
+        BoardObject a = row("a", "{\"x\":1}");
+        when(snapshotService.load(BOARD_ID)).thenReturn(List.of(live("a", "{\"x\":1}")));
+        ActionHistory undoneUpdate = history(a, ActionType.OBJECT_UPDATE, "{\"x\":1}", "{\"x\":2}", 2);
+        undoneUpdate.setUndone(true);
+        when(actionHistoryRepository.findRecentByBoardWithRelations(eq(BOARD_ID), any())).thenReturn(
+            List.of(undoneUpdate, history(a, ActionType.OBJECT_ADD, null, "{\"x\":1}", 1))
+        );
+
+        BoardChange redo = engine.redo(BOARD_ID).getFirst();
+
+        assertThat(redo.getType()).isEqualTo(ActionType.OBJECT_UPDATE);
+        assertThat(redo.getRevertedAt()).isEqualTo(undoneUpdate.getTimestamp());
+        assertThat(engine.find(BOARD_ID, "a").orElseThrow().getPayload().get("x").asInt()).isEqualTo(2);
+        assertThat(engine.redo(BOARD_ID)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("rebuilds updates stored as patches by walking from the live board")
+    void loadsPatchedHistory() {
+        BoardObject a = row("a", "{\"x\":3,\"color\":\"red\"}");
+        when(snapshotService.load(BOARD_ID)).thenReturn(List.of(live("a", "{\"x\":3,\"color\":\"red\"}")));
+        ActionHistory recolor = history(
+            a,
+            ActionType.OBJECT_UPDATE,
+            "[{\"op\":\"replace\",\"path\":\"/color\",\"value\":\"red\"}]",
+            "[{\"op\":\"replace\",\"path\":\"/color\",\"value\":\"blue\"}]",
+            3
+        );
+        recolor.setUndone(true);
+        when(actionHistoryRepository.findRecentByBoardWithRelations(eq(BOARD_ID), any())).thenReturn(
+            List.of(
+                recolor,
+                history(
+                    a,
+                    ActionType.OBJECT_UPDATE,
+                    "[{\"op\":\"replace\",\"path\":\"/x\",\"value\":1}]",
+                    "[{\"op\":\"replace\",\"path\":\"/x\",\"value\":3}]",
+                    2
+                ),
+                history(a, ActionType.OBJECT_ADD, null, "{\"x\":1,\"color\":\"red\"}", 1)
+            )
+        );
+
+        assertThat(engine.redo(BOARD_ID).getFirst().getAfter().getPayload().toString()).isEqualTo(
+            "{\"x\":3,\"color\":\"blue\"}"
+        );
+        engine.undo(BOARD_ID);
+        BoardChange undoMove = engine.undo(BOARD_ID).getFirst();
+
+        assertThat(undoMove.getAfter().getPayload().toString()).isEqualTo("{\"x\":1,\"color\":\"red\"}");
+        assertThat(engine.undo(BOARD_ID).getFirst().getType()).isEqualTo(ActionType.OBJECT_DELETE);
+    }
+
+    @Test
+    @DisplayName("rebuilds a batch as one undo step from its group ID")
+    void loadsGroupedHistory() {
+        BoardObject a = row("a", "{\"x\":2}");
+        BoardObject b = row("b", "{\"x\":2}");
+        BoardObject c = row("c", "{}");
+        when(snapshotService.load(BOARD_ID)).thenReturn(
+            List.of(live("a", "{\"x\":2}"), live("b", "{\"x\":2}"), live("c", "{}"))
+        );
+        UUID batch = UUID.randomUUID();
+        ActionHistory moveA = history(a, ActionType.OBJECT_UPDATE, "{\"x\":1}", "{\"x\":2}", 4);
+        moveA.setGroupId(batch);
+        ActionHistory moveB = history(b, ActionType.OBJECT_UPDATE, "{\"x\":1}", "{\"x\":2}", 3);
+        moveB.setGroupId(batch);
+        when(actionHistoryRepository.findRecentByBoardWithRelations(eq(BOARD_ID), any())).thenReturn(
+            List.of(moveA, moveB, history(c, ActionType.OBJECT_ADD, null, "{}", 2))
+        );
+
+        List<BoardChange> undo = engine.undo(BOARD_ID);
+
+        assertThat(undo)
+            .extracting(BoardChange::getInstanceId, BoardChange::getRevertedAt)
+            .containsExactly(tuple("a", moveA.getTimestamp()), tuple("b", moveB.getTimestamp()));
+        assertThat(engine.getObjects(BOARD_ID))
+            .extracting((object) -> object.getPayload().toString())
+            .containsExactlyInAnyOrder("{\"x\":1}", "{\"x\":1}", "{}");
+        assertThat(engine.undo(BOARD_ID)).singleElement().satisfies((change) ->
+            assertThat(change.getInstanceId()).isEqualTo("c")
+        );
+        assertThat(engine.undo(BOARD_ID)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("reloads a batch larger than max-history-entries as one undo step, bounded by steps not rows")
+    void loadsBatchLargerThanHistoryLimit() {
+        appProperties.getBoardState().setMaxHistoryEntries(2);
+        UUID batch = UUID.randomUUID();
+        List<LiveBoardObject> objects = new ArrayList<>();
+        List<ActionHistory> rows = new ArrayList<>();
+        for (int i = 5; i >= 1; i--) {
+            objects.add(live("o" + i, "{\"x\":2}"));
+            BoardObject object = row("o" + i, "{\"x\":2}");
+            ActionHistory move = history(object, ActionType.OBJECT_UPDATE, "{\"x\":1}", "{\"x\":2}", i + 1);
+            move.setGroupId(batch);
+            rows.add(move);
+        }
+        objects.add(live("s", "{}"));
+        ActionHistory add = history(row("s", "{}"), ActionType.OBJECT_ADD, null, "{}", 1);
+        rows.add(add);
+        when(snapshotService.load(BOARD_ID)).thenReturn(objects);
+        when(actionHistoryRetentionRepository.findPosition(BOARD_ID, 2)).thenReturn(
+            Optional.of(HistoryPosition.builder().timestamp(add.getTimestamp()).actionId(1).build())
+        );
+        when(actionHistoryRepository.findRecentByBoardWithRelations(BOARD_ID, add.getTimestamp())).thenReturn(rows);
+
+        assertThat(engine.undo(BOARD_ID))
+            .hasSize(5)
+            .allSatisfy((change) -> assertThat(change.getAfter().getPayload().get("x").asInt()).isEqualTo(1));
+        assertThat(engine.undo(BOARD_ID)).singleElement().satisfies((change) ->
+            assertThat(change.getType()).isEqualTo(ActionType.OBJECT_DELETE)
+        );
+        assertThat(engine.undo(BOARD_ID)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("reports an undo of an update to an object no longer on the board without changing it")
+    void undoWithoutEffect() {
+        BoardObject removed = row("a", "{\"x\":2}");
+        when(snapshotService.load(BOARD_ID)).thenReturn(List.of());
+        when(actionHistoryRepository.findRecentByBoardWithRelations(eq(BOARD_ID), any())).thenReturn(
+            List.of(history(removed, ActionType.OBJECT_UPDATE, "{\"x\":1}", "{\"x\":2}", 1))
+        );
+        long version = engine.getVersion(BOARD_ID);
+
+        BoardChange undo = engine.undo(BOARD_ID).getFirst();
+
+        assertThat(undo.getType()).isNull();
+        assertThat(undo.getHistory()).isEqualTo(HistoryEffect.UNDO);
+        assertThat(engine.getObjects(BOARD_ID)).isEmpty();
+        assertThat(engine.getVersion(BOARD_ID)).isEqualTo(version);
+    }
+
+    @Test
+    @DisplayName("answers region reads in z-order and follows moved objects")
+    void queriesRegions() {
+        when(snapshotService.load(BOARD_ID)).thenReturn(
+            List.of(
+                live("a", "{\"x\":0.1,\"y\":0.1,\"width\":0.1,\"height\":0.1}"),
+                live("b", "{\"x\":0.6,\"y\":0.6,\"width\":0.1,\"height\":0.1}")
+            )
+        );
+        BoundingBox topLeft = BoundingBox.of(0, 0, 0.3, 0.3);
+
+        engine.apply(request(ActionType.OBJECT_ADD, "c", "{\"points\":[{\"x\":0.15,\"y\":0.2}]}"), USER);
+        assertThat(engine.getObjectsIn(BOARD_ID, topLeft))
+            .extracting(LiveBoardObject::getInstanceId)
+            .containsExactly("a", "c");
+
+        String moved = "{\"x\":0.7,\"y\":0.7,\"width\":0.1,\"height\":0.1}";
+        engine.apply(request(ActionType.OBJECT_UPDATE, "a", moved), USER);
+        assertThat(engine.getObjectsIn(BOARD_ID, topLeft))
+            .extracting(LiveBoardObject::getInstanceId)
+            .containsExactly("c");
+        assertThat(engine.getObjectsIn(BOARD_ID, BoundingBox.of(0.5, 0.5, 1, 1)))
+            .extracting(LiveBoardObject::getInstanceId)
+            .containsExactly("a", "b");
+    }
+
+    @Test
+    @DisplayName("re-measures resident objects when the canvas is resized")
+    void remeasuresOnResize() {
+        // On the default 1200x800 canvas a circle of radius 0.1 reaches 0.15 of the height either way
+        when(snapshotService.load(BOARD_ID)).thenReturn(
+            List.of(live("a", "{\"tool\":\"circle\",\"x\":0.5,\"y\":0.5,\"radius\":0.1}"))
+        );
+        BoundingBox belowRadius = BoundingBox.of(0.45, 0.62, 0.55, 0.64);
+
+        assertThat(engine.getObjectsIn(BOARD_ID, belowRadius)).hasSize(1);
+
+        engine.resizeCanvas(BOARD_ID, 800, 800);
+
+        assertThat(engine.getObjectsIn(BOARD_ID, belowRadius)).isEmpty();
+    }
+}
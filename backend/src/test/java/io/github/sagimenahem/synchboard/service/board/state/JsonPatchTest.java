@@ -0,0 +1,94 @@
+package io.github.sagimenahem.synchboard.service.board.state;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Unit tests for {@link JsonPatch}.
+ */
+@DisplayName("JsonPatch")
+class JsonPatchTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+    private JsonNode json(String json) {
+        return objectMapper.readTree(json);
+    }
+
+    @Test
+    @DisplayName("describes a recolor as a single replace and leaves the points out")
+    void diffsRecolor() {
+        JsonNode red = json("{\"tool\":\"brush\",\"color\":\"red\",\"points\":[0.1,0.2,0.3,0.4]}");
+        JsonNode blue = json("{\"tool\":\"brush\",\"color\":\"blue\",\"points\":[0.1,0.2,0.3,0.4]}");
+
+        assertThat(JsonPatch.diff(red, blue)).isEqualTo(
+            json("[{\"op\":\"replace\",\"path\":\"/color\",\"value\":\"blue\"}]")
+        );
+        assertThat(JsonPatch.diff(red, red)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("turns either document into the other with the patches taken both ways")
+    void roundTrips() {
+        JsonNode source = json("{\"a/b\":{\"~k\":1},\"points\":[1,2],\"gone\":true,\"nested\":{\"x\":1}}");
+        JsonNode target = json("{\"a/b\":{\"~k\":2},\"points\":[1,2,3],\"added\":null,\"nested\":5}");
+
+        assertThat(JsonPatch.apply(source, JsonPatch.diff(source, target))).isEqualTo(target);
+        assertThat(JsonPatch.apply(target, JsonPatch.diff(target, source))).isEqualTo(source);
+        assertThat(source).isEqualTo(json("{\"a/b\":{\"~k\":1},\"points\":[1,2],\"gone\":true,\"nested\":{\"x\":1}}"));
+    }
+
+    @Test
+    @DisplayName("replaces the whole document when the operations would be larger than it")
+    void replacesMovedStrokeWhole() {
+        StringBuilder from = new StringBuilder("{\"tool\":\"brush\",\"points\":[");
+        StringBuilder to = new StringBuilder("{\"tool\":\"brush\",\"points\":[");
+        for (int i = 0; i < 2000; i++) {
+            from.append(i > 0 ? "," : "").append(i % 100 / 100.0);
+            to.append(i > 0 ? "," : "").append(i % 100 / 100.0 + 0.5);
+        }
+        JsonNode source = json(from.append("]}").toString());
+        JsonNode target = json(to.append("]}").toString());
+
+        JsonNode patch = JsonPatch.diff(source, target);
+
+        assertThat(patch).hasSize(1);
+        assertThat(patch.get(0).get("op").asString()).isEqualTo("replace");
+        assertThat(patch.get(0).get("path").asString()).isEmpty();
+        assertThat(patch.toString().length()).isLessThan(target.toString().length() + 64);
+        assertThat(JsonPatch.apply(source, patch)).isEqualTo(target);
+    }
+
+    @Test
+    @DisplayName("appends to and inserts into arrays")
+    void addsToArrays() {
+        JsonNode patch = json(
+            "[{\"op\":\"add\",\"path\":\"/p/-\",\"value\":3},{\"op\":\"add\",\"path\":\"/p/0\",\"value\":0}]"
+        );
+
+        assertThat(JsonPatch.apply(json("{\"p\":[1,2]}"), patch)).isEqualTo(json("{\"p\":[0,1,2,3]}"));
+    }
+
+    @Test
+    @DisplayName("rejects patches that do not fit the document")
+    void rejectsMismatchedPatch() {
+        JsonNode document = json("{\"p\":[1]}");
+
+        for (String patch : new String[] {
+            "[{\"op\":\"replace\",\"path\":\"/x\",\"value\":1}]",
+            "[{\"op\":\"remove\",\"path\":\"/p/4\"}]",
+            "[{\"op\":\"move\",\"path\":\"/p\"}]",
+            "{}",
+        }) {
+            assertThatThrownBy(() -> JsonPatch.apply(document, json(patch))).isInstanceOf(
+                IllegalArgumentException.class
+            );
+        }
+    }
+}
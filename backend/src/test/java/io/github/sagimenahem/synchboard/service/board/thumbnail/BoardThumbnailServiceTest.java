@@ -0,0 +1,167 @@
+package io.github.sagimenahem.synchboard.service.board.thumbnail;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import io.github.sagimenahem.synchboard.config.AppProperties;
+import io.github.sagimenahem.synchboard.entity.GroupBoard;
+import io.github.sagimenahem.synchboard.repository.BoardObjectStreamRepository;
+import io.github.sagimenahem.synchboard.repository.GroupBoardRepository;
+import io.github.sagimenahem.synchboard.service.board.persistence.BoardWriteBehindService;
+import io.github.sagimenahem.synchboard.service.board.state.BoardStateEngine;
+import io.github.sagimenahem.synchboard.service.board.state.LiveBoardObject;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Unit tests for {@link BoardThumbnailService}. Thumbnails are rendered from mocked live state into
+ * a temporary upload directory.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BoardThumbnailService")
+class BoardThumbnailServiceTest {
+
+    private static final Long BOARD_ID = 7L;
+    private static final LocalDateTime FIRST_VERSION = LocalDateTime.of(2026, 3, 1, 10, 0);
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+    @Mock
+    private GroupBoardRepository groupBoardRepository;
+
+    @Mock
+    private BoardStateEngine boardStateEngine;
+
+    @Mock
+    private BoardObjectStreamRepository boardObjectStreamRepository;
+
+    @Mock
+    private BoardWriteBehindService boardWriteBehindService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    private Path uploadDir;
+
+    private BoardThumbnailService service;
+
+    @BeforeEach
+    void setUp() {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getUpload().setDir(uploadDir.toString());
+        appProperties.getJwt().setSecretKey("test-secret");
+        appProperties.getThumbnails().setMaxSize(120);
+        appProperties.getThumbnails().setQuietPeriodMs(60000);
+        service = new BoardThumbnailService(
+            groupBoardRepository,
+            boardStateEngine,
+            boardObjectStreamRepository,
+            boardWriteBehindService,
+            objectMapper,
+            transactionManager,
+            appProperties
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private GroupBoard board(LocalDateTime version) {
+        return GroupBoard.builder()
+            .boardGroupId(BOARD_ID)
+            .lastModifiedDate(version)
+            .canvasBackgroundColor("#000000")
+            .canvasWidth(1200)
+            .canvasHeight(600)
+            .build();
+    }
+
+    private void residentObjects(String... payloads) {
+        List<LiveBoardObject> objects = Stream.of(payloads)
+            .map((payload) -> LiveBoardObject.builder().payload(objectMapper.readTree(payload)).build())
+            .toList();
+        when(boardStateEngine.getObjectsIfResident(BOARD_ID)).thenReturn(Optional.of(objects));
+    }
+
+    private List<Path> thumbnailFiles() throws IOException {
+        try (Stream<Path> files = Files.list(uploadDir.resolve("thumbnails"))) {
+            return files.toList();
+        }
+    }
+
+    @Test
+    @DisplayName("renders the live objects over the canvas background, scaled to fit")
+    void rendersLiveObjects() throws IOException {
+        GroupBoard board = board(FIRST_VERSION);
+        when(groupBoardRepository.findById(BOARD_ID)).thenReturn(Optional.of(board));
+        residentObjects(
+            "{\"tool\":\"rectangle\",\"x\":0,\"y\":0,\"width\":0.5,\"height\":1,\"color\":\"#ff0000\"," +
+            "\"fillColor\":\"#ff0000\",\"strokeWidth\":1}"
+        );
+
+        service.render(BOARD_ID);
+
+        String url = service.getThumbnailUrl(board);
+        assertThat(url).startsWith("/images/thumbnails/7-").endsWith(".png");
+        BufferedImage image = ImageIO.read(uploadDir.resolve("thumbnails").resolve(url.substring(19)).toFile());
+        assertThat(image.getWidth()).isEqualTo(120);
+        assertThat(image.getHeight()).isEqualTo(60);
+        assertThat(image.getRGB(20, 30) & 0xFFFFFF).isEqualTo(0xFF0000);
+        assertThat(image.getRGB(100, 30) & 0xFFFFFF).isEqualTo(0x000000);
+    }
+
+    @Test
+    @DisplayName("keeps serving the previous thumbnail until the new version is rendered, then deletes it")
+    void replacesThumbnailOnNewVersion() throws IOException {
+        LocalDateTime secondVersion = FIRST_VERSION.plusMinutes(5);
+        assertThat(service.getThumbnailUrl(board(FIRST_VERSION))).isNull();
+
+        when(groupBoardRepository.findById(BOARD_ID)).thenReturn(Optional.of(board(FIRST_VERSION)));
+        residentObjects();
+        service.render(BOARD_ID);
+        String firstUrl = service.getThumbnailUrl(board(FIRST_VERSION));
+
+        assertThat(service.getThumbnailUrl(board(secondVersion))).isEqualTo(firstUrl);
+
+        when(groupBoardRepository.findById(BOARD_ID)).thenReturn(Optional.of(board(secondVersion)));
+        service.render(BOARD_ID);
+        String secondUrl = service.getThumbnailUrl(board(secondVersion));
+
+        assertThat(secondUrl).isNotEqualTo(firstUrl);
+        assertThat(thumbnailFiles()).singleElement().satisfies((file) ->
+            assertThat(secondUrl).endsWith(file.getFileName().toString())
+        );
+    }
+
+    @Test
+    @DisplayName("waits for a board to go quiet before rendering it")
+    void debouncesChanges() {
+        service.boardsChanged(List.of(BOARD_ID));
+
+        service.renderDueThumbnails();
+
+        verifyNoInteractions(groupBoardRepository, boardStateEngine);
+    }
+}
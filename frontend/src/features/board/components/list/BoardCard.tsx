@@ -5,7 +5,7 @@ import type { ViewMode } from 'features/board/types/ToolbarTypes';
 import { formatCanvasResolution } from 'features/board/utils/CanvasUtils';
 import { Crown } from 'lucide-react';
 import { AnimatePresence, motion } from 'motion/react';
-import React, { useMemo } from 'react';
+import React, { useMemo, useState } from 'react';
 import { useTranslation } from 'react-i18next';
 import { Link } from 'react-router-dom';
 import { API_BASE_URL, APP_ROUTES } from 'shared/constants';
@@ -59,6 +59,14 @@ const BoardCard: React.FC<BoardCardProps> = React.memo(({ board, viewMode = 'gri
     [board.pictureUrl],
   );
 
+  // A thumbnail that fails to load (e.g. already replaced) stays hidden until its URL changes
+  const [failedThumbnail, setFailedThumbnail] = useState<string | null>(null);
+  const thumbnailSource = useMemo(
+    () =>
+      board.thumbnailUrl ? `${API_BASE_URL.replace('/api', '')}${board.thumbnailUrl}` : null,
+    [board.thumbnailUrl],
+  );
+
   const colorDisplayName = useMemo(() => {
     const colorName = getColorName(board.canvasBackgroundColor);
     return colorName ? t(`common:colors.${colorName}`) : board.canvasBackgroundColor;
@@ -80,6 +88,18 @@ const BoardCard: React.FC<BoardCardProps> = React.memo(({ board, viewMode = 'gri
         <Card variant="glass" hoverable className={cardClasses}>
           {/* Preview area with neutral gradient and centered avatar */}
           <div className={styles.previewArea}>
+            {thumbnailSource && thumbnailSource !== failedThumbnail && (
+              <img
+                key={thumbnailSource}
+                src={thumbnailSource}
+                alt=""
+                aria-hidden="true"
+                loading="lazy"
+                className={styles.previewThumbnail}
+                onError={() => setFailedThumbnail(thumbnailSource)}
+              />
+            )}
+
             {/* Centered avatar with animated image */}
             <div className={styles.gridAvatar}>
               <AnimatePresence mode="wait">
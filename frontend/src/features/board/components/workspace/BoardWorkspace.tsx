@@ -1,6 +1,6 @@
 import clsx from 'clsx';
 import type { ActionPayload, SendBoardActionRequest } from 'features/board/types/BoardObjectTypes';
-import type { CanvasConfig } from 'features/board/types/BoardTypes';
+import type { CanvasConfig, CanvasRegion } from 'features/board/types/BoardTypes';
 import { ChatWindow, MobileChatDrawer } from 'features/chat/components';
 import type { ChatMessageResponse } from 'features/chat/types/MessageTypes';
 import { useCanvasPreferences } from 'features/settings/CanvasPreferencesProvider';
@@ -84,6 +84,8 @@ interface BoardWorkspaceProps {
   onMobileChatOpenChange?: (isOpen: boolean) => void;
   /** Real-time handler for split ratio changes during resize (not debounced) */
   onLiveSplitRatioChange?: (ratio: number) => void;
+  /** Handler for changes of the visible part of the canvas */
+  onViewportChange?: (region: CanvasRegion) => void;
 }
 
 /**
@@ -121,6 +123,7 @@ const BoardWorkspace: React.FC<BoardWorkspaceProps> = ({
   mobileChatOpen = false,
   onMobileChatOpenChange,
   onLiveSplitRatioChange,
+  onViewportChange,
 }) => {
   const isMobile = useIsMobile();
   const { preferences: canvasPreferences, updateCanvasPreferences } = useCanvasPreferences();
@@ -265,6 +268,7 @@ const BoardWorkspace: React.FC<BoardWorkspaceProps> = ({
       canvasConfig={canvasConfig}
       onColorPick={onColorPick}
       isLoading={isLoading}
+      onViewportChange={onViewportChange}
     />
   );
 
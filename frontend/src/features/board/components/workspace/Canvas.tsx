@@ -2,7 +2,7 @@ import { CANVAS_CONFIG, TOOLS } from 'features/board/constants/BoardConstants';
 import { useCanvas } from 'features/board/hooks/workspace/canvas/useCanvas';
 import { useCanvasInteractions } from 'features/board/hooks/workspace/canvas/useCanvasInteractions';
 import type { ActionPayload, SendBoardActionRequest } from 'features/board/types/BoardObjectTypes';
-import type { CanvasConfig } from 'features/board/types/BoardTypes';
+import type { CanvasConfig, CanvasRegion } from 'features/board/types/BoardTypes';
 import { useCanvasPreferences } from 'features/settings/CanvasPreferencesProvider';
 import { useConnectionStatus } from 'features/websocket/hooks/useConnectionStatus';
 import React, { useCallback, useEffect, useMemo, useRef, useState } from 'react';
@@ -48,6 +48,8 @@ interface CanvasProps {
   onColorPick?: (color: string) => void;
   /** Whether the canvas is in a loading state */
   isLoading?: boolean;
+  /** Handler for changes of the visible part of the canvas, in normalized coordinates */
+  onViewportChange?: (region: CanvasRegion) => void;
 }
 
 /**
@@ -65,6 +67,7 @@ interface CanvasProps {
  * @param canvasConfig - Canvas configuration including dimensions and background color
  * @param onColorPick - Handler for color picking interactions on the canvas
  * @param isLoading - Whether the canvas is in a loading state
+ * @param onViewportChange - Handler for changes of the visible part of the canvas
  */
 const Canvas: React.FC<CanvasProps> = (props) => {
   const { t } = useTranslation(['board', 'common']);
@@ -190,6 +193,42 @@ const Canvas: React.FC<CanvasProps> = (props) => {
     };
   }, [containerRef]);
 
+  // Report the visible part of the canvas, plus a margin, once scrolling, zooming, or resizing
+  // settles. Bounding rectangles already include the zoom and flip transforms.
+  const { onViewportChange } = props;
+  const reportViewport = useDebouncedCallback(() => {
+    const container = containerRef.current;
+    const canvas = canvasRef.current;
+    if (!onViewportChange || !container || !canvas) return;
+
+    const view = container.getBoundingClientRect();
+    const rect = canvas.getBoundingClientRect();
+    if (rect.width === 0 || rect.height === 0) return;
+
+    const marginX = view.width * CANVAS_CONFIG.VIEWPORT.MARGIN;
+    const marginY = view.height * CANVAS_CONFIG.VIEWPORT.MARGIN;
+    onViewportChange({
+      minX: (view.left - marginX - rect.left) / rect.width,
+      minY: (view.top - marginY - rect.top) / rect.height,
+      maxX: (view.right + marginX - rect.left) / rect.width,
+      maxY: (view.bottom + marginY - rect.top) / rect.height,
+    });
+  }, CANVAS_CONFIG.VIEWPORT.REPORT_DELAY_MS);
+
+  useEffect(() => {
+    const container = containerRef.current;
+    if (!container || !onViewportChange) return;
+
+    reportViewport();
+    container.addEventListener('scroll', reportViewport, { passive: true });
+    window.addEventListener('resize', reportViewport);
+
+    return () => {
+      container.removeEventListener('scroll', reportViewport);
+      window.removeEventListener('resize', reportViewport);
+    };
+  }, [containerRef, onViewportChange, reportViewport, zoomScale, props.canvasConfig]);
+
   // Container handler: pass all pointer events to enable multi-touch detection
   // Background touches need to be tracked so 2-finger panning works anywhere
   // The getPointerCoordinates bounds check prevents drawing outside the canvas
@@ -69,6 +69,13 @@ export const CANVAS_CONFIG = {
     DECIMATION_FACTOR: 2,
     PRESERVE_ENDPOINTS: true,
   } satisfies PointOptimizationConfig,
+  VIEWPORT: {
+    // Extra area reported around the visible part, as a fraction of its size, so short scrolls
+    // show objects that are already up to date
+    MARGIN: 0.25,
+    // Quiet period after scrolling, zooming, or resizing before the viewport is reported
+    REPORT_DELAY_MS: 250,
+  },
   CANVAS_SIZE_PRESETS: {
     WIDESCREEN: {
       width: 1920,
@@ -1,9 +1,9 @@
 import { AxiosError } from 'axios';
 import * as boardService from 'features/board/services/boardService';
 import type { ActionPayload } from 'features/board/types/BoardObjectTypes';
-import type { BoardDetails } from 'features/board/types/BoardTypes';
+import type { BoardDetails, BoardSyncPosition } from 'features/board/types/BoardTypes';
 import type { ChatMessageResponse } from 'features/chat/types/MessageTypes';
-import { useCallback, useEffect, useState } from 'react';
+import { useCallback, useEffect, useRef, useState } from 'react';
 import toast from 'react-hot-toast';
 import { useTranslation } from 'react-i18next';
 import { ensureMinimumDelay } from 'shared/utils';
@@ -28,16 +28,30 @@ export const useBoardDataManager = (boardId: number) => {
   const [accessLost, setAccessLost] = useState(false);
   const [objects, setObjects] = useState<ActionPayload[]>([]);
   const [messages, setMessages] = useState<ChatMessageResponse[]>([]);
+  // Position in the board's numbered event stream, advanced by the WebSocket handler
+  const syncPositionRef = useRef<BoardSyncPosition | null>(null);
 
   const fetchInitialData = useCallback(() => {
     setIsLoading(true);
     const startTime = Date.now();
 
-    Promise.all([
-      boardService.getBoardDetails(boardId),
-      boardService.getBoardObjects(boardId),
-      boardService.getBoardMessages(boardId),
-    ])
+    // Take the position before loading, so events broadcast during the load are replayed on resync
+    boardService
+      .getBoardEvents(boardId)
+      .then(({ stream, sequence }) => {
+        syncPositionRef.current = { stream, sequence };
+      })
+      .catch((error) => {
+        syncPositionRef.current = null;
+        logger.warn('Failed to fetch board event position:', error);
+      })
+      .then(() =>
+        Promise.all([
+          boardService.getBoardDetails(boardId),
+          boardService.getBoardObjects(boardId),
+          boardService.getBoardMessages(boardId),
+        ]),
+      )
       .then(([details, objectActions, messageHistory]) => {
         setBoardName(details.name);
         setBoardDetails(details);
@@ -81,6 +95,7 @@ export const useBoardDataManager = (boardId: number) => {
     setAccessLost,
     setObjects,
     setMessages,
+    syncPositionRef,
     fetchInitialData,
   };
 };
@@ -6,7 +6,8 @@ import type {
   EnhancedActionPayload,
   SendBoardActionRequest,
 } from 'features/board/types/BoardObjectTypes';
-import { useSocketSubscription } from 'features/websocket/hooks/useSocket';
+import type { CanvasRegion } from 'features/board/types/BoardTypes';
+import { useSocket, useSocketSubscription } from 'features/websocket/hooks/useSocket';
 import { useWebSocketHandler } from 'features/websocket/hooks/useWebSocketHandler';
 import type { BoardUpdateDTO, UserUpdateDTO } from 'features/websocket/types/WebSocketTypes';
 import {
@@ -66,6 +67,7 @@ export const useBoardWorkspace = (boardId: number) => {
     setAccessLost,
     setObjects: setBaseObjects,
     setMessages,
+    syncPositionRef,
     fetchInitialData,
   } = useBoardDataManager(boardId);
 
@@ -126,6 +128,8 @@ export const useBoardWorkspace = (boardId: number) => {
     setMessages,
     commitDrawingTransaction: handleCommitDrawingTransaction,
     commitChatTransaction: handleCommitChatTransaction,
+    syncPositionRef,
+    reloadBoard: fetchInitialData,
   });
 
   const handleDrawAction = useCallback(
@@ -174,6 +178,39 @@ export const useBoardWorkspace = (boardId: number) => {
     [boardId, incrementUndo, addOptimisticObject, t],
   );
 
+  const { isSocketConnected } = useSocket();
+  const viewportRef = useRef<CanvasRegion | null>(null);
+
+  const sendViewport = useCallback(
+    async (region: CanvasRegion) => {
+      try {
+        const service = await getWebSocketService();
+        service.sendMessage(WEBSOCKET_DESTINATIONS.VIEWPORT, { boardId, ...region });
+      } catch (error) {
+        logger.warn('Failed to report canvas viewport:', error);
+      }
+    },
+    [boardId],
+  );
+
+  // Reports the visible part of the canvas, so the server can hold back changes outside it
+  const handleViewportChange = useCallback(
+    (region: CanvasRegion) => {
+      viewportRef.current = region;
+      if (isSocketConnected) {
+        void sendViewport(region);
+      }
+    },
+    [isSocketConnected, sendViewport],
+  );
+
+  // A new connection starts without a viewport, so report the last one again
+  useEffect(() => {
+    if (isSocketConnected && viewportRef.current) {
+      void sendViewport(viewportRef.current);
+    }
+  }, [isSocketConnected, sendViewport]);
+
   // Handles access loss by redirecting to board list
   useEffect(() => {
     if (accessLost) {
@@ -228,6 +265,7 @@ export const useBoardWorkspace = (boardId: number) => {
     isRedoAvailable,
     pendingDrawingActions,
     handleDrawAction,
+    handleViewportChange,
     handleUndo,
     handleRedo,
     registerChatCommitHandler,
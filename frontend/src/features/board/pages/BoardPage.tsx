@@ -53,8 +53,16 @@ const BoardPageContent: React.FC<BoardPageContentProps> = ({ boardId }) => {
     [isMobile],
   );
 
-  const { isLoading, boardName, boardDetails, objects, messages, instanceId, handleDrawAction } =
-    useBoardContext();
+  const {
+    isLoading,
+    boardName,
+    boardDetails,
+    objects,
+    messages,
+    instanceId,
+    handleDrawAction,
+    handleViewportChange,
+  } = useBoardContext();
 
   const { preferences, updateStrokeColor, updateTool } = useToolPreferences();
   const { preferences: userBoardPreferences } = useUserBoardPreferences();
@@ -284,6 +292,7 @@ const BoardPageContent: React.FC<BoardPageContentProps> = ({ boardId }) => {
             mobileChatOpen={mobileChatOpen}
             onMobileChatOpenChange={setMobileChatOpen}
             onLiveSplitRatioChange={setLiveCanvasSplitRatio}
+            onViewportChange={handleViewportChange}
           />
         </div>
 
@@ -2,6 +2,8 @@ import type { BoardActionResponse } from 'features/board/types/BoardObjectTypes'
 import type {
   Board,
   BoardDetails,
+  BoardEventsResponse,
+  BoardSyncPosition,
   CreateBoardRequest,
   Member,
   UpdateCanvasSettingsRequest,
@@ -256,6 +258,27 @@ export const getBoardMessages = async (boardId: number): Promise<ChatMessageResp
   return response.data;
 };
 
+/**
+ * Retrieves the drawing actions and chat messages a client missed since its last known position,
+ * for catching up after a reconnect. Without a position, only the board's current position is
+ * returned.
+ *
+ * @param boardId - ID of the board whose events to retrieve
+ * @param position - Stream and sequence number of the last event the client applied
+ * @returns Promise resolving to the missed events, or to a non-resumable answer when the board must
+ *   be reloaded instead
+ * @throws {Error} When the board doesn't exist or user lacks access permissions
+ */
+export const getBoardEvents = async (
+  boardId: number,
+  position?: BoardSyncPosition,
+): Promise<BoardEventsResponse> => {
+  const response = await apiClient.get<BoardEventsResponse>(API_ENDPOINTS.BOARD_EVENTS(boardId), {
+    params: position ? { stream: position.stream, since: position.sequence } : undefined,
+  });
+  return response.data;
+};
+
 /**
  * Updates the canvas configuration settings for a board.
  * This function allows administrators to modify canvas properties including
@@ -7,6 +7,7 @@ export const ActionType = {
   OBJECT_ADD: 'OBJECT_ADD',
   OBJECT_UPDATE: 'OBJECT_UPDATE',
   OBJECT_DELETE: 'OBJECT_DELETE',
+  OBJECT_BATCH: 'OBJECT_BATCH',
 } as const;
 
 /**
@@ -260,6 +261,18 @@ export interface SendBoardActionRequest {
   sender: string;
 }
 
+/**
+ * One object operation carried by an OBJECT_BATCH action.
+ */
+export interface BoardActionOperation {
+  // Type of operation (add, update, delete)
+  type: ActionType;
+  // Generic payload object containing drawing data, null for a delete
+  payload: object | null;
+  // Identifier of the affected object
+  instanceId: string;
+}
+
 /**
  * Response structure for board drawing actions received from the server.
  * Represents actions performed by other users in real-time collaboration.
@@ -271,6 +284,8 @@ export interface BoardActionResponse {
   payload: object;
   // Session ID of the user who sent the action
   sender: string;
-  // Unique identifier for this action instance
+  // Unique identifier for this action instance, or of the batch for OBJECT_BATCH
   instanceId: string;
+  // Operations of an OBJECT_BATCH, applied in order
+  operations?: BoardActionOperation[] | null;
 }
@@ -11,6 +11,46 @@ export interface CanvasConfig {
   height: number;
 }
 
+/**
+ * Rectangle of the canvas in normalized coordinates, where 0 to 1 spans the canvas on each axis.
+ * Used for region reads and for the viewport a client reports over WebSocket.
+ */
+export interface CanvasRegion {
+  // Left edge of the region
+  minX: number;
+  // Top edge of the region
+  minY: number;
+  // Right edge of the region
+  maxX: number;
+  // Bottom edge of the region
+  maxY: number;
+}
+
+/**
+ * Position of a client in a board's numbered event stream, taken from the board-sequence header
+ * of the broadcasts it received. Sent back after a reconnect to fetch only the missed events.
+ */
+export interface BoardSyncPosition {
+  // Identifier of the numbering; numbers from another stream cannot be resumed from
+  stream: string;
+  // Sequence number of the last event the client has applied
+  sequence: number;
+}
+
+/**
+ * Board events missed since a position, or the position to start from after reloading the board.
+ */
+export interface BoardEventsResponse {
+  // Current stream of the board's event numbering
+  stream: string;
+  // Sequence number of the board's latest event
+  sequence: number;
+  // False when the missed events are no longer kept and the board must be reloaded
+  resumable: boolean;
+  // Missed drawing actions and chat messages, oldest first, each object's latest change only
+  events: { sequence: number; payload: unknown }[];
+}
+
 /**
  * Represents a collaborative whiteboard with its metadata and settings.
  * Contains all essential information for board display and management.
@@ -24,6 +64,8 @@ export interface Board {
   description: string | null;
   // URL to the board's thumbnail/preview image
   pictureUrl: string | null;
+  // URL to a server-rendered preview of the board's contents, null until one is rendered
+  thumbnailUrl: string | null;
   // ISO timestamp of the last modification
   lastModifiedDate: string;
   // Whether the current user has admin privileges for this board
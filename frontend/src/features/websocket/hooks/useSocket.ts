@@ -1,3 +1,4 @@
+import type { StompHeaders } from '@stomp/stompjs';
 import { useCallback, useContext, useEffect, useRef } from 'react';
 
 import logger from 'shared/utils/logger';
@@ -55,12 +56,12 @@ export const useSocket = useWebSocket;
  * - Delayed subscription setup to ensure connection stability
  *
  * @param topic - STOMP topic path to subscribe to (e.g., '/topic/board/123')
- * @param onMessageReceived - Callback function to handle incoming messages
+ * @param onMessageReceived - Callback receiving each message and its STOMP headers
  * @param schemaKey - Optional validation schema key for message validation
  */
 export const useSocketSubscription = <T>(
   topic: string,
-  onMessageReceived: (message: T) => void,
+  onMessageReceived: (message: T, headers: StompHeaders) => void,
   schemaKey?: string,
 ) => {
   const { isSocketConnected } = useWebSocket();
@@ -73,8 +74,8 @@ export const useSocketSubscription = <T>(
   }, [onMessageReceived]);
 
   // Stable callback that always calls the latest message handler - memoized to prevent subscription churn
-  const stableOnMessageReceived = useCallback((message: T) => {
-    onMessageReceivedRef.current(message);
+  const stableOnMessageReceived = useCallback((message: T, headers: StompHeaders) => {
+    onMessageReceivedRef.current(message, headers);
   }, []);
 
   // Manages WebSocket subscription lifecycle with connection state and topic dependencies
@@ -1,18 +1,71 @@
+import type { StompHeaders } from '@stomp/stompjs';
 import { AxiosError } from 'axios';
 import { useAuth } from 'features/auth/hooks/useAuth';
 import * as boardService from 'features/board/services/boardService';
 import {
   ActionType,
   type ActionPayload,
+  type BoardActionOperation,
   type BoardActionResponse,
 } from 'features/board/types/BoardObjectTypes';
+import type { BoardEventsResponse, BoardSyncPosition } from 'features/board/types/BoardTypes';
 import type { ChatMessageResponse } from 'features/chat/types/MessageTypes';
 import type { BoardUpdateDTO } from 'features/websocket/types/WebSocketTypes';
-import { useCallback } from 'react';
+import { useCallback, useEffect, useRef } from 'react';
 import { WEBSOCKET_TOPICS } from 'shared/constants/ApiConstants';
+import { TIMING_CONSTANTS } from 'shared/constants/TimingConstants';
 import logger from 'shared/utils/logger';
 
-import { useSocketSubscription } from './useSocket';
+import { useSocket, useSocketSubscription } from './useSocket';
+
+const BOARD_SEQUENCE_HEADER = 'board-sequence';
+const RESUME_SEQUENCE_HEADER = 'resume-sequence';
+
+// Sequence number a broadcast leaves the client at, if it carries one
+const sequenceOf = (headers: StompHeaders): number | null => {
+  const value = headers[RESUME_SEQUENCE_HEADER] ?? headers[BOARD_SEQUENCE_HEADER];
+  return value !== undefined && value !== '' && !isNaN(Number(value)) ? Number(value) : null;
+};
+
+// Events of a broadcast with their own sequence numbers. A board frame carries several, each with
+// its own number; the frame's headers give the position the client is left at after the last one
+const eventsOf = (
+  payload: unknown,
+  headers: StompHeaders,
+): { payload: unknown; sequence: number | null }[] => {
+  const sequence = sequenceOf(headers);
+  if (!Array.isArray(payload)) {
+    return [{ payload, sequence }];
+  }
+  const frame = payload as BoardEventsResponse['events'];
+  return frame.map((event, index) => ({
+    payload: event.payload,
+    sequence: index === frame.length - 1 ? sequence : event.sequence,
+  }));
+};
+
+// Applies the operations of a batch in order, with one pass over the objects. Adds and updates
+// are upserts, like single actions
+const applyOperations = (
+  objects: ActionPayload[],
+  operations: BoardActionOperation[],
+): ActionPayload[] => {
+  const byId = new Map(objects.map((obj) => [obj.instanceId, obj]));
+  for (const operation of operations) {
+    if (operation.type === ActionType.OBJECT_DELETE) {
+      byId.delete(operation.instanceId);
+    } else if (
+      operation.type === ActionType.OBJECT_ADD ||
+      operation.type === ActionType.OBJECT_UPDATE
+    ) {
+      byId.set(operation.instanceId, {
+        ...(operation.payload ?? {}),
+        instanceId: operation.instanceId,
+      } as ActionPayload);
+    }
+  }
+  return [...byId.values()];
+};
 
 /**
  * Properties for the useWebSocketHandler hook defining board-specific WebSocket message handling.
@@ -35,6 +88,10 @@ interface WebSocketHandlerProps {
   commitDrawingTransaction: (instanceId: string) => void;
   // Transaction handler for chat operations to manage optimistic updates
   commitChatTransaction: (instanceId: string) => void;
+  // Position in the board's numbered event stream, advanced as broadcasts are applied
+  syncPositionRef: React.MutableRefObject<BoardSyncPosition | null>;
+  // Reloads the whole board when the missed events can no longer be replayed
+  reloadBoard: () => void;
 }
 
 /**
@@ -51,6 +108,8 @@ interface WebSocketHandlerProps {
  * - Filter out own actions to prevent duplicate UI updates
  * - Implement transaction-based conflict resolution for optimistic updates
  * - Handle permission-based access loss and error scenarios
+ * - Replay the events missed while disconnected, or reload the board when they are gone
+ * - Fetch the events the server dropped when this client fell behind
  *
  * @param props - Configuration object containing board ID, session info, and state management callbacks
  * @returns Object containing message handler for external access if needed
@@ -64,8 +123,13 @@ export const useWebSocketHandler = ({
   setMessages,
   commitDrawingTransaction,
   commitChatTransaction,
+  syncPositionRef,
+  reloadBoard,
 }: WebSocketHandlerProps) => {
   const { userEmail } = useAuth();
+  const { isSocketConnected } = useSocket();
+  // Live broadcasts received while missed events are fetched, applied once they are
+  const resyncBufferRef = useRef<{ payload: unknown; sequence: number | null }[] | null>(null);
 
   // Handle board-level updates like member changes and board details modifications
   const handleBoardUpdate = useCallback(
@@ -104,6 +168,14 @@ export const useWebSocketHandler = ({
   // Handle canvas drawing operations from other users
   const handleDrawingMessage = useCallback(
     (action: BoardActionResponse) => {
+      if (action.type === ActionType.OBJECT_BATCH) {
+        // Batches are never drawn optimistically, so there is no transaction to commit and the
+        // client's own batches are applied too
+        const operations = action.operations ?? [];
+        setObjects((prev) => applyOperations(prev, operations));
+        return;
+      }
+
       // Check if this is our own action to prevent duplicate updates
       const isOwnDrawingAction =
         action.sender === sessionInstanceId &&
@@ -113,11 +185,13 @@ export const useWebSocketHandler = ({
       if (!isOwnDrawingAction) {
         const actionPayload = { ...action.payload, instanceId: action.instanceId } as ActionPayload;
 
-        if (action.type === ActionType.OBJECT_ADD) {
-          setObjects((prev) => [...prev, actionPayload]);
-        } else if (action.type === ActionType.OBJECT_UPDATE) {
+        if (action.type === ActionType.OBJECT_ADD || action.type === ActionType.OBJECT_UPDATE) {
+          // Upsert: changes outside this client's viewport are held back by the server, so an
+          // add may arrive for an object the client already has, or an update for one it lacks
           setObjects((prev) =>
-            prev.map((obj) => (obj.instanceId === action.instanceId ? actionPayload : obj)),
+            prev.some((obj) => obj.instanceId === action.instanceId)
+              ? prev.map((obj) => (obj.instanceId === action.instanceId ? actionPayload : obj))
+              : [...prev, actionPayload],
           );
         } else if (action.type === ActionType.OBJECT_DELETE) {
           setObjects((prev) => prev.filter((obj) => obj.instanceId !== action.instanceId));
@@ -134,6 +208,10 @@ export const useWebSocketHandler = ({
   const handleChatMessage = useCallback(
     (chatMessage: ChatMessageResponse) => {
       setMessages((prevMessages) => {
+        // A replayed message may already be in the list
+        if (prevMessages.some((message) => message.id === chatMessage.id)) {
+          return prevMessages;
+        }
         return [...prevMessages, chatMessage];
       });
 
@@ -146,7 +224,7 @@ export const useWebSocketHandler = ({
   );
 
   // Main message router that dispatches incoming WebSocket messages to appropriate handlers
-  const onMessageReceived = useCallback(
+  const routeMessage = useCallback(
     (payload: unknown) => {
       if (typeof payload !== 'object' || !payload) {
         return;
@@ -180,7 +258,8 @@ export const useWebSocketHandler = ({
         if (
           transactionalMessage.type === ActionType.OBJECT_ADD ||
           transactionalMessage.type === ActionType.OBJECT_UPDATE ||
-          transactionalMessage.type === ActionType.OBJECT_DELETE
+          transactionalMessage.type === ActionType.OBJECT_DELETE ||
+          transactionalMessage.type === ActionType.OBJECT_BATCH
         ) {
           handleDrawingMessage(transactionalMessage as BoardActionResponse);
         } else if (transactionalMessage.type === 'CHAT') {
@@ -198,6 +277,119 @@ export const useWebSocketHandler = ({
     [handleBoardUpdate, handleDrawingMessage, handleChatMessage],
   );
 
+  // Latest handlers for the resync, so a re-render does not restart one in progress
+  const routeMessageRef = useRef(routeMessage);
+  const reloadBoardRef = useRef(reloadBoard);
+  useEffect(() => {
+    routeMessageRef.current = routeMessage;
+    reloadBoardRef.current = reloadBoard;
+  }, [routeMessage, reloadBoard]);
+
+  // Stops the resync in progress, if any
+  const cancelResyncRef = useRef<(() => void) | null>(null);
+  const cancelResync = useCallback(() => cancelResyncRef.current?.(), []);
+
+  // Fetches the events missed since the sync position and applies them. Live broadcasts are
+  // buffered from the start, so none fall between the replay and the live stream.
+  const startResync = useCallback(
+    (delay: number) => {
+      cancelResync();
+      resyncBufferRef.current = [];
+      let isResyncActive = true;
+      const finishResync = (resumed: boolean, sequence: number) => {
+        cancelResyncRef.current = null;
+        const buffered = resyncBufferRef.current ?? [];
+        resyncBufferRef.current = null;
+        if (!resumed) {
+          reloadBoardRef.current();
+          return;
+        }
+        buffered
+          .filter((message) => message.sequence === null || message.sequence > sequence)
+          .forEach((message) => routeMessageRef.current(message.payload));
+        const last = buffered.reduce<number | null>(
+          (latest, message) => (message.sequence !== null ? message.sequence : latest),
+          null,
+        );
+        if (syncPositionRef.current && last !== null && last > sequence) {
+          syncPositionRef.current.sequence = last;
+        }
+      };
+
+      const timeoutId = setTimeout(() => {
+        const position = syncPositionRef.current;
+        if (!position) {
+          finishResync(false, 0);
+          return;
+        }
+        boardService
+          .getBoardEvents(boardId, position)
+          .then((response) => {
+            if (!isResyncActive) return;
+            syncPositionRef.current = { stream: response.stream, sequence: response.sequence };
+            if (response.resumable) {
+              response.events.forEach((event) => routeMessageRef.current(event.payload));
+              logger.debug(`Replayed ${response.events.length} missed board events`);
+            }
+            finishResync(response.resumable, response.sequence);
+          })
+          .catch((error) => {
+            if (!isResyncActive) return;
+            logger.warn('Failed to fetch missed board events, reloading board:', error);
+            finishResync(false, 0);
+          });
+      }, delay);
+
+      cancelResyncRef.current = () => {
+        isResyncActive = false;
+        clearTimeout(timeoutId);
+        resyncBufferRef.current = null;
+        cancelResyncRef.current = null;
+      };
+    },
+    [boardId, syncPositionRef, cancelResync],
+  );
+
+  // Applies a broadcast and advances the sync position, or holds it back during a resync. A
+  // RESYNC_REQUIRED update means the server dropped board events this client had not read yet
+  const onMessageReceived = useCallback(
+    (payload: unknown, headers: StompHeaders = {}) => {
+      if ((payload as Partial<BoardUpdateDTO> | null)?.updateType === 'RESYNC_REQUIRED') {
+        logger.debug('Server dropped queued board events, fetching them');
+        startResync(0);
+        return;
+      }
+      for (const event of eventsOf(payload, headers)) {
+        if (resyncBufferRef.current) {
+          resyncBufferRef.current.push(event);
+          continue;
+        }
+        routeMessage(event.payload);
+        if (event.sequence !== null && syncPositionRef.current) {
+          syncPositionRef.current.sequence = event.sequence;
+        }
+      }
+    },
+    [routeMessage, syncPositionRef, startResync],
+  );
+
+  // Board the client was last connected on; the first connection on a board loads it instead
+  const connectedBoardRef = useRef<number | null>(null);
+
+  // After a reconnect, fetch the events missed while disconnected, once the board subscription is
+  // back. A resync in progress ends with the connection or board it started on
+  useEffect(() => {
+    if (!isSocketConnected) {
+      return;
+    }
+    if (connectedBoardRef.current !== boardId) {
+      connectedBoardRef.current = boardId;
+    } else {
+      startResync(TIMING_CONSTANTS.BOARD_RESYNC_DELAY);
+    }
+    return cancelResync;
+  }, [isSocketConnected, boardId, startResync, cancelResync]);
+
   useSocketSubscription(
     boardId ? WEBSOCKET_TOPICS.BOARD(boardId) : '',
     onMessageReceived,
@@ -1,4 +1,4 @@
-import type { Client, IMessage, StompSubscription } from '@stomp/stompjs';
+import type { Client, IMessage, StompHeaders, StompSubscription } from '@stomp/stompjs';
 import {
   type MessageValidationSchema,
   sanitizeObject,
@@ -8,8 +8,13 @@ import {
 import { AUTH_HEADER_CONFIG, getWebSocketUrl } from 'shared/constants/ApiConstants';
 import { WEBSOCKET_CONFIG } from 'shared/constants/AppConstants';
 import { TIMING_CONSTANTS } from 'shared/constants/TimingConstants';
+import { decodeCbor, encodeCbor } from 'shared/utils/cborCodec';
 import logger from 'shared/utils/logger';
 
+const WIRE_FORMAT_HEADER = 'wire-format';
+const WIRE_FORMAT_CBOR = 'cbor';
+const CBOR_CONTENT_TYPE = 'application/cbor';
+
 // Lazy-load STOMP client to reduce initial bundle size on auth page
 let StompClientClass: typeof Client | null = null;
 const getStompClient = async (): Promise<typeof Client> => {
@@ -33,6 +38,7 @@ const getStompClient = async (): Promise<typeof Client> => {
  * - Rollback callbacks for optimistic update conflict resolution
  * - Offline message queue processing upon reconnection
  * - Connection timeout handling and heartbeat monitoring
+ * - CBOR-encoded binary frames when the server agrees to them at CONNECT
  */
 class WebSocketService {
   private stompClient: Client | null = null;
@@ -40,7 +46,7 @@ class WebSocketService {
   private connectionState: 'disconnected' | 'connecting' | 'connected' = 'disconnected';
   private pendingSubscriptions: {
     topic: string;
-    callback: (message: unknown) => void;
+    callback: (message: unknown, headers: StompHeaders) => void;
     schemaKey?: string;
   }[] = [];
 
@@ -52,6 +58,8 @@ class WebSocketService {
   private rollbackCallbacks = new Set<() => void>();
   private queueProcessorCallback: (() => Promise<void>) | null = null;
   private isIntentionalDisconnect = false;
+  /** Whether the server accepted the CBOR wire format for the current connection */
+  private binaryFrames = false;
 
   constructor() {
     this.initializeMessageSchemas();
@@ -105,23 +113,33 @@ class WebSocketService {
   }
 
   /**
-   * Parses JSON message body and applies validation and sanitization before processing.
+   * Parses the message body and applies validation and sanitization before processing.
+   * Binary frames are decoded as CBOR, text frames as JSON; both yield the same object shape.
    * Enforces message size limits, validates structure, and sanitizes content for security.
    *
-   * @param messageBody - Raw JSON string from WebSocket message
+   * @param message - Raw STOMP message from the WebSocket
    * @param schemaKey - Optional schema key for validation
    * @returns Parsed and sanitized message object or null if invalid
    */
-  private parseAndValidateMessage<T>(messageBody: string, schemaKey?: string): T | null {
+  private parseAndValidateMessage<T>(message: IMessage, schemaKey?: string): T | null {
     try {
-      if (messageBody.length > WEBSOCKET_CONFIG.MAX_MESSAGE_SIZE) {
+      const contentType = message.headers['content-type'] ?? '';
+      const isBinary =
+        message.isBinaryBody &&
+        (contentType.startsWith('application/octet-stream') ||
+          contentType.startsWith(CBOR_CONTENT_TYPE));
+      const size = isBinary ? message.binaryBody.length : message.body.length;
+
+      if (size > WEBSOCKET_CONFIG.MAX_MESSAGE_SIZE) {
         logger.error(
-          `Message exceeds maximum allowed size: ${messageBody.length} > ${WEBSOCKET_CONFIG.MAX_MESSAGE_SIZE}`,
+          `Message exceeds maximum allowed size: ${size} > ${WEBSOCKET_CONFIG.MAX_MESSAGE_SIZE}`,
         );
         return null;
       }
 
-      const parsedData = JSON.parse(messageBody) as unknown;
+      const parsedData = isBinary
+        ? decodeCbor(message.binaryBody)
+        : (JSON.parse(message.body) as unknown);
 
       // Apply validation based on schema or general security rules
       if (!this.validateMessageWithSchema(parsedData, schemaKey)) {
@@ -240,6 +258,7 @@ class WebSocketService {
    */
   private async connectInternal(token: string, onConnectedCallback: () => void): Promise<void> {
     this.connectionState = 'connecting';
+    this.binaryFrames = false;
 
     if (this.stompClient) {
       void this.stompClient.deactivate();
@@ -262,12 +281,15 @@ class WebSocketService {
       brokerURL: getWebSocketUrl(),
       connectHeaders: {
         [AUTH_HEADER_CONFIG.HEADER_NAME]: `${AUTH_HEADER_CONFIG.TOKEN_PREFIX}${token}`,
+        ...(WEBSOCKET_CONFIG.BINARY_FRAMES && { [WIRE_FORMAT_HEADER]: WIRE_FORMAT_CBOR }),
       },
       reconnectDelay: 0, // Disable STOMP's built-in reconnection to use custom exponential backoff
       heartbeatIncoming: 10000, // Server heartbeat interval for connection health monitoring
       heartbeatOutgoing: 10000, // Client heartbeat interval to keep connection alive through firewalls
-      onConnect: async () => {
+      onConnect: async (frame) => {
         this.connectionState = 'connected';
+        // Only the server's echo turns binary frames on, so older servers keep getting JSON
+        this.binaryFrames = frame.headers[WIRE_FORMAT_HEADER] === WIRE_FORMAT_CBOR;
         this.resetReconnectionState();
 
         if (this.connectionTimeout) {
@@ -389,20 +411,20 @@ class WebSocketService {
    * Queues subscriptions when disconnected and processes them upon reconnection.
    *
    * @param topic - STOMP topic path to subscribe to
-   * @param onMessageReceived - Callback function to handle incoming messages
+   * @param onMessageReceived - Callback receiving each message and its STOMP headers
    * @param schemaKey - Optional validation schema key for message security
    * @returns STOMP subscription object for management, or null if queued for later
    */
   public subscribe<T>(
     topic: string,
-    onMessageReceived: (message: T) => void,
+    onMessageReceived: (message: T, headers: StompHeaders) => void,
     schemaKey?: string,
   ): StompSubscription | null {
     // Queue subscription if not connected, process when connection is restored
     if (this.connectionState !== 'connected' || !this.stompClient?.active) {
       this.pendingSubscriptions.push({
         topic,
-        callback: onMessageReceived as (message: unknown) => void,
+        callback: onMessageReceived as (message: unknown, headers: StompHeaders) => void,
         schemaKey,
       });
       return null;
@@ -411,10 +433,10 @@ class WebSocketService {
     try {
       const subscription = this.stompClient.subscribe(topic, (message: IMessage) => {
         // Validate and sanitize all incoming messages
-        const validatedMessage = this.parseAndValidateMessage<T>(message.body, schemaKey);
+        const validatedMessage = this.parseAndValidateMessage<T>(message, schemaKey);
 
         if (validatedMessage !== null) {
-          onMessageReceived(validatedMessage);
+          onMessageReceived(validatedMessage, message.headers);
         } else {
           logger.warn(`Invalid message received on topic ${topic}`);
         }
@@ -432,7 +454,7 @@ class WebSocketService {
    * Enforces message size limits and connection state validation before sending.
    *
    * @param destination - STOMP destination path (e.g., '/app/chat.send')
-   * @param body - Message body object to be JSON serialized and sent
+   * @param body - Message body object to be serialized (CBOR or JSON, as negotiated) and sent
    * @throws {Error} When connection is not established or message exceeds size limits
    */
   public sendMessage(destination: string, body: object) {
@@ -444,22 +466,32 @@ class WebSocketService {
 
     // Sanitize outgoing message content for security
     const sanitizedBody = sanitizeObject(body);
-    const messageBody = JSON.stringify(sanitizedBody);
+    const binaryBody = this.binaryFrames ? encodeCbor(sanitizedBody) : null;
+    const messageBody = binaryBody ? null : JSON.stringify(sanitizedBody);
+    const size = binaryBody?.length ?? messageBody?.length ?? 0;
 
     // Enforce message size limits to prevent abuse
-    if (messageBody.length > WEBSOCKET_CONFIG.MAX_MESSAGE_SIZE) {
+    if (size > WEBSOCKET_CONFIG.MAX_MESSAGE_SIZE) {
       const error = new Error(
-        `Cannot send message: size ${messageBody.length} exceeds limit ${WEBSOCKET_CONFIG.MAX_MESSAGE_SIZE}`,
+        `Cannot send message: size ${size} exceeds limit ${WEBSOCKET_CONFIG.MAX_MESSAGE_SIZE}`,
       );
       logger.error(error.message);
       throw error;
     }
 
     try {
-      this.stompClient.publish({
-        destination: destination,
-        body: messageBody,
-      });
+      if (binaryBody) {
+        this.stompClient.publish({
+          destination: destination,
+          binaryBody,
+          headers: { 'content-type': CBOR_CONTENT_TYPE },
+        });
+      } else {
+        this.stompClient.publish({
+          destination: destination,
+          body: messageBody ?? '',
+        });
+      }
     } catch (error) {
       logger.error('Failed to publish message via STOMP client:', error);
       throw error;
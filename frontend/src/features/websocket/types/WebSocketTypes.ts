@@ -5,9 +5,11 @@
  */
 export interface BoardUpdateDTO {
   // Type of board update to determine appropriate client-side handling
-  updateType: 'DETAILS_UPDATED' | 'MEMBERS_UPDATED' | 'CANVAS_UPDATED';
-  // Email of user who initiated the change for filtering self-updates
-  sourceUserEmail: string;
+  // RESYNC_REQUIRED is sent to one client when the server dropped board events it had queued, or to
+  // the whole board when the server could not save changes it had already broadcast
+  updateType: 'DETAILS_UPDATED' | 'MEMBERS_UPDATED' | 'CANVAS_UPDATED' | 'RESYNC_REQUIRED';
+  // Email of user who initiated the change for filtering self-updates; null for RESYNC_REQUIRED
+  sourceUserEmail: string | null;
 }
 
 /**
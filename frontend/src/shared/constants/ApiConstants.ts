@@ -54,7 +54,7 @@ export const API_ENDPOINTS = {
   GOOGLE_ONE_TAP: '/auth/google-one-tap',
 
   BOARDS: '/boards',
-  BOARD_OBJECTS: (boardId: number) => `/boards/${boardId}/objects`,
+  BOARD_OBJECTS: (boardId: number) => `/boards/${boardId}/objects/stream`,
   UNDO: (boardId: number) => `/boards/${boardId}/undo`,
   REDO: (boardId: number) => `/boards/${boardId}/redo`,
   INVITE_MEMBER: (boardId: number) => `/boards/${boardId}/members`,
@@ -69,6 +69,7 @@ export const API_ENDPOINTS = {
   UPLOAD_BOARD_PICTURE: (boardId: number) => `/boards/${boardId}/picture`,
   DELETE_BOARD_PICTURE: (boardId: number) => `/boards/${boardId}/picture`,
   GET_BOARD_MESSAGES: (boardId: number) => `/boards/${boardId}/messages`,
+  BOARD_EVENTS: (boardId: number) => `/boards/${boardId}/events`,
   UPDATE_CANVAS_SETTINGS: (boardId: number) => `/boards/${boardId}/canvas-settings`,
 
   GET_USER_PROFILE: '/user/profile',
@@ -104,6 +105,7 @@ export const WEBSOCKET_DESTINATIONS = {
   DRAW_ACTION: '/app/board.drawAction',
   SEND_MESSAGE: '/app/chat.sendMessage',
   CANVAS_SETTINGS_UPDATE: '/app/board.canvasSettingsUpdate',
+  VIEWPORT: '/app/board.viewport',
 } as const;
 
 export const WEBSOCKET_TOPICS = {
@@ -28,4 +28,6 @@ export const WEBSOCKET_CONFIG = {
   TRANSACTION_TIMEOUT: import.meta.env.VITE_TRANSACTION_TIMEOUT
     ? parseInt(import.meta.env.VITE_TRANSACTION_TIMEOUT)
     : 30000,
+  // Ask the server for CBOR-encoded frames; it falls back to JSON if it does not agree
+  BINARY_FRAMES: import.meta.env.VITE_WEBSOCKET_BINARY_FRAMES !== 'false',
 } as const;
@@ -11,6 +11,7 @@ export const TIMING_CONSTANTS = {
   CHAT_MESSAGE_GROUPING_WINDOW: 300000,
 
   WEBSOCKET_CONNECTION_TIMEOUT: 10000,
+  BOARD_RESYNC_DELAY: 500,
 
   THEME_CHANGE_DETECTION_TIMEOUT: 5000,
 
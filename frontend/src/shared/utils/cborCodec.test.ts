@@ -0,0 +1,62 @@
+import { describe, expect, it } from 'vitest';
+
+import { decodeCbor, encodeCbor } from './cborCodec';
+
+const hex = (value: string) =>
+  new Uint8Array((value.match(/../g) ?? []).map((pair) => parseInt(pair, 16)));
+
+describe('cborCodec', () => {
+  it.each([
+    ['zero', 0, '00'],
+    ['a one-byte integer', 24, '1818'],
+    ['a negative integer', -500, '3901f3'],
+    ['a float32-exact number', 1.5, 'fa3fc00000'],
+    ['a float64 number', 0.1, 'fb3fb999999999999a'],
+    ['text', 'IETF', '6449455446'],
+    ['null', null, 'f6'],
+    ['true', true, 'f5'],
+  ])('encodes %s', (_label, value, expected) => {
+    expect(encodeCbor(value)).toEqual(hex(expected));
+  });
+
+  it('round-trips a board action without losing precision', () => {
+    const action = {
+      type: 'OBJECT_ADD',
+      instanceId: 'f3b2c1',
+      payload: {
+        tool: 'brush',
+        lineWidth: 3,
+        color: '#ff0000',
+        points: Array.from({ length: 50 }, (_, i) => ({ x: i / 7 / 50, y: -i / 13 / 50 })),
+        label: 'שלום',
+      },
+    };
+
+    expect(decodeCbor(encodeCbor(action))).toEqual(action);
+  });
+
+  it('is smaller than JSON for stroke point arrays', () => {
+    const points = Array.from({ length: 200 }, (_, i) => ({ x: i / 7 / 200, y: i / 13 / 200 }));
+    const json = new TextEncoder().encode(JSON.stringify({ points }));
+
+    expect(encodeCbor({ points }).length).toBeLessThan(json.length * 0.6);
+  });
+
+  it('drops undefined properties like JSON.stringify', () => {
+    expect(decodeCbor(encodeCbor({ a: 1, b: undefined }))).toEqual({ a: 1 });
+  });
+
+  it('decodes half floats, indefinite lengths and tags', () => {
+    expect(decodeCbor(hex('f93e00'))).toBe(1.5);
+    expect(decodeCbor(hex('7f61616162ff'))).toBe('ab');
+    expect(decodeCbor(hex('9f0102ff'))).toEqual([1, 2]);
+    expect(decodeCbor(hex('bf6161c102ff'))).toEqual({ a: 2 });
+  });
+
+  it.each([
+    ['truncated data', '19'],
+    ['trailing bytes', '0000'],
+  ])('rejects %s', (_label, value) => {
+    expect(() => decodeCbor(hex(value))).toThrow(RangeError);
+  });
+});
@@ -0,0 +1,349 @@
+// =============================================================================
+// CBOR CODEC
+// =============================================================================
+//
+// Minimal RFC 8949 encoder/decoder for the binary STOMP wire format. Covers the
+// subset the backend's Jackson CBOR mapper produces and the JSON data model the
+// client sends: maps, arrays, text, integers, floats, booleans and null.
+
+const textEncoder = new TextEncoder();
+const textDecoder = new TextDecoder();
+
+const MAJOR_UNSIGNED = 0;
+const MAJOR_NEGATIVE = 1;
+const MAJOR_BYTES = 2;
+const MAJOR_TEXT = 3;
+const MAJOR_ARRAY = 4;
+const MAJOR_MAP = 5;
+const MAJOR_TAG = 6;
+const MAJOR_SIMPLE = 7;
+
+const INDEFINITE = 31;
+const BREAK = 0xff;
+
+class CborWriter {
+  private buffer = new Uint8Array(256);
+  private view = new DataView(this.buffer.buffer);
+  private length = 0;
+
+  private ensure(bytes: number): void {
+    if (this.length + bytes <= this.buffer.length) {
+      return;
+    }
+    let capacity = this.buffer.length * 2;
+    while (capacity < this.length + bytes) {
+      capacity *= 2;
+    }
+    const next = new Uint8Array(capacity);
+    next.set(this.buffer.subarray(0, this.length));
+    this.buffer = next;
+    this.view = new DataView(next.buffer);
+  }
+
+  private byte(value: number): void {
+    this.ensure(1);
+    this.buffer[this.length++] = value;
+  }
+
+  private head(major: number, value: number): void {
+    const prefix = major << 5;
+    if (value < 24) {
+      this.byte(prefix | value);
+    } else if (value <= 0xff) {
+      this.byte(prefix | 24);
+      this.byte(value);
+    } else if (value <= 0xffff) {
+      this.byte(prefix | 25);
+      this.ensure(2);
+      this.view.setUint16(this.length, value);
+      this.length += 2;
+    } else if (value <= 0xffffffff) {
+      this.byte(prefix | 26);
+      this.ensure(4);
+      this.view.setUint32(this.length, value);
+      this.length += 4;
+    } else {
+      this.byte(prefix | 27);
+      this.ensure(8);
+      this.view.setBigUint64(this.length, BigInt(value));
+      this.length += 8;
+    }
+  }
+
+  private number(value: number): void {
+    if (Number.isSafeInteger(value)) {
+      if (value >= 0) {
+        this.head(MAJOR_UNSIGNED, value);
+      } else {
+        this.head(MAJOR_NEGATIVE, -1 - value);
+      }
+      return;
+    }
+    // Normalized canvas coordinates rarely fit a float32 exactly, but widths and angles often do
+    if (Math.fround(value) === value || Number.isNaN(value)) {
+      this.byte((MAJOR_SIMPLE << 5) | 26);
+      this.ensure(4);
+      this.view.setFloat32(this.length, value);
+      this.length += 4;
+    } else {
+      this.byte((MAJOR_SIMPLE << 5) | 27);
+      this.ensure(8);
+      this.view.setFloat64(this.length, value);
+      this.length += 8;
+    }
+  }
+
+  write(value: unknown): void {
+    if (value === null || value === undefined) {
+      this.byte((MAJOR_SIMPLE << 5) | 22);
+    } else if (value === false) {
+      this.byte((MAJOR_SIMPLE << 5) | 20);
+    } else if (value === true) {
+      this.byte((MAJOR_SIMPLE << 5) | 21);
+    } else if (typeof value === 'number') {
+      this.number(value);
+    } else if (typeof value === 'string') {
+      const bytes = textEncoder.encode(value);
+      this.head(MAJOR_TEXT, bytes.length);
+      this.ensure(bytes.length);
+      this.buffer.set(bytes, this.length);
+      this.length += bytes.length;
+    } else if (value instanceof Uint8Array) {
+      this.head(MAJOR_BYTES, value.length);
+      this.ensure(value.length);
+      this.buffer.set(value, this.length);
+      this.length += value.length;
+    } else if (Array.isArray(value)) {
+      this.head(MAJOR_ARRAY, value.length);
+      value.forEach((item) => this.write(item));
+    } else if (typeof value === 'object') {
+      // Match JSON.stringify: undefined-valued properties are left out
+      const entries = Object.entries(value).filter(([, item]) => item !== undefined);
+      this.head(MAJOR_MAP, entries.length);
+      entries.forEach(([key, item]) => {
+        this.write(key);
+        this.write(item);
+      });
+    } else {
+      throw new TypeError(`Cannot encode value of type ${typeof value} as CBOR`);
+    }
+  }
+
+  toBytes(): Uint8Array {
+    return this.buffer.slice(0, this.length);
+  }
+}
+
+class CborReader {
+  private readonly view: DataView;
+  private offset = 0;
+
+  constructor(private readonly bytes: Uint8Array) {
+    this.view = new DataView(bytes.buffer, bytes.byteOffset, bytes.byteLength);
+  }
+
+  private need(count: number): void {
+    if (this.offset + count > this.bytes.length) {
+      throw new RangeError('Unexpected end of CBOR data');
+    }
+  }
+
+  private argument(info: number): number {
+    if (info < 24) {
+      return info;
+    }
+    let value: number;
+    switch (info) {
+      case 24:
+        this.need(1);
+        value = this.view.getUint8(this.offset);
+        this.offset += 1;
+        return value;
+      case 25:
+        this.need(2);
+        value = this.view.getUint16(this.offset);
+        this.offset += 2;
+        return value;
+      case 26:
+        this.need(4);
+        value = this.view.getUint32(this.offset);
+        this.offset += 4;
+        return value;
+      case 27:
+        this.need(8);
+        value = Number(this.view.getBigUint64(this.offset));
+        this.offset += 8;
+        return value;
+      default:
+        throw new RangeError(`Invalid CBOR additional info ${info}`);
+    }
+  }
+
+  private float16(bits: number): number {
+    const exponent = (bits >> 10) & 0x1f;
+    const fraction = bits & 0x3ff;
+    const sign = bits & 0x8000 ? -1 : 1;
+    if (exponent === 0) {
+      return sign * fraction * 2 ** -24;
+    }
+    if (exponent === 0x1f) {
+      return fraction ? NaN : sign * Infinity;
+    }
+    return sign * (1 + fraction / 1024) * 2 ** (exponent - 15);
+  }
+
+  private isBreak(): boolean {
+    this.need(1);
+    if (this.bytes[this.offset] === BREAK) {
+      this.offset++;
+      return true;
+    }
+    return false;
+  }
+
+  private chunks(major: number, info: number): Uint8Array {
+    if (info !== INDEFINITE) {
+      const length = this.argument(info);
+      this.need(length);
+      const chunk = this.bytes.subarray(this.offset, this.offset + length);
+      this.offset += length;
+      return chunk;
+    }
+    const parts: Uint8Array[] = [];
+    while (!this.isBreak()) {
+      const initial = this.bytes[this.offset++];
+      if (initial >> 5 !== major) {
+        throw new RangeError('Mismatched chunk in indefinite-length CBOR string');
+      }
+      parts.push(this.chunks(major, initial & 0x1f));
+    }
+    const joined = new Uint8Array(parts.reduce((total, part) => total + part.length, 0));
+    let position = 0;
+    parts.forEach((part) => {
+      joined.set(part, position);
+      position += part.length;
+    });
+    return joined;
+  }
+
+  read(): unknown {
+    this.need(1);
+    const initial = this.bytes[this.offset++];
+    const major = initial >> 5;
+    const info = initial & 0x1f;
+
+    switch (major) {
+      case MAJOR_UNSIGNED:
+        return this.argument(info);
+      case MAJOR_NEGATIVE:
+        return -1 - this.argument(info);
+      case MAJOR_BYTES:
+        return this.chunks(major, info).slice();
+      case MAJOR_TEXT:
+        return textDecoder.decode(this.chunks(major, info));
+      case MAJOR_ARRAY: {
+        const items: unknown[] = [];
+        if (info === INDEFINITE) {
+          while (!this.isBreak()) {
+            items.push(this.read());
+          }
+        } else {
+          const length = this.argument(info);
+          for (let i = 0; i < length; i++) {
+            items.push(this.read());
+          }
+        }
+        return items;
+      }
+      case MAJOR_MAP: {
+        const map: Record<string, unknown> = {};
+        const entry = () => {
+          const key = this.read();
+          map[String(key)] = this.read();
+        };
+        if (info === INDEFINITE) {
+          while (!this.isBreak()) {
+            entry();
+          }
+        } else {
+          const length = this.argument(info);
+          for (let i = 0; i < length; i++) {
+            entry();
+          }
+        }
+        return map;
+      }
+      case MAJOR_TAG:
+        // Tags only annotate the following item; the plain value is what the app needs
+        this.argument(info);
+        return this.read();
+      default:
+        return this.simple(info);
+    }
+  }
+
+  private simple(info: number): unknown {
+    let value: number;
+    switch (info) {
+      case 20:
+        return false;
+      case 21:
+        return true;
+      case 22:
+      case 23:
+        return null;
+      case 25:
+        this.need(2);
+        value = this.float16(this.view.getUint16(this.offset));
+        this.offset += 2;
+        return value;
+      case 26:
+        this.need(4);
+        value = this.view.getFloat32(this.offset);
+        this.offset += 4;
+        return value;
+      case 27:
+        this.need(8);
+        value = this.view.getFloat64(this.offset);
+        this.offset += 8;
+        return value;
+      default:
+        throw new RangeError(`Unsupported CBOR simple value ${info}`);
+    }
+  }
+
+  finish(): void {
+    if (this.offset !== this.bytes.length) {
+      throw new RangeError(`Trailing bytes after CBOR item: ${this.bytes.length - this.offset}`);
+    }
+  }
+}
+
+/**
+ * Encodes a JSON-compatible value as CBOR. Integers use the shortest integer
+ * form, other numbers a float32 when that is lossless and a float64 otherwise,
+ * so decoding yields exactly the value that was encoded.
+ *
+ * @param value - Value to encode; undefined properties are dropped like JSON.stringify does
+ * @returns The encoded bytes
+ */
+export const encodeCbor = (value: unknown): Uint8Array => {
+  const writer = new CborWriter();
+  writer.write(value);
+  return writer.toBytes();
+};
+
+/**
+ * Decodes a single CBOR data item into plain JavaScript values, the same shape
+ * JSON.parse would produce for the equivalent JSON document.
+ *
+ * @param bytes - The encoded bytes, which must contain exactly one data item
+ * @returns The decoded value
+ * @throws {RangeError} When the data is truncated, malformed or has trailing bytes
+ */
+export const decodeCbor = (bytes: Uint8Array): unknown => {
+  const reader = new CborReader(bytes);
+  const value = reader.read();
+  reader.finish();
+  return value;
+};
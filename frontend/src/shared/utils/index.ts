@@ -1,4 +1,5 @@
 export * from './authUtils';
+export * from './cborCodec';
 export * from './ColorUtils';
 export * from './DateUtils';
 export * from './ErrorUtils';
@@ -6,6 +6,7 @@ interface ImportMetaEnv {
   readonly VITE_WEBSOCKET_MAX_MESSAGE_SIZE?: string;
   readonly VITE_WEBSOCKET_MAX_RECONNECTION_ATTEMPTS?: string;
   readonly VITE_WEBSOCKET_BASE_RECONNECTION_DELAY?: string;
+  readonly VITE_WEBSOCKET_BINARY_FRAMES?: string;
 }
 
 interface ImportMeta {